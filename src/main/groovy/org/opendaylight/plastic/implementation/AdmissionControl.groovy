@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.IntSupplier
+
+
+/**
+ * Optional admission layer in front of a worker so overload turns into fast, explicit
+ * rejections instead of unbounded queuing (and heap growth).
+ *
+ * Each translation is weighed by its payload size and has to acquire that many permits
+ * out of a fixed budget. Optionally, each (input, output) schema pair also has its own
+ * concurrency limit (a bulkhead) so one busy pair cannot take the whole budget. Callers
+ * that cannot get in wait up to a timeout (0 means reject right away), and no more than
+ * a fixed number of callers are allowed to wait at once.
+ *
+ * Permits are not handed out in arrival order, so small requests can slip past a waiting
+ * huge one, which then is bounded by its timeout.
+ */
+class AdmissionControl {
+
+    static final String ENABLED_PROPERTY = "plastic.admission.enabled"
+    static final String MAX_WEIGHT_PROPERTY = "plastic.admission.max-weight"
+    static final String CHARS_PER_WEIGHT_PROPERTY = "plastic.admission.chars-per-weight"
+    static final String TIMEOUT_MILLIS_PROPERTY = "plastic.admission.timeout-millis"
+    static final String MAX_QUEUED_PROPERTY = "plastic.admission.max-queued"
+    static final String PAIR_LIMIT_PROPERTY = "plastic.admission.pair-limit"
+
+    static class AdmissionRejected extends PlasticException {
+
+        VersionedSchema input
+        VersionedSchema output
+        String reason
+
+        AdmissionRejected(VersionedSchema input, VersionedSchema output, String reason) {
+            super("PLASTIC-ADMISSION-REJECTED", "The translation (in-> ${input}) (out-> ${output}) was not admitted: ${reason}")
+            this.input = input
+            this.output = output
+            this.reason = reason
+        }
+    }
+
+    // Returned on admission and must be closed when the translation is done
+    //
+    static class Ticket implements AutoCloseable {
+
+        private final AdmissionControl owner
+        private final List<Semaphore> pairLimits
+        private final int weight
+
+        private Ticket(AdmissionControl owner, List<Semaphore> pairLimits, int weight) {
+            this.owner = owner
+            this.pairLimits = pairLimits
+            this.weight = weight
+        }
+
+        int getWeight() {
+            weight
+        }
+
+        @Override
+        void close() {
+            if (owner != null)
+                owner.release(this)
+        }
+    }
+
+    private static final Ticket UNLIMITED = new Ticket(null, Collections.<Semaphore>emptyList(), 0)
+
+    final boolean enabled
+    final int maxWeight
+    final int charsPerWeight
+    final long timeoutMillis
+    final int maxQueued
+    final int pairLimit
+
+    private final Semaphore budget
+    private final ConcurrentMap<String,Semaphore> pairs = new ConcurrentHashMap<>()
+    private final AtomicInteger queued = new AtomicInteger(0)
+
+    private final TranslationMetrics metrics
+
+    AdmissionControl(AppContext appProps, TranslationMetrics metrics) {
+        this(Boolean.parseBoolean(appProps.getOrElse(ENABLED_PROPERTY, "false")),
+                Integer.parseInt(appProps.getOrElse(MAX_WEIGHT_PROPERTY, "64")),
+                Integer.parseInt(appProps.getOrElse(CHARS_PER_WEIGHT_PROPERTY, "65536")),
+                Long.parseLong(appProps.getOrElse(TIMEOUT_MILLIS_PROPERTY, "1000")),
+                Integer.parseInt(appProps.getOrElse(MAX_QUEUED_PROPERTY, "256")),
+                Integer.parseInt(appProps.getOrElse(PAIR_LIMIT_PROPERTY, "0")),
+                metrics)
+    }
+
+    AdmissionControl(boolean enabled, int maxWeight, int charsPerWeight, long timeoutMillis,
+                     int maxQueued, int pairLimit, TranslationMetrics metrics) {
+        this.enabled = enabled
+        this.maxWeight = Math.max(1, maxWeight)
+        this.charsPerWeight = Math.max(1, charsPerWeight)
+        this.timeoutMillis = Math.max(0, timeoutMillis)
+        this.maxQueued = Math.max(0, maxQueued)
+        this.pairLimit = Math.max(0, pairLimit)
+        this.budget = new Semaphore(this.maxWeight)
+        this.metrics = metrics
+
+        metrics.setQueueDepth({ queued.get() } as IntSupplier)
+    }
+
+    // A payload never weighs more than the whole budget, so any payload can get in eventually
+    //
+    int weigh(int payloadLength) {
+        (int) Math.min((long) maxWeight, 1L + payloadLength.intdiv(charsPerWeight))
+    }
+
+    Ticket admit(VersionedSchema input, VersionedSchema output, int payloadLength) {
+        admitMany(input, Collections.singletonList(output), payloadLength)
+    }
+
+    // A payload translated to several outputs at once is weighed once, but it takes a place in
+    // the bulkhead of each distinct schema pair. The pairs are taken in a fixed order so that
+    // two such callers never each hold a pair the other one is waiting for.
+    //
+    Ticket admitMany(VersionedSchema input, List<VersionedSchema> outputs, int payloadLength) {
+        if (!enabled)
+            return UNLIMITED
+
+        int weight = weigh(payloadLength)
+        List<Semaphore> held = new ArrayList<>()
+
+        boolean admitted = false
+        try {
+            if (pairLimit > 0) {
+                SortedMap<String,VersionedSchema> distinct = new TreeMap<>()
+                for (VersionedSchema output : outputs)
+                    distinct.put(pairKey(input, output), output)
+                for (VersionedSchema output : distinct.values()) {
+                    Semaphore pair = pairFor(input, output)
+                    if (!acquireOrWait(pair, 1, input, output))
+                        throw reject(input, output, "schema pair is at its limit of ${pairLimit} concurrent translations")
+                    held.add(pair)
+                }
+            }
+
+            VersionedSchema output = outputs.get(0)
+            if (!acquireOrWait(budget, weight, input, output))
+                throw reject(input, output, "needed weight ${weight} of ${maxWeight} was not available within ${timeoutMillis} msecs")
+            admitted = true
+        }
+        finally {
+            if (!admitted) {
+                for (Semaphore pair : held)
+                    pair.release()
+            }
+        }
+
+        new Ticket(this, held, weight)
+    }
+
+    private boolean acquireOrWait(Semaphore semaphore, int permits, VersionedSchema input, VersionedSchema output) {
+        if (semaphore == null || semaphore.tryAcquire(permits))
+            return true
+
+        if (timeoutMillis == 0)
+            return false
+
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet()
+            throw reject(input, output, "too many translations already waiting (${maxQueued})")
+        }
+
+        long started = metrics.start()
+        try {
+            return semaphore.tryAcquire(permits, timeoutMillis, TimeUnit.MILLISECONDS)
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt()
+            return false
+        }
+        finally {
+            queued.decrementAndGet()
+            metrics.record(TranslationMetrics.Phase.ADMIT, started)
+        }
+    }
+
+    private AdmissionRejected reject(VersionedSchema input, VersionedSchema output, String reason) {
+        metrics.recordRejection()
+        new AdmissionRejected(input, output, reason)
+    }
+
+    private static String pairKey(VersionedSchema input, VersionedSchema output) {
+        input.toString() + " -> " + output.toString()
+    }
+
+    private Semaphore pairFor(VersionedSchema input, VersionedSchema output) {
+        String key = pairKey(input, output)
+        Semaphore found = pairs.get(key)
+        if (found == null) {
+            Semaphore created = new Semaphore(pairLimit)
+            found = pairs.putIfAbsent(key, created)
+            if (found == null)
+                found = created
+        }
+        found
+    }
+
+    private void release(Ticket ticket) {
+        budget.release(ticket.weight)
+        for (Semaphore pair : ticket.pairLimits)
+            pair.release()
+    }
+
+    int queueDepth() {
+        queued.get()
+    }
+
+    int availableWeight() {
+        budget.availablePermits()
+    }
+}
@@ -22,20 +22,39 @@ package org.opendaylight.plastic.implementation
 abstract class Aggregator {
 
     static class MissingLeader extends PlasticException {
+
+        final String leader
+        final String candidate
+
         MissingLeader(String leader, String candidate) {
-            super("PLASTIC-AGG-MISS-LEAD",
-                    "The following payload is missing the format leader - expected: "
-                            + leader + " found: " + candidate)
+            super("PLASTIC-AGG-MISS-LEAD")
+            this.leader = leader
+            this.candidate = candidate
+        }
+
+        @Override
+        protected String describe() {
+            "The following payload is missing the format leader - expected: " +
+                    leader + " found: " + BoundedRenderer.truncate(candidate, BoundedRenderer.defaultMaxChars())
         }
     }
 
     static class MissingTrailer extends PlasticException {
+
+        final String trailer
+        final String candidate
+
         MissingTrailer(String trailer, String candidate) {
-            super("PLASTIC-AGG-MISS-TRAIL",
-                    "The following payload is missing the format trailer - expected: "
-                            + trailer + " found: "
-                            + (candidate.length() > trailer.length()) ?
-                            candidate.substring(candidate.length()-trailer.length(), candidate.length()) : candidate)
+            super("PLASTIC-AGG-MISS-TRAIL")
+            this.trailer = trailer
+            this.candidate = candidate
+        }
+
+        @Override
+        protected String describe() {
+            String found = (candidate.length() > trailer.length()) ?
+                    candidate.substring(candidate.length()-trailer.length(), candidate.length()) : candidate
+            "The following payload is missing the format trailer - expected: " + trailer + " found: " + found
         }
     }
 
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipException
+import java.util.zip.ZipFile
+import java.util.zip.ZipInputStream
+
+
+/**
+ * One opened artifact bundle: a zip whose top-level directories are the usual areas
+ * (schemas, morphers, classifiers) with the same contents as the loose directory trees.
+ *
+ * The zip's central directory is its table of contents, so opening a bundle is one file
+ * open and one read of that directory instead of a walk over thousands of small files.
+ * Entries are then read straight out of the archive on demand.
+ *
+ * As with loose files, subdirectories within an area are only for organization, so entries
+ * are known by their base names. Each entry also gets a path of the form
+ * "/abs/path/bundle.zip!/schemas/foo-1.0.json" that can stand in for a file path.
+ *
+ * The JDK keeps already opened archives by name and modification time, so a bundle rewritten
+ * within the same clock tick can be "opened" as the old archive. Opening a bundle therefore
+ * also streams through the file as it is now and checks that its entries and their CRCs are
+ * the ones in the table of contents, and that the table of contents is complete.
+ */
+class ArtifactBundle implements Closeable {
+
+    static final String SEPARATOR = "!/"
+
+    static class BadBundleException extends PlasticException {
+        BadBundleException(File file, Exception e) {
+            super("PLASTIC-BAD-BUNDLE", "Could not open artifact bundle ${file.absolutePath}", e)
+        }
+    }
+
+    static class MissingEntryException extends PlasticException {
+        MissingEntryException(String path) {
+            super("PLASTIC-BUNDLE-ENTRY", "The following is not an entry in the current artifact bundle: " + path)
+        }
+    }
+
+    static boolean isBundled(String path) {
+        path != null && path.contains(SEPARATOR)
+    }
+
+    final File file
+    final long modTime
+    final long len
+
+    private final ZipFile zip
+    private final String prefix
+    private final Map<String,Map<String,String>> areas = [:] // <area,<base-name,path>>
+    private final Map<String,ZipEntry> entries = [:] // <path,entry>
+
+    ArtifactBundle(File file) {
+        this.file = file.absoluteFile
+        this.modTime = file.lastModified()
+        this.len = file.length()
+        this.prefix = this.file.path + SEPARATOR
+
+        try {
+            this.zip = new ZipFile(this.file)
+        }
+        catch (ZipException e) {
+            throw new BadBundleException(file, e)
+        }
+        catch (IOException e) {
+            throw new BadBundleException(file, e)
+        }
+
+        try {
+            verify(this.file, zip)
+        }
+        catch (IOException e) {
+            zip.close()
+            throw new BadBundleException(file, e)
+        }
+
+        for (ZipEntry entry : Collections.list(zip.entries())) {
+            if (entry.isDirectory())
+                continue
+
+            String name = entry.name
+            int firstSlash = name.indexOf('/')
+            if (firstSlash <= 0)
+                continue
+
+            String area = name.substring(0, firstSlash)
+            String path = prefix + name
+
+            if (!areas.containsKey(area))
+                areas[area] = [:]
+            areas[area][name.substring(name.lastIndexOf('/') + 1)] = path
+            entries[path] = entry
+        }
+    }
+
+    // Size of a zip's end of central directory record (without its trailing comment) and the
+    // longest comment it can have
+    private static final int END_RECORD_SIZE = 22
+    private static final int MAX_COMMENT_SIZE = 0xFFFF
+
+    private static void verify(File file, ZipFile zip) throws IOException {
+        if (!hasEndRecord(file))
+            throw new ZipException("The archive has no end of central directory record")
+
+        Map<String,Long> indexed = [:]
+        for (ZipEntry entry : Collections.list(zip.entries())) {
+            if (!entry.isDirectory())
+                indexed[entry.name] = entry.crc
+        }
+
+        Map<String,Long> streamed = [:]
+        new ZipInputStream(new BufferedInputStream(new FileInputStream(file))).withStream { ZipInputStream strm ->
+            byte[] buffer = new byte[8192]
+            ZipEntry entry
+            while ((entry = strm.nextEntry) != null) {
+                while (strm.read(buffer) != -1) {}
+                if (!entry.isDirectory())
+                    streamed[entry.name] = entry.crc
+            }
+        }
+
+        if (streamed != indexed)
+            throw new ZipException("The archive's contents do not match its table of contents")
+    }
+
+    private static boolean hasEndRecord(File file) {
+        new RandomAccessFile(file, "r").withCloseable { RandomAccessFile raf ->
+            long length = raf.length()
+            if (length < END_RECORD_SIZE)
+                return false
+
+            int tailSize = (int) Math.min(length, (long) (END_RECORD_SIZE + MAX_COMMENT_SIZE))
+            byte[] tail = new byte[tailSize]
+            raf.seek(length - tailSize)
+            raf.readFully(tail)
+
+            for (int i = tailSize - END_RECORD_SIZE; i >= 0; i--) {
+                if (tail[i] == (byte) 0x50 && tail[i+1] == (byte) 0x4b && tail[i+2] == (byte) 0x05 && tail[i+3] == (byte) 0x06)
+                    return true
+            }
+            false
+        }
+    }
+
+    // True if the bundle file was changed (or removed) since it was opened
+    //
+    boolean isStale() {
+        file.lastModified() != modTime || file.length() != len
+    }
+
+    Set<String> areaNames() {
+        Collections.unmodifiableSet(areas.keySet())
+    }
+
+    // Paths of all the entries in the area by their base names
+    //
+    Map<String,String> files(String area) {
+        Map<String,String> found = areas[area]
+        found == null ? Collections.<String,String>emptyMap() : Collections.unmodifiableMap(found)
+    }
+
+    boolean contains(String path) {
+        entries.containsKey(path)
+    }
+
+    byte[] read(String path) {
+        ZipEntry entry = entries[path]
+        if (entry == null)
+            throw new MissingEntryException(path)
+
+        zip.getInputStream(entry).withStream { InputStream strm -> strm.bytes }
+    }
+
+    @Override
+    void close() {
+        zip.close()
+    }
+}
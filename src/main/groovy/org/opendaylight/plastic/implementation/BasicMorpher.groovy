@@ -20,6 +20,10 @@ class BasicMorpher implements InputsAndOutputs, Logging {
 
     Map properties = [:]
 
+    private boolean cacheable = true
+    private boolean incremental = true
+    private Set<String> readInputs = null
+
     BasicMorpher() {
         createLogger(BasicMorpher)
     }
@@ -53,6 +57,46 @@ class BasicMorpher implements InputsAndOutputs, Logging {
             optioned.addAll(variables)
     }
 
+    // Call this (usually from the constructor) if this morpher's results can differ for
+    // the same payload, so translations using it never come from the result cache
+    //
+    void notCacheable() {
+        cacheable = false
+    }
+
+    /* private */
+    boolean _isCacheable() {
+        cacheable
+    }
+
+    // Call this (usually from the constructor) if this morpher reads parts of the payload tree
+    // that are not bound to its input variables, so updates to a translation session using it
+    // always re-translate the whole payload
+    //
+    void needsWholePayload() {
+        incremental = false
+    }
+
+    /* private */
+    boolean _isIncremental() {
+        incremental
+    }
+
+    // Call this (usually from the constructor) with the input variables this morpher reads that
+    // are not used by its output schema, so the other inputs are not bound at all. Without it,
+    // a morpher that looks at its inputs is taken to read all of them. No names means none.
+    //
+    void readsInputs(String... variables) {
+        if (readInputs == null)
+            readInputs = new HashSet<>()
+        readInputs.addAll(variables)
+    }
+
+    /* private */
+    Set<String> _readsInputs() {
+        readInputs
+    }
+
     boolean isBound(String varName) {
         inputs.containsKey(varName) && inputs[varName] != null
     }
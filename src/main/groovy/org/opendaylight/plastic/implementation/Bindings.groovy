@@ -73,6 +73,15 @@ class Bindings {
         }
     }
 
+    // An independent copy, down to any list or map values, for translating the same bound
+    // inputs to more than one output
+    //
+    Bindings copy() {
+        Bindings result = new Bindings(new LinkedHashMap<String,Object>(DefaultsCache.shareable(bound)))
+        result.defaultUsed.addAll(defaultUsed)
+        result
+    }
+
     void defaultWasUsed(String varName) {
         defaultUsed.add(varName)
     }
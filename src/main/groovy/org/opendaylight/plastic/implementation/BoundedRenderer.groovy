@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.transform.CompileStatic
+import groovy.xml.QName
+
+
+/**
+ * Renders parsed trees (maps, lists, scalars and XML nodes) as text for diagnostics, but stops
+ * as soon as the given number of characters has been produced. The cost of showing a snippet of
+ * a 50 MB payload is then the cost of the snippet, instead of serializing the whole payload and
+ * throwing nearly all of it away.
+ *
+ * The text looks like JSON (or like XML for nodes) but is only meant for people to read.
+ */
+@CompileStatic
+class BoundedRenderer {
+
+    static final String MAX_CHARS_PROPERTY = "plastic.diagnostics.max-chars"
+    static final int DEFAULT_MAX_CHARS = 1024
+    static final String ELLIPSIS = "..."
+
+    // Exceptions are created all over without any application context, so this is a system property
+    //
+    private static final int maxChars = Integer.getInteger(MAX_CHARS_PROPERTY, DEFAULT_MAX_CHARS)
+
+    // The size limit for exception messages and other diagnostics that do not pick their own
+    //
+    static int defaultMaxChars() {
+        maxChars
+    }
+
+    // The first maxLen characters of the rendering of the given tree
+    //
+    static String render(Object tree, int maxLen) {
+        Output output = new Output(maxLen)
+        output.value(tree)
+        output.toString()
+    }
+
+    // Like render() but marks a cut off rendering with an ellipsis
+    //
+    static String snippet(Object tree, int maxLen) {
+        Output output = new Output(maxLen)
+        output.value(tree)
+        output.isFull() ? output.toString() + ELLIPSIS : output.toString()
+    }
+
+    static String snippet(Object tree) {
+        snippet(tree, maxChars)
+    }
+
+    static String truncate(String text, int maxLen) {
+        if (text == null || text.length() <= maxLen)
+            return text
+        text.substring(0, maxLen) + ELLIPSIS + " (${text.length()} chars)"
+    }
+
+    private static class Output {
+
+        private final StringBuilder text
+        private final int limit
+        private boolean full
+
+        Output(int limit) {
+            this.limit = Math.max(0, limit)
+            this.text = new StringBuilder(Math.min(this.limit, 256))
+        }
+
+        boolean isFull() {
+            full
+        }
+
+        void add(String s) {
+            if (full)
+                return
+            int room = limit - text.length()
+            if (s.length() > room) {
+                text.append(s, 0, room)
+                full = true
+            }
+            else {
+                text.append(s)
+            }
+        }
+
+        void add(char c) {
+            if (full)
+                return
+            if (text.length() >= limit)
+                full = true
+            else
+                text.append(c)
+        }
+
+        void value(Object obj) {
+            if (full)
+                return
+
+            if (obj == null)
+                add("null")
+            else if (obj instanceof String)
+                quoted((String) obj)
+            else if (obj instanceof Map)
+                map((Map) obj)
+            else if (obj instanceof List)
+                list((List) obj)
+            else if (obj instanceof Object[])
+                list(Arrays.asList((Object[]) obj))
+            else if (obj instanceof byte[])
+                add("<${((byte[]) obj).length} bytes>".toString())
+            else if (obj instanceof Node)
+                element((Node) obj)
+            else
+                add(obj.toString())
+        }
+
+        private void map(Map map) {
+            add('{' as char)
+            boolean first = true
+            for (Object o : map.entrySet()) {
+                if (full)
+                    return
+                Map.Entry entry = (Map.Entry) o
+                if (!first)
+                    add(", ")
+                first = false
+                quoted(String.valueOf(entry.key))
+                add(": ")
+                value(entry.value)
+            }
+            add('}' as char)
+        }
+
+        private void list(List list) {
+            add('[' as char)
+            for (int i = 0; i < list.size() && !full; i++) {
+                if (i > 0)
+                    add(", ")
+                value(list.get(i))
+            }
+            add(']' as char)
+        }
+
+        private void quoted(String s) {
+            add('"' as char)
+            escaped(s, false)
+            add('"' as char)
+        }
+
+        private void element(Node node) {
+            String name = nameOf(node.name())
+            add('<' as char)
+            add(name)
+            for (Object o : node.attributes().entrySet()) {
+                if (full)
+                    return
+                Map.Entry attribute = (Map.Entry) o
+                add(' ' as char)
+                add(nameOf(attribute.key))
+                add("=\"")
+                escaped(String.valueOf(attribute.value), true)
+                add('"' as char)
+            }
+
+            Object children = node.value()
+            if (children instanceof List && ((List) children).isEmpty()) {
+                add("/>")
+                return
+            }
+
+            add('>' as char)
+            if (children instanceof List) {
+                for (Object child : (List) children) {
+                    if (full)
+                        return
+                    if (child instanceof Node)
+                        element((Node) child)
+                    else
+                        escaped(String.valueOf(child), true)
+                }
+            }
+            else {
+                escaped(String.valueOf(children), true)
+            }
+            add("</")
+            add(name)
+            add('>' as char)
+        }
+
+        private static String nameOf(Object name) {
+            (name instanceof QName) ? ((QName) name).qualifiedName : String.valueOf(name)
+        }
+
+        // Char by char so that a huge string value is only ever partially copied
+        //
+        private void escaped(String s, boolean xml) {
+            for (int i = 0; i < s.length() && !full; i++) {
+                char c = s.charAt(i)
+                String replacement = xml ? xmlEscape(c) : jsonEscape(c)
+                if (replacement == null)
+                    add(c)
+                else
+                    add(replacement)
+            }
+        }
+
+        private static String xmlEscape(char c) {
+            if (c == ('<' as char)) return "&lt;"
+            if (c == ('>' as char)) return "&gt;"
+            if (c == ('&' as char)) return "&amp;"
+            if (c == ('"' as char)) return "&quot;"
+            null
+        }
+
+        private static String jsonEscape(char c) {
+            if (c == ('"' as char)) return "\\\""
+            if (c == ('\\' as char)) return "\\\\"
+            if (c == ('\n' as char)) return "\\n"
+            if (c == ('\r' as char)) return "\\r"
+            if (c == ('\t' as char)) return "\\t"
+            null
+        }
+
+        @Override
+        String toString() {
+            text.toString()
+        }
+    }
+}
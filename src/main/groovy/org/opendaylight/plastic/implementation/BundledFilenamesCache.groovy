@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import java.nio.charset.StandardCharsets
+
+
+/**
+ * Filenames cache for one area (like "schemas") of an artifact bundle. The paths it hands
+ * out name bundle entries, which the other methods here know how to read. Paths that are
+ * not in the bundle (like the bare names used when nothing was found) are still treated
+ * as loose files.
+ */
+class BundledFilenamesCache extends FilenamesCache {
+
+    private final LiveArtifactBundle bundle
+    private final String area
+    private volatile Map<String,String> files = Collections.emptyMap()
+
+    BundledFilenamesCache(LiveArtifactBundle bundle, String area) {
+        super()
+        this.bundle = bundle
+        this.area = area
+    }
+
+    @Override
+    String root() {
+        bundle.file.path
+    }
+
+    @Override
+    boolean isEmpty() {
+        files.isEmpty()
+    }
+
+    @Override
+    int fileCount() {
+        files.size()
+    }
+
+    @Override
+    int dirCount() {
+        0
+    }
+
+    @Override
+    void scan() {
+        files = bundle.get().files(area)
+    }
+
+    @Override
+    Collection<String> filePaths() {
+        Collections.unmodifiableCollection(files.values())
+    }
+
+    @Override
+    String getFile(String basename) {
+        files[basename]
+    }
+
+    @Override
+    String getDirectory(String basename) {
+        null
+    }
+
+    @Override
+    boolean exists(String path) {
+        ArtifactBundle.isBundled(path) ? bundle.get().contains(path) : super.exists(path)
+    }
+
+    @Override
+    byte[] read(String path) {
+        ArtifactBundle.isBundled(path) ? bundle.get().read(path) : super.read(path)
+    }
+
+    @Override
+    String absolutePath(String path) {
+        ArtifactBundle.isBundled(path) ? path : super.absolutePath(path)
+    }
+
+    // The parsed class is dropped by the parser once the bundle file changes
+    //
+    @Override
+    Class parseClass(GroovyClassParser parser, String path) {
+        if (!ArtifactBundle.isBundled(path))
+            return super.parseClass(parser, path)
+
+        String source = new String(read(path), StandardCharsets.UTF_8)
+        parser.parseClass(path, source, bundle.file)
+    }
+}
@@ -10,14 +10,18 @@
 
 package org.opendaylight.plastic.implementation
 
+import groovy.transform.CompileStatic
+import groovy.transform.PackageScope
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
+import java.util.concurrent.Callable
 import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.CountDownLatch
 import java.util.concurrent.ExecutorService
-import java.util.concurrent.Executors
-import java.util.concurrent.TimeUnit
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicInteger
 
 import static com.google.common.base.Preconditions.checkNotNull
@@ -68,6 +72,13 @@ class CartographyWorkerLogger {
         }
     }
 
+    void translatingToMany(VersionedSchema unresolvedInput, List<VersionedSchema> outputs, String payload, String defaults) {
+        if (logger.isDebugEnabled()) {
+            for (VersionedSchema output : outputs)
+                translating(unresolvedInput, output, payload, defaults)
+        }
+    }
+
     void foundParentPlan(TranslationPlanLite resolvedPlan) {
         if (logger.isDebugEnabled()) {
             TranslationPlanLite[] children = resolvedPlan.getParentRole().childPlans()
@@ -124,26 +135,35 @@ class CartographyWorkerLogger {
     }
 }
 
+@CompileStatic
 class CartographerWorker implements Cartography, AutoCloseable {
 
     private final CartographyWorkerLogger logger = new CartographyWorkerLogger()
 
-    private final Poller poller
-    private final ClassCacheClearer morphersClearer
-    private final ClassCacheClearer classifiersClearer
-    private final ClassCacheClearer libraryClearer
+    private final PlasticRuntime runtime
+    private final PlasticRuntime.Layer layer
+    private final boolean ownsRuntime
 
-    private final LibraryLoader libraryLoader
+    private final Poller poller
     private final ClassifierResolver classifierLocator
     private final CachingSchemaSource schemaSource
     private final PlanResolution resolver
 
-    // Using fixedThreadPool seemed to give better scheduling results than GPARS parallel array
-
-    private final int thds = new ThreadingEnv().numUsableThreads()
-    private final ExecutorService executor = Executors.newFixedThreadPool(thds)
+    private final int thds
+    private final ExecutorService executor
 
     private final AppContext appProps
+    private final TranslationMetrics metrics
+    private final DefaultsCache defaultsCache
+    private final TranslationResultCache resultCache
+    private final AdmissionControl admission
+    private final TranslationSessions sessions
+    private final StreamingReassembly streaming
+    private final SlowTranslationCapture capture
+    private final ChildDeduplication dedup
+
+    private WarmUp.Result lastWarmUp
+    private volatile boolean warmingUp
 
     CartographerWorker() {
         this(new SearchPath(), 0)
@@ -154,7 +174,7 @@ class CartographerWorker implements Cartography, AutoCloseable {
     }
 
     CartographerWorker(SearchPath path, int pollingInterval) {
-        this(new AppContext(path), new FilenamesCaches(path, "lib", "classifiers", "morphers", "schemas"), new Poller(pollingInterval), null, null)
+        this(new PlasticRuntime(path, pollingInterval), null, null, null, true)
     }
 
     CartographerWorker(FilenamesCaches caches, Poller poller, PlanResolution resolver, ClassifierResolver locator) {
@@ -162,49 +182,120 @@ class CartographerWorker implements Cartography, AutoCloseable {
     }
 
     CartographerWorker(AppContext appProps, FilenamesCaches caches, Poller poller, PlanResolution resolver, ClassifierResolver locator) {
+        this(new PlasticRuntime(appProps, caches, poller), null, resolver, locator, true)
+    }
 
-        this.appProps = appProps
-
-        logger.showThreading(thds)
+    // One of several workers on a shared runtime (see PlasticRuntime.newWorker())
+    //
+    @PackageScope
+    CartographerWorker(PlasticRuntime runtime, PlasticRuntime.Layer layer) {
+        this(runtime, layer, null, null, false)
+    }
 
-        GroovyClassLoader gcl = new GroovyClassLoader(getClass().getClassLoader())
+    private CartographerWorker(PlasticRuntime runtime, PlasticRuntime.Layer layer, PlanResolution resolver,
+                               ClassifierResolver locator, boolean ownsRuntime) {
+
+        this.runtime = runtime
+        this.layer = (layer == null) ? runtime.shared : layer
+        this.ownsRuntime = ownsRuntime
+        this.appProps = this.layer.appProps
+        this.thds = runtime.threads
+        this.executor = runtime.executor
+
+        this.metrics = new TranslationMetrics(appProps)
+        this.defaultsCache = new DefaultsCache(appProps)
+        this.resultCache = new TranslationResultCache(appProps, this.layer.caches)
+        this.admission = new AdmissionControl(appProps, metrics)
+        this.streaming = new StreamingReassembly(appProps, thds)
+        this.capture = new SlowTranslationCapture(appProps)
+        this.dedup = new ChildDeduplication(appProps)
+        metrics.setTracing(capture.enabled)
+        IteratorExpansion.configure(appProps)
+        if (metrics.isEnabled())
+            metrics.register()
 
-        this.schemaSource = new CachingSchemaSource(new SchemaLoader(caches.get("schemas")))
-        MorpherLoader mloader = new MorpherLoader(appProps, caches.get("morphers"), gcl)
-        this.resolver = (resolver == null) ? new PlanResolution(schemaSource, mloader) : resolver
+        logger.showThreading(thds)
 
-        ClassifierLoader cloader = new ClassifierLoader(appProps, caches.get("classifiers"), gcl)
-        this.libraryLoader = new LibraryLoader(caches.getRootFor("lib"), gcl)
-        this.classifierLocator = (locator == null) ? cloader : locator
+        this.schemaSource = this.layer.schemaSource
+        this.resolver = (resolver == null) ? new PlanResolution(schemaSource, this.layer.morpherLoader) : resolver
+        this.resolver.compiler = new TranslatorCompiler(appProps)
+        this.classifierLocator = (locator == null) ? this.layer.classifierLoader : locator
 
-        this.libraryClearer = new ClassCacheClearer(gcl, caches.getRootFor("lib"), { libraryLoader.clear() })
-        this.morphersClearer = new ClassCacheClearer(gcl, caches.getRootFor("morphers"))
-        this.classifiersClearer = new ClassCacheClearer(gcl, caches.getRootFor("classifiers"))
+        this.poller = runtime.poller
+        this.poller.attach(resultCache)
 
-        this.poller = poller
-        this.poller.register(caches)
-        this.poller.register(libraryClearer)
-        this.poller.register(morphersClearer)
-        this.poller.register(classifiersClearer)
-        this.poller.register(libraryLoader)
-        this.poller.register(schemaSource)
-        this.poller.register(mloader)
-        this.poller.register(cloader)
-        this.poller.start()
+        this.sessions = new TranslationSessions(appProps, this, this.resolver, classifierLocator, defaultsCache, metrics,
+                admission, capture, poller)
 
-        this.poller.waitTillInitialized()
+        if (WarmUp.isEnabled(appProps)) {
+            warmingUp = true // warm-up has to exercise the whole pipeline, so no result caching
+            try {
+                lastWarmUp = new WarmUp(appProps, this.layer.caches, schemaSource,
+                        this.layer.morpherLoader, this.layer.classifierLoader, this).run()
+            }
+            finally {
+                warmingUp = false
+            }
+            metrics.reset()
+        }
     }
 
+    // The runtime is only closed here if this worker made it
+    //
     @Override
     void close() {
-        poller.close()
+        poller.detach(resultCache)
+        if (!layer.is(runtime.shared))
+            runtime.release(layer)
+        metrics.unregister()
+        capture.dumpIfConfigured()
+
+        if (ownsRuntime)
+            runtime.close()
+    }
 
-        executor.shutdownNow();
-        try {
-            executor.awaitTermination(30, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            // do nothing
-        }
+    PlasticRuntime getRuntime() {
+        runtime
+    }
+
+    TranslationMetrics getMetrics() {
+        metrics
+    }
+
+    DefaultsCache getDefaultsCache() {
+        defaultsCache
+    }
+
+    TranslationResultCache getResultCache() {
+        resultCache
+    }
+
+    AdmissionControl getAdmission() {
+        admission
+    }
+
+    // Incremental re-translation of payloads that change a little at a time
+    //
+    TranslationSessions getSessions() {
+        sessions
+    }
+
+    // Recent slow translations, if capturing them was enabled
+    //
+    SlowTranslationCapture getCapture() {
+        capture
+    }
+
+    // Identical children of a parent translated once, if that was enabled
+    //
+    ChildDeduplication getDeduplication() {
+        dedup
+    }
+
+    // Outcome of the start-up warm-up, or null if it was not enabled
+    //
+    WarmUp.Result getLastWarmUp() {
+        lastWarmUp
     }
 
     @Override
@@ -220,86 +311,482 @@ class CartographerWorker implements Cartography, AutoCloseable {
         checkNotNull(payload)
         checkNotNull(defaults)
 
+        AdmissionControl.Ticket ticket = admission.admit(unresolvedInput, output, payload.length())
+        try {
+            return translateAdmitted(unresolvedInput, output, payload, defaults)
+        }
+        finally {
+            ticket.close()
+        }
+    }
+
+    private String translateAdmitted(VersionedSchema unresolvedInput, VersionedSchema output, String payload, String defaults) {
+
         poller.lock()
 
         logger.showConcurrency(poller.maxConcurrency())
         logger.translating(unresolvedInput, output, payload, defaults)
 
+        long[] trace = (capture.enabled && !warmingUp) ? metrics.beginTrace() : null
+        long translationStarted = metrics.start()
+        boolean failed = true
+
         try {
+            TranslationResultCache.Key cacheKey = warmingUp ? null : resultCache.keyFor(unresolvedInput, output, payload, defaults)
+            String cached = resultCache.get(cacheKey)
+            if (cached != null) {
+                failed = false
+                return cached
+            }
+
+            long started = translationStarted
+
             Schema parsedPayload = resolver.createSchema(unresolvedInput, payload)
-            Schema parsedDefaults = resolver.createSimilarSchema(unresolvedInput, defaults)
+            Schema parsedDefaults = defaultsCache.lookup(unresolvedInput, defaults, resolver)
+
+            metrics.record(TranslationMetrics.Phase.PARSE, started)
+            started = metrics.start()
 
             TranslationPlanLite plan = new TranslationPlanLite(unresolvedInput, output)
             TranslationPlanLite resolvedPlan = plan.resolve(classifierLocator, parsedPayload)
 
-            if (resolvedPlan.hasParentRole()) {
-                logger.foundParentPlan(resolvedPlan)
+            metrics.record(TranslationMetrics.Phase.CLASSIFY, started)
+
+            String emitted = translateResolved(resolvedPlan, parsedPayload, parsedDefaults, cacheKey)
+
+            failed = false
+            return emitted
+        }
+        finally {
+            metrics.recordTranslation(unresolvedInput, output, translationStarted, failed)
+            poller.unlock()
+            if (trace != null) {
+                metrics.endTrace()
+                capture.consider(unresolvedInput, output, payload, defaults, translationStarted, trace, failed)
+            }
+        }
+    }
+
+    @Override
+    List<String> translateToMany(VersionedSchema unresolvedInput, List<VersionedSchema> outputs, String payload, String defaults) {
+
+        checkNotNull(unresolvedInput)
+        checkNotNull(outputs)
+        checkNotNull(payload)
+        checkNotNull(defaults)
+
+        if (outputs.isEmpty())
+            return new ArrayList<String>()
+
+        // The payload is parsed once for all of the outputs, so it is weighed once, but each
+        // distinct schema pair has its bulkhead charged
+        AdmissionControl.Ticket ticket = admission.admitMany(unresolvedInput, outputs, payload.length())
+        try {
+            return translateToManyAdmitted(unresolvedInput, outputs, payload, defaults)
+        }
+        finally {
+            ticket.close()
+        }
+    }
+
+    @Override
+    void translateToStream(VersionedSchema unresolvedInput, VersionedSchema output, String payload, String defaults, Writer sink) {
 
-                ParentRole parentRole = resolvedPlan.getParentRole()
+        checkNotNull(unresolvedInput)
+        checkNotNull(output)
+        checkNotNull(payload)
+        checkNotNull(defaults)
+        checkNotNull(sink)
+
+        AdmissionControl.Ticket ticket = admission.admit(unresolvedInput, output, payload.length())
+        try {
+            translateToStreamAdmitted(unresolvedInput, output, payload, defaults, sink)
+        }
+        finally {
+            ticket.close()
+        }
+    }
 
-                TranslationPlanLite[] childPlans = parentRole.childPlans()
-                int numChildren = childPlans.length
+    // Anything but a parent plan whose children can be streamed is translated as usual and
+    // then written out in one go. There is no result caching of streamed results.
+    //
+    private void translateToStreamAdmitted(VersionedSchema unresolvedInput, VersionedSchema output, String payload, String defaults, Writer sink) {
 
-                CountDownLatch latch = new CountDownLatch(numChildren)
+        poller.lock()
 
-                List<Exception> thrown = Collections.synchronizedList(new ArrayList<Exception>())
-                Map<String,Schema> childResults = new ConcurrentHashMap<>()
+        logger.showConcurrency(poller.maxConcurrency())
+        logger.translating(unresolvedInput, output, payload, defaults)
 
-                CutOutTheMiddle filteredLogging = new CutOutTheMiddle(numChildren)
+        long[] trace = (capture.enabled && !warmingUp) ? metrics.beginTrace() : null
+        long translationStarted = metrics.start()
+        boolean failed = true
 
-                childPlans.each { TranslationPlanLite myChildPlan ->
+        try {
+            long started = translationStarted
 
-                    Runnable childTask = new Runnable() {
+            Schema parsedPayload = resolver.createSchema(unresolvedInput, payload)
+            Schema parsedDefaults = defaultsCache.lookup(unresolvedInput, defaults, resolver)
 
-                        @Override
-                        void run()
-                        {
-                            try {
-                                TranslationPlanLite resolvedChild = myChildPlan.resolve(classifierLocator)
-                                resolvedChild.validate()
-                                myChildPlan.validateLineage(resolvedChild)
+            metrics.record(TranslationMetrics.Phase.PARSE, started)
+            started = metrics.start()
 
-                                MapTask task = resolver.lookupMappings(resolvedChild)
-                                Schema childResult = task.map(resolvedChild.getChildRole().payload(), parsedDefaults)
+            TranslationPlanLite plan = new TranslationPlanLite(unresolvedInput, output)
+            TranslationPlanLite resolvedPlan = plan.resolve(classifierLocator, parsedPayload)
 
-                                if (filteredLogging.increment().should())
-                                    logger.completedChild(resolvedChild, childResult)
-                                String cname = resolvedChild.getChildRole().getName()
-                                if (childResults.containsKey(cname))
-                                    throw new PlasticException("PLASTIC-DUP-CHILD-KEY",
-                                            "The following child translation plan key is not unique ${cname}. This is a classifier logic error.")
-                                childResults.put(cname, childResult)
-                            }
-                            catch(Exception e) {
-                                thrown.add(e)
-                            }
-                            finally {
-                                latch.countDown()
-                            }
-                        }
-                    }
+            metrics.record(TranslationMetrics.Phase.CLASSIFY, started)
 
-                    executor.submit(childTask)
-                }
+            if (!resolvedPlan.hasParentRole() || !streamChildren(resolvedPlan, parsedPayload, parsedDefaults, sink))
+                sink.write(translateResolved(resolvedPlan, parsedPayload, parsedDefaults, null))
 
-                latch.await()
+            failed = false
+        }
+        finally {
+            metrics.recordTranslation(unresolvedInput, output, translationStarted, failed)
+            poller.unlock()
+            if (trace != null) {
+                metrics.endTrace()
+                capture.consider(unresolvedInput, output, payload, defaults, translationStarted, trace, failed)
+            }
+        }
+    }
+
+    // Maps the parent while its children are still claim checks, then writes its output with
+    // each claim check replaced by its child's result (see StreamingReassembly). Returns false,
+    // having written nothing, if the parent's output can't be streamed that way: when it is not
+    // JSON, when a child's output is not JSON, when a parent morpher could see the claim checks
+    // or when a claim check is missing from the parent's output in the expected form.
+    //
+    private boolean streamChildren(TranslationPlanLite resolvedPlan, Schema parsedPayload, Schema parsedDefaults, Writer sink) {
+        TranslationPlanLite[] childPlans = resolvedPlan.getParentRole().childPlans()
+
+        if (!isJson((VersionedSchema) resolvedPlan.lastSchema()))
+            return false
+        for (TranslationPlanLite childPlan : childPlans) {
+            if (!isJson((VersionedSchema) childPlan.lastSchema()))
+                return false
+        }
+
+        long started = metrics.start()
+
+        resolvedPlan.validate()
+        MapTask task = resolver.lookupMappings(resolvedPlan)
+        task.metrics = metrics
+
+        metrics.record(TranslationMetrics.Phase.LOOKUP, started)
+
+        for (Morpher morpher : task.plan.morphers) {
+            if (!(morpher instanceof NopMorpher))
+                return false
+        }
+
+        logger.foundParentPlan(resolvedPlan)
+        String skeleton = task.map(parsedPayload, parsedDefaults).emit()
+
+        List<StreamingReassembly.Placeholder> placeholders = StreamingReassembly.locate(skeleton, childPlans)
+        if (placeholders == null)
+            return false
+
+        started = metrics.start()
+        metrics.recordFanOut(childPlans.length)
+
+        streaming.write(skeleton, placeholders, sink, executor, new StreamingReassembly.ChildTranslator() {
+            @Override
+            String translate(TranslationPlanLite childPlan) {
+                TranslationPlanLite resolvedChild = childPlan.resolve(classifierLocator)
+                resolvedChild.validate()
+                childPlan.validateLineage(resolvedChild)
+
+                MapTask childTask = resolver.lookupMappings(resolvedChild)
+                childTask.metrics = metrics
+                childTask.map(resolvedChild.getChildRole().payload(), parsedDefaults).emit()
+            }
+        })
+
+        metrics.record(TranslationMetrics.Phase.CHILDREN, started)
+        true
+    }
+
+    private static boolean isJson(VersionedSchema schema) {
+        JsonFormat.FORMATKEY.equalsIgnoreCase(schema.type)
+    }
+
+    // An output whose classification came out as a parent plan has had its children carved
+    // out of the parsed payload it was classified against, so it keeps that payload to itself.
+    // The outputs classified against that same payload start over with a freshly parsed one.
+    // Everything else shares one parsed payload and has its inputs bound once per input schema.
+    //
+    private List<String> translateToManyAdmitted(VersionedSchema unresolvedInput, List<VersionedSchema> outputs, String payload, String defaults) {
+
+        poller.lock()
+
+        logger.showConcurrency(poller.maxConcurrency())
+        logger.translatingToMany(unresolvedInput, outputs, payload, defaults)
+
+        long translationStarted = metrics.start()
+        int numOutputs = outputs.size()
+        String[] results = new String[numOutputs]
+        List<TranslationResultCache.Key> cacheKeys = new ArrayList<TranslationResultCache.Key>(numOutputs)
+
+        try {
+            List<Integer> remaining = new ArrayList<>()
+            for (int i = 0; i < numOutputs; i++) {
+                cacheKeys.add(warmingUp ? null : resultCache.keyFor(unresolvedInput, outputs.get(i), payload, defaults))
+                results[i] = resultCache.get(cacheKeys.get(i))
+                if (results[i] == null)
+                    remaining.add(i)
+            }
+
+            if (remaining.isEmpty())
+                return Arrays.asList(results)
+
+            long started = metrics.start()
+            Schema parsedDefaults = defaultsCache.lookup(unresolvedInput, defaults, resolver)
+            metrics.record(TranslationMetrics.Phase.PARSE, started)
+
+            Schema sharedPayload = null
+            List<Integer> shared = new ArrayList<>()
+            List<TranslationPlanLite> sharedPlans = new ArrayList<>()
+
+            while (!remaining.isEmpty()) {
+                started = metrics.start()
+                sharedPayload = resolver.createSchema(unresolvedInput, payload)
+                metrics.record(TranslationMetrics.Phase.PARSE, started)
+
+                shared.clear()
+                sharedPlans.clear()
+                List<Integer> retries = new ArrayList<>()
+
+                for (int r = 0; r < remaining.size(); r++) {
+                    int i = remaining.get(r)
+
+                    started = metrics.start()
+                    TranslationPlanLite plan = new TranslationPlanLite(unresolvedInput, outputs.get(i))
+                    TranslationPlanLite resolvedPlan = plan.resolve(classifierLocator, sharedPayload)
+                    metrics.record(TranslationMetrics.Phase.CLASSIFY, started)
+
+                    if (resolvedPlan.hasParentRole()) {
+                        results[i] = translateResolved(resolvedPlan, sharedPayload, parsedDefaults, cacheKeys.get(i))
+                        retries.addAll(shared)
+                        retries.addAll(remaining.subList(r+1, remaining.size()))
+                        shared.clear()
+                        sharedPlans.clear()
+                        break
+                    }
 
-                if (!thrown.isEmpty()) {
-                    throw new RuntimeException("Child plans threw ${thrown.size()} exceptions - the first one is ...", thrown.get(0))
+                    shared.add(i)
+                    sharedPlans.add(resolvedPlan)
                 }
 
-                parsedPayload.inject(childResults)
-                logger.finalPayload(parsedPayload)
+                remaining = retries
             }
 
+            translateShared(shared, sharedPlans, sharedPayload, parsedDefaults, cacheKeys, results)
+
+            return Arrays.asList(results)
+        }
+        finally {
+            for (int i = 0; i < numOutputs; i++)
+                metrics.recordTranslation(unresolvedInput, outputs.get(i), translationStarted, results[i] == null)
+            poller.unlock()
+        }
+    }
+
+    // The inputs are bound once per input schema and each output maps over its own copy of
+    // those bindings, in parallel when there is more than one output. Outputs with a morpher
+    // that is handed the parsed payload get their own copy of it, taken before any output is
+    // mapped, since the morpher may change it.
+    //
+    private void translateShared(List<Integer> indices,
+                                 List<TranslationPlanLite> resolvedPlans,
+                                 Schema parsedPayload,
+                                 Schema parsedDefaults,
+                                 List<TranslationResultCache.Key> cacheKeys,
+                                 String[] results) {
+
+        List<MapTask> tasks = new ArrayList<>()
+        Map<VersionedSchema,Bindings> boundByInput = new HashMap<>()
+
+        for (TranslationPlanLite resolvedPlan : resolvedPlans) {
+            long started = metrics.start()
             resolvedPlan.validate()
             MapTask task = resolver.lookupMappings(resolvedPlan)
+            task.metrics = metrics
+            tasks.add(task)
+            metrics.record(TranslationMetrics.Phase.LOOKUP, started)
+
+            if (!boundByInput.containsKey(task.input.schema)) {
+                started = metrics.start()
+                boundByInput.put(task.input.schema, task.input.bindValues(parsedPayload))
+                metrics.record(TranslationMetrics.Phase.BIND, started)
+            }
+        }
+
+        List<Schema> payloads = new ArrayList<>()
+        for (MapTask task : tasks)
+            payloads.add(task.seesPayload() ? parsedPayload.clone() : parsedPayload)
+
+        List<Future<String>> pending = new ArrayList<>()
+        for (int t = 1; t < tasks.size(); t++) {
+            final MapTask task = tasks.get(t)
+            final Schema payload = payloads.get(t)
+            final TranslationPlanLite resolvedPlan = resolvedPlans.get(t)
+            final TranslationResultCache.Key cacheKey = cacheKeys.get(indices.get(t))
+            final Bindings bound = boundByInput.get(task.input.schema).copy()
+
+            pending.add(executor.submit(new Callable<String>() {
+                @Override
+                String call() {
+                    emit(task, task.mapBound(payload, parsedDefaults, bound), resolvedPlan, cacheKey)
+                }
+            }))
+        }
+
+        try {
+            if (!tasks.isEmpty()) {
+                MapTask first = tasks.get(0)
+                Bindings bound = boundByInput.get(first.input.schema).copy()
+                results[indices.get(0)] = emit(first, first.mapBound(payloads.get(0), parsedDefaults, bound), resolvedPlans.get(0), cacheKeys.get(indices.get(0)))
+            }
 
-            Schema parsedOutput = task.map(parsedPayload, parsedDefaults)
-            return parsedOutput.emit()
+            for (int t = 1; t < tasks.size(); t++) {
+                try {
+                    results[indices.get(t)] = pending.get(t-1).get()
+                }
+                catch (ExecutionException e) {
+                    Throwable cause = e.getCause()
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause
+                    throw new RuntimeException(cause)
+                }
+            }
         }
         finally {
-            poller.unlock()
+            for (Future<String> future : pending)
+                future.cancel(false)
+        }
+    }
+
+    // Runs any children of a parent plan, then maps the plan and emits its output
+    //
+    private String translateResolved(TranslationPlanLite resolvedPlan,
+                                     Schema parsedPayload,
+                                     Schema parsedDefaults,
+                                     TranslationResultCache.Key cacheKey) {
+        if (resolvedPlan.hasParentRole()) {
+            logger.foundParentPlan(resolvedPlan)
+            if (!translateChildren(resolvedPlan, parsedPayload, parsedDefaults))
+                cacheKey = null
+        }
+
+        long started = metrics.start()
+
+        resolvedPlan.validate()
+        MapTask task = resolver.lookupMappings(resolvedPlan)
+        task.metrics = metrics
+
+        metrics.record(TranslationMetrics.Phase.LOOKUP, started)
+
+        emit(task, task.map(parsedPayload, parsedDefaults), resolvedPlan, cacheKey)
+    }
+
+    private String emit(MapTask task, Schema parsedOutput, TranslationPlanLite resolvedPlan, TranslationResultCache.Key cacheKey) {
+        long started = metrics.start()
+        String emitted = parsedOutput.emit()
+        metrics.record(TranslationMetrics.Phase.EMIT, started)
+
+        if (task.isCacheable())
+            resultCache.put(cacheKey, resolvedPlan, emitted)
+
+        emitted
+    }
+
+    // Translates the children of a parent plan and puts their results back into the parent's
+    // payload. Returns whether all of the children can have their results cached.
+    //
+    private boolean translateChildren(TranslationPlanLite resolvedPlan, Schema parsedPayload, Schema parsedDefaults) {
+        long started = metrics.start()
+
+        ParentRole parentRole = resolvedPlan.getParentRole()
+
+        TranslationPlanLite[] childPlans = parentRole.childPlans()
+        int numChildren = childPlans.length
+        metrics.recordFanOut(numChildren)
+
+        CountDownLatch latch = new CountDownLatch(numChildren)
+
+        List<Exception> thrown = Collections.synchronizedList(new ArrayList<Exception>())
+        Map<String,Schema> childResults = new ConcurrentHashMap<>()
+        Map<String,ChildSlot> childSlots = new ConcurrentHashMap<>()
+
+        CutOutTheMiddle filteredLogging = new CutOutTheMiddle(numChildren)
+        AtomicBoolean childrenCacheable = new AtomicBoolean(true)
+
+        ChildDeduplication.Batch batch = dedup.newBatch()
+        ChildDeduplication.ChildTranslator translator = new ChildDeduplication.ChildTranslator() {
+            @Override
+            ChildDeduplication.Outcome translate(TranslationPlanLite resolvedChild) {
+                MapTask task = resolver.lookupMappings(resolvedChild)
+                task.metrics = metrics
+                Schema childResult = task.map(resolvedChild.getChildRole().payload(), parsedDefaults)
+                new ChildDeduplication.Outcome(childResult, task.isCacheable())
+            }
+        }
+
+        for (TranslationPlanLite childPlan : childPlans) {
+            final TranslationPlanLite myChildPlan = childPlan
+
+            Runnable childTask = new Runnable() {
+
+                @Override
+                void run()
+                {
+                    try {
+                        TranslationPlanLite resolvedChild = myChildPlan.resolve(classifierLocator)
+                        resolvedChild.validate()
+                        myChildPlan.validateLineage(resolvedChild)
+
+                        ChildDeduplication.Outcome outcome = (batch == null) ?
+                                translator.translate(resolvedChild) : batch.translate(resolvedChild, translator)
+                        Schema childResult = outcome.result
+                        if (!outcome.cacheable)
+                            childrenCacheable.set(false)
+
+                        if (filteredLogging.increment().should())
+                            logger.completedChild(resolvedChild, childResult)
+                        String cname = resolvedChild.getChildRole().getName()
+                        if (childResults.containsKey(cname))
+                            throw new PlasticException("PLASTIC-DUP-CHILD-KEY",
+                                    "The following child translation plan key is not unique ${cname}. This is a classifier logic error.")
+                        childResults.put(cname, childResult)
+                        ChildSlot slot = resolvedChild.getChildRole().slot()
+                        if (slot != null)
+                            childSlots.put(cname, slot)
+                    }
+                    catch(Exception e) {
+                        thrown.add(e)
+                    }
+                    finally {
+                        latch.countDown()
+                    }
+                }
+            }
+
+            executor.submit(childTask)
         }
+
+        latch.await()
+
+        if (!thrown.isEmpty()) {
+            throw new RuntimeException("Child plans threw ${thrown.size()} exceptions - the first one is ...", thrown.get(0))
+        }
+
+        Map<String,Schema> unspliced = ChildSlot.spliceAll(parsedPayload.parsed, childResults, childSlots)
+        if (!unspliced.isEmpty())
+            parsedPayload.inject(unspliced)
+        logger.finalPayload(parsedPayload)
+
+        metrics.record(TranslationMetrics.Phase.CHILDREN, started)
+
+        childrenCacheable.get()
     }
 }
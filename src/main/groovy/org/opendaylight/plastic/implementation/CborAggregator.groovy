@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+
+class CborAggregator extends Aggregator {
+
+    static class BadCborAggregate extends PlasticException {
+        BadCborAggregate(String reason) {
+            super("PLASTIC-BAD-CBOR-AGG", "Payload is not an aggregate of CBOR items: " + reason)
+        }
+    }
+
+    // An aggregate is an indefinite length array, so items can just be appended
+    //
+    static final String LEADER = CborFormat.asText([ (byte) CborCodec.INDEFINITE_ARRAY ] as byte[])
+    static final String TRAILER = CborFormat.asText([ (byte) CborCodec.BREAK ] as byte[])
+
+    CborAggregator() {
+        super(LEADER, "", TRAILER)
+    }
+
+    /**
+     * Payloads are one char per byte, so each item is the substring between the offsets
+     * where it starts and ends in the encoding.
+     *
+     * @param multiPayload
+     * @return list of CBOR items (as one char per byte strings)
+     */
+    @Override
+    protected List<String> realDeAggregate(String multiPayload) {
+        List<String> chunks = []
+
+        CborCodec.Decoder decoder = new CborCodec.Decoder(multiPayload.getBytes(CborFormat.CHARSET), 0)
+        try {
+            if (decoder.arrayHead() != -1)
+                throw new BadCborAggregate("expected an indefinite length array")
+
+            while (!decoder.atBreak()) {
+                int start = decoder.position
+                decoder.next()
+                chunks.add(multiPayload.substring(start, decoder.position))
+            }
+            decoder.skipBreak()
+        }
+        catch (CborCodec.MalformedCbor e) {
+            throw new BadCborAggregate(e.message)
+        }
+
+        if (decoder.position != multiPayload.length())
+            throw new BadCborAggregate("unexpected content after the aggregate")
+
+        chunks
+    }
+
+    @Override
+    String serializeDefaults(Map<String, Object> defaults) {
+        new CborFormat().serialize(defaults)
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.transform.CompileStatic
+
+import java.nio.charset.StandardCharsets
+
+
+/**
+ * Minimal CBOR (RFC 7049) encoder and decoder for the same trees that JsonFormat works with.
+ *
+ * Decoding produces the JSON tree types: Maps (in wire order), Lists, Strings, Booleans, nulls,
+ * Integer, Long, or BigInteger for integers (smallest that fits), and BigDecimal for decimal
+ * fractions and floats. Byte strings become base64url text and unknown tags are dropped, as the
+ * RFC suggests for CBOR-to-JSON conversion.
+ *
+ * Encoding always uses definite lengths and writes BigDecimals as decimal fractions (tag 4), so
+ * values survive a round trip exactly.
+ */
+@CompileStatic
+class CborCodec {
+
+    static class MalformedCbor extends RuntimeException {
+        MalformedCbor(String message) {
+            super(message)
+        }
+    }
+
+    static final int MAX_DEPTH = 512
+
+    static final int BREAK = 0xFF
+    static final int INDEFINITE_ARRAY = 0x9F
+
+    static final int MAJOR_UNSIGNED = 0
+    static final int MAJOR_NEGATIVE = 1
+    static final int MAJOR_BYTES = 2
+    static final int MAJOR_TEXT = 3
+    static final int MAJOR_ARRAY = 4
+    static final int MAJOR_MAP = 5
+    static final int MAJOR_TAG = 6
+    static final int MAJOR_SIMPLE = 7
+
+    static final int TAG_POSITIVE_BIGNUM = 2
+    static final int TAG_NEGATIVE_BIGNUM = 3
+    static final int TAG_DECIMAL_FRACTION = 4
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE)
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE)
+
+    static byte[] encode(Object tree) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256)
+        write(out, tree)
+        out.toByteArray()
+    }
+
+    static Object decode(byte[] bytes) {
+        Decoder decoder = new Decoder(bytes, 0)
+        Object result = decoder.next()
+        if (decoder.position != bytes.length)
+            throw new MalformedCbor("Unexpected content after the CBOR item at offset ${decoder.position}")
+        result
+    }
+
+    private static void write(ByteArrayOutputStream out, Object value) {
+        if (value == null) {
+            out.write(0xF6)
+        }
+        else if (value instanceof Map) {
+            Map map = (Map) value
+            writeHead(out, MAJOR_MAP, map.size())
+            for (Map.Entry entry : (Set<Map.Entry>) map.entrySet()) {
+                writeText(out, String.valueOf(entry.key))
+                write(out, entry.value)
+            }
+        }
+        else if (value instanceof Collection) {
+            Collection list = (Collection) value
+            writeHead(out, MAJOR_ARRAY, list.size())
+            for (Object item : list)
+                write(out, item)
+        }
+        else if (value instanceof CharSequence) {
+            writeText(out, value.toString())
+        }
+        else if (value instanceof Boolean) {
+            out.write(((Boolean) value) ? 0xF5 : 0xF4)
+        }
+        else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeLong(out, ((Number) value).longValue())
+        }
+        else if (value instanceof BigInteger) {
+            writeBigInteger(out, (BigInteger) value)
+        }
+        else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value
+            writeHead(out, MAJOR_TAG, TAG_DECIMAL_FRACTION)
+            writeHead(out, MAJOR_ARRAY, 2)
+            writeLong(out, -decimal.scale())
+            writeBigInteger(out, decimal.unscaledValue())
+        }
+        else if (value instanceof Number) {
+            out.write(0xFB)
+            writeFixed(out, Double.doubleToLongBits(((Number) value).doubleValue()), 8)
+        }
+        else {
+            writeText(out, value.toString())
+        }
+    }
+
+    private static void writeText(ByteArrayOutputStream out, String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8)
+        writeHead(out, MAJOR_TEXT, utf8.length)
+        out.write(utf8, 0, utf8.length)
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        if (value >= 0)
+            writeHead(out, MAJOR_UNSIGNED, value)
+        else
+            writeHead(out, MAJOR_NEGATIVE, -1L - value)
+    }
+
+    private static void writeBigInteger(ByteArrayOutputStream out, BigInteger value) {
+        if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0) {
+            writeLong(out, value.longValue())
+        }
+        else {
+            boolean negative = value.signum() < 0
+            byte[] magnitude = (negative ? BigInteger.ONE.negate().subtract(value) : value).toByteArray()
+            int skip = magnitude[0] == (byte) 0 ? 1 : 0
+            writeHead(out, MAJOR_TAG, negative ? TAG_NEGATIVE_BIGNUM : TAG_POSITIVE_BIGNUM)
+            writeHead(out, MAJOR_BYTES, magnitude.length - skip)
+            out.write(magnitude, skip, magnitude.length - skip)
+        }
+    }
+
+    private static void writeHead(ByteArrayOutputStream out, int major, long argument) {
+        int type = major << 5
+        if (argument < 24L) {
+            out.write(type | (int) argument)
+        }
+        else if (argument < 0x100L) {
+            out.write(type | 24)
+            out.write((int) argument)
+        }
+        else if (argument < 0x10000L) {
+            out.write(type | 25)
+            writeFixed(out, argument, 2)
+        }
+        else if (argument < 0x100000000L) {
+            out.write(type | 26)
+            writeFixed(out, argument, 4)
+        }
+        else {
+            out.write(type | 27)
+            writeFixed(out, argument, 8)
+        }
+    }
+
+    private static void writeFixed(ByteArrayOutputStream out, long value, int numBytes) {
+        for (int i = numBytes - 1; i >= 0; i--)
+            out.write((int) ((value >>> (8 * i)) & 0xFF))
+    }
+
+    // Walks one item at a time so callers can also find where each item ends
+    //
+    static class Decoder {
+
+        private final byte[] bytes
+        private int position
+        private int depth
+
+        Decoder(byte[] bytes, int position) {
+            this.bytes = bytes
+            this.position = position
+        }
+
+        int getPosition() {
+            position
+        }
+
+        boolean atBreak() {
+            position < bytes.length && (bytes[position] & 0xFF) == BREAK
+        }
+
+        void skipBreak() {
+            if (!atBreak())
+                throw new MalformedCbor("Expected a break at offset ${position}")
+            position++
+        }
+
+        // Reads the head of an array and returns its length (or -1 if indefinite)
+        //
+        int arrayHead() {
+            int initial = readByte()
+            if ((initial >> 5) != MAJOR_ARRAY)
+                throw new MalformedCbor("Expected an array at offset ${position - 1}")
+            (initial & 0x1F) == 31 ? -1 : (int) lengthOf(readArgument(initial & 0x1F))
+        }
+
+        Object next() {
+            if (++depth > MAX_DEPTH)
+                throw new MalformedCbor("CBOR nesting is deeper than ${MAX_DEPTH}")
+            try {
+                int initial = readByte()
+                int major = initial >> 5
+                int info = initial & 0x1F
+
+                switch (major) {
+                    case MAJOR_UNSIGNED:
+                        return unsigned(readArgument(info))
+                    case MAJOR_NEGATIVE:
+                        return negative(readArgument(info))
+                    case MAJOR_BYTES:
+                        return Base64.getUrlEncoder().withoutPadding().encodeToString(readChunks(MAJOR_BYTES, info))
+                    case MAJOR_TEXT:
+                        return new String(readChunks(MAJOR_TEXT, info), StandardCharsets.UTF_8)
+                    case MAJOR_ARRAY:
+                        return readArray(info)
+                    case MAJOR_MAP:
+                        return readMap(info)
+                    case MAJOR_TAG:
+                        return readTagged(readArgument(info))
+                    default:
+                        return readSimple(info)
+                }
+            }
+            finally {
+                depth--
+            }
+        }
+
+        private List readArray(int info) {
+            List<Object> list = new ArrayList<>()
+            if (info == 31) {
+                while (!atBreak())
+                    list.add(next())
+                skipBreak()
+            }
+            else {
+                long length = lengthOf(readArgument(info))
+                for (long i = 0; i < length; i++)
+                    list.add(next())
+            }
+            list
+        }
+
+        private Map readMap(int info) {
+            Map<String,Object> map = new LinkedHashMap<>()
+            if (info == 31) {
+                while (!atBreak())
+                    map.put(String.valueOf(next()), next())
+                skipBreak()
+            }
+            else {
+                long length = lengthOf(readArgument(info))
+                for (long i = 0; i < length; i++)
+                    map.put(String.valueOf(next()), next())
+            }
+            map
+        }
+
+        private Object readTagged(long tag) {
+            Object content = next()
+            switch (tag) {
+                case TAG_POSITIVE_BIGNUM:
+                    return narrowed(new BigInteger(1, bignumBytes(content)))
+                case TAG_NEGATIVE_BIGNUM:
+                    return narrowed(BigInteger.ONE.negate().subtract(new BigInteger(1, bignumBytes(content))))
+                case TAG_DECIMAL_FRACTION:
+                    if (!(content instanceof List) || ((List) content).size() != 2)
+                        throw new MalformedCbor("Decimal fraction must be an array of two integers")
+                    List pair = (List) content
+                    return new BigDecimal(asBigInteger(pair[1]), -asBigInteger(pair[0]).intValueExact())
+                default:
+                    return content
+            }
+        }
+
+        // The bignum content was already turned into base64url text by next()
+        //
+        private static byte[] bignumBytes(Object content) {
+            if (!(content instanceof String))
+                throw new MalformedCbor("Bignum must be a byte string")
+            Base64.getUrlDecoder().decode((String) content)
+        }
+
+        private static BigInteger asBigInteger(Object value) {
+            if (value instanceof BigInteger)
+                return (BigInteger) value
+            if (value instanceof Integer || value instanceof Long)
+                return BigInteger.valueOf(((Number) value).longValue())
+            throw new MalformedCbor("Expected an integer but found ${value}")
+        }
+
+        private Object readSimple(int info) {
+            switch (info) {
+                case 20:
+                    return Boolean.FALSE
+                case 21:
+                    return Boolean.TRUE
+                case 22:
+                case 23:
+                    return null
+                case 25:
+                    return asDecimal(halfToFloat((int) readFixed(2)))
+                case 26:
+                    return asDecimal(Float.intBitsToFloat((int) readFixed(4)))
+                case 27:
+                    return asDecimal(Double.longBitsToDouble(readFixed(8)))
+                default:
+                    throw new MalformedCbor("Unsupported CBOR simple value ${info} at offset ${position - 1}")
+            }
+        }
+
+        // JSON has no NaN or infinities, so those stay as plain doubles
+        //
+        private static Object asDecimal(double value) {
+            (Double.isNaN(value) || Double.isInfinite(value)) ? (Object) Double.valueOf(value) : (Object) new BigDecimal(Double.toString(value))
+        }
+
+        private static double halfToFloat(int half) {
+            int exponent = (half >> 10) & 0x1F
+            int mantissa = half & 0x3FF
+            double value
+            if (exponent == 0)
+                value = mantissa * Math.pow(2, -24)
+            else if (exponent != 31)
+                value = (mantissa + 1024) * Math.pow(2, exponent - 25)
+            else
+                value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN
+            (half & 0x8000) != 0 ? -value : value
+        }
+
+        private byte[] readChunks(int major, int info) {
+            if (info != 31)
+                return readBytes(lengthOf(readArgument(info)))
+
+            ByteArrayOutputStream chunks = new ByteArrayOutputStream()
+            while (!atBreak()) {
+                int initial = readByte()
+                if ((initial >> 5) != major || (initial & 0x1F) == 31)
+                    throw new MalformedCbor("Bad chunk in indefinite length string at offset ${position - 1}")
+                byte[] chunk = readBytes(lengthOf(readArgument(initial & 0x1F)))
+                chunks.write(chunk, 0, chunk.length)
+            }
+            skipBreak()
+            chunks.toByteArray()
+        }
+
+        private long readArgument(int info) {
+            if (info < 24)
+                return info
+            switch (info) {
+                case 24:
+                    return readFixed(1)
+                case 25:
+                    return readFixed(2)
+                case 26:
+                    return readFixed(4)
+                case 27:
+                    return readFixed(8)
+                default:
+                    throw new MalformedCbor("Unsupported additional information ${info} at offset ${position - 1}")
+            }
+        }
+
+        private long lengthOf(long argument) {
+            if (argument < 0 || argument > bytes.length - position)
+                throw new MalformedCbor("Length ${argument} runs past the end of the data at offset ${position}")
+            argument
+        }
+
+        private int readByte() {
+            if (position >= bytes.length)
+                throw new MalformedCbor("Unexpected end of CBOR data")
+            bytes[position++] & 0xFF
+        }
+
+        private long readFixed(int numBytes) {
+            if (numBytes > bytes.length - position)
+                throw new MalformedCbor("Unexpected end of CBOR data")
+            long value = 0
+            for (int i = 0; i < numBytes; i++)
+                value = (value << 8) | (bytes[position++] & 0xFF)
+            value
+        }
+
+        private byte[] readBytes(long length) {
+            byte[] result = Arrays.copyOfRange(bytes, position, position + (int) length)
+            position += (int) length
+            result
+        }
+
+        // Arguments are unsigned 64 bits, which a long only covers up to 2^63 - 1
+        //
+        private static Number unsigned(long argument) {
+            argument >= 0 ? narrowed(argument) : (Number) new BigInteger(Long.toUnsignedString(argument))
+        }
+
+        private static Number negative(long argument) {
+            argument >= 0 ? narrowed(-1L - argument) : (Number) BigInteger.ONE.negate().subtract(new BigInteger(Long.toUnsignedString(argument)))
+        }
+
+        private static Number narrowed(long value) {
+            (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) ? (Number) Integer.valueOf((int) value) : (Number) Long.valueOf(value)
+        }
+
+        private static Number narrowed(BigInteger value) {
+            value.bitLength() < 64 ? narrowed(value.longValue()) : (Number) value
+        }
+    }
+}
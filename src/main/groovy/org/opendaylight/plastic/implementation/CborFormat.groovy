@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import java.nio.charset.Charset
+import java.nio.charset.StandardCharsets
+
+
+/**
+ * Binary (CBOR) payloads for service-to-service hops, so neither side pays for JSON text.
+ *
+ * Schemas (and defaults) are still written as JSON and are recognized by their leading '{'
+ * or '['. Anything else is taken to be CBOR, whose top-level map or array always starts with
+ * a byte of 0x80 or more. Parsed trees are the same as for JSON, so binding and injection work
+ * unchanged.
+ *
+ * Payloads travel through the String based APIs with one char per byte (ISO-8859-1). Callers
+ * holding bytes should use asText() and asBytes() (or the same charset) to cross that boundary.
+ */
+class CborFormat implements Format {
+
+    static final String FORMATKEY = "cbor"
+    static final Charset CHARSET = StandardCharsets.ISO_8859_1
+
+    static final JsonFormat JsonFormatting = new JsonFormat()
+
+    @Override
+    String formatKey() {
+        return FORMATKEY
+    }
+
+    @Override
+    boolean matches(String key) {
+        return key && key.equalsIgnoreCase(FORMATKEY)
+    }
+
+    static String asText(byte[] cbor) {
+        new String(cbor, CHARSET)
+    }
+
+    static byte[] asBytes(String source) {
+        if (source == null)
+            return new byte[0]
+        isJsonText(source) ? source.getBytes() : source.getBytes(CHARSET)
+    }
+
+    private static boolean isJsonText(CharSequence chars) {
+        int i = firstNonBlank(chars)
+        i < chars.length() && isJsonStart((int) chars.charAt(i))
+    }
+
+    private static int firstNonBlank(CharSequence chars) {
+        int i = 0
+        while (i < chars.length() && isBlank((int) chars.charAt(i)))
+            i++
+        i
+    }
+
+    private static boolean isBlank(int ch) {
+        ch == 0x20 || ch == 0x09 || ch == 0x0A || ch == 0x0D
+    }
+
+    private static boolean isJsonStart(int ch) {
+        ch == 0x7B || ch == 0x5B
+    }
+
+    @Override
+    Object parse(InputStream strm) {
+        byte[] bytes = strm.bytes
+
+        int i = 0
+        while (i < bytes.length && isBlank(bytes[i] & 0xFF))
+            i++
+
+        if (i == bytes.length)
+            return [:] // support for empty defaults
+
+        if (isJsonStart(bytes[i] & 0xFF))
+            return JsonFormatting.parse(new ByteArrayInputStream(bytes))
+
+        try {
+            CborCodec.decode(bytes)
+        }
+        catch (CborCodec.MalformedCbor e) {
+            throw new VersionedSchemaParsed.MalformedException(FORMATKEY, e)
+        }
+        catch (ArithmeticException e) {
+            throw new VersionedSchemaParsed.MalformedException(FORMATKEY, e)
+        }
+    }
+
+    Object parse(String payload) {
+        parse(new ByteArrayInputStream(asBytes(payload)))
+    }
+
+    @Override
+    Object clone(Object original) {
+        JsonFormatting.clone(original)
+    }
+
+    @Override
+    String serialize(Object source) {
+        asText(CborCodec.encode(source))
+    }
+
+    @Override
+    Object deserialize(String source) {
+        return parse(source)
+    }
+
+    @Override
+    Aggregator createAggregator() {
+        return new CborAggregator()
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.atomic.LongAdder
+
+
+/**
+ * Translates identical children of one parent translation only once. Payloads like a list of
+ * hundreds of interfaces often repeat the same item many times, and each of those children
+ * resolves to the same plan. A child is fingerprinted by its resolved plan (schemas and
+ * morphers) and the structure of its carved-out payload. The first child with a given
+ * fingerprint is translated and every other child with it gets a clone of that result.
+ *
+ * Only children whose payload is a map or a list are fingerprinted. Children translated by a
+ * plan that is not cacheable (like one with a morpher that stamps the time) are translated on
+ * their own, as their results may differ. Nothing is shared between parent translations.
+ *
+ * Off unless plastic.children.dedup is set to true.
+ */
+@CompileStatic
+class ChildDeduplication {
+
+    static final String ENABLED_PROPERTY = "plastic.children.dedup"
+
+    // Translates one resolved child plan
+    //
+    static interface ChildTranslator {
+        Outcome translate(TranslationPlanLite resolvedChild)
+    }
+
+    static class Outcome {
+        final Schema result
+        final boolean cacheable
+
+        Outcome(Schema result, boolean cacheable) {
+            this.result = result
+            this.cacheable = cacheable
+        }
+    }
+
+    // The children of a single parent translation
+    //
+    class Batch {
+
+        private final ConcurrentHashMap<Fingerprint,CompletableFuture<Outcome>> firsts = new ConcurrentHashMap<>()
+
+        // The first child with a fingerprint is registered by the thread that then translates
+        // it, so any other child waiting for it is waiting on a running translation.
+        //
+        Outcome translate(TranslationPlanLite resolvedChild, ChildTranslator translator) {
+            Fingerprint key = Fingerprint.of(resolvedChild)
+            if (key == null) {
+                translated.increment()
+                return translator.translate(resolvedChild)
+            }
+
+            CompletableFuture<Outcome> mine = new CompletableFuture<>()
+            CompletableFuture<Outcome> first = firsts.putIfAbsent(key, mine)
+            if (first == null) {
+                try {
+                    translated.increment()
+                    Outcome outcome = translator.translate(resolvedChild)
+                    mine.complete(outcome)
+                    return outcome
+                }
+                catch (Throwable t) {
+                    mine.completeExceptionally(t)
+                    throw t
+                }
+            }
+
+            Outcome shared = await(first)
+            if (!shared.cacheable) {
+                translated.increment()
+                return translator.translate(resolvedChild)
+            }
+
+            reused.increment()
+            new Outcome(shared.result.clone(), true)
+        }
+    }
+
+    // A resolved child plan and its payload. The payload hash is computed once; a matching hash
+    // is confirmed by comparing the payloads themselves.
+    //
+    private static class Fingerprint {
+        final VersionedSchema input
+        final VersionedSchema output
+        final List<String> morphers
+        final Object payload
+        final int hash
+
+        private Fingerprint(TranslationPlanLite plan, Object payload) {
+            this.input = (VersionedSchema) plan.firstSchema()
+            this.output = (VersionedSchema) plan.lastSchema()
+            this.morphers = new ArrayList<String>((Collection<String>) plan.morphers())
+            this.payload = payload
+            this.hash = 31 * (31 * (31 * input.hashCode() + output.hashCode()) + morphers.hashCode()) + payload.hashCode()
+        }
+
+        static Fingerprint of(TranslationPlanLite resolvedChild) {
+            Object payload = resolvedChild.getChildRole().payload().parsed
+            (payload instanceof Map || payload instanceof List) ? new Fingerprint(resolvedChild, payload) : null
+        }
+
+        @Override
+        boolean equals(Object o) {
+            if (!(o instanceof Fingerprint))
+                return false
+            Fingerprint other = (Fingerprint) o
+            hash == other.hash && input.equals(other.input) && output.equals(other.output) &&
+                    morphers.equals(other.morphers) && payload.equals(other.payload)
+        }
+
+        @Override
+        int hashCode() {
+            hash
+        }
+    }
+
+    final boolean enabled
+
+    private final LongAdder reused = new LongAdder()
+    private final LongAdder translated = new LongAdder()
+
+    ChildDeduplication(AppContext appProps) {
+        this(Boolean.parseBoolean(appProps.getOrElse(ENABLED_PROPERTY, "false")))
+    }
+
+    ChildDeduplication(boolean enabled) {
+        this.enabled = enabled
+    }
+
+    // A batch for the children of one parent translation, or null if not enabled
+    //
+    Batch newBatch() {
+        enabled ? new Batch() : null
+    }
+
+    // Children that were given the result of an identical child
+    //
+    long getHits() {
+        reused.sum()
+    }
+
+    // Children that were translated
+    //
+    long getMisses() {
+        translated.sum()
+    }
+
+    double getHitRate() {
+        long found = reused.sum()
+        long total = found + translated.sum()
+        total == 0L ? 0.0d : (double) found / total
+    }
+
+    void reset() {
+        reused.reset()
+        translated.reset()
+    }
+
+    private static Outcome await(CompletableFuture<Outcome> future) {
+        try {
+            future.get()
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause()
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause
+            if (cause instanceof Error)
+                throw (Error) cause
+            throw new PlasticException("PLASTIC-DEDUP-CHILD", "Identical child translation failed: ${cause}", (Exception) cause)
+        }
+    }
+}
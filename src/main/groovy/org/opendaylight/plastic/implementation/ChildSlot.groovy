@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.transform.CompileStatic
+
+
+/**
+ * The list element that a claim check carved a child's branch out of (see ClaimCheck). When
+ * the children are done, their results are put straight back into their slots instead of
+ * being injected into the parent as variable values, which would walk the whole parent tree.
+ */
+@CompileStatic
+class ChildSlot {
+
+    final List container
+    final int index
+    final String placeholder
+
+    ChildSlot(List container, int index, String placeholder) {
+        this.container = container
+        this.index = index
+        this.placeholder = placeholder
+    }
+
+    boolean isHolding() {
+        index < container.size() && placeholder == container.get(index)
+    }
+
+    void splice(Object value) {
+        container.set(index, value)
+    }
+
+    // Splices each child result into its slot and returns the results that still have to be
+    // injected. Those are children without slots, results that are not collections (which the
+    // injector may only partially substitute), and slots that are no longer in the parent - like
+    // a claim check nested inside a branch that was later carved out for another child.
+    //
+    static Map<String,Schema> spliceAll(Object parent, Map<String,Schema> results, Map<String,ChildSlot> slots) {
+        Map<String,Schema> unspliced = new LinkedHashMap<>()
+        Map<String,ChildSlot> candidates = new LinkedHashMap<>()
+        Set<Object> containers = identitySet()
+
+        for (Map.Entry<String,Schema> entry : results.entrySet()) {
+            ChildSlot slot = slots.get(entry.key)
+            if (slot != null && isCollection(entry.value.parsed) && slot.isHolding()) {
+                candidates.put(entry.key, slot)
+                containers.add(slot.container)
+            }
+            else {
+                unspliced.put(entry.key, entry.value)
+            }
+        }
+
+        Set<Object> attached = reachable(parent, containers)
+
+        for (Map.Entry<String,ChildSlot> entry : candidates.entrySet()) {
+            if (attached.contains(entry.value.container))
+                entry.value.splice(results.get(entry.key).parsed)
+            else
+                unspliced.put(entry.key, results.get(entry.key))
+        }
+
+        unspliced
+    }
+
+    // Only the collections are visited, and the walk stops once every wanted container is found.
+    // The carved out branches are no longer in the parent, so this is mostly its skeleton.
+    //
+    private static Set<Object> reachable(Object root, Set<Object> wanted) {
+        Set<Object> found = identitySet()
+        if (wanted.isEmpty() || !isCollection(root))
+            return found
+
+        ArrayDeque<Object> pending = new ArrayDeque<>()
+        pending.push(root)
+
+        while (!pending.isEmpty() && found.size() < wanted.size()) {
+            Object here = pending.pop()
+            if (wanted.contains(here))
+                found.add(here)
+
+            Collection members = (here instanceof Map) ? ((Map) here).values() : (List) here
+            for (Object member : members) {
+                if (isCollection(member))
+                    pending.push(member)
+            }
+        }
+
+        found
+    }
+
+    private static Set<Object> identitySet() {
+        Collections.newSetFromMap(new IdentityHashMap<Object,Boolean>())
+    }
+
+    private static boolean isCollection(Object obj) {
+        (obj instanceof Map) || (obj instanceof List)
+    }
+}
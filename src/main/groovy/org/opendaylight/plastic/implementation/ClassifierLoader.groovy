@@ -49,19 +49,29 @@ class ClassifierLoader implements ClassifierResolver, Pollee {
         this(appProps, classifiers, gcl, Maps.newConcurrentMap())
     }
 
+    // Shares compiled classifiers with the other loaders given the same parser (see PlasticRuntime)
+    //
+    ClassifierLoader(AppContext appProps, FilenamesCache classifiers, GroovyClassParser gparser) {
+        this(appProps, classifiers, gparser, Maps.newConcurrentMap())
+    }
+
     @PackageScope
     ClassifierLoader(AppContext appProps, FilenamesCache classifiers, GroovyClassLoader gcl, Map<String,String> seen) {
+        this(appProps, classifiers, new GroovyClassParser(gcl), seen)
+    }
+
+    @PackageScope
+    ClassifierLoader(AppContext appProps, FilenamesCache classifiers, GroovyClassParser gparser, Map<String,String> seen) {
         this.appProps = appProps
         this.classifiers = classifiers
-        this.gcl = gcl
+        this.gcl = gparser.gcl
         this.seen = seen
-        this.gparser = new GroovyClassParser(gcl)
+        this.gparser = gparser
     }
 
     TranslationPlanLite resolve(TranslationPlanLite plan, Schema parsedPayload) {
         if (plan.isUnresolved()) {
             Classifier classifier = locateClassifier(plan)
-            addProperties(classifier)
             PlanningClassifier deluxe = wrap(classifier)
             plan = deluxe.classify(parsedPayload, plan)
         }
@@ -84,17 +94,22 @@ class ClassifierLoader implements ClassifierResolver, Pollee {
     }
 
     protected Classifier locateClassifier(TranslationPlanLite plan) {
-        String classifierName = plan.getClassifierName()
-        File classifierFile = locateClassifierFile(classifierName)
-        return asClassifier(classifierFile)
+        locateClassifier(plan.getClassifierName())
+    }
+
+    @PackageScope
+    Classifier locateClassifier(String classifierName) {
+        String classifierFile = locateClassifierFile(classifierName)
+        Classifier classifier = asClassifier(classifierFile)
+        addProperties(classifier)
+        classifier
     }
 
-    private File locateClassifierFile(String simpleName) {
+    private String locateClassifierFile(String simpleName) {
         String classifierFileName = computeName(simpleName)
-        File classifierFile = new File(classifierFileName)
-        if (!classifierFile.exists())
+        if (!classifiers.exists(classifierFileName))
             throw new ClassifierNotFoundException(simpleName, classifierFileName)
-        classifierFile
+        classifierFileName
     }
 
     private String computeName(String classifier) {
@@ -103,17 +118,17 @@ class ClassifierLoader implements ClassifierResolver, Pollee {
         result == null ? base : result
     }
 
-    private Classifier asClassifier(File classifierFile) {
-        Class clazz = gparser.parseClass(classifierFile)
+    private Classifier asClassifier(String classifierFile) {
+        Class clazz = classifiers.parseClass(gparser, classifierFile)
 
         String newKey = clazz.getName()
-        String newValue = classifierFile.absolutePath
+        String newValue = classifiers.absolutePath(classifierFile)
 
         boolean hasKey = seen.containsKey(newKey)
         boolean hasValue = hasKey && seen[newKey].equals(newValue)
 
         if ((!hasKey && hasValue) || (hasKey && !hasValue))
-            throw new DuplicateClassifierClassException(clazz, classifierFile)
+            throw new DuplicateClassifierClassException(clazz, new File(newValue))
 
         seen.put(newKey, newValue)
         Object classifierObj = clazz.newInstance()
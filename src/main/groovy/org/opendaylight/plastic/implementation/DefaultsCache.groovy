@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import com.google.common.cache.CacheStats
+import com.google.common.cache.Weigher
+import com.google.common.hash.HashCode
+import com.google.common.hash.HashFunction
+import com.google.common.hash.Hashing
+import groovy.transform.EqualsAndHashCode
+
+import java.nio.charset.StandardCharsets
+
+
+/**
+ * Bounded cache from defaults documents to their parsed and expanded form. Callers tend to
+ * send the same few defaults documents over and over, so this saves re-parsing them and
+ * re-expanding their indexed lists for every translation (and every child translation).
+ *
+ * Entries are keyed by the document format and a digest and length of its content, so a
+ * lookup does not compare whole documents and the cache does not keep a copy of each one.
+ * Entries are weighed by the length of that content. Only successful parses are cached, so bad defaults keep failing
+ * with their original exception.
+ */
+class DefaultsCache {
+
+    static final String MAX_CHARS_PROPERTY = "plastic.defaults-cache.max-chars"
+    static final String DEFAULT_MAX_CHARS = "4000000"
+
+    private static final HashFunction hasher = Hashing.murmur3_128()
+
+    @EqualsAndHashCode
+    static class Key {
+        final String type
+        final int length
+        final HashCode digest
+
+        Key(String type, String content) {
+            this.type = type
+            this.length = content.length()
+            this.digest = hasher.hashString(content, StandardCharsets.UTF_8)
+        }
+    }
+
+    private final Cache<Key,Schema> cache
+
+    DefaultsCache(AppContext appProps) {
+        this(Long.parseLong(appProps.getOrElse(MAX_CHARS_PROPERTY, DEFAULT_MAX_CHARS)))
+    }
+
+    DefaultsCache(long maxChars) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxChars)
+                .weigher(new Weigher<Key,Schema>() {
+                    @Override
+                    int weigh(Key key, Schema value) {
+                        key.length + 1
+                    }
+                })
+                .recordStats()
+                .build()
+    }
+
+    Schema lookup(VersionedSchema reference, String content, PlanResolution resolver) {
+        Key key = new Key(reference.type, content)
+
+        Schema found = cache.getIfPresent(key)
+        if (found == null) {
+            Schema parsed = resolver.createSimilarSchema(reference, content)
+            if (parsed != null) {
+                found = parsed.freezeDefaults()
+                cache.put(key, found)
+            }
+        }
+        found
+    }
+
+    long size() {
+        cache.size()
+    }
+
+    CacheStats stats() {
+        cache.stats()
+    }
+
+    void clear() {
+        cache.invalidateAll()
+    }
+
+    // The cached defaults are shared, but the values handed out end up in bindings that
+    // morphers are free to change, so any collection values are handed out as copies
+    //
+    static Map shareable(Map defaults) {
+        boolean hasCollections = false
+        for (Object v : defaults.values()) {
+            if (v instanceof Map || v instanceof List) {
+                hasCollections = true
+                break
+            }
+        }
+
+        if (!hasCollections)
+            return defaults
+
+        Map results = new LinkedHashMap(defaults.size())
+        defaults.each { k, v -> results.put(k, deepCopy(v)) }
+        results
+    }
+
+    private static Object deepCopy(Object object) {
+        if (object instanceof Map) {
+            Map result = new LinkedHashMap(((Map) object).size())
+            ((Map) object).each { k, v -> result.put(k, deepCopy(v)) }
+            return result
+        }
+        if (object instanceof List) {
+            List result = new ArrayList(((List) object).size())
+            ((List) object).each { v -> result.add(deepCopy(v)) }
+            return result
+        }
+        object
+    }
+}
@@ -59,6 +59,7 @@ class DirectoryMonitor {
             added + modified + deleted
         }
 
+        String parent()        { this.parent }
         Set<String> added ()   { this.added }
         Set<String> modified() { this.modified }
         Set<String> deleted()  { this.deleted }
@@ -43,6 +43,13 @@ class FilenamesCache {
         this.theRoot == null ? "" : this.theRoot.absolutePath
     }
 
+    // Everything that has to be watched to see changes to the files of this cache
+    //
+    List<String> roots() {
+        String root = root()
+        root ? [ root ] : []
+    }
+
     private boolean isValid(File f) {
         f != null && f.exists() && f.isDirectory()
     }
@@ -92,6 +99,12 @@ class FilenamesCache {
         }
     }
 
+    // Absolute paths of all the files found by the last scan
+    //
+    Collection<String> filePaths() {
+        Collections.unmodifiableCollection(files.values())
+    }
+
     String getFile(String basename) {
         files[basename]
     }
@@ -99,4 +112,23 @@ class FilenamesCache {
     String getDirectory(String basename) {
         dirs[basename]
     }
+
+    // The paths handed out above might not be loose files (see BundledFilenamesCache), so
+    // they should be checked, read, and compiled through these
+    //
+    boolean exists(String path) {
+        new File(path).exists()
+    }
+
+    byte[] read(String path) {
+        new File(path).bytes
+    }
+
+    String absolutePath(String path) {
+        new File(path).absolutePath
+    }
+
+    Class parseClass(GroovyClassParser parser, String path) {
+        parser.parseClass(new File(path))
+    }
 }
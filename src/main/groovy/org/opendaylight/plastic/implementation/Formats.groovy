@@ -12,7 +12,7 @@ package org.opendaylight.plastic.implementation
 
 class Formats {
 
-    static def KNOWNS = [new JsonFormat(), new XmlFormat(), new ChunkyJsonFormat() ]
+    static def KNOWNS = [new JsonFormat(), new XmlFormat(), new ChunkyJsonFormat(), new CborFormat() ]
 
     static class UnsupportedFormat extends PlasticException {
         String[] expected
@@ -106,6 +106,25 @@ class GroovyClassParser implements Pollee {
         }
     }
 
+    // For sources that are not loose files (like artifact bundle entries). The class is
+    // considered stale once the given file changes.
+    //
+    synchronized Class parseClass(String path, String source, File stampedBy) {
+        String key = path.toLowerCase()
+        FileStats previous = seenStats.get(key)
+        if (previous != null) {
+            return seenClasses.get(key)
+        }
+        else {
+            Class result = gcl.parseClass(source, path.substring(path.lastIndexOf('/') + 1)) // expensive
+            FileStats current = new FileStats(stampedBy)
+
+            seenStats.put(key, current)
+            seenClasses.put(key, result)
+            return result
+        }
+    }
+
     @Override
     void phase(int i) {
         resync()
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import com.google.gson.JsonParseException
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.google.gson.stream.JsonWriter
+import groovy.json.JsonOutput
+import groovy.transform.CompileStatic
+
+
+/**
+ * Backend built directly on Gson's streaming reader and writer, so there are no lazy maps to
+ * inflate and none of Gson's own object mapping (which turns every number into a Double).
+ *
+ * Gson is strict, while JsonSlurper has always let things like trailing commas through (and
+ * hand-written schemas have them), so anything Gson rejects gets a second try with the slurper.
+ */
+@CompileStatic
+class GsonJsonBackend implements JsonBackend {
+
+    static final String NAME = "gson"
+
+    static final String INDENT = "    "
+
+    @Override
+    String name() {
+        NAME
+    }
+
+    private final SlurperJsonBackend lax = new SlurperJsonBackend()
+
+    @Override
+    Object parse(InputStream strm) {
+        byte[] bytes = strm.bytes
+        try {
+            strictly(bytes)
+        }
+        catch (JsonBackend.ParseFailure e) {
+            try {
+                lax.parse(new ByteArrayInputStream(bytes))
+            }
+            catch (JsonBackend.ParseFailure ignored) {
+                throw e
+            }
+        }
+    }
+
+    private Object strictly(byte[] bytes) {
+        JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(bytes)))
+        try {
+            Object result = read(reader)
+            if (reader.peek() != JsonToken.END_DOCUMENT)
+                throw new JsonBackend.ParseFailure("Unexpected content after the JSON value at ${reader}", null)
+            result
+        }
+        catch (IOException e) {
+            throw new JsonBackend.ParseFailure(e.message, e)
+        }
+        catch (IllegalStateException e) {
+            throw new JsonBackend.ParseFailure(e.message, e)
+        }
+        catch (JsonParseException e) {
+            throw new JsonBackend.ParseFailure(e.message, e)
+        }
+        catch (NumberFormatException e) {
+            throw new JsonBackend.ParseFailure(e.message, e)
+        }
+    }
+
+    private Object read(JsonReader reader) {
+        switch (reader.peek()) {
+            case JsonToken.BEGIN_OBJECT:
+                // Members in document order, like JsonSlurper's maps
+                Map<String,Object> members = new LinkedHashMap<>()
+                reader.beginObject()
+                while (reader.hasNext()) {
+                    String name = reader.nextName()
+                    members.put(name, read(reader))
+                }
+                reader.endObject()
+                return members
+            case JsonToken.BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>()
+                reader.beginArray()
+                while (reader.hasNext())
+                    list.add(read(reader))
+                reader.endArray()
+                return list
+            case JsonToken.STRING:
+                return reader.nextString()
+            case JsonToken.NUMBER:
+                return asNumber(reader.nextString())
+            case JsonToken.BOOLEAN:
+                return reader.nextBoolean()
+            case JsonToken.NULL:
+                reader.nextNull()
+                return null
+            default:
+                throw new JsonBackend.ParseFailure("Unexpected JSON token ${reader.peek()} at ${reader}", null)
+        }
+    }
+
+    // Same number types as JsonSlurper, except that integers too big for a long are kept
+    // as BigIntegers instead of silently overflowing
+    //
+    static Number asNumber(String text) {
+        if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0)
+            return new BigDecimal(text)
+
+        int digits = text.startsWith("-") ? text.length() - 1 : text.length()
+        if (digits < 10)
+            return Integer.valueOf(text)
+        if (digits < 19)
+            return narrowed(Long.parseLong(text))
+
+        BigInteger big = new BigInteger(text)
+        big.bitLength() < 64 ? narrowed(big.longValue()) : big
+    }
+
+    private static Number narrowed(long value) {
+        (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) ? (Number) Integer.valueOf((int) value) : (Number) Long.valueOf(value)
+    }
+
+    @Override
+    String serialize(Object source) {
+        StringWriter result = new StringWriter()
+        JsonWriter writer = new JsonWriter(result)
+        writer.setIndent(INDENT)
+        writer.setSerializeNulls(true)
+        writer.setHtmlSafe(false)
+        write(writer, source)
+        writer.flush()
+        asciiOnly(result.toString())
+    }
+
+    // JsonBuilder escapes everything outside of ASCII, so the text survives any platform
+    // encoding. Only string values can have such characters, so this is safe to do after.
+    //
+    static String asciiOnly(String text) {
+        int i = 0
+        while (i < text.length() && text.charAt(i) < 128)
+            i++
+        if (i == text.length())
+            return text
+
+        StringBuilder sb = new StringBuilder(text.length() + 16)
+        sb.append(text, 0, i)
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i)
+            if (c < 128)
+                sb.append(c)
+            else
+                sb.append(String.format("\\u%04x", (int) c))
+        }
+        sb.toString()
+    }
+
+    // Morphers can put anything into the tree (GStrings being the usual), so values other
+    // than the plain tree types are written the way JsonBuilder would write them
+    //
+    private void write(JsonWriter writer, Object value) {
+        if (value == null) {
+            writer.nullValue()
+        }
+        else if (value instanceof Map) {
+            writer.beginObject()
+            for (Map.Entry entry : ((Map) value).entrySet()) {
+                writer.name(String.valueOf(entry.key))
+                write(writer, entry.value)
+            }
+            writer.endObject()
+        }
+        else if (value instanceof Collection) {
+            writer.beginArray()
+            for (Object v : (Collection) value)
+                write(writer, v)
+            writer.endArray()
+        }
+        else if (value instanceof CharSequence) {
+            writer.value(value.toString())
+        }
+        else if (value instanceof Boolean) {
+            writer.value((Boolean) value)
+        }
+        else if (value instanceof Number) {
+            writer.value((Number) value)
+        }
+        else {
+            writer.jsonValue(JsonOutput.toJson(value))
+        }
+    }
+}
@@ -26,14 +26,32 @@ import groovy.transform.CompileStatic
 class IterativeReplacement {
 
     static class CollectionExpectedException extends PlasticException {
+
+        final Object model
+
         CollectionExpectedException(Object model) {
-            super("PLASTIC-COLL-NEEDED", "The following model was not recognized as a map or list: "+model)
+            super("PLASTIC-COLL-NEEDED")
+            this.model = model
+        }
+
+        @Override
+        protected String describe() {
+            "The following model was not recognized as a map or list: " + BoundedRenderer.snippet(model)
         }
     }
 
     static class UnexpectedParentCollectionTypeException extends PlasticException {
+
+        final Object parent
+
         UnexpectedParentCollectionTypeException(Object parent) {
-            super("PLASTIC-WHAT-PAR-TYPE", "The following should have been a list or map but wasn't: "+parent)
+            super("PLASTIC-WHAT-PAR-TYPE")
+            this.parent = parent
+        }
+
+        @Override
+        protected String describe() {
+            "The following should have been a list or map but wasn't: " + BoundedRenderer.snippet(parent)
         }
     }
 
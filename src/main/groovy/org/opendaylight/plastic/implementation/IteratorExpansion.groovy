@@ -23,18 +23,58 @@ package org.opendaylight.plastic.implementation
 
 import groovy.transform.CompileStatic
 
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.RecursiveAction
+
 @CompileStatic
 class IteratorExpansion {
 
+    static final String PARALLEL_THRESHOLD_PROPERTY = "plastic.expansion.parallel-threshold"
+
+    // Number of members that one fork/join task expands before splitting its range
+    static final int CHUNK = 512
+
+    // Lists that expand into at least this many members are expanded in parallel (0 disables
+    // that). This is JVM-wide because expansions are created deep inside the parsed schemas.
+    //
+    static volatile int parallelThreshold = 0
+
+    // Only properties that set the threshold change it, so a worker without the property
+    // leaves alone the threshold of the other workers in the JVM
+    //
+    static void configure(AppContext appProps) {
+        String configured = appProps.getOrElse(PARALLEL_THRESHOLD_PROPERTY, null)
+        if (configured != null)
+            parallelThreshold = Integer.parseInt(configured)
+    }
+
     static class CollectionExpectedException extends PlasticException {
+
+        final Object model
+
         CollectionExpectedException(Object model) {
-            super("PLASTIC-COLL-NEEDED", "The following model was not recognized as a map or list: "+model)
+            super("PLASTIC-COLL-NEEDED")
+            this.model = model
+        }
+
+        @Override
+        protected String describe() {
+            "The following model was not recognized as a map or list: " + BoundedRenderer.snippet(model)
         }
     }
 
     static class UnexpectedParentCollectionTypeException extends PlasticException {
+
+        final Object parent
+
         UnexpectedParentCollectionTypeException(Object parent) {
-            super("PLASTIC-WHAT-PAR-TYPE", "The following should have been a list or map but wasn't: "+parent)
+            super("PLASTIC-WHAT-PAR-TYPE")
+            this.parent = parent
+        }
+
+        @Override
+        protected String describe() {
+            "The following should have been a list or map but wasn't: " + BoundedRenderer.snippet(parent)
         }
     }
 
@@ -48,6 +88,17 @@ class IteratorExpansion {
         }
     }
 
+    // What expanding one prototype for one iterator step produced, computed apart from
+    // (and possibly concurrently with) the others, then merged in iteration order
+    //
+    private static class Expanded {
+        Object member
+        boolean found
+        int uses
+        List<String> abandonedNames = []
+        List<List> abandonedParents = []
+    }
+
     private IteratorFlows flows
     private List<List> recursedParentLists = new ArrayList<>()
     private List<CollectionUsageInfo> recursedCollections = new ArrayList<>()
@@ -80,7 +131,10 @@ class IteratorExpansion {
                 prototypes.addAll(marked)
                 marked.clear()
 
-                while(!iterator.isDone()) {
+                if (parallelThreshold > 0 && !hasIteratedLists(prototypes)) {
+                    expandFlat(iterator, prototypes, marked)
+                }
+                else while(!iterator.isDone()) {
                     Map<String, String> specificVars = iterator.replaceables()
                     prototypes.each { member ->
 
@@ -237,9 +291,176 @@ class IteratorExpansion {
     }
 
     private void incrementUseCounts() {
+        incrementUseCounts(1)
+    }
+
+    private void incrementUseCounts(int times) {
         for (CollectionUsageInfo info : recursedCollections) {
-            info.uses++
+            info.uses += times
+        }
+    }
+
+    // If no list within the prototypes has its own iterator, then the expansion of each member
+    // only depends on its own iterator step (and not on nested iterators advancing in step)
+    //
+    private boolean hasIteratedLists(Object model) {
+        if (model instanceof List) {
+            for (Object member : (List) model) {
+                if (member instanceof List && flows.getOutputIterator((List) member).effectiveDimensions() > 0)
+                    return true
+                if (isCollection(member) && hasIteratedLists(member))
+                    return true
+            }
+        }
+        else if (model instanceof Map) {
+            for (Object value : ((Map) model).values()) {
+                if (isCollection(value) && hasIteratedLists(value instanceof List ? [value] : value))
+                    return true
+            }
+        }
+        false
+    }
+
+    // Same results as the general loop in _processModel() for lists without nested iterators,
+    // but each member is expanded on its own (in parallel for big enough lists) and the use
+    // counts, abandoned variables, and members are then applied in iteration order
+    //
+    private void expandFlat(Schemiterator iterator, List prototypes, List marked) {
+        List<Map<String,String>> steps = new ArrayList<>()
+        while (!iterator.isDone()) {
+            steps.add(iterator.replaceables())
+            iterator.increment()
+        }
+
+        int n = steps.size() * prototypes.size()
+        Expanded[] results = new Expanded[n]
+
+        if (n >= parallelThreshold) {
+            ForkJoinPool.commonPool().invoke(new ExpandChunk(this, steps, prototypes, marked, results, 0, n))
+        }
+        else {
+            for (int i = 0; i < n; i++)
+                results[i] = expandOne(steps, prototypes, marked, i)
+        }
+
+        for (Expanded result : results) {
+            if (isCollection(result.member)) {
+                if (result.found)
+                    incrementUseCounts()
+                if (result.uses > 0) {
+                    incrementUseCounts(result.uses)
+                    marked.add(result.member)
+                }
+            }
+            else if (result.uses > 0) {
+                marked.add(result.member)
+                incrementUseCounts()
+            }
+
+            for (int i = 0; i < result.abandonedNames.size(); i++)
+                abandonedLeafs.put(result.abandonedNames[i], result.abandonedParents[i])
+        }
+    }
+
+    private static class ExpandChunk extends RecursiveAction {
+
+        final IteratorExpansion owner
+        final List<Map<String,String>> steps
+        final List prototypes
+        final List marked
+        final Expanded[] results
+        final int from
+        final int to
+
+        ExpandChunk(IteratorExpansion owner, List<Map<String,String>> steps, List prototypes, List marked,
+                    Expanded[] results, int from, int to) {
+            this.owner = owner
+            this.steps = steps
+            this.prototypes = prototypes
+            this.marked = marked
+            this.results = results
+            this.from = from
+            this.to = to
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                for (int i = from; i < to; i++)
+                    results[i] = owner.expandOne(steps, prototypes, marked, i)
+            }
+            else {
+                int middle = (from + to) >>> 1
+                invokeAll(new ExpandChunk(owner, steps, prototypes, marked, results, from, middle),
+                          new ExpandChunk(owner, steps, prototypes, marked, results, middle, to))
+            }
+        }
+    }
+
+    // Only reads the flows (and the prototypes), so this is safe to call concurrently
+    //
+    private Expanded expandOne(List<Map<String,String>> steps, List prototypes, List marked, int index) {
+        Map<String,String> specificVars = steps[index.intdiv(prototypes.size())]
+        Object member = prototypes[index % prototypes.size()]
+
+        Expanded result = new Expanded()
+
+        if (isCollection(member)) {
+            Object cloned = deepCopy(member, new IdentityHashMap<List,List>())
+
+            Set<String> found = [] as Set
+            recursivelyReplace(cloned, specificVars, found)
+
+            result.member = cloned
+            result.found = !found.isEmpty()
+            result.uses = countUses(cloned, marked, result)
+        }
+        else {
+            String specific = member.toString()
+            for (Map.Entry<String, String> entry : specificVars) {
+                specific = replace(entry.key, entry.value, specific)
+            }
+
+            boolean abandon = Variables.isIndexed(specific) && Variables.isSingular(specific) &&
+                    !flows.isBound(Variables.unadorn(specific))
+
+            result.member = specific
+            result.uses = abandon ? 0 : 1
+        }
+
+        result
+    }
+
+    // Mirrors the leaf handling at the end of _processModel() for a clone without iterators
+    //
+    private int countUses(Object model, List parentList, Expanded result) {
+        int uses = 0
+        List nearestList = (model instanceof List) ? (List) model : parentList
+
+        for (Object obj : (model instanceof Map ? ((Map) model).values() : (List) model)) {
+            Object schemaValue = asValue(obj)
+
+            if (isCollection(schemaValue)) {
+                uses += countUses(schemaValue, nearestList, result)
+            }
+            else if (schemaValue instanceof String) {
+                Variables vars = new Variables((String) schemaValue)
+                Map<String, String> nameToRaws = vars.getNameToRawMapping()
+
+                for (String vName : vars.names()) {
+                    if (Variables.mightBeIndexed(vName)) {
+                        if (!Variables.isGenericIndexed(vName) && Variables.isIndexed(vName) && flows.isBound(Variables.unadorn(vName))) {
+                            uses++
+                        }
+                        else if (Variables.isGenericIndexed(vName) || Variables.isIndexed(vName)) {
+                            result.abandonedNames.add(nameToRaws.get(vName))
+                            result.abandonedParents.add(nearestList)
+                        }
+                    }
+                }
+            }
         }
+        uses
     }
 
     private static boolean isCollection(Object model) {
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+/**
+ * The engine that JsonFormat uses to turn text into trees and back.
+ *
+ * Every backend has to produce the same kind of tree: Maps (members in document order),
+ * Lists, Strings, Booleans, nulls, and numbers as Integer, Long, or BigInteger for integral
+ * values (smallest that fits) and BigDecimal for everything else. That is what JsonSlurper
+ * produces and what JsonFinderBinder and friends expect.
+ */
+interface JsonBackend {
+
+    static class ParseFailure extends RuntimeException {
+        ParseFailure(String message, Throwable cause) {
+            super(message, cause)
+        }
+    }
+
+    String name()
+
+    /**
+     * @param input stream of JSON text (platform default encoding)
+     * @return parsed tree (or throw ParseFailure)
+     */
+    Object parse(InputStream strm)
+
+    /**
+     * @param tree to serialize
+     * @return human-readable JSON text
+     */
+    String serialize(Object source)
+}
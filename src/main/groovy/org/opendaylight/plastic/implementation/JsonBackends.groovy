@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+
+/**
+ * The known JSON backends. The one used by JsonFormat is chosen with the system property
+ * plastic.json.backend (slurper or gson), since formats are shared by the whole JVM.
+ */
+class JsonBackends {
+
+    static final String BACKEND_PROPERTY = "plastic.json.backend"
+
+    static Logger logger = LoggerFactory.getLogger(JsonBackends)
+
+    static class UnknownBackend extends PlasticException {
+        UnknownBackend(String name) {
+            super("PLASTIC-UNKNOWN-JSON-BACKEND", "Unknown JSON backend ${name}, expected one of ${KNOWNS.keySet()}")
+        }
+    }
+
+    static final Map<String,JsonBackend> KNOWNS = [
+            (SlurperJsonBackend.NAME): new SlurperJsonBackend(),
+            (GsonJsonBackend.NAME): new GsonJsonBackend()
+    ]
+
+    static JsonBackend lookup(String name) {
+        JsonBackend found = KNOWNS[name.trim().toLowerCase()]
+        if (found == null)
+            throw new UnknownBackend(name)
+        found
+    }
+
+    // A bad name should not stop everything from working, so fall back to the default
+    //
+    static JsonBackend configured() {
+        String name = System.getProperty(BACKEND_PROPERTY, SlurperJsonBackend.NAME)
+        try {
+            lookup(name)
+        }
+        catch (UnknownBackend e) {
+            logger.error(e.message)
+            KNOWNS[SlurperJsonBackend.NAME]
+        }
+    }
+}
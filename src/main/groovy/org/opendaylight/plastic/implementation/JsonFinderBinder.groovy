@@ -44,6 +44,12 @@ class JsonFinderBinder {
     private static final Pattern LONEDOT_REGEX = ~/(?<!\\)\./
 
     Bindings process(Object model, Object payload) {
+        process(model, payload, Projection.EVERYTHING)
+    }
+
+    // Model paths without any variables kept by the projection are never looked up in the payload
+    //
+    Bindings process(Object model, Object payload, Projection projection) {
         Preconditions.checkNotNull(model)
         Preconditions.checkNotNull(payload)
 
@@ -51,6 +57,11 @@ class JsonFinderBinder {
         Map<String,Object> defaults = [:] // variable name to variable value
         buildPathsToVariables(model, pathVars, defaults)
 
+        if (!projection.isEverything()) {
+            pathVars = projected(pathVars, projection)
+            defaults = projection.narrowed(defaults)
+        }
+
         Map<String,Object> boundVars = fetchVarToValues(pathVars, payload)
 
         Bindings bindings = new Bindings(boundVars)
@@ -58,6 +69,16 @@ class JsonFinderBinder {
         bindings
     }
 
+    @PackageScope
+    static Map<String,VariablesFetcher> projected(Map<String,VariablesFetcher> pathVars, Projection projection) {
+        Map<String,VariablesFetcher> results = new LinkedHashMap<>()
+        for (Map.Entry<String,VariablesFetcher> entry : pathVars.entrySet()) {
+            if (projection.keepsAny(entry.value.names()))
+                results.put(entry.key, entry.value)
+        }
+        results
+    }
+
     void buildPathsToVariables(Object model, Map<String,VariablesFetcher> seenPaths, Map<String,Object> seenVars) {
         if (model instanceof Map) {
             pathsFromMap(model, seenPaths, seenVars, "")
@@ -275,7 +296,8 @@ class JsonFinderBinder {
         // representation of large integers as fixed point exponential format or
         // numeric 0 eventually being an empty string.
         //
-        private static Object nullPrimitiveOrCollection(Object value) {
+        @PackageScope
+        static Object nullPrimitiveOrCollection(Object value) {
             if (value == null)
                 return value
 
@@ -330,12 +352,107 @@ class JsonFinderBinder {
 
     @PackageScope
     void getPathValue(String path, Object payload, Recorder ifoundit) {
-        List<String> terms
+        getElementValue(splitPath(path), payload, ifoundit)
+    }
+
+    private static List<String> splitPath(String path) {
         if (path.contains("\\."))
-            terms = LONEDOT_REGEX.split(path, -2).collect { String s -> s.replace("\\.", ".") }
+            LONEDOT_REGEX.split(path, -2).collect { String s -> s.replace("\\.", ".") }
         else
-            terms = path.tokenize('.')
-        getElementValue(terms, payload, ifoundit)
+            path.tokenize('.')
+    }
+
+    // Incremental binding support: the model paths (keys of the map from buildPathsToVariables)
+    // that could see a change made at any of the given payload locations. A location is a list
+    // of keys from the payload root, where a list index can stand for any "[]" in a model path.
+    // A change above, at or below a model path affects it.
+    //
+    Set<String> pathsAffectedBy(Map<String,VariablesFetcher> pathVars, List<List<String>> changes) {
+        Set<String> affected = new LinkedHashSet<>()
+        for (String path : pathVars.keySet()) {
+            List<String> terms = splitPath(path)
+            for (List<String> change : changes) {
+                if (isPrefixRelated(terms, change)) {
+                    affected.add(path)
+                    break
+                }
+            }
+        }
+        affected
+    }
+
+    private static boolean isPrefixRelated(List<String> modelTerms, List<String> change) {
+        int len = Math.min(modelTerms.size(), change.size())
+        for (int i = 0; i < len; i++) {
+            String term = modelTerms.get(i)
+            String changed = change.get(i)
+            if (term != changed && !(term == '[]' && isListIndex(changed)))
+                return false
+        }
+        true
+    }
+
+    private static boolean isListIndex(String term) {
+        if (term == '-')
+            return true
+        for (int i = 0; i < term.length(); i++) {
+            if (!Character.isDigit(term.charAt(i)))
+                return false
+        }
+        !term.isEmpty()
+    }
+
+    // Incremental binding support: binds only the given model paths against the payload, keeping
+    // the previous bindings of everything else. Paths that share a variable with an affected path
+    // are bound again too, because their values (and iterator ranges) are recorded together. Any
+    // indexing is ignored when comparing variables, so ADD[*] and ADD[^][*] count as the same.
+    //
+    Map<String,Object> rebind(Map<String,VariablesFetcher> pathVars, Set<String> affected, Map<String,Object> previous, Object payload) {
+        Set<String> names = new HashSet<>()
+        Map<String,VariablesFetcher> rebinding = new LinkedHashMap<>()
+
+        boolean grew = true
+        while (grew) {
+            grew = false
+            for (Map.Entry<String,VariablesFetcher> entry : pathVars.entrySet()) {
+                if (rebinding.containsKey(entry.key))
+                    continue
+                List<String> fetched = entry.value.names().collect { String n -> unindexed(n) }
+                if (affected.contains(entry.key) || fetched.any { String n -> names.contains(n) }) {
+                    rebinding.put(entry.key, entry.value)
+                    names.addAll(fetched)
+                    grew = true
+                }
+            }
+        }
+
+        Map<String,Object> results = new LinkedHashMap<>()
+        for (Map.Entry<String,Object> entry : previous.entrySet()) {
+            if (!isBoundFrom(entry.key, names))
+                results.put(entry.key, entry.value)
+        }
+
+        results.putAll(fetchVarToValues(rebinding, payload))
+        results
+    }
+
+    // Bound names are either the variable name itself, an indexed form of it like "ADD[0]" or
+    // an iterator specification like "_[ADD[*]]"
+    //
+    private static boolean isBoundFrom(String boundName, Set<String> names) {
+        if (boundName.startsWith('_[') && boundName.endsWith(']')) {
+            for (String name : boundName.substring(2, boundName.length()-1).split(',')) {
+                if (names.contains(unindexed(name)))
+                    return true
+            }
+            return false
+        }
+        names.contains(unindexed(boundName))
+    }
+
+    private static String unindexed(String name) {
+        int bracket = name.indexOf('[')
+        bracket < 0 ? name : name.substring(0, bracket)
     }
 
     private void getElementValue(List<String> remainingPath, Object element, Recorder ifoundit) {
@@ -10,13 +10,13 @@
 
 package org.opendaylight.plastic.implementation
 
-import groovy.json.JsonBuilder
-import groovy.json.JsonException
-import groovy.json.JsonSlurper
+import groovy.transform.CompileStatic
+import org.codehaus.groovy.runtime.InvokerHelper
 
 import java.util.regex.Pattern
 
 
+@CompileStatic
 class JsonFormat implements Format {
 
     static class JSONParseException extends PlasticException {
@@ -29,6 +29,16 @@ class JsonFormat implements Format {
     static final Pattern beginningXml = Pattern.compile("^\\s*<");
     static final String FORMATKEY = "json"
 
+    final JsonBackend backend
+
+    JsonFormat() {
+        this(JsonBackends.configured())
+    }
+
+    JsonFormat(JsonBackend backend) {
+        this.backend = backend
+    }
+
     @Override
     String formatKey() {
         return FORMATKEY
@@ -45,30 +55,19 @@ class JsonFormat implements Format {
             strm = asStream("{}") // support for empty defaults
 
         try {
-            inflate(new JsonSlurper().parse(strm))
+            backend.parse(strm)
         }
-        catch(JsonException e)
+        catch(JsonBackend.ParseFailure e)
         {
             strm.reset()
             Scanner scanner = new Scanner(strm);
             if(scanner.findWithinHorizon(beginningXml,0)!=null)
                 throw new JSONParseException("Cannot parse XML as JSON")
 
-            throw new VersionedSchemaParsed.MalformedException(FORMATKEY, e)
+            throw new VersionedSchemaParsed.MalformedException(FORMATKEY, (Exception) (e.cause ?: e))
         }
     }
 
-    private Object inflate(Object object) {
-        // The "parsed" object is often a LazyMap which clones as the value NULL
-        // Just accessing any key will instantiate it (determined by looking at
-        // implementation of parsed.buildIfNeeded()
-
-        if (object instanceof Map)
-            object.containsKey("foobar")
-
-        object
-    }
-
     Object parse(String payload) {
         parse(asStream(payload))
     }
@@ -82,33 +81,33 @@ class JsonFormat implements Format {
         // the branches below that just return original are because they are immutable
 
         if (original instanceof Map) {
-            Map cloned = [:]
-            original.each { k,v ->
-                cloned[k] = clone(v)
+            Map cloned = new LinkedHashMap()
+            for (Map.Entry entry : (Set<Map.Entry>) ((Map) original).entrySet()) {
+                cloned.put(entry.key, clone(entry.value))
             }
             cloned
         }
         else if (original instanceof List) {
-            List cloned = []
-            original.each { e ->
+            List cloned = new ArrayList(((List) original).size())
+            for (Object e : (List) original) {
                 cloned.add(clone(e))
             }
             cloned
         }
         else if (original instanceof Integer) {
-            new Integer(original.intValue())
+            new Integer(((Integer) original).intValue())
         }
         else if (original instanceof BigDecimal) {
             original
         }
         else if (original instanceof Boolean) {
-            new Boolean(original.booleanValue())
+            new Boolean(((Boolean) original).booleanValue())
         }
         else if (original instanceof String) {
             original
         }
         else if (original instanceof Cloneable)
-            original.clone()
+            InvokerHelper.invokeMethod(original, "clone", null)
         else
             original.toString()
     }
@@ -132,7 +131,7 @@ class JsonFormat implements Format {
         if (source == null)
             return "null"
         else
-            new JsonBuilder(source).toPrettyString()
+            backend.serialize(source)
     }
 
     @Override
@@ -0,0 +1,436 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.transform.CompileStatic
+
+
+/**
+ * A JSON Patch (RFC 6902) over parsed JSON trees - the add, remove, replace, move, copy and
+ * test operations, applied in place, plus a structural diff that produces a patch from one tree
+ * to another. Locations are kept as lists of (unescaped) JSON Pointer tokens, which is also how
+ * translation sessions learn which parts of a payload changed.
+ *
+ * The diff compares lists member by member rather than looking for moved members, so inserting
+ * near the front of a long list gives a long patch. It is always correct, just not minimal.
+ */
+@CompileStatic
+class JsonPatch {
+
+    static class BadPatch extends PlasticException {
+        BadPatch(String msg) {
+            super("PLASTIC-BAD-PATCH", msg)
+        }
+    }
+
+    static class PatchFailed extends PlasticException {
+
+        String op
+        String path
+
+        PatchFailed(String op, String path, String why) {
+            super("PLASTIC-PATCH-FAILED", "Could not apply the JSON patch operation ${op} at (${path}): ${why}")
+            this.op = op
+            this.path = path
+        }
+    }
+
+    static class Operation {
+        final String op
+        final List<String> path
+        final List<String> from
+        final Object value
+
+        Operation(String op, List<String> path, List<String> from, Object value) {
+            this.op = op
+            this.path = path
+            this.from = from
+            this.value = value
+        }
+
+        Map asParsed() {
+            Map result = new LinkedHashMap()
+            result.put("op", op)
+            if (from != null)
+                result.put("from", pointer(from))
+            result.put("path", pointer(path))
+            if (op == ADD || op == REPLACE || op == TEST)
+                result.put("value", value)
+            result
+        }
+
+        @Override
+        String toString() {
+            asParsed().toString()
+        }
+    }
+
+    static final String ADD = "add"
+    static final String REMOVE = "remove"
+    static final String REPLACE = "replace"
+    static final String MOVE = "move"
+    static final String COPY = "copy"
+    static final String TEST = "test"
+
+    private static final JsonFormat format = new JsonFormat()
+
+    final List<Operation> operations
+
+    JsonPatch(List<Operation> operations) {
+        this.operations = operations
+    }
+
+    static JsonPatch parse(String text) {
+        Object parsed
+        try {
+            parsed = format.parse(text)
+        }
+        catch (PlasticException e) {
+            throw new BadPatch("The patch is not valid JSON: ${e.message}")
+        }
+        fromParsed(parsed)
+    }
+
+    static JsonPatch fromParsed(Object parsed) {
+        if (!(parsed instanceof List))
+            throw new BadPatch("A patch has to be a list of operations")
+
+        List<Operation> results = new ArrayList<>()
+        for (Object o : (List) parsed) {
+            if (!(o instanceof Map))
+                throw new BadPatch("A patch operation has to be an object: ${BoundedRenderer.snippet(o)}")
+            Map map = (Map) o
+            String op = required(map, "op")
+            List<String> path = tokens(required(map, "path"))
+            List<String> from = null
+            Object value = null
+
+            if (op == MOVE || op == COPY)
+                from = tokens(required(map, "from"))
+            else if (op == ADD || op == REPLACE || op == TEST) {
+                if (!map.containsKey("value"))
+                    throw new BadPatch("The patch operation ${op} needs a value: ${BoundedRenderer.snippet(map)}")
+                value = map.get("value")
+            }
+            else if (op != REMOVE)
+                throw new BadPatch("Unknown patch operation: ${op}")
+
+            results.add(new Operation(op, path, from, value))
+        }
+        new JsonPatch(results)
+    }
+
+    private static String required(Map map, String key) {
+        Object found = map.get(key)
+        if (!(found instanceof String))
+            throw new BadPatch("The patch operation needs a string for ${key}: ${BoundedRenderer.snippet(map)}")
+        (String) found
+    }
+
+    static List<String> tokens(String pointer) {
+        if (pointer.isEmpty())
+            return Collections.<String>emptyList()
+        if (!pointer.startsWith('/'))
+            throw new BadPatch("A JSON pointer has to start with a slash: ${pointer}")
+
+        List<String> results = new ArrayList<>()
+        for (String token : pointer.substring(1).split('/', -1))
+            results.add(token.replace("~1", "/").replace("~0", "~"))
+        results
+    }
+
+    static String pointer(List<String> tokens) {
+        StringBuilder sb = new StringBuilder()
+        for (String token : tokens) {
+            sb.append('/')
+            sb.append(token.replace("~", "~0").replace("/", "~1"))
+        }
+        sb.toString()
+    }
+
+    boolean isEmpty() {
+        operations.isEmpty()
+    }
+
+    List<Map> asParsed() {
+        List<Map> results = new ArrayList<>(operations.size())
+        for (Operation operation : operations)
+            results.add(operation.asParsed())
+        results
+    }
+
+    String emit() {
+        format.serialize(asParsed())
+    }
+
+    // The locations written to by this patch, with the source of any moves
+    //
+    List<List<String>> touched() {
+        List<List<String>> results = new ArrayList<>()
+        for (Operation operation : operations) {
+            if (operation.op == TEST)
+                continue
+            results.add(operation.path)
+            if (operation.op == MOVE)
+                results.add(operation.from)
+        }
+        results
+    }
+
+    /**
+     * Applies the operations in order to the given tree, changing it in place, and returns the
+     * resulting root (which is a different object if the patch replaced the whole document).
+     * If an operation fails the tree is left partly patched.
+     */
+    Object applyTo(Object root) {
+        for (Operation operation : operations) {
+            switch (operation.op) {
+                case ADD:
+                    root = add(root, operation, operation.path, operation.value)
+                    break
+                case REMOVE:
+                    remove(root, operation, operation.path)
+                    break
+                case REPLACE:
+                    root = replace(root, operation, operation.path, operation.value)
+                    break
+                case MOVE:
+                    if (isPrefix(operation.from, operation.path) && operation.from.size() < operation.path.size())
+                        throw failed(operation, "cannot move a value into one of its own children")
+                    Object moving = get(root, operation, operation.from)
+                    remove(root, operation, operation.from)
+                    root = add(root, operation, operation.path, moving)
+                    break
+                case COPY:
+                    root = add(root, operation, operation.path, deepCopy(get(root, operation, operation.from)))
+                    break
+                case TEST:
+                    if (!same(get(root, operation, operation.path), operation.value))
+                        throw failed(operation, "the value is not ${BoundedRenderer.snippet(operation.value)}")
+                    break
+            }
+        }
+        root
+    }
+
+    private static PatchFailed failed(Operation operation, String why) {
+        new PatchFailed(operation.op, pointer(operation.path), why)
+    }
+
+    private static boolean isPrefix(List<String> shorter, List<String> longer) {
+        shorter.size() <= longer.size() && longer.subList(0, shorter.size()) == shorter
+    }
+
+    private static Object parentOf(Object root, Operation operation, List<String> path) {
+        Object here = root
+        for (int i = 0; i < path.size()-1; i++)
+            here = child(here, operation, path.get(i))
+        here
+    }
+
+    private static Object child(Object container, Operation operation, String token) {
+        if (container instanceof Map) {
+            Map map = (Map) container
+            if (!map.containsKey(token))
+                throw failed(operation, "there is no member named ${token}")
+            return map.get(token)
+        }
+        if (container instanceof List) {
+            List list = (List) container
+            int index = index(operation, token, list.size()-1)
+            return list.get(index)
+        }
+        throw failed(operation, "there is no collection to find ${token} in")
+    }
+
+    private static int index(Operation operation, String token, int max) {
+        if (token.isEmpty() || !token.isInteger() || (token.length() > 1 && token.startsWith('0')))
+            throw failed(operation, "${token} is not a list index")
+        int index = Integer.parseInt(token)
+        if (index < 0 || index > max)
+            throw failed(operation, "the list index ${token} is out of range")
+        index
+    }
+
+    private static Object get(Object root, Operation operation, List<String> path) {
+        path.isEmpty() ? root : child(parentOf(root, operation, path), operation, path.get(path.size()-1))
+    }
+
+    private static Object add(Object root, Operation operation, List<String> path, Object value) {
+        if (path.isEmpty())
+            return value
+
+        Object parent = parentOf(root, operation, path)
+        String last = path.get(path.size()-1)
+
+        if (parent instanceof Map) {
+            ((Map) parent).put(last, value)
+        }
+        else if (parent instanceof List) {
+            List list = (List) parent
+            if (last == '-')
+                list.add(value)
+            else
+                list.add(index(operation, last, list.size()), value)
+        }
+        else {
+            throw failed(operation, "there is no collection to add ${last} to")
+        }
+        root
+    }
+
+    // In place, so that the members of a map keep their order
+    //
+    private static Object replace(Object root, Operation operation, List<String> path, Object value) {
+        if (path.isEmpty())
+            return value
+
+        Object parent = parentOf(root, operation, path)
+        String last = path.get(path.size()-1)
+
+        if (parent instanceof Map) {
+            Map map = (Map) parent
+            if (!map.containsKey(last))
+                throw failed(operation, "there is no member named ${last}")
+            map.put(last, value)
+        }
+        else if (parent instanceof List) {
+            List list = (List) parent
+            list.set(index(operation, last, list.size()-1), value)
+        }
+        else {
+            throw failed(operation, "there is no collection to replace ${last} in")
+        }
+        root
+    }
+
+    private static void remove(Object root, Operation operation, List<String> path) {
+        if (path.isEmpty())
+            return
+
+        Object parent = parentOf(root, operation, path)
+        String last = path.get(path.size()-1)
+
+        if (parent instanceof Map) {
+            Map map = (Map) parent
+            if (!map.containsKey(last))
+                throw failed(operation, "there is no member named ${last}")
+            map.remove(last)
+        }
+        else if (parent instanceof List) {
+            List list = (List) parent
+            list.remove(index(operation, last, list.size()-1))
+        }
+        else {
+            throw failed(operation, "there is no collection to remove ${last} from")
+        }
+    }
+
+    static Object deepCopy(Object value) {
+        if (value instanceof Map) {
+            Map result = new LinkedHashMap(((Map) value).size())
+            for (Map.Entry entry : (Set<Map.Entry>) ((Map) value).entrySet())
+                result.put(entry.key, deepCopy(entry.value))
+            return result
+        }
+        if (value instanceof List) {
+            List result = new ArrayList(((List) value).size())
+            for (Object member : (List) value)
+                result.add(deepCopy(member))
+            return result
+        }
+        value
+    }
+
+    // JSON equality, where numbers are equal by value whatever their parsed types are
+    //
+    static boolean same(Object a, Object b) {
+        if (a.is(b))
+            return true
+        if (a == null || b == null)
+            return false
+        if (a instanceof Number && b instanceof Number)
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString())) == 0
+        if (a instanceof Map && b instanceof Map) {
+            Map left = (Map) a
+            Map right = (Map) b
+            if (left.size() != right.size())
+                return false
+            for (Map.Entry entry : (Set<Map.Entry>) left.entrySet()) {
+                if (!right.containsKey(entry.key) || !same(entry.value, right.get(entry.key)))
+                    return false
+            }
+            return true
+        }
+        if (a instanceof List && b instanceof List) {
+            List left = (List) a
+            List right = (List) b
+            if (left.size() != right.size())
+                return false
+            for (int i = 0; i < left.size(); i++) {
+                if (!same(left.get(i), right.get(i)))
+                    return false
+            }
+            return true
+        }
+        if (a instanceof CharSequence && b instanceof CharSequence)
+            return a.toString() == b.toString()
+        a.equals(b)
+    }
+
+    /**
+     * A patch that turns the before tree into the after tree. Values in the patch are shared
+     * with the after tree, not copied.
+     */
+    static JsonPatch diff(Object before, Object after) {
+        List<Operation> results = new ArrayList<>()
+        diffInto(new ArrayList<String>(), before, after, results)
+        new JsonPatch(results)
+    }
+
+    private static void diffInto(List<String> path, Object before, Object after, List<Operation> results) {
+        if (before instanceof Map && after instanceof Map) {
+            Map left = (Map) before
+            Map right = (Map) after
+            for (Object key : left.keySet()) {
+                if (!right.containsKey(key))
+                    results.add(new Operation(REMOVE, extended(path, String.valueOf(key)), null, null))
+            }
+            for (Map.Entry entry : (Set<Map.Entry>) right.entrySet()) {
+                List<String> here = extended(path, String.valueOf(entry.key))
+                if (left.containsKey(entry.key))
+                    diffInto(here, left.get(entry.key), entry.value, results)
+                else
+                    results.add(new Operation(ADD, here, null, entry.value))
+            }
+        }
+        else if (before instanceof List && after instanceof List) {
+            List left = (List) before
+            List right = (List) after
+            int common = Math.min(left.size(), right.size())
+            for (int i = 0; i < common; i++)
+                diffInto(extended(path, String.valueOf(i)), left.get(i), right.get(i), results)
+            for (int i = common; i < right.size(); i++)
+                results.add(new Operation(ADD, extended(path, String.valueOf(i)), null, right.get(i)))
+            for (int i = left.size()-1; i >= common; i--)
+                results.add(new Operation(REMOVE, extended(path, String.valueOf(i)), null, null))
+        }
+        else if (!same(before, after)) {
+            results.add(new Operation(path.isEmpty() ? ADD : REPLACE, path, null, after))
+        }
+    }
+
+    private static List<String> extended(List<String> path, String token) {
+        List<String> result = new ArrayList<>(path.size()+1)
+        result.addAll(path)
+        result.add(token)
+        result
+    }
+}
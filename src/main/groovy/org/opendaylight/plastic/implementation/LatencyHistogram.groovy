@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * A lock-free histogram of non-negative longs (usually nanoseconds). Buckets are powers of two
+ * split into four sub-buckets, so any reported percentile is within 25% of the real value.
+ * Recording is a handful of atomic increments, so it is safe to use from the child thread pool.
+ */
+@CompileStatic
+class LatencyHistogram {
+
+    static class Snapshot {
+        final long count
+        final long sum
+        final long max
+        final long p50
+        final long p90
+        final long p99
+        final long p999
+
+        Snapshot(long count, long sum, long max, long p50, long p90, long p99, long p999) {
+            this.count = count
+            this.sum = sum
+            this.max = max
+            this.p50 = p50
+            this.p90 = p90
+            this.p99 = p99
+            this.p999 = p999
+        }
+
+        long getMean() {
+            count == 0 ? 0 : (long) (sum / count)
+        }
+
+        // Values are divided by the given scale (ie, 1000 to go from nanos to micros)
+        //
+        Map<String,Long> asMap(long scale) {
+            Map<String,Long> results = new LinkedHashMap<>()
+            results.put("count", count)
+            results.put("mean", (long) (getMean() / scale))
+            results.put("max", (long) (max / scale))
+            results.put("p50", (long) (p50 / scale))
+            results.put("p90", (long) (p90 / scale))
+            results.put("p99", (long) (p99 / scale))
+            results.put("p999", (long) (p999 / scale))
+            results
+        }
+
+        String toString() {
+            "[count:${count} mean:${mean} max:${max} p50:${p50} p90:${p90} p99:${p99}]"
+        }
+    }
+
+    private static final int SUBBITS = 2
+    private static final int SUBS = 1 << SUBBITS
+    private static final int BUCKETS = (64 - SUBBITS) * SUBS
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS)
+    private final LongAdder sum = new LongAdder()
+    private final AtomicLong max = new AtomicLong(0)
+
+    void record(long value) {
+        long v = value < 0 ? 0 : value
+        buckets.incrementAndGet(indexOf(v))
+        sum.add(v)
+
+        long seen = max.get()
+        while (v > seen && !max.compareAndSet(seen, v))
+            seen = max.get()
+    }
+
+    // Record the time since the given starting point (from System.nanoTime())
+    //
+    void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos)
+    }
+
+    long count() {
+        long total = 0
+        for (int i = 0; i < BUCKETS; i++)
+            total += buckets.get(i)
+        total
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            buckets.set(i, 0)
+        sum.reset()
+        max.set(0)
+    }
+
+    // Concurrent recording during a snapshot can make the values slightly inconsistent
+    // with each other, which is fine for monitoring purposes
+    //
+    Snapshot snapshot() {
+        long[] copy = new long[BUCKETS]
+        long total = 0
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = buckets.get(i)
+            total += copy[i]
+        }
+
+        new Snapshot(total, sum.sum(), max.get(),
+                percentile(copy, total, 0.50d),
+                percentile(copy, total, 0.90d),
+                percentile(copy, total, 0.99d),
+                percentile(copy, total, 0.999d))
+    }
+
+    private long percentile(long[] counts, long total, double fraction) {
+        if (total == 0)
+            return 0
+
+        long wanted = (long) Math.ceil(fraction * total)
+        long seen = 0
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i]
+            if (seen >= wanted)
+                return Math.min(upperBoundOf(i), max.get())
+        }
+        max.get()
+    }
+
+    static int indexOf(long value) {
+        if (value < SUBS)
+            return (int) value
+        int exponent = 63 - Long.numberOfLeadingZeros(value)
+        int sub = (int) ((value >> (exponent - SUBBITS)) & (SUBS - 1))
+        (exponent - SUBBITS + 1) * SUBS + sub
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUBS)
+            return index
+        int exponent = (int) (index / SUBS) + SUBBITS - 1
+        int sub = index % SUBS
+        long width = 1L << (exponent - SUBBITS)
+        long lower = ((long) (SUBS + sub)) << (exponent - SUBBITS)
+        lower + width - 1
+    }
+}
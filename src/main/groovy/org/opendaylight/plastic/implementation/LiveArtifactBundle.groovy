@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+
+/**
+ * The artifact bundle currently in use. A new bundle should be deployed by renaming it over
+ * the old one; refresh() then notices the change and swaps in the whole new bundle at once,
+ * so readers see either all old or all new artifacts.
+ *
+ * The replaced bundle is closed one swap later rather than immediately, so that reads that
+ * were already underway against it can finish.
+ */
+class LiveArtifactBundle {
+
+    static final String BUNDLE_PROPERTY = "plastic.bundle"
+
+    static final Logger logger = LoggerFactory.getLogger(LiveArtifactBundle)
+
+    // Returns null if no bundle is configured, in which case loose directories are used
+    //
+    static LiveArtifactBundle configured(AppContext appProps, SearchPath path) {
+        String name = appProps.getOrElse(BUNDLE_PROPERTY, "").trim()
+        if (name.isEmpty())
+            return null
+
+        File file = new File(name)
+        new LiveArtifactBundle(file.isAbsolute() ? file : new File(path.find(name)))
+    }
+
+    final File file
+
+    private volatile ArtifactBundle current
+    private ArtifactBundle retired
+
+    LiveArtifactBundle(File file) {
+        this.file = file.absoluteFile
+        this.current = new ArtifactBundle(this.file)
+    }
+
+    ArtifactBundle get() {
+        current
+    }
+
+    // Returns true if a changed bundle was swapped in
+    //
+    synchronized boolean refresh() {
+        if (!current.isStale())
+            return false
+
+        ArtifactBundle replacement
+        try {
+            replacement = new ArtifactBundle(file)
+        }
+        catch (ArtifactBundle.BadBundleException e) {
+            logger.warn("Keeping the current artifact bundle because its replacement is unusable", e)
+            return false
+        }
+
+        if (retired != null)
+            retired.close()
+        retired = current
+        current = replacement
+
+        logger.info("Swapped in changed artifact bundle {}", file.path)
+        true
+    }
+}
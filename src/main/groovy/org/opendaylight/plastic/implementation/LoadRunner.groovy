@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonOutput
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+import java.lang.management.ManagementFactory
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.LongAdder
+
+
+class LoadRunnerLogger {
+
+    static final Logger logger = LoggerFactory.getLogger(LoadRunner)
+
+    void couldNotReadCase(File file, Exception e) {
+        logger.warn("PLASTIC-LOAD: skipping unreadable case ${file.absolutePath}: ${e.message}")
+    }
+
+    void phase(String name, int cases, LoadRunner.Options options) {
+        logger.info("PLASTIC-LOAD: ${name} for ${name == 'warm-up' ? options.warmUpSeconds : options.durationSeconds} secs " +
+                "with ${cases} cases, ${options.concurrency} threads, rate ${options.rate ?: 'unlimited'}")
+    }
+
+    void finished(LoadRunner.Report report) {
+        logger.info("PLASTIC-LOAD: results ${JsonOutput.toJson(report.asMap())}")
+    }
+}
+
+/**
+ * Load generator that replays captured cases against an in-process worker, to reproduce
+ * production-like throughput and latency locally and to compare branches.
+ *
+ * Cases are a directory of runner-style properties files (the same format used by PlasticRunner
+ * and by warm-up samples). They are replayed round robin either as fast as the threads allow or
+ * at a fixed overall rate. At a fixed rate, latency is measured from when each translation was
+ * scheduled to start, so a stalled worker shows up as latency rather than as a lower send rate.
+ *
+ * Nothing is measured during the warm-up. The report has throughput, latency percentiles,
+ * the allocation rate of the load threads, and failures by PlasticException code.
+ */
+class LoadRunner {
+
+    static final String CONCURRENCY_PROPERTY = "plastic.load.concurrency"
+    static final String RATE_PROPERTY = "plastic.load.rate"
+    static final String WARMUP_SECONDS_PROPERTY = "plastic.load.warmup-seconds"
+    static final String DURATION_SECONDS_PROPERTY = "plastic.load.duration-seconds"
+
+    static class Options {
+        int concurrency = new ThreadingEnv().numHardwareThreads()
+        double rate = 0 // translations per second, or 0 for as fast as possible
+        long warmUpSeconds = 10
+        long durationSeconds = 30
+
+        static Options from(AppContext appProps) {
+            Options options = new Options()
+            options.concurrency = Integer.parseInt(appProps.getOrElse(CONCURRENCY_PROPERTY, Integer.toString(options.concurrency)))
+            options.rate = Double.parseDouble(appProps.getOrElse(RATE_PROPERTY, "0"))
+            options.warmUpSeconds = Long.parseLong(appProps.getOrElse(WARMUP_SECONDS_PROPERTY, "10"))
+            options.durationSeconds = Long.parseLong(appProps.getOrElse(DURATION_SECONDS_PROPERTY, "30"))
+            options
+        }
+    }
+
+    static class Report {
+        int cases
+        int concurrency
+        double targetRate
+        long succeeded
+        long failed
+        double seconds
+        LatencyHistogram.Snapshot latency
+        long allocatedBytes = -1 // unknown unless the JVM can count per-thread allocations
+        Map<String,Long> errors = new TreeMap<>()
+
+        double getThroughput() {
+            seconds > 0 ? (succeeded + failed) / seconds : 0.0d
+        }
+
+        Map<String,Object> asMap() {
+            Map<String,Object> results = new LinkedHashMap<>()
+            results.put("cases", cases)
+            results.put("concurrency", concurrency)
+            results.put("target-rate", targetRate)
+            results.put("seconds", seconds)
+            results.put("succeeded", succeeded)
+            results.put("failed", failed)
+            results.put("throughput", throughput)
+            results.put("latency-micros", latency.asMap(1000))
+            results.put("allocated-bytes", allocatedBytes)
+            results.put("allocation-bytes-per-sec", allocatedBytes < 0 || seconds <= 0 ? -1L : (long) (allocatedBytes / seconds))
+            results.put("errors", errors)
+            results
+        }
+
+        String asJson() {
+            JsonOutput.prettyPrint(JsonOutput.toJson(asMap()))
+        }
+    }
+
+    static List<WarmUp.Sample> readCases(File dir) {
+        List<WarmUp.Sample> results = []
+        if (dir.isDirectory()) {
+            dir.listFiles().findAll { File f -> f.name.endsWith(".properties") }.sort { it.name }.each { File f ->
+                try {
+                    results.add(WarmUp.readSample(f))
+                }
+                catch (Exception e) {
+                    new LoadRunnerLogger().couldNotReadCase(f, e)
+                }
+            }
+        }
+        results
+    }
+
+    // PlasticException messages start with their code, so use that (or else the class name)
+    //
+    static String errorKey(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.cause) {
+            if (cause instanceof PlasticException) {
+                String message = cause.message
+                int colon = message.indexOf(':')
+                return colon > 0 ? message.substring(0, colon) : cause.class.simpleName
+            }
+        }
+        t.class.simpleName
+    }
+
+    private final LoadRunnerLogger logger = new LoadRunnerLogger()
+
+    private final Cartography cartography
+    private final List<WarmUp.Sample> cases
+    private final Options options
+
+    private final AtomicLong next = new AtomicLong()
+    private volatile LatencyHistogram latencies
+    private volatile LongAdder succeeded
+    private volatile LongAdder failed
+    private volatile Map<String,LongAdder> errors
+
+    LoadRunner(Cartography cartography, List<WarmUp.Sample> cases, Options options) {
+        if (cases.isEmpty())
+            throw new IllegalArgumentException("there are no cases to replay")
+
+        this.cartography = cartography
+        this.cases = cases
+        this.options = options
+    }
+
+    Report run() {
+        if (options.warmUpSeconds > 0) {
+            logger.phase("warm-up", cases.size(), options)
+            drive(options.warmUpSeconds)
+        }
+
+        logger.phase("measurement", cases.size(), options)
+        Report report = new Report()
+        long[] allocated = new long[options.concurrency]
+        long nanos = drive(options.durationSeconds, allocated)
+
+        report.cases = cases.size()
+        report.concurrency = options.concurrency
+        report.targetRate = options.rate
+        report.seconds = nanos / 1.0e9d
+        report.succeeded = succeeded.sum()
+        report.failed = failed.sum()
+        report.latency = latencies.snapshot()
+        report.allocatedBytes = 0
+        for (long bytes : allocated)
+            report.allocatedBytes = (bytes < 0 || report.allocatedBytes < 0) ? -1L : report.allocatedBytes + bytes
+        errors.each { String key, LongAdder count -> report.errors.put(key, count.sum()) }
+
+        logger.finished(report)
+        report
+    }
+
+    private long drive(long seconds) {
+        drive(seconds, new long[options.concurrency])
+    }
+
+    // Returns the elapsed nanos, filling in the bytes allocated by each thread (or -1)
+    //
+    private long drive(long seconds, long[] allocated) {
+        latencies = new LatencyHistogram()
+        succeeded = new LongAdder()
+        failed = new LongAdder()
+        errors = new ConcurrentHashMap<>()
+        next.set(0)
+
+        long started = System.nanoTime()
+        long deadline = started + seconds * 1000000000L
+        CountDownLatch done = new CountDownLatch(options.concurrency)
+
+        (0..<options.concurrency).each { int i ->
+            Thread thread = new Thread({
+                try {
+                    long before = allocatedByThisThread()
+                    loop(started, deadline)
+                    long after = allocatedByThisThread()
+                    allocated[i] = (before < 0 || after < 0) ? -1L : after - before
+                }
+                finally {
+                    done.countDown()
+                }
+            }, "plastic-load-${i}".toString())
+            thread.start()
+        }
+
+        done.await()
+        System.nanoTime() - started
+    }
+
+    private void loop(long started, long deadline) {
+        double interval = options.rate > 0 ? 1.0e9d / options.rate : 0.0d
+
+        while (true) {
+            long n = next.getAndIncrement()
+            long start = System.nanoTime()
+
+            if (interval > 0) {
+                long scheduled = started + (long) (n * interval)
+                if (scheduled >= deadline)
+                    break
+                long wait = scheduled - start
+                if (wait > 0)
+                    Thread.sleep((long) (wait / 1000000L), (int) (wait % 1000000L))
+                start = scheduled
+            }
+            else if (start >= deadline) {
+                break
+            }
+
+            WarmUp.Sample sample = cases[(int) (n % cases.size())]
+            try {
+                cartography.translateWithDefaults(sample.input, sample.output, sample.payload, sample.defaults)
+                succeeded.increment()
+            }
+            catch (Exception e) {
+                failed.increment()
+                errors.computeIfAbsent(errorKey(e), { new LongAdder() }).increment()
+            }
+            latencies.recordSince(start)
+        }
+    }
+
+    private static long allocatedByThisThread() {
+        def threads = ManagementFactory.getThreadMXBean()
+        if (threads instanceof com.sun.management.ThreadMXBean && threads.isThreadAllocatedMemorySupported() &&
+                threads.isThreadAllocatedMemoryEnabled())
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().id)
+        -1L
+    }
+}
@@ -10,10 +10,12 @@
 
 package org.opendaylight.plastic.implementation
 
+import groovy.transform.CompileStatic
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+@CompileStatic
 class MapTask {
 
     static class MissingInputsException extends PlasticException {
@@ -97,6 +99,19 @@ class MapTask {
     Schema input
     Schema output
 
+    // Disabled unless the owning worker hands over its own metrics
+    TranslationMetrics metrics = DISABLED_METRICS
+
+    private static final TranslationMetrics DISABLED_METRICS = new TranslationMetrics(false)
+
+    // Set by plan resolution, otherwise every input variable is bound (see Projection)
+    Projection.Memo projections
+
+    private Projection projection
+
+    // Set by plan resolution once this plan's schemas are hot (see TranslatorCompiler)
+    TranslatorCompiler.CompiledTranslator compiled
+
     MapTask(TranslationPlan<Schema,Morpher> plan) {
         this.plan = plan
         this.input = plan.firstSchema()
@@ -104,18 +119,46 @@ class MapTask {
     }
 
     Schema map(Schema parsedPayload, Schema parsedDefaults) {
+        long started = metrics.start()
+        Bindings boundInputs = (compiled == null) ? null : compiled.bind(parsedPayload.parsed, projection())
+        if (boundInputs == null)
+            boundInputs = input.bindValues(parsedPayload, projection())
+        mapWith(parsedPayload, parsedDefaults, boundInputs, started)
+    }
+
+    // Same as above but with the inputs already bound, like when one payload is translated to
+    // several outputs. The given bindings are changed, so each call needs its own copy.
+    //
+    Schema mapBound(Schema parsedPayload, Schema parsedDefaults, Bindings boundInputs) {
+        long started = metrics.start()
+        projection().narrow(boundInputs.bindings())
+        mapWith(parsedPayload, parsedDefaults, boundInputs, started)
+    }
+
+    // Worked out before the output is injected, since that changes its parsed tree
+    //
+    Projection projection() {
+        if (projection == null)
+            projection = (projections == null) ? Projection.EVERYTHING : projections.lookup(input, output, plan.morphers())
+        projection
+    }
 
-        Bindings boundInputs = input.bindValues(parsedPayload)
+    private Schema mapWith(Schema parsedPayload, Schema parsedDefaults, Bindings boundInputs, long started) {
 
         Map outputVars = output.fetchVariables()
         replaceGenericIndexesWithSpecificsFromTo(boundInputs.bindings(), outputVars)
         maybeMergeFromTo(outputVars, boundInputs.bindings())
 
-        Map defaultValues = parsedDefaults.asDefaults()
+        Map defaultValues = projection().narrowed((Map<String,Object>) parsedDefaults.asDefaults())
         copyFromTo(defaultValues, boundInputs)
 
+        metrics.record(TranslationMetrics.Phase.BIND, started)
+        started = metrics.start()
+
         for (Morpher m : plan.morphers) {
+            long hookStarted = metrics.start()
             m.tweakInputs(boundInputs.bindings(), parsedPayload.parsed)
+            metrics.recordHook(m, "tweakInputs", hookStarted)
         }
 
         Set missingInputs = collectMissings(boundInputs.bindings())
@@ -131,13 +174,21 @@ class MapTask {
         Map boundInputsOutputs = collectBindings(boundInputs.bindings(), outputVars)
 
         for (Morpher m : plan.morphers) {
+            long hookStarted = metrics.start()
             m.preTweakValues(boundInputs.bindings(), boundInputsOutputs)
             m.tweakValues(boundInputs.bindings(), boundInputsOutputs)
+            metrics.recordHook(m, "tweakValues", hookStarted)
         }
 
-        Set danglingInputs = []
-        Set danglingOutputs = []
-        output.inject(boundInputsOutputs, danglingInputs, danglingOutputs)
+        metrics.record(TranslationMetrics.Phase.MORPH, started)
+        started = metrics.start()
+
+        Set danglingInputs = new LinkedHashSet()
+        Set danglingOutputs = new LinkedHashSet()
+        if (compiled == null || !compiled.inject(boundInputsOutputs, output.parsed, danglingInputs, danglingOutputs))
+            output.inject(boundInputsOutputs, danglingInputs, danglingOutputs)
+
+        metrics.record(TranslationMetrics.Phase.INJECT, started)
 
         for (Morpher m : plan.morphers) {
             m.blessDanglingInputs(danglingInputs)
@@ -154,7 +205,9 @@ class MapTask {
             throw new DanglingOutputsException(input.schema, output.schema, danglingOutputs)
 
         for (Morpher m : plan.morphers) {
+            long hookStarted = metrics.start()
             m.tweakParsed(parsedPayload.parsed, output.parsed)
+            metrics.recordHook(m, "tweakParsed", hookStarted)
         }
 
         // The above errors are (conditionally) fatal, but dangling inputs also
@@ -162,110 +215,147 @@ class MapTask {
 
         // Hotspot: used to use danglingInputs = boundInputs.keySet() - outputVars.keySet()
         difference(danglingInputs, boundInputs.bindings(), outputVars)
+        danglingInputs.addAll(projection().pruned)
 
         for (Morpher m : plan.morphers) {
             m.blessDanglingInputs(danglingInputs)
         }
         warnDanglingInputs(danglingInputs)
 
-        Set union = boundInputsOutputs.keySet().collect()
+        Set union = new LinkedHashSet(boundInputsOutputs.keySet())
         for (Morpher m : plan.morphers) {
             m.blessDanglingOutputs(union)
         }
 
-        assertNoDanglingOutputs(boundInputsOutputs.subMap(union))
+        assertNoDanglingOutputs(subMap(boundInputsOutputs, union))
 
         output
     }
 
+    private static Map subMap(Map map, Set keys) {
+        Map results = new LinkedHashMap()
+        for (Object k : keys) {
+            if (map.containsKey(k))
+                results.put(k, map.get(k))
+        }
+        results
+    }
+
+    boolean isCacheable() {
+        for (Morpher m : plan.morphers) {
+            if (!m.isCacheable())
+                return false
+        }
+        true
+    }
+
+    // Whether any morpher is handed the parsed payload, so that mapping can't share it
+    //
+    boolean seesPayload() {
+        for (Morpher m : plan.morphers) {
+            if (m.seesPayload())
+                return true
+        }
+        false
+    }
+
+    boolean isIncremental() {
+        for (Morpher m : plan.morphers) {
+            if (!m.isIncremental())
+                return false
+        }
+        true
+    }
+
     private void difference(Set results, Map setA, Map setB) {
         results.clear()
-        setA.each { k,v ->
+        for (Object k : setA.keySet()) {
             if(!setB.containsKey(k))
                 results.add(k)
         }
     }
 
     void replaceGenericIndexesWithSpecificsFromTo(Map src, Map dst) {
-        Map results = [:]
-        Variables vars = new Variables()
-        dst.each { k,v ->
-            List hits = vars.matches(src, k)
+        Map results = new LinkedHashMap()
+        for (Map.Entry entry : (Set<Map.Entry>) dst.entrySet()) {
+            List<String> hits = Variables.matches((Map<String,Object>) src, (String) entry.key)
             if (!hits.isEmpty()) {
-                hits.each { h -> results[h] = v }
+                for (String h : hits)
+                    results.put(h, entry.value)
             }
             else
-                results[k] = v
+                results.put(entry.key, entry.value)
         }
         dst.clear()
         dst.putAll(results)
     }
 
     void maybeMergeFromTo(Map fromMap, Map toMap) {
-        fromMap.each { k,v ->
-            if (toMap.containsKey(k) && toMap[k] == null)
-                toMap[k] = v
+        for (Map.Entry entry : (Set<Map.Entry>) fromMap.entrySet()) {
+            if (toMap.containsKey(entry.key) && toMap.get(entry.key) == null)
+                toMap.put(entry.key, entry.value)
         }
     }
 
-    // TODO: this can be moved into Bindings
     void copyFromTo(Map fromMap, Bindings bindings) {
-        fromMap.each { k,v ->
-            if (v != null) {
-                bindings.putIfMissingOrNull(k, v)
-                bindings.putIfDefault(k, v)
-            }
-        }
+        bindings.overrideDefaultValuesWith((Map<String,Object>) fromMap)
     }
 
     void removeMissing(Map map) {
-        def deathrow = map.findAll { k,v -> v == null }.collect { k,v -> k }
-        deathrow.each { k -> map.remove(k) }
+        map.values().removeAll(Collections.singleton(null))
     }
 
     private Set collectMissings(Map boundValues) {
-        Set results = boundValues.findAll { k, v -> v == null }.collect { k, v -> k }
+        Set results = new LinkedHashSet()
+        for (Map.Entry entry : (Set<Map.Entry>) boundValues.entrySet()) {
+            if (entry.value == null)
+                results.add(entry.key)
+        }
         results
     }
 
+    // A generic indexed output variable takes all of the bound inputs, whose specific
+    // indexes are then matched up during injection
+    //
     private Map collectBindings(Map boundInputs, Map outputVars) {
-        Variables vars = new Variables()
-        Map results = outputVars.collectEntries { ov, val ->
-            if (vars.isGenericIndexed(ov)) {
-                boundInputs.each { k, v ->
-                    if (vars.matches(k, ov))
-                        [ k, firstNonNull(boundInputs[k], outputVars[k]) ]
-                }
-            }
+        Map results = new LinkedHashMap()
+        for (Object ov : outputVars.keySet()) {
+            if (Variables.isGenericIndexed((String) ov))
+                results.putAll(boundInputs)
             else
-                [ ov, firstNonNull(boundInputs[ov], outputVars[ov]) ]
+                results.put(ov, firstNonNull(boundInputs.get(ov), outputVars.get(ov)))
         }
 
-        boundInputs.each { k,v ->
-            if (k.startsWith('_'))
-                results.put(k, v)
+        for (Map.Entry entry : (Set<Map.Entry>) boundInputs.entrySet()) {
+            if (((String) entry.key).startsWith('_'))
+                results.put(entry.key, entry.value)
         }
 
         results
     }
 
-    private Object firstNonNull(Object... objs) {
-        for (obj in objs)
-            if (obj != null)
-                return obj
-        null
+    private static Object firstNonNull(Object first, Object second) {
+        first != null ? first : second
     }
 
     private void warnDanglingInputs(Set unhandledInputs) {
-        def dangling = unhandledInputs.findAll { s -> !s.startsWith('_')}
+        Set dangling = new LinkedHashSet()
+        for (Object s : unhandledInputs) {
+            if (!((String) s).startsWith('_'))
+                dangling.add(s)
+        }
         if (!dangling.isEmpty()) {
             log.warn("For (in:${input.schema}) (out:${output.schema}), the following input variables had no matching outputs: "+ dangling)
         }
     }
 
     private void assertNoDanglingOutputs(Map boundOutputs) {
-        def unhandledOutputs = boundOutputs.findAll { k, v -> v == null }
+        Set unhandledOutputs = new LinkedHashSet()
+        for (Map.Entry entry : (Set<Map.Entry>) boundOutputs.entrySet()) {
+            if (entry.value == null)
+                unhandledOutputs.add(entry.key)
+        }
         if (!unhandledOutputs.isEmpty())
-            throw new DanglingOutputVariables(input.schema, output.schema, unhandledOutputs.keySet())
+            throw new DanglingOutputVariables(input.schema, output.schema, unhandledOutputs)
     }
 }
@@ -10,10 +10,14 @@
 
 package org.opendaylight.plastic.implementation
 
+import org.codehaus.groovy.runtime.InvokerHelper
+import org.codehaus.groovy.runtime.typehandling.DefaultTypeTransformation
 import org.opendaylight.plastic.implementation.author.MoVariables
 import groovy.transform.Canonical
+import groovy.transform.CompileStatic
 
 
+@CompileStatic
 class Morpher {
 
     static class MalformedMorpher extends PlasticException {
@@ -31,6 +35,7 @@ class Morpher {
     }
 
     def wrapped
+    String name
 
     List<MetaMethod> availableMethods
 
@@ -44,6 +49,9 @@ class Morpher {
     boolean setContextPresent
     boolean tweakMoInputsPresent
     boolean tweakMoValuesPresent
+    boolean cacheablePresent
+    boolean incrementalPresent
+    boolean readsInputsPresent
 
     def desiredMethods = [
             ["tweakValues", Map, Map],
@@ -55,94 +63,189 @@ class Morpher {
             ["_setContext", Context],
             ["tweakInputs", Map, Object],
             ["tweakInputs", MoVariables, Object],
-            ["tweakValues", MoVariables, MoVariables]
+            ["tweakValues", MoVariables, MoVariables],
+            ["_isCacheable"],
+            ["_isIncremental"],
+            ["_readsInputs"]
     ]
 
+    // Hooks are looked up once, by the same signatures used to detect them above,
+    // so each call into the wrapped morpher skips dynamic method selection
+
+    private MetaMethod tweakValuesMethod
+    private MetaMethod tweakParsedMethod
+    private MetaMethod blessDanglingInputsMethod
+    private MetaMethod preTweakValuesMethod
+    private MetaMethod blessMissingInputsMethod
+    private MetaMethod blessDanglingOutputsMethod
+    private MetaMethod setContextMethod
+    private MetaMethod tweakInputsMethod
+    private MetaMethod tweakMoInputsMethod
+    private MetaMethod tweakMoValuesMethod
+    private MetaMethod cacheableMethod
+    private MetaMethod incrementalMethod
+    private MetaMethod readsInputsMethod
+
     Morpher(Object wrapped) {
         this.wrapped = wrapped
+        this.name = wrapped?.getClass()?.simpleName
     }
 
     Morpher(VersionedSchema relatedSchema, Object wrapped, String fileName) {
         this.wrapped = wrapped
-        this.availableMethods = wrapped.metaClass.getMethods()
-
-        this.tweakValuesPresent = can(desiredMethods[0])
-        this.tweakParsedPresent = can(desiredMethods[1])
-        this.blessDanglingInputsPresent = can(desiredMethods[2])
-        this.preTweakValuesPresent = can(desiredMethods[3])
-        this.blessMissingInputsPresent = can(desiredMethods[4])
-        this.blessDanglingOutputsPresent = can(desiredMethods[5])
-        this.setContextPresent = can(desiredMethods[6])
-        this.tweakInputsPresent = can(desiredMethods[7])
-        this.tweakMoInputsPresent = can(desiredMethods[8])
-        this.tweakMoValuesPresent = can(desiredMethods[9])
-
-        def requireds = [tweakInputsPresent, tweakValuesPresent, tweakParsedPresent, tweakMoInputsPresent, tweakMoValuesPresent]
-        int count = requireds.collect { r -> r ? 1 : 0 }.sum()
-        if (!count)
+        this.name = nameFrom(fileName, wrapped)
+        this.availableMethods = InvokerHelper.getMetaClass(wrapped).getMethods()
+
+        List<List> desired = (List<List>) desiredMethods
+        this.tweakValuesMethod = find(desired[0])
+        this.tweakParsedMethod = find(desired[1])
+        this.blessDanglingInputsMethod = find(desired[2])
+        this.preTweakValuesMethod = find(desired[3])
+        this.blessMissingInputsMethod = find(desired[4])
+        this.blessDanglingOutputsMethod = find(desired[5])
+        this.setContextMethod = find(desired[6])
+        this.tweakInputsMethod = find(desired[7])
+        this.tweakMoInputsMethod = find(desired[8])
+        this.tweakMoValuesMethod = find(desired[9])
+        this.cacheableMethod = find(desired[10])
+        this.incrementalMethod = find(desired[11])
+        this.readsInputsMethod = find(desired[12])
+
+        this.tweakValuesPresent = tweakValuesMethod != null
+        this.tweakParsedPresent = tweakParsedMethod != null
+        this.blessDanglingInputsPresent = blessDanglingInputsMethod != null
+        this.preTweakValuesPresent = preTweakValuesMethod != null
+        this.blessMissingInputsPresent = blessMissingInputsMethod != null
+        this.blessDanglingOutputsPresent = blessDanglingOutputsMethod != null
+        this.setContextPresent = setContextMethod != null
+        this.tweakInputsPresent = tweakInputsMethod != null
+        this.tweakMoInputsPresent = tweakMoInputsMethod != null
+        this.tweakMoValuesPresent = tweakMoValuesMethod != null
+        this.cacheablePresent = cacheableMethod != null
+        this.incrementalPresent = incrementalMethod != null
+        this.readsInputsPresent = readsInputsMethod != null
+
+        if (!(tweakInputsPresent || tweakValuesPresent || tweakParsedPresent || tweakMoInputsPresent || tweakMoValuesPresent))
             throw new MalformedMorpher(fileName)
 
         setContext(new Context(relatedSchema, fileName))
     }
 
+    // Short name used for reporting, like the morpher file's base name
+    //
+    private static String nameFrom(String fileName, Object wrapped) {
+        if (fileName) {
+            String base = new File(fileName).name
+            int dot = base.lastIndexOf('.')
+            return dot > 0 ? base.substring(0, dot) : base
+        }
+        wrapped.getClass().simpleName
+    }
+
     void setAppContext(AppContext properties) {
         if (can(["setContext", Map])) {
-            wrapped.setContext(properties.asMap())
+            InvokerHelper.invokeMethod(wrapped, "setContext", properties.asMap())
         }
     }
 
     protected boolean can(List methodItems) {
-        wrapped.metaClass.respondsTo(wrapped, *methodItems)
+        !InvokerHelper.getMetaClass(wrapped).respondsTo(wrapped, (String) methodItems[0], argTypes(methodItems)).isEmpty()
+    }
+
+    private MetaMethod find(List methodItems) {
+        can(methodItems) ? InvokerHelper.getMetaClass(wrapped).getMetaMethod((String) methodItems[0], argTypes(methodItems)) : null
+    }
+
+    private static Object[] argTypes(List methodItems) {
+        methodItems.subList(1, methodItems.size()).toArray()
+    }
+
+    private Object invoke(MetaMethod method, Object... args) {
+        method.doMethodInvoke(wrapped, args)
     }
 
     void setContext(Context context) {
         if (setContextPresent)
-            wrapped._setContext(context)
+            invoke(setContextMethod, context)
     }
 
     void blessMissingInputs(Set missings) {
         if (blessMissingInputsPresent)
-            wrapped._blessMissingInputs(missings)
+            invoke(blessMissingInputsMethod, missings)
     }
 
     void blessDanglingInputs(Set dangling) {
         if (blessDanglingInputsPresent)
-            wrapped._blessDanglingInputs(dangling)
+            invoke(blessDanglingInputsMethod, dangling)
     }
 
     def blessDanglingOutputs(Set dangling) {
         if (blessDanglingOutputsPresent)
-            wrapped._blessDanglingOutputs(dangling)
+            invoke(blessDanglingOutputsMethod, dangling)
     }
 
     void tweakInputs(Map inMap, inTree) {
         if (tweakMoInputsPresent) {
             MoVariables moIns = new MoVariables(inMap)
-            wrapped.tweakInputs(moIns, inTree)
+            invoke(tweakMoInputsMethod, moIns, inTree)
         }
         else if (tweakInputsPresent) {
-            wrapped.tweakInputs(inMap, inTree)
+            invoke(tweakInputsMethod, inMap, inTree)
         }
     }
 
     void preTweakValues(Map inMap, Map outMap) {
         if (preTweakValuesPresent)
-            wrapped._preTweakValues(inMap, outMap)
+            invoke(preTweakValuesMethod, inMap, outMap)
     }
 
     void tweakValues(Map inMap, Map outMap) {
         if (tweakMoValuesPresent) {
             MoVariables moIns = new MoVariables(inMap)
             MoVariables moOuts = new MoVariables(outMap)
-            wrapped.tweakValues(moIns, moOuts)
+            invoke(tweakMoValuesMethod, moIns, moOuts)
         }
         else if (tweakValuesPresent) {
-            wrapped.tweakValues(inMap, outMap)
+            invoke(tweakValuesMethod, inMap, outMap)
         }
     }
 
+    // Morphers whose results are not repeatable (like using the current time) can say so,
+    // which keeps their translations out of the result cache
+    //
+    boolean isCacheable() {
+        cacheablePresent ? DefaultTypeTransformation.castToBoolean(invoke(cacheableMethod)) : true
+    }
+
+    // Morphers that look at more of the payload than their bound inputs can say so, which
+    // turns every update of a translation session using them into a full translation
+    //
+    boolean isIncremental() {
+        incrementalPresent ? DefaultTypeTransformation.castToBoolean(invoke(incrementalMethod)) : true
+    }
+
+    // The input variables read by this morpher other than those used by the output schema, or
+    // null if it might read any of them. Morphers that can't see bound inputs read none (any
+    // BasicMorpher can, since it keeps them for its other hooks).
+    //
+    Set<String> readsInputs() {
+        if (readsInputsPresent) {
+            Object declared = invoke(readsInputsMethod)
+            if (declared != null)
+                return ((Collection<String>) declared).contains("*") ? null : new HashSet<String>((Collection<String>) declared)
+        }
+        boolean seesInputs = tweakInputsPresent || tweakMoInputsPresent || preTweakValuesPresent || tweakValuesPresent || tweakMoValuesPresent
+        seesInputs ? null : Collections.<String>emptySet()
+    }
+
+    // Whether this morpher is handed the parsed payload itself (which it might change)
+    //
+    boolean seesPayload() {
+        tweakInputsPresent || tweakMoInputsPresent || tweakParsedPresent
+    }
+
     void tweakParsed(inTree, outTree) {
         if (tweakParsedPresent)
-            wrapped.tweakParsed(inTree, outTree)
+            invoke(tweakParsedMethod, inTree, outTree)
     }
 }
@@ -38,14 +38,25 @@ class MorpherLoader implements Pollee {
         this(props, cache, gcl, Maps.newConcurrentMap(), new MorpherFactoryLogger())
     }
 
+    // Shares compiled morphers with the other loaders given the same parser (see PlasticRuntime)
+    //
+    MorpherLoader(AppContext props, FilenamesCache cache, GroovyClassParser gparser) {
+        this(props, cache, gparser, Maps.newConcurrentMap(), new MorpherFactoryLogger())
+    }
+
     @PackageScope
     MorpherLoader(AppContext props, FilenamesCache cache, GroovyClassLoader gcl, Map<String,String> seen, MorpherFactoryLogger logger) {
+        this(props, cache, new GroovyClassParser(gcl), seen, logger)
+    }
+
+    @PackageScope
+    MorpherLoader(AppContext props, FilenamesCache cache, GroovyClassParser gparser, Map<String,String> seen, MorpherFactoryLogger logger) {
         this.appProps = props
         this.logger = logger
-        this.gcl = gcl
+        this.gcl = gparser.gcl
         this.fileCache = cache
         this.seen = seen
-        this.gparser = new GroovyClassParser(gcl)
+        this.gparser = gparser
     }
 
     Morpher locateImplicitly (VersionedSchema schema) {
@@ -64,12 +75,11 @@ class MorpherLoader implements Pollee {
     Morpher instantiate(VersionedSchema schema, String morpherFileName) {
         Object morpher = null
 
-        def morpherFile = new File(morpherFileName)
-        if (morpherFile.exists()) {
-            Class clazz = gparser.parseClass(morpherFile)
+        if (fileCache.exists(morpherFileName)) {
+            Class clazz = fileCache.parseClass(gparser, morpherFileName)
 
             String newKey = clazz.getName()
-            String newValue = morpherFile.absolutePath
+            String newValue = fileCache.absolutePath(morpherFileName)
 
             boolean hasKey = seen.containsKey(newKey)
             boolean hasValue = hasKey && seen[newKey].equals(newValue)
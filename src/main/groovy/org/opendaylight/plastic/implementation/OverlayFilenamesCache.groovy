@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+
+/**
+ * Filenames cache for one area (like "schemas") of a worker's own search path, layered over
+ * the shared cache of the same area (see PlasticRuntime). Files in the overlay shadow files
+ * with the same name in the shared area. Only the overlay is scanned here, the shared cache
+ * is scanned by the runtime.
+ *
+ * The paths handed out can come from either one, so they are checked, read, and compiled
+ * through the shared cache, which knows about loose files as well as its own paths (like
+ * artifact bundle entries).
+ */
+class OverlayFilenamesCache extends FilenamesCache {
+
+    private final FilenamesCache own
+    private final FilenamesCache shared
+
+    OverlayFilenamesCache(String root, FilenamesCache shared) {
+        super()
+        this.own = new FilenamesCache(root)
+        this.shared = shared
+    }
+
+    FilenamesCache getShared() {
+        shared
+    }
+
+    @Override
+    String root() {
+        own.root()
+    }
+
+    @Override
+    List<String> roots() {
+        own.roots() + shared.roots()
+    }
+
+    @Override
+    void scan() {
+        own.scan()
+    }
+
+    @Override
+    boolean isEmpty() {
+        own.isEmpty() && shared.isEmpty()
+    }
+
+    @Override
+    int fileCount() {
+        filePaths().size()
+    }
+
+    @Override
+    int dirCount() {
+        own.dirCount() + shared.dirCount()
+    }
+
+    @Override
+    Collection<String> filePaths() {
+        Map<String,String> byName = new LinkedHashMap<>()
+        shared.filePaths().each { String path -> byName.put(new File(path).name, path) }
+        own.filePaths().each { String path -> byName.put(new File(path).name, path) }
+        Collections.unmodifiableCollection(byName.values())
+    }
+
+    @Override
+    String getFile(String basename) {
+        String found = own.getFile(basename)
+        found == null ? shared.getFile(basename) : found
+    }
+
+    @Override
+    String getDirectory(String basename) {
+        String found = own.getDirectory(basename)
+        found == null ? shared.getDirectory(basename) : found
+    }
+
+    @Override
+    boolean exists(String path) {
+        shared.exists(path)
+    }
+
+    @Override
+    byte[] read(String path) {
+        shared.read(path)
+    }
+
+    @Override
+    String absolutePath(String path) {
+        shared.absolutePath(path)
+    }
+
+    @Override
+    Class parseClass(GroovyClassParser parser, String path) {
+        shared.parseClass(parser, path)
+    }
+}
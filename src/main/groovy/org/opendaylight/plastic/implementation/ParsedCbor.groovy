@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import static com.google.common.base.Preconditions.checkNotNull
+
+
+class ParsedCbor extends VersionedSchemaParsed {
+
+    static class UnrecognizedPreparsedException extends PlasticException {
+
+        VersionedSchemaStream schema
+        Object alreadyParsed
+
+        UnrecognizedPreparsedException(VersionedSchemaStream schema, Object alreadyParsed) {
+            super("PLASTIC-DEFLT-UNREC-PREP")
+            this.schema = schema
+            this.alreadyParsed = alreadyParsed
+        }
+
+        @Override
+        protected String describe() {
+            "Unrecognized value should be preparsed CBOR but is not: " + schema.schema +
+                    " with value: " + BoundedRenderer.snippet(alreadyParsed)
+        }
+    }
+
+    static class InjectionFailedForVariable extends PlasticException {
+
+        String target
+        Object parsed
+
+        InjectionFailedForVariable(String target, Object parsed) {
+            super("PLASTIC-INJ-FAIL")
+            this.target = target
+            this.parsed = parsed
+        }
+
+        @Override
+        protected String describe() {
+            "Could not find injection target variable named \'${target}\' in payload: " + BoundedRenderer.snippet(parsed)
+        }
+    }
+
+    static final String KEY = CborFormat.FORMATKEY
+    static final CborFormat format = new CborFormat()
+
+    VersionedSchemaStream boundSchema
+    JsonFinderBinder finderBinder
+    JsonValuesInjector valuesInjector
+
+    final def parsed
+
+    ParsedCbor(VersionedSchemaStream schema) {
+        this(schema, format.parse(schema.parsable))
+    }
+
+    protected ParsedCbor(VersionedSchemaStream schema, Object alreadyParsed) {
+        super(schema)
+        checkNotNull(alreadyParsed)
+
+        this.boundSchema = schema
+        this.finderBinder = new JsonFinderBinder()
+        this.valuesInjector = new JsonValuesInjector()
+
+        if (!isCollection(alreadyParsed))
+            throw new UnrecognizedPreparsedException(schema, alreadyParsed)
+        this.parsed = alreadyParsed
+    }
+
+    @Override
+    VersionedSchemaParsed clone() {
+        return new ParsedCbor(boundSchema, format.clone(parsed))
+    }
+
+    @Override
+    VersionedSchemaParsed cloneWith(Object alreadyParsed) {
+        return new ParsedCbor(boundSchema, alreadyParsed)
+    }
+
+    Bindings bindValues(VersionedSchemaParsed valuesSource) {
+        finderBinder.process(parsed, valuesSource.parsed)
+    }
+
+    Bindings bindValues(VersionedSchemaParsed valuesSource, Projection projection) {
+        finderBinder.process(parsed, valuesSource.parsed, projection)
+    }
+
+    Map fetchVariables() {
+        Map foundPaths = [:]
+        Map foundVars = [:]
+        finderBinder.buildPathsToVariables(parsed, foundPaths, foundVars)
+        foundVars
+    }
+
+    void inject(Map values, Set danglingInputs, Set danglingOutputs) {
+        valuesInjector.inject(values, parsed, danglingInputs, danglingOutputs)
+    }
+
+    void inject(Map<String, Schema> varBinds) {
+        Set danglingInputs = []
+        Set danglingOutputs = []
+        Map map = varBinds.collectEntries { k,v -> [k, v.parsed] }
+        inject(map, danglingInputs, danglingOutputs)
+        varBinds.each { k, v ->
+            if (danglingInputs.contains(k))
+                throw new InjectionFailedForVariable(k, parsed)
+        }
+    }
+
+    String emit() {
+        format.serialize(parsed)
+    }
+
+    Map asDefaults() {
+        if (!(parsed instanceof Map))
+            throw new BadDefaultsException(this)
+
+        asDefaults((Map)parsed, boundSchema.schema)
+    }
+
+    // The emitted form is binary, so show the JSON equivalent instead
+    //
+    @Override
+    String toShortString(int maxLen) {
+        BoundedRenderer.render(parsed, maxLen)
+    }
+
+    @Override
+    Aggregator createAggregator() {
+        format.createAggregator()
+    }
+}
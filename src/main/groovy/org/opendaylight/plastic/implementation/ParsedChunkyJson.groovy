@@ -23,11 +23,16 @@ class ParsedChunkyJson extends VersionedSchemaParsed {
         Object alreadyParsed
 
         UnrecognizedPreparsedException(VersionedSchemaStream schema, Object alreadyParsed) {
-            super("PLASTIC-DEFLT-UNREC-PREP", "Unrecognized value should be preparsed JSON but is not: "
-                    + schema.schema + " with value: " + alreadyParsed)
+            super("PLASTIC-DEFLT-UNREC-PREP")
             this.schema = schema
             this.alreadyParsed = alreadyParsed
         }
+
+        @Override
+        protected String describe() {
+            "Unrecognized value should be preparsed JSON but is not: " + schema.schema +
+                    " with value: " + BoundedRenderer.snippet(alreadyParsed)
+        }
     }
 
     static class InjectionFailedForVariable extends PlasticException {
@@ -36,10 +41,15 @@ class ParsedChunkyJson extends VersionedSchemaParsed {
         Object parsed
 
         InjectionFailedForVariable(String target, Object parsed) {
-            super("PLASTIC-INJ-FAIL", "Could not find injection target variable named \'${target}\' in payload: "+parsed)
+            super("PLASTIC-INJ-FAIL")
             this.target = target
             this.parsed = parsed
         }
+
+        @Override
+        protected String describe() {
+            "Could not find injection target variable named \'${target}\' in payload: " + BoundedRenderer.snippet(parsed)
+        }
     }
 
     static final String KEY = ChunkyJsonFormat.FORMATKEY
@@ -89,6 +99,10 @@ class ParsedChunkyJson extends VersionedSchemaParsed {
         finderBinder.process(parsed, valuesSource.parsed)
     }
 
+    Bindings bindValues(VersionedSchemaParsed valuesSource, Projection projection) {
+        finderBinder.process(parsed, valuesSource.parsed, projection)
+    }
+
     Map fetchVariables() {
         Map foundPaths = [:]
         Map foundVars = [:]
@@ -136,9 +150,7 @@ class ParsedChunkyJson extends VersionedSchemaParsed {
 
     @Override
     String toShortString(int maxLen) {
-        String emitted = emit()
-        int len = (emitted.length() > maxLen) ? maxLen : emitted.length()
-        emitted.substring(0, len)
+        BoundedRenderer.render(parsed, maxLen)
     }
 
     @Override
@@ -10,8 +10,11 @@
 
 package org.opendaylight.plastic.implementation
 
+import groovy.transform.CompileStatic
+
 import static com.google.common.base.Preconditions.checkNotNull
 
+@CompileStatic
 class ParsedJson extends VersionedSchemaParsed {
 
     static class WantedListButFoundScalarException extends PlasticException {
@@ -35,11 +38,16 @@ class ParsedJson extends VersionedSchemaParsed {
         Object alreadyParsed
 
         UnrecognizedPreparsedException(VersionedSchemaStream schema, Object alreadyParsed) {
-            super("PLASTIC-DEFLT-UNREC-PREP", "Unrecognized value should be preparsed JSON but is not: "
-                    + schema.schema + " with value: " + alreadyParsed)
+            super("PLASTIC-DEFLT-UNREC-PREP")
             this.schema = schema
             this.alreadyParsed = alreadyParsed
         }
+
+        @Override
+        protected String describe() {
+            "Unrecognized value should be preparsed JSON but is not: " + schema.schema +
+                    " with value: " + BoundedRenderer.snippet(alreadyParsed)
+        }
     }
 
     static class InjectionFailedForVariable extends PlasticException {
@@ -48,10 +56,15 @@ class ParsedJson extends VersionedSchemaParsed {
         Object parsed
 
         InjectionFailedForVariable(String target, Object parsed) {
-            super("PLASTIC-INJ-FAIL", "Could not find injection target variable named \'${target}\' in payload: "+parsed)
+            super("PLASTIC-INJ-FAIL")
             this.target = target
             this.parsed = parsed
         }
+
+        @Override
+        protected String describe() {
+            "Could not find injection target variable named \'${target}\' in payload: " + BoundedRenderer.snippet(parsed)
+        }
     }
 
     static final String KEY = JsonFormat.FORMATKEY
@@ -100,9 +113,13 @@ class ParsedJson extends VersionedSchemaParsed {
         finderBinder.process(parsed, valuesSource.parsed)
     }
 
+    Bindings bindValues(VersionedSchemaParsed valuesSource, Projection projection) {
+        finderBinder.process(parsed, valuesSource.parsed, projection)
+    }
+
     Map fetchVariables() {
-        Map foundPaths = [:]
-        Map foundVars = [:]
+        Map<String,VariablesFetcher> foundPaths = [:]
+        Map<String,Object> foundVars = [:]
         finderBinder.buildPathsToVariables(parsed, foundPaths, foundVars)
         foundVars
     }
@@ -112,11 +129,13 @@ class ParsedJson extends VersionedSchemaParsed {
     }
 
     void inject(Map<String, Schema> varBinds) {
-        Set danglingInputs = []
-        Set danglingOutputs = []
-        Map map = varBinds.collectEntries { k,v -> [k, v.parsed] }
+        Set danglingInputs = new LinkedHashSet()
+        Set danglingOutputs = new LinkedHashSet()
+        Map map = new LinkedHashMap()
+        for (Map.Entry<String,Schema> entry : varBinds.entrySet())
+            map.put(entry.key, entry.value.parsed)
         inject(map, danglingInputs, danglingOutputs)
-        varBinds.each { k, v ->
+        for (String k : varBinds.keySet()) {
             if (danglingInputs.contains(k))
                 throw new InjectionFailedForVariable(k, parsed)
         }
@@ -135,9 +154,7 @@ class ParsedJson extends VersionedSchemaParsed {
 
     @Override
     String toShortString(int maxLen) {
-        String emitted = emit()
-        int len = (emitted.length() > maxLen) ? maxLen : emitted.length()
-        emitted.substring(0, len)
+        BoundedRenderer.render(parsed, maxLen)
     }
 
     @Override
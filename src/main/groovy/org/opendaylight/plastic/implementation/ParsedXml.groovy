@@ -10,6 +10,9 @@
 
 package org.opendaylight.plastic.implementation
 
+import groovy.transform.CompileStatic
+
+@CompileStatic
 class ParsedXml extends VersionedSchemaParsed {
 
     static final String KEY = XmlFormat.FORMATKEY
@@ -22,7 +25,7 @@ class ParsedXml extends VersionedSchemaParsed {
     final Node parsed
 
     ParsedXml(VersionedSchemaStream schema) {
-        this(schema, format.parse(schema.parsable))
+        this(schema, (Node) format.parse(schema.parsable))
     }
 
     protected ParsedXml(VersionedSchemaStream schema, Node alreadyParsed) {
@@ -36,7 +39,7 @@ class ParsedXml extends VersionedSchemaParsed {
 
     @Override
     VersionedSchemaParsed clone() {
-        Node cloned = format.clone(parsed)
+        Node cloned = (Node) format.clone(parsed)
         return new ParsedXml(boundSchema, cloned)
     }
 
@@ -51,6 +54,11 @@ class ParsedXml extends VersionedSchemaParsed {
         finderBinder.process(parsed, (Node) valuesSource.parsed)
     }
 
+    Bindings bindValues(VersionedSchemaParsed valuesSource, Projection projection) {
+        format.mustBeNode(valuesSource.parsed)
+        finderBinder.process(parsed, (Node) valuesSource.parsed, projection)
+    }
+
     Map fetchVariables() {
         Map foundPaths = [:]
         Map foundVars = [:]
@@ -74,20 +82,19 @@ class ParsedXml extends VersionedSchemaParsed {
 
     Map asDefaults() {
         Map results = [:]
-        parsed."${XmlFormat.ENTRY}".findAll { Node dflt ->
-            NodeList key = dflt."${XmlFormat.KEY}"
-            NodeList value = dflt."${XmlFormat.VALUE}"
+        for (Object entry : (NodeList) parsed.get(XmlFormat.ENTRY)) {
+            Node dflt = (Node) entry
+            NodeList key = (NodeList) dflt.get(XmlFormat.KEY)
+            NodeList value = (NodeList) dflt.get(XmlFormat.VALUE)
             if (key != null && value != null)
-                results[dflt."${XmlFormat.KEY}".text()] = dflt."${XmlFormat.VALUE}".text()
+                results.put(key.text(), value.text())
         }
         results
     }
 
     @Override
     String toShortString(int maxLen) {
-        String emitted = emit()
-        int len = (emitted.length() > maxLen) ? maxLen : emitted.length()
-        emitted.substring(0, len)
+        BoundedRenderer.render(parsed, maxLen)
     }
 
     @Override
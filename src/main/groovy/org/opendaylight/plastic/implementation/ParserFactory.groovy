@@ -31,6 +31,7 @@ class ParserFactory {
         supportedTypes[ParsedJson.KEY] = ParsedJson
         supportedTypes[ParsedXml.KEY] = ParsedXml
         supportedTypes[ParsedChunkyJson.KEY] = ParsedChunkyJson
+        supportedTypes[ParsedCbor.KEY] = ParsedCbor
     }
 
     VersionedSchemaParsed createParsed(VersionedSchemaStream boundSchema) {
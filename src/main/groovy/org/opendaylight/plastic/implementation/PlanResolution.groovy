@@ -16,6 +16,8 @@ class PlanResolution {
 
     SchemaSource schemaSource
     MorpherLoader morpherLoader
+    Projection.Memo projections = new Projection.Memo()
+    TranslatorCompiler compiler = TranslatorCompiler.DISABLED
 
     @PackageScope
     PlanResolution(SchemaSource schemaSource, MorpherLoader morpherLoader) {
@@ -60,6 +62,9 @@ class PlanResolution {
             }
         }
 
-        return new MapTask(boundPlan)
+        MapTask task = new MapTask(boundPlan)
+        task.projections = projections
+        task.compiled = compiler.lookup(task.input, task.output)
+        return task
     }
 }
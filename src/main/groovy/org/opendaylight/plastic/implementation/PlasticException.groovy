@@ -12,6 +12,10 @@ package org.opendaylight.plastic.implementation
 
 
 class PlasticException extends RuntimeException {
+
+    private final String id
+    private String lazyMessage
+
     PlasticException(String id, String msg) {
         super(id+": "+msg)
     }
@@ -19,4 +23,32 @@ class PlasticException extends RuntimeException {
     PlasticException(String id, String msg, Exception e) {
         super(id+": "+msg, e)
     }
+
+    // For subclasses that keep a reference to the (possibly huge) offending data and only render
+    // a capped snippet of it, and only if the message is actually asked for - see describe()
+    //
+    protected PlasticException(String id) {
+        super((String) null)
+        this.id = id
+    }
+
+    protected PlasticException(String id, Exception e) {
+        super((String) null, e)
+        this.id = id
+    }
+
+    // Lazy subclasses override this to build their message, usually with BoundedRenderer.snippet()
+    //
+    protected String describe() {
+        ""
+    }
+
+    @Override
+    String getMessage() {
+        if (id == null)
+            return super.getMessage()
+        if (lazyMessage == null)
+            lazyMessage = id + ": " + describe()
+        lazyMessage
+    }
 }
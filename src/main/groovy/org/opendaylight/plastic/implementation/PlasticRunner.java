@@ -22,6 +22,16 @@ public class PlasticRunner {
 
     static Logger logger = LoggerFactory.getLogger(PlasticRunner.class);
 
+    // Runs as a long-lived translation server (see RunnerServer) or as its client
+
+    static final String SERVE = "--serve";
+    static final String CONNECT = "--connect";
+
+    // Replays a directory of cases as a load test (see LoadRunner)
+
+    static final String LOAD = "--load";
+    static final int DEFAULT_PORT = 7474;
+
     private final List<Properties> properties = new ArrayList<>();
 
     private final String[] propnames = {
@@ -41,6 +51,10 @@ public class PlasticRunner {
     private final CartographyService cartographer;
 
     public PlasticRunner(String[] args) throws IOException {
+        this(args, null);
+    }
+
+    PlasticRunner(String[] args, CartographyService cartographer) throws IOException {
         validateArgs(args);
 
         optionals.add("defaults-file");
@@ -48,8 +62,7 @@ public class PlasticRunner {
 
         readProperties(args);
 
-        Factory factory = new Factory();
-        cartographer = factory.build();
+        this.cartographer = (cartographer == null) ? new Factory().build() : cartographer;
     }
 
     private void validateArgs(String[] args) {
@@ -155,14 +168,16 @@ public class PlasticRunner {
         info("*** Plastic Runner ***");
         info(String.format("\t*** Input: %s %s %s\n", inName, inVers, inType));
         info(String.format("\t*** Output: %s %s %s\n", outName, outVers, outType));
-        info(String.format("\t*** Payload:\n%s\n", payload));
+        info(String.format("\t*** Payload:\n%s\n", BoundedRenderer.truncate(payload, BoundedRenderer.defaultMaxChars())));
+        if (logger.isDebugEnabled())
+            logger.debug("\t*** Full payload:\n{}\n", payload);
 
         String result;
 
         if (defaults.isEmpty()) {
             result = cartographer.translate(inName, inVers, inType, outName, outVers, outType, payload);
         } else {
-            info(String.format("\t*** Defaults:\n%s\n", defaults));
+            info(String.format("\t*** Defaults:\n%s\n", BoundedRenderer.truncate(defaults, BoundedRenderer.defaultMaxChars())));
             result = cartographer.translate(inName, inVers, inType, outName, outVers, outType, payload, defaults);
         }
 
@@ -215,9 +230,72 @@ public class PlasticRunner {
         }
     }
 
+    private static int portFrom(String[] args) {
+        return (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+    }
+
+    private static void serve(String[] args) throws IOException {
+        CartographyService service = new Factory().build();
+        RunnerServer server = new RunnerServer(new AppContext(new SearchPath()), service, portFrom(args)).start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            try {
+                service.close();
+            } catch (Exception e) {
+            }
+        }));
+    }
+
+    private static PlasticRunner connect(String[] args) throws IOException {
+        String[] propFiles = Arrays.copyOfRange(args, Math.min(2, args.length), args.length);
+        return new PlasticRunner(propFiles, new RunnerClient(portFrom(args)));
+    }
+
+    private static void load(String[] args) throws IOException {
+        if (args.length < 2) {
+            logger.error("Must supply a directory of cases to replay");
+            exit(1);
+        }
+
+        List<WarmUp.Sample> cases = LoadRunner.readCases(new File(args[1]));
+        if (cases.isEmpty()) {
+            logger.error("Found no readable cases in " + args[1]);
+            exit(1);
+        }
+
+        Cartography worker = new Factory().buildWorker();
+        try {
+            LoadRunner.Options options = LoadRunner.Options.from(new AppContext(new SearchPath()));
+            LoadRunner.Report report = new LoadRunner(worker, cases, options).run();
+
+            if (args.length > 2) {
+                try (Writer writer = new FileWriter(args[2])) {
+                    writer.write(report.asJson());
+                }
+            }
+            else {
+                System.out.println(report.asJson());
+            }
+        }
+        finally {
+            worker.close();
+        }
+    }
+
     public static void main(String[] args) throws IOException {
 
-        PlasticRunner runner = new PlasticRunner(args);
+        if (args.length > 0 && args[0].equals(SERVE)) {
+            serve(args);
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals(LOAD)) {
+            load(args);
+            return;
+        }
+
+        PlasticRunner runner = (args.length > 0 && args[0].equals(CONNECT)) ? connect(args) : new PlasticRunner(args);
 
         List<Thread> threads = new ArrayList<>();
 
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+
+/**
+ * The parts of a worker that can be shared by several workers in one JVM: the class loader and
+ * everything compiled by it, the file name caches, the schema cache, the polling thread that
+ * watches the directories, and the thread pool that runs child plans.
+ *
+ * A CartographerWorker made the usual way has a runtime of its own. To host several services
+ * over the same search path, make one runtime and get a worker from it for each service (see
+ * newWorker()). Those workers only have their own caches of results and defaults, metrics,
+ * admission control, and sessions.
+ *
+ * A worker can also have its own search path laid over the shared one. Its schemas, morphers,
+ * and classifiers directories shadow shared files with the same names, and its properties are
+ * added to the shared ones. Its morphers and classifiers are compiled by the shared parsers,
+ * so files that are not shadowed are still only compiled once. Library directories can't be
+ * overlaid, since the library classes are loaded into the shared class loader.
+ *
+ * Closing a worker doesn't close a runtime it didn't make, the runtime is closed by its owner.
+ */
+class PlasticRuntime implements AutoCloseable {
+
+    // What a worker looks things up with, either the shared one or one with an overlay
+    //
+    static class Layer {
+        final AppContext appProps
+        final FilenamesCaches caches
+        final CachingSchemaSource schemaSource
+        final MorpherLoader morpherLoader
+        final ClassifierLoader classifierLoader
+        final List<Pollee> pollees
+
+        Layer(AppContext appProps, FilenamesCaches caches, CachingSchemaSource schemaSource,
+              MorpherLoader morpherLoader, ClassifierLoader classifierLoader, List<Pollee> pollees) {
+            this.appProps = appProps
+            this.caches = caches
+            this.schemaSource = schemaSource
+            this.morpherLoader = morpherLoader
+            this.classifierLoader = classifierLoader
+            this.pollees = pollees
+        }
+    }
+
+    final AppContext appProps
+    final FilenamesCaches caches
+    final Poller poller
+    final GroovyClassLoader gcl
+    final LibraryLoader libraryLoader
+
+    // Using fixedThreadPool seemed to give better scheduling results than GPARS parallel array
+
+    final int threads = new ThreadingEnv().numUsableThreads()
+    final ExecutorService executor = Executors.newFixedThreadPool(threads)
+
+    final Layer shared
+
+    PlasticRuntime() {
+        this(new SearchPath(), 0)
+    }
+
+    PlasticRuntime(SearchPath path, int pollingInterval) {
+        this(new AppContext(path), standardCaches(path), new Poller(pollingInterval))
+    }
+
+    private static FilenamesCaches standardCaches(SearchPath path) {
+        LiveArtifactBundle bundle = LiveArtifactBundle.configured(new AppContext(path), path)
+        new FilenamesCaches(path, bundle, "lib", "classifiers", "morphers", "schemas")
+    }
+
+    PlasticRuntime(AppContext appProps, FilenamesCaches caches, Poller poller) {
+        this.appProps = appProps
+        this.caches = caches
+        this.poller = poller
+        this.gcl = new GroovyClassLoader(getClass().getClassLoader())
+
+        CachingSchemaSource schemaSource = new CachingSchemaSource(appProps, new SchemaLoader(caches.get("schemas")))
+        MorpherLoader mloader = new MorpherLoader(appProps, caches.get("morphers"), gcl)
+        ClassifierLoader cloader = new ClassifierLoader(appProps, caches.get("classifiers"), gcl)
+        this.libraryLoader = new LibraryLoader(caches.getRootFor("lib"), gcl)
+
+        ClassCacheClearer libraryClearer = new ClassCacheClearer(gcl, caches.getRootFor("lib"), { libraryLoader.clear() })
+        ClassCacheClearer morphersClearer = new ClassCacheClearer(gcl, caches.getRootFor("morphers"))
+        ClassCacheClearer classifiersClearer = new ClassCacheClearer(gcl, caches.getRootFor("classifiers"))
+
+        this.poller.register(caches)
+        this.poller.register(libraryClearer)
+        this.poller.register(morphersClearer)
+        this.poller.register(classifiersClearer)
+        this.poller.register(libraryLoader)
+        this.poller.register(schemaSource)
+        this.poller.register(mloader)
+        this.poller.register(cloader)
+        this.poller.start()
+
+        this.poller.waitTillInitialized()
+
+        this.shared = new Layer(appProps, caches, schemaSource, mloader, cloader, [])
+    }
+
+    CartographerWorker newWorker() {
+        new CartographerWorker(this, shared)
+    }
+
+    CartographerWorker newWorker(SearchPath overlayPath) {
+        new CartographerWorker(this, overlay(overlayPath))
+    }
+
+    // Shared morphers and classifiers are kept fresh by the shared loaders, which resync the
+    // parsers that overlay loaders use too. So only overlaid directories need more polling.
+    //
+    Layer overlay(SearchPath path) {
+        AppContext props = new AppContext()
+        props.addAll(appProps)
+        props.addAll(new AppContext(path))
+
+        FilenamesCaches layered = new FilenamesCaches(caches, path)
+        List<Pollee> pollees = [ (Pollee) layered ]
+
+        CachingSchemaSource schemaSource = shared.schemaSource
+        if (!layered.get("schemas").is(caches.get("schemas"))) {
+            schemaSource = new CachingSchemaSource(props, new SchemaLoader(layered.get("schemas")))
+            pollees.add(schemaSource)
+        }
+
+        MorpherLoader mloader = new MorpherLoader(props, layered.get("morphers"), shared.morpherLoader.gparser)
+        ClassifierLoader cloader = new ClassifierLoader(props, layered.get("classifiers"), shared.classifierLoader.gparser)
+
+        pollees.each { Pollee pollee -> poller.attach(pollee) }
+        new Layer(props, layered, schemaSource, mloader, cloader, pollees)
+    }
+
+    void release(Layer layer) {
+        layer.pollees.each { Pollee pollee -> poller.detach(pollee) }
+    }
+
+    @Override
+    void close() {
+        poller.close()
+
+        executor.shutdownNow()
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS)
+        } catch (InterruptedException e) {
+            // do nothing
+        }
+    }
+}
@@ -10,10 +10,10 @@
 
 package org.opendaylight.plastic.implementation
 
-import com.google.common.collect.Lists
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
+import java.util.concurrent.CopyOnWriteArrayList
 import java.util.concurrent.atomic.AtomicInteger
 import java.util.concurrent.locks.Lock
 import java.util.concurrent.locks.ReentrantReadWriteLock
@@ -34,7 +34,7 @@ class Poller {
     private Thread pollingThread
 
     private final int pollingSeconds
-    private final List<Pollee> pollees = Lists.newArrayList()
+    private final List<Pollee> pollees = new CopyOnWriteArrayList<>()
     private final Closure didPollee
     private final AtomicInteger pass = new AtomicInteger(0)
 
@@ -68,6 +68,24 @@ class Poller {
         pollees.add(pollee)
     }
 
+    // For pollees that come along after the poller started (like the workers on a shared
+    // PlasticRuntime). The pollee's initial phase is run right away, between passes.
+    //
+    void attach(Pollee pollee) {
+        writerLock.lock()
+        try {
+            pollee.phase(0)
+            pollees.add(pollee)
+        }
+        finally {
+            writerLock.unlock()
+        }
+    }
+
+    void detach(Pollee pollee) {
+        pollees.remove(pollee)
+    }
+
     protected int getPasses() {
         pass.intValue()
     }
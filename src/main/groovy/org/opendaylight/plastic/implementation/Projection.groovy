@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import groovy.transform.CompileStatic
+
+
+/**
+ * The input variables a translation plan actually consumes. These are the variables used by
+ * the output schema plus any other inputs its morphers say they read (see
+ * BasicMorpher.readsInputs). Only those need to be bound from the payload, taken from the
+ * defaults and validated. An input schema that describes a whole device model, of which an
+ * output uses a few dozen variables, then has most of its payload paths skipped.
+ *
+ * A plan with a morpher that might read any input is not narrowed at all. Names are compared
+ * without their indexes, so ADDR[*], ADDR[^][*] and ADDR[3] all count as ADDR. Internal
+ * variables (starting with an underscore) are always kept.
+ */
+@CompileStatic
+class Projection {
+
+    static final Projection EVERYTHING = new Projection(null, Collections.<String>emptySet())
+
+    // Projections are computed once per plan and kept here. They are keyed by the parsed schemas
+    // (shared by all of their clones) and the morphers, so a changed schema or morpher file gets
+    // a fresh projection.
+    //
+    static class Memo {
+
+        static final long DEFAULT_MAX_ENTRIES = 1000
+
+        private final Cache<Key,Projection> cache
+
+        Memo() {
+            this(DEFAULT_MAX_ENTRIES)
+        }
+
+        Memo(long maxEntries) {
+            this.cache = CacheBuilder.newBuilder().maximumSize(maxEntries).build()
+        }
+
+        Projection lookup(Schema input, Schema output, List<Morpher> morphers) {
+            Key key = new Key(input.origin, output.origin, morphers)
+            Projection found = cache.getIfPresent(key)
+            if (found == null) {
+                found = of(input, output, morphers)
+                cache.put(key, found)
+            }
+            found
+        }
+
+        long size() {
+            cache.size()
+        }
+    }
+
+    private static class Key {
+        final Object input
+        final Object output
+        final Object[] morphers
+
+        Key(Object input, Object output, List<Morpher> morphers) {
+            this.input = input
+            this.output = output
+            this.morphers = morphers.toArray()
+        }
+
+        @Override
+        boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false
+            Key other = (Key) o
+            if (!input.is(other.input) || !output.is(other.output) || morphers.length != other.morphers.length)
+                return false
+            for (int i = 0; i < morphers.length; i++) {
+                if (!morphers[i].is(other.morphers[i]))
+                    return false
+            }
+            true
+        }
+
+        @Override
+        int hashCode() {
+            int result = 31 * System.identityHashCode(input) + System.identityHashCode(output)
+            for (Object m : morphers)
+                result = 31 * result + System.identityHashCode(m)
+            result
+        }
+    }
+
+    // Base names of the consumed variables, or null for all of them
+    private final Set<String> needed
+
+    // Input schema variables that are not consumed
+    private final Set<String> pruned
+
+    private Projection(Set<String> needed, Set<String> pruned) {
+        this.needed = needed
+        this.pruned = Collections.unmodifiableSet(pruned)
+    }
+
+    static Projection of(Schema input, Schema output, List<Morpher> morphers) {
+        Set<String> needed = referencedBy(output)
+        for (Morpher m : morphers) {
+            Set<String> reads = m.readsInputs()
+            if (reads == null)
+                return EVERYTHING
+            for (String r : reads)
+                needed.add(Variables.basename(r))
+        }
+
+        Set<String> pruned = new LinkedHashSet<>()
+        for (Object name : input.fetchVariables().keySet()) {
+            if (!isKept(needed, (String) name))
+                pruned.add((String) name)
+        }
+
+        new Projection(needed, pruned)
+    }
+
+    // Variables can show up in places the finders don't look (like map keys), so the emitted
+    // schema is scanned as well
+    //
+    private static Set<String> referencedBy(Schema output) {
+        Set<String> results = new HashSet<>()
+        for (Object name : output.fetchVariables().keySet())
+            results.add(Variables.basename((String) name))
+
+        for (String part : Variables.splitApart(output.emit())) {
+            if (Variables.isAdorned(part)) {
+                String name = Variables.unadorn(part).split('=', 2)[0].trim()
+                results.add(Variables.basename(name))
+            }
+        }
+        results
+    }
+
+    private static boolean isKept(Set<String> needed, String name) {
+        needed == null || Variables.isInternal(name) || needed.contains(Variables.basename(name))
+    }
+
+    boolean isEverything() {
+        needed == null
+    }
+
+    boolean keeps(String name) {
+        isKept(needed, name)
+    }
+
+    boolean keepsAny(Collection<String> names) {
+        for (String name : names) {
+            if (isKept(needed, name))
+                return true
+        }
+        false
+    }
+
+    Set<String> getPruned() {
+        pruned
+    }
+
+    // The kept entries of the given map, which is returned as is when everything is kept
+    //
+    Map<String,Object> narrowed(Map<String,Object> values) {
+        if (needed == null)
+            return values
+
+        Map<String,Object> results = new LinkedHashMap<>()
+        for (Map.Entry<String,Object> entry : values.entrySet()) {
+            if (isKept(needed, entry.key))
+                results.put(entry.key, entry.value)
+        }
+        results
+    }
+
+    // Drops the entries that are not kept from the given map
+    //
+    void narrow(Map<String,Object> values) {
+        if (needed == null)
+            return
+
+        Iterator<String> keys = values.keySet().iterator()
+        while (keys.hasNext()) {
+            if (!isKept(needed, keys.next()))
+                keys.remove()
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonSlurper
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicInteger
+
+
+/**
+ * Client side of the runner server (see RunnerServer). It is a translation service itself,
+ * so callers can switch between an in-process worker and a running server. Requests made
+ * through submit() are pipelined, so one connection can have many translations underway.
+ */
+class RunnerClient implements CartographyService {
+
+    static class RemoteTranslationException extends PlasticException {
+        RemoteTranslationException(String reason) {
+            super("PLASTIC-RUNNER-REMOTE", "Runner server failed the translation: " + reason)
+        }
+    }
+
+    static class ConnectionLostException extends PlasticException {
+        ConnectionLostException(Exception e) {
+            super("PLASTIC-RUNNER-LOST", "Lost the connection to the runner server", e)
+        }
+    }
+
+    private final Socket socket
+    private final DataInputStream inp
+    private final DataOutputStream out
+    private final Map<Integer,CompletableFuture<String>> pending = new ConcurrentHashMap<>()
+    private final AtomicInteger ids = new AtomicInteger()
+    private final Thread reader
+
+    private volatile Exception lost
+
+    RunnerClient(int port) {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port)
+        this.socket.setTcpNoDelay(true)
+        this.inp = new DataInputStream(new BufferedInputStream(socket.getInputStream()))
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+        this.reader = new Thread({ readAll() }, "plastic-runner-client")
+        this.reader.setDaemon(true)
+        this.reader.start()
+    }
+
+    private void readAll() {
+        try {
+            RunnerProtocol.Response response
+            while ((response = RunnerProtocol.readResponse(inp)) != null) {
+                CompletableFuture<String> future = pending.remove(response.id)
+                if (future == null)
+                    continue
+                if (response.isOk())
+                    future.complete(response.body)
+                else
+                    future.completeExceptionally(new RemoteTranslationException(response.body))
+            }
+            failAll(new EOFException("runner server closed the connection"))
+        }
+        catch (IOException e) {
+            failAll(e)
+        }
+    }
+
+    private void failAll(Exception e) {
+        lost = e
+        for (Integer id : pending.keySet()) {
+            CompletableFuture<String> future = pending.remove(id)
+            if (future != null)
+                future.completeExceptionally(new ConnectionLostException(e))
+        }
+    }
+
+    private CompletableFuture<String> register(int id) {
+        CompletableFuture<String> future = new CompletableFuture<>()
+        pending.put(id, future)
+        if (lost != null)
+            failAll(lost)
+        future
+    }
+
+    Future<String> submit(VersionedSchema input, VersionedSchema output, String payload, String defaults) {
+        int id = ids.incrementAndGet()
+        CompletableFuture<String> future = register(id)
+        try {
+            synchronized (out) {
+                RunnerProtocol.writeTranslate(out, id, input, output, payload, defaults)
+                out.flush()
+            }
+        }
+        catch (IOException e) {
+            pending.remove(id)
+            throw new ConnectionLostException(e)
+        }
+        future
+    }
+
+    @Override
+    String translate(String inSchemaName, String inVersion, String inType,
+                     String outSchemaName, String outVersion, String outType,
+                     String payload) {
+        await(submit(new VersionedSchema(inSchemaName, inVersion, inType),
+                new VersionedSchema(outSchemaName, outVersion, outType), payload, null))
+    }
+
+    @Override
+    String translate(String inSchemaName, String inVersion, String inType,
+                     String outSchemaName, String outVersion, String outType,
+                     String payload, String defaults) {
+        await(submit(new VersionedSchema(inSchemaName, inVersion, inType),
+                new VersionedSchema(outSchemaName, outVersion, outType), payload, defaults))
+    }
+
+    // The server's throughput and latency stats (see RunnerServer.stats())
+    //
+    Map stats() {
+        int id = ids.incrementAndGet()
+        CompletableFuture<String> future = register(id)
+        try {
+            synchronized (out) {
+                RunnerProtocol.writeStats(out, id)
+                out.flush()
+            }
+        }
+        catch (IOException e) {
+            pending.remove(id)
+            throw new ConnectionLostException(e)
+        }
+        (Map) new JsonSlurper().parseText(await(future))
+    }
+
+    static String await(Future<String> future) {
+        try {
+            future.get()
+        }
+        catch (ExecutionException e) {
+            throw e.cause
+        }
+    }
+
+    @Override
+    void close() {
+        socket.close()
+    }
+}
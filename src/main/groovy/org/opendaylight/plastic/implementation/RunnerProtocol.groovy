@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.transform.CompileStatic
+
+import java.nio.charset.StandardCharsets
+
+
+/**
+ * Framing for the runner server (see RunnerServer and RunnerClient). Every frame starts with
+ * the request id chosen by the client, so requests can be pipelined on one connection and
+ * their responses can come back in whatever order the translations finish.
+ *
+ *   request:  int id, byte op, then for TRANSLATE the in and out schema names, versions and
+ *             types, the payload and the defaults (null when there are none)
+ *   response: int id, byte status, then the result (or the failure message when FAILED)
+ *
+ * Strings are an int length (-1 for null) followed by that many UTF-8 bytes.
+ */
+@CompileStatic
+class RunnerProtocol {
+
+    static class BadFrameException extends PlasticException {
+        BadFrameException(String reason) {
+            super("PLASTIC-RUNNER-FRAME", "Bad runner protocol frame: " + reason)
+        }
+    }
+
+    static final byte TRANSLATE = (byte) 0x54 // 'T'
+    static final byte STATS = (byte) 0x53 // 'S'
+
+    static final byte OK = (byte) 0
+    static final byte FAILED = (byte) 1
+
+    static final int MAX_STRING = 256 * 1024 * 1024
+
+    // Schema names are left raw so that bad ones fail their own translation, not the frame
+    //
+    static class Request {
+        int id
+        byte op
+        String inName
+        String inVersion
+        String inType
+        String outName
+        String outVersion
+        String outType
+        String payload
+        String defaults
+    }
+
+    static class Response {
+        int id
+        byte status
+        String body
+
+        boolean isOk() {
+            status == OK
+        }
+    }
+
+    static void writeTranslate(DataOutputStream out, int id, VersionedSchema input, VersionedSchema output,
+                               String payload, String defaults) {
+        out.writeInt(id)
+        out.writeByte(TRANSLATE)
+        writeString(out, input.name)
+        writeString(out, input.version)
+        writeString(out, input.type)
+        writeString(out, output.name)
+        writeString(out, output.version)
+        writeString(out, output.type)
+        writeString(out, payload)
+        writeString(out, defaults)
+    }
+
+    static void writeStats(DataOutputStream out, int id) {
+        out.writeInt(id)
+        out.writeByte(STATS)
+    }
+
+    // Returns null at a clean end of stream (ie, between frames)
+    //
+    static Request readRequest(DataInputStream inp) {
+        Request request = new Request()
+        try {
+            request.id = inp.readInt()
+        }
+        catch (EOFException e) {
+            return null
+        }
+
+        request.op = inp.readByte()
+        if (request.op == TRANSLATE) {
+            request.inName = readString(inp)
+            request.inVersion = readString(inp)
+            request.inType = readString(inp)
+            request.outName = readString(inp)
+            request.outVersion = readString(inp)
+            request.outType = readString(inp)
+            request.payload = readString(inp)
+            request.defaults = readString(inp)
+        }
+        else if (request.op != STATS) {
+            throw new BadFrameException("unknown operation ${request.op}")
+        }
+
+        request
+    }
+
+    static void writeResponse(DataOutputStream out, int id, byte status, String body) {
+        out.writeInt(id)
+        out.writeByte(status)
+        writeString(out, body)
+    }
+
+    // Returns null at a clean end of stream (ie, between frames)
+    //
+    static Response readResponse(DataInputStream inp) {
+        Response response = new Response()
+        try {
+            response.id = inp.readInt()
+        }
+        catch (EOFException e) {
+            return null
+        }
+
+        response.status = inp.readByte()
+        response.body = readString(inp)
+        response
+    }
+
+    static void writeString(DataOutputStream out, String value) {
+        if (value == null) {
+            out.writeInt(-1)
+        }
+        else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8)
+            out.writeInt(bytes.length)
+            out.write(bytes)
+        }
+    }
+
+    static String readString(DataInputStream inp) {
+        int len = inp.readInt()
+        if (len == -1)
+            return null
+        if (len < 0 || len > MAX_STRING)
+            throw new BadFrameException("string length ${len}")
+
+        byte[] bytes = new byte[len]
+        inp.readFully(bytes)
+        new String(bytes, StandardCharsets.UTF_8)
+    }
+}
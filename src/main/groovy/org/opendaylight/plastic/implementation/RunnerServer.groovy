@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonOutput
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.LongAdder
+
+
+/**
+ * Keeps one translation service alive and serves translations to local clients over loopback
+ * TCP (see RunnerProtocol), so scripts do not pay for JVM and class loading startup on every
+ * translation.
+ *
+ * Each connection has a reader thread that hands requests to a shared pool, so requests that
+ * are pipelined on one connection are translated concurrently. Responses are written back as
+ * they finish, tagged with the request ids.
+ */
+class RunnerServer implements Closeable {
+
+    static final String THREADS_PROPERTY = "plastic.runner.threads"
+
+    static final Logger logger = LoggerFactory.getLogger(RunnerServer)
+
+    private static class Connection {
+
+        final Socket socket
+        final DataInputStream inp
+        final DataOutputStream out
+
+        Connection(Socket socket) {
+            this.socket = socket
+            this.inp = new DataInputStream(new BufferedInputStream(socket.getInputStream()))
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+        }
+
+        void respond(int id, byte status, String body) {
+            synchronized (out) {
+                RunnerProtocol.writeResponse(out, id, status, body)
+                out.flush()
+            }
+        }
+    }
+
+    private final CartographyService service
+    private final ServerSocket serverSocket
+    private final ExecutorService pool
+    private final Set<Connection> connections = Collections.newSetFromMap(new ConcurrentHashMap<Connection,Boolean>())
+
+    private final LatencyHistogram latencies = new LatencyHistogram()
+    private final LongAdder translated = new LongAdder()
+    private final LongAdder failed = new LongAdder()
+    private final AtomicInteger inFlight = new AtomicInteger()
+    private final long startedNanos = System.nanoTime()
+
+    private Thread acceptor
+    private volatile boolean closed
+
+    RunnerServer(AppContext appProps, CartographyService service, int port) {
+        this(service, port, Integer.parseInt(appProps.getOrElse(THREADS_PROPERTY,
+                Integer.toString(new ThreadingEnv().numUsableThreads()))))
+    }
+
+    RunnerServer(CartographyService service, int port, int threads) {
+        this.service = service
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())
+        this.pool = Executors.newFixedThreadPool(threads)
+    }
+
+    int getPort() {
+        serverSocket.localPort
+    }
+
+    RunnerServer start() {
+        acceptor = new Thread({ acceptAll() }, "plastic-runner-acceptor")
+        acceptor.start()
+        logger.info("Plastic runner server listening on {}", serverSocket.localSocketAddress)
+        this
+    }
+
+    private void acceptAll() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept()
+                socket.setTcpNoDelay(true)
+                Connection connection = new Connection(socket)
+                connections.add(connection)
+                new Thread({ readAll(connection) }, "plastic-runner-conn-${socket.port}".toString()).start()
+            }
+            catch (IOException e) {
+                if (!closed)
+                    logger.warn("Runner server could not accept a connection", e)
+            }
+        }
+    }
+
+    private void readAll(Connection connection) {
+        Socket socket = connection.socket
+        try {
+            RunnerProtocol.Request request
+            while ((request = RunnerProtocol.readRequest(connection.inp)) != null) {
+                RunnerProtocol.Request accepted = request
+                inFlight.incrementAndGet()
+                pool.execute { serve(connection, accepted) }
+            }
+        }
+        catch (IOException e) {
+            if (!closed)
+                logger.debug("Runner connection from {} ended", socket.remoteSocketAddress, e)
+        }
+        catch (RunnerProtocol.BadFrameException e) {
+            logger.warn("Dropping runner connection from {}", socket.remoteSocketAddress, e)
+        }
+        finally {
+            connections.remove(connection)
+            socket.close()
+        }
+    }
+
+    private void serve(Connection connection, RunnerProtocol.Request request) {
+        try {
+            if (request.op == RunnerProtocol.STATS) {
+                connection.respond(request.id, RunnerProtocol.OK, JsonOutput.toJson(stats()))
+                return
+            }
+
+            long started = System.nanoTime()
+            byte status = RunnerProtocol.OK
+            String body
+            try {
+                body = translate(request)
+                translated.increment()
+            }
+            catch (Exception e) {
+                status = RunnerProtocol.FAILED
+                body = e.message ?: e.class.name
+                failed.increment()
+            }
+            latencies.recordSince(started)
+
+            connection.respond(request.id, status, body)
+        }
+        catch (IOException e) {
+            logger.debug("Could not respond to runner request {}", request.id, e)
+        }
+        finally {
+            inFlight.decrementAndGet()
+        }
+    }
+
+    private String translate(RunnerProtocol.Request request) {
+        RunnerProtocol.Request r = request
+
+        if (r.defaults == null)
+            service.translate(r.inName, r.inVersion, r.inType, r.outName, r.outVersion, r.outType, r.payload)
+        else
+            service.translate(r.inName, r.inVersion, r.inType, r.outName, r.outVersion, r.outType, r.payload, r.defaults)
+    }
+
+    // Latencies are in microseconds and throughput is per second since the server started
+    //
+    Map<String,Object> stats() {
+        long done = translated.sum()
+        long failures = failed.sum()
+        double seconds = (System.nanoTime() - startedNanos) / 1.0e9d
+
+        Map<String,Object> results = new LinkedHashMap<>()
+        results.put("translated", done)
+        results.put("failed", failures)
+        results.put("in-flight", inFlight.get())
+        results.put("connections", connections.size())
+        results.put("throughput", seconds > 0 ? (long) ((done + failures) / seconds) : 0L)
+        results.put("latency-micros", latencies.snapshot().asMap(1000))
+        results
+    }
+
+    @Override
+    void close() {
+        closed = true
+        serverSocket.close()
+        connections.each { Connection c -> c.socket.close() }
+
+        pool.shutdown()
+        try {
+            pool.awaitTermination(30, TimeUnit.SECONDS)
+        }
+        catch (InterruptedException e) {
+            // do nothing
+        }
+
+        logger.info("Plastic runner server stopped with stats {}", stats())
+    }
+}
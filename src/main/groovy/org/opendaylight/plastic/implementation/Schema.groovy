@@ -10,38 +10,77 @@
 
 package org.opendaylight.plastic.implementation
 
+import groovy.transform.CompileStatic
+
+@CompileStatic
 class Schema {
 
     final static ParserFactory parserFactory = new ParserFactory()
 
     final VersionedSchemaParsed parsedSchema
 
+    // Read-only, already expanded defaults (see freezeDefaults)
+    private final Map frozenDefaults
+
+    // Shared by a schema and its clones, so anything worked out from the parsed schema (see
+    // Projection) can be kept for as long as the schema itself is
+    final Object origin
+
     Schema(VersionedSchema version, String contents) {
-        InputStream payloadStream = new ByteArrayInputStream(contents.getBytes())
+        InputStream payloadStream = new ByteArrayInputStream(asBytes(version, contents))
         VersionedSchemaStream payload = new VersionedSchemaStream(version, payloadStream)
         this.parsedSchema = payload.parse()
+        this.frozenDefaults = null
+        this.origin = new Object()
+    }
+
+    // Binary payloads are carried one char per byte rather than as text
+    //
+    private static byte[] asBytes(VersionedSchema version, String contents) {
+        ParsedCbor.KEY.equalsIgnoreCase(version.type) ? CborFormat.asBytes(contents) : contents.getBytes()
     }
 
     Schema(VersionedSchema inSchema, SchemaLoader loader) {
         def model = loader.locate(inSchema)
         def boundIn = new VersionedSchemaStream(inSchema, model)
         this.parsedSchema = parserFactory.createParsed(boundIn)
+        this.frozenDefaults = null
+        this.origin = new Object()
     }
 
-    private Schema(VersionedSchemaParsed parsedSchema) {
+    private Schema(VersionedSchemaParsed parsedSchema, Object origin) {
+        this(parsedSchema, null, origin)
+    }
+
+    private Schema(VersionedSchemaParsed parsedSchema, Map frozenDefaults, Object origin) {
         this.parsedSchema = parsedSchema
+        this.frozenDefaults = frozenDefaults
+        this.origin = origin
     }
 
     Bindings bindValues(Schema payload) {
         parsedSchema.bindValues(payload.parsedSchema)
     }
 
+    // Binds only the input variables kept by the given projection
+    //
+    Bindings bindValues(Schema payload, Projection projection) {
+        projection.isEverything() ? parsedSchema.bindValues(payload.parsedSchema) : parsedSchema.bindValues(payload.parsedSchema, projection)
+    }
+
     Map fetchVariables() {
         parsedSchema.fetchVariables()
     }
 
     Map asDefaults() {
-        parsedSchema.asDefaults()
+        frozenDefaults == null ? parsedSchema.asDefaults() : DefaultsCache.shareable(frozenDefaults)
+    }
+
+    // Expand the defaults once, so this schema can be shared as a defaults document
+    // across translations (and threads). Do not use the result as a payload.
+    //
+    Schema freezeDefaults() {
+        new Schema(parsedSchema, Collections.unmodifiableMap(parsedSchema.asDefaults()), origin)
     }
 
     void inject(Map values, Set danglingInputs, Set danglingOutputs) {
@@ -61,11 +100,11 @@ class Schema {
     }
 
     Schema cloneWith(Object payload) {
-        new Schema(parsedSchema.cloneWith(payload))
+        new Schema(parsedSchema.cloneWith(payload), new Object())
     }
 
     Schema clone() {
-        new Schema(parsedSchema.clone())
+        new Schema(parsedSchema.clone(), origin)
     }
 
     String toShortString(int len) {
@@ -34,10 +34,9 @@ class SchemaLoader {
 
         if (target && target.name && target.version && target.type) {
             String schemaFileName = computeName(target)
-            def schemaFile = new File(schemaFileName)
 
-            if (schemaFile.exists()) {
-                payload = new ByteArrayInputStream(schemaFile.getBytes())
+            if (cache.exists(schemaFileName)) {
+                payload = new ByteArrayInputStream(cache.read(schemaFileName))
             } else {
                 throw new LocationNotFoundException(schemaFileName)
             }
@@ -1,4 +1,3 @@
-
 /*
  * Copyright (c) 2019 Lumina Networks, Inc. All rights reserved.
  *
@@ -10,7 +9,16 @@
 
 package org.opendaylight.plastic.implementation
 
-import java.util.concurrent.ConcurrentHashMap
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import com.google.common.cache.CacheStats
+import com.google.common.util.concurrent.ExecutionError
+import com.google.common.util.concurrent.UncheckedExecutionException
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
 
 interface SchemaSource {
 
@@ -19,13 +27,75 @@ interface SchemaSource {
     Schema createSimilar(VersionedSchema versionedSchema, String raw)
 }
 
+/**
+ * Keeps parsed schemas around between translations, handing out clones of them. The cache is
+ * bounded (least recently used entries go first) and each schema is loaded at most once at a
+ * time, without holding up loads of other schemas.
+ *
+ * Entries are only dropped when their files change. Schema files are looked up by base name
+ * (see SchemaLoader), so any added, modified, or deleted file with the same base name as an
+ * entry drops that entry. When the schemas come from an artifact bundle, any change to the
+ * bundle drops everything.
+ */
 class CachingSchemaSource implements SchemaSource, Pollee {
 
+    static final String MAX_ENTRIES_PROPERTY = "plastic.schema-cache.max-entries"
+    static final String DEFAULT_MAX_ENTRIES = "2000"
+
+    static final Logger logger = LoggerFactory.getLogger(CachingSchemaSource)
+
     private final SchemaLoader schemaLoader
-    private final Map<VersionedSchema,Schema> cache = new ConcurrentHashMap<>()
+    private final Cache<VersionedSchema,Schema> cache
+    private final List<DirectoryMonitor> monitors = []
 
     CachingSchemaSource(SchemaLoader schemaLoader) {
+        this(new AppContext(), schemaLoader)
+    }
+
+    CachingSchemaSource(AppContext appProps, SchemaLoader schemaLoader) {
+        this(schemaLoader, Long.parseLong(appProps.getOrElse(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES)))
+
+        schemaLoader.cache.roots().each { String root ->
+            watch(new DirectoryMonitor(root))
+        }
+    }
+
+    CachingSchemaSource(SchemaLoader schemaLoader, long maxEntries) {
         this.schemaLoader = schemaLoader
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build()
+    }
+
+    // A watched root that is itself a file is an artifact bundle, which can't be picked apart
+    //
+    void watch(DirectoryMonitor monitor) {
+        monitor.registerListener { DirectoryMonitor.FileStatsDifference diff ->
+            if (diff.changed().contains(diff.parent())) {
+                logger.debug("Dropping all cached schemas due to changes in ${diff.parent()}")
+                cache.invalidateAll()
+            }
+            else {
+                invalidate(diff.changed())
+            }
+        }
+        monitors.add(monitor)
+    }
+
+    // Drops the entries whose files could be any of the given ones
+    //
+    void invalidate(Collection<String> changedPaths) {
+        Set<String> names = changedPaths.collect { String path -> new File(path).name } as Set<String>
+        Collection<VersionedSchema> stale = cache.asMap().keySet().findAll { VersionedSchema key -> names.contains(baseNameOf(key)) }
+        if (stale) {
+            logger.debug("Dropping cached schemas due to changed files: ${stale}")
+            cache.invalidateAll(stale)
+        }
+    }
+
+    private static String baseNameOf(VersionedSchema schema) {
+        "${schema.name}-${schema.version}.${schema.type}"
     }
 
     // This one cannot be cached because the version is not a key to this content
@@ -37,13 +107,16 @@ class CachingSchemaSource implements SchemaSource, Pollee {
 
     @Override
     Schema createSchema(VersionedSchema inSchema) {
-        synchronized (cache) {
-            if (!cache.containsKey(inSchema)) {
-                Schema entry = new Schema(inSchema, schemaLoader)
-                cache.put(inSchema, entry)
-            }
-
-            cache.get(inSchema).clone()
+        try {
+            cache.get(inSchema, { new Schema(inSchema, schemaLoader) } as Callable<Schema>).clone()
+        }
+        catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            Throwable cause = e.getCause()
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause
+            if (cause instanceof Error)
+                throw (Error) cause
+            throw new RuntimeException(cause)
         }
     }
 
@@ -54,8 +127,25 @@ class CachingSchemaSource implements SchemaSource, Pollee {
         return new Schema(reference, content);
     }
 
+    long size() {
+        cache.size()
+    }
+
+    CacheStats stats() {
+        cache.stats()
+    }
+
+    void clear() {
+        cache.invalidateAll()
+    }
+
     @Override
     void phase(int i) {
-        cache.clear()
+        monitors.each { DirectoryMonitor monitor ->
+            if (i == 0)
+                monitor.takeSnapShot()
+            else
+                monitor.takeSnapShotAndNotify()
+        }
     }
 }
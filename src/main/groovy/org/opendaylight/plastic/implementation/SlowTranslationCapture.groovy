@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import com.google.common.hash.Hashing
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+import groovy.transform.CompileStatic
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
+import java.util.regex.Matcher
+import java.util.regex.Pattern
+
+
+class SlowTranslationCaptureLogger {
+
+    static final Logger logger = LoggerFactory.getLogger(SlowTranslationCapture)
+
+    void captured(SlowTranslationCapture.Record record) {
+        if (logger.isDebugEnabled())
+            logger.debug("PLASTIC-CAPTURE: captured #${record.sequence} ${record.input} -> ${record.output} " +
+                    "taking ${(long) (record.totalNanos / 1000L)} micros for ${record.payloadChars} chars")
+    }
+
+    void dumped(File dir, int count) {
+        logger.info("PLASTIC-CAPTURE: wrote ${count} captured translations to ${dir.absolutePath}")
+    }
+
+    void couldNotDump(File dir, Exception e) {
+        logger.warn("PLASTIC-CAPTURE: could not write captured translations to ${dir.absolutePath}", e)
+    }
+
+    void couldNotRedact(VersionedSchema input, Exception e) {
+        logger.warn("PLASTIC-CAPTURE: could not redact a ${input} payload, so it was hashed instead: ${e.message}")
+    }
+}
+
+/**
+ * Opt-in record of the translations that were slow (or had big payloads), so that the exact
+ * cases behind a latency spike can be replayed and profiled offline.
+ *
+ * The most recent captures are kept in a fixed size ring buffer, so older ones are overwritten
+ * and memory stays bounded. Each record has the schemas, the defaults, the payload, the time
+ * spent in each phase on the calling thread (see TranslationMetrics.beginTrace()), and the
+ * number of children. Payloads and defaults can be kept as is, redacted (string values are
+ * replaced by x's of the same length, keeping the shape and size), or only hashed (which drops
+ * the defaults).
+ *
+ * The buffer can be dumped to a directory as runner-style properties files, which PlasticRunner
+ * can translate directly and which "--load" can replay (see LoadRunner). Hashed payloads can't
+ * be replayed, so their cases have no payload-file.
+ *
+ * Enable with plastic.capture.enabled=true. Set plastic.capture.dump-dir to have the buffer
+ * dumped when the worker is closed.
+ */
+@CompileStatic
+class SlowTranslationCapture {
+
+    static final String ENABLED_PROPERTY = "plastic.capture.enabled"
+    static final String LATENCY_MILLIS_PROPERTY = "plastic.capture.latency-millis"
+    static final String PAYLOAD_CHARS_PROPERTY = "plastic.capture.payload-chars"
+    static final String CAPACITY_PROPERTY = "plastic.capture.capacity"
+    static final String PAYLOADS_PROPERTY = "plastic.capture.payloads"
+    static final String DUMP_DIR_PROPERTY = "plastic.capture.dump-dir"
+
+    static final String DEFAULT_LATENCY_MILLIS = "500"
+    static final String DEFAULT_PAYLOAD_CHARS = "0" // no size trigger
+    static final String DEFAULT_CAPACITY = "64"
+
+    enum Payloads {
+        FULL, REDACTED, HASHED
+
+        static Payloads from(String name) {
+            valueOf(name.trim().toUpperCase())
+        }
+    }
+
+    static class Record {
+        long sequence
+        long capturedAtMillis
+        VersionedSchema input
+        VersionedSchema output
+        String payload // null when only hashed
+        String payloadHash
+        int payloadChars
+        String defaults
+        long totalNanos
+        Map<String,Long> phaseNanos = new LinkedHashMap<>()
+        long children
+        boolean failed
+    }
+
+    private final SlowTranslationCaptureLogger logger = new SlowTranslationCaptureLogger()
+
+    final boolean enabled
+    final long latencyNanos
+    final int payloadChars
+    final Payloads payloads
+    final String dumpDir
+
+    private final AtomicReferenceArray<Record> ring
+    private final AtomicLong sequence = new AtomicLong()
+
+    SlowTranslationCapture(AppContext appProps) {
+        this(Boolean.parseBoolean(appProps.getOrElse(ENABLED_PROPERTY, "false")),
+                Long.parseLong(appProps.getOrElse(LATENCY_MILLIS_PROPERTY, DEFAULT_LATENCY_MILLIS)),
+                Integer.parseInt(appProps.getOrElse(PAYLOAD_CHARS_PROPERTY, DEFAULT_PAYLOAD_CHARS)),
+                Integer.parseInt(appProps.getOrElse(CAPACITY_PROPERTY, DEFAULT_CAPACITY)),
+                Payloads.from(appProps.getOrElse(PAYLOADS_PROPERTY, "full")),
+                appProps.getOrElse(DUMP_DIR_PROPERTY, "").trim())
+    }
+
+    SlowTranslationCapture(boolean enabled, long latencyMillis, int payloadChars, int capacity, Payloads payloads, String dumpDir) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capture capacity must be positive: ${capacity}")
+
+        this.enabled = enabled
+        this.latencyNanos = latencyMillis * 1000000L
+        this.payloadChars = payloadChars
+        this.payloads = payloads
+        this.dumpDir = dumpDir
+        this.ring = new AtomicReferenceArray<>(capacity)
+    }
+
+    int capacity() {
+        ring.length()
+    }
+
+    // Whether a translation that started then and has a payload of that size would be captured,
+    // for callers that only have the payload at hand at a cost
+    //
+    boolean wants(long startNanos, int payloadLength) {
+        enabled && (System.nanoTime() - startNanos >= latencyNanos || (payloadChars > 0 && payloadLength >= payloadChars))
+    }
+
+    // Called with the phase trace of a finished translation, which is captured if it was too
+    // slow or its payload was too big
+    //
+    void consider(VersionedSchema input, VersionedSchema output, String payload, String defaults,
+                  long startNanos, long[] trace, boolean failed) {
+        long total = System.nanoTime() - startNanos
+        boolean big = payloadChars > 0 && payload.length() >= payloadChars
+        if (total < latencyNanos && !big)
+            return
+
+        Record record = new Record()
+        record.sequence = sequence.getAndIncrement()
+        record.capturedAtMillis = System.currentTimeMillis()
+        record.input = input
+        record.output = output
+        record.payloadChars = payload.length()
+        record.payloadHash = Hashing.sha256().hashString(payload, StandardCharsets.UTF_8).toString()
+        record.payload = treat(input, payload)
+        record.defaults = (defaults == null || defaults.trim().isEmpty()) ? defaults : treat(input, defaults)
+        record.totalNanos = total
+        record.failed = failed
+
+        for (TranslationMetrics.Phase phase : TranslationMetrics.Phase.values()) {
+            if (trace[phase.ordinal()] != 0L)
+                record.phaseNanos.put(phase.label, trace[phase.ordinal()])
+        }
+        record.children = trace[trace.length - 1]
+
+        ring.set((int) (record.sequence % ring.length()), record)
+        logger.captured(record)
+    }
+
+    private String treat(VersionedSchema input, String payload) {
+        switch (payloads) {
+            case Payloads.FULL:
+                return payload
+            case Payloads.HASHED:
+                return null
+            default:
+                try {
+                    return redact(input.type, payload)
+                }
+                catch (Exception e) {
+                    logger.couldNotRedact(input, e)
+                    return null
+                }
+        }
+    }
+
+    private static final Pattern XML_TEXT = Pattern.compile('>([^<]+)<')
+    private static final Pattern XML_ATTRIBUTE = Pattern.compile('="([^"]*)"')
+
+    // String values become x's of the same length. Anything but JSON and XML is only hashed.
+    //
+    static String redact(String type, String payload) {
+        if ("json".equalsIgnoreCase(type))
+            return JsonOutput.toJson(redactJson(new JsonSlurper().parseText(payload)))
+        if ("xml".equalsIgnoreCase(type))
+            return redactXml(redactXml(payload, XML_TEXT), XML_ATTRIBUTE)
+        null
+    }
+
+    private static Object redactJson(Object value) {
+        if (value instanceof Map) {
+            Map<Object,Object> result = new LinkedHashMap<>()
+            ((Map) value).each { Object k, Object v -> result.put(k, redactJson(v)) }
+            return result
+        }
+        if (value instanceof List)
+            return ((List) value).collect { Object v -> redactJson(v) }
+        if (value instanceof String)
+            return 'x' * ((String) value).length()
+        value
+    }
+
+    private static String redactXml(String payload, Pattern pattern) {
+        Matcher matcher = pattern.matcher(payload)
+        StringBuffer result = new StringBuffer()
+        while (matcher.find()) {
+            String text = matcher.group(1)
+            String replacement = text.trim().isEmpty() ? text : text.replaceAll('\\S', 'x')
+            matcher.appendReplacement(result, Matcher.quoteReplacement(matcher.group(0).replace(text, replacement)))
+        }
+        matcher.appendTail(result)
+        result.toString()
+    }
+
+    // The captures still in the buffer, oldest first
+    //
+    List<Record> snapshot() {
+        List<Record> results = new ArrayList<>()
+        for (int i = 0; i < ring.length(); i++) {
+            Record record = ring.get(i)
+            if (record != null)
+                results.add(record)
+        }
+        results.sort { Record a, Record b -> Long.compare(a.sequence, b.sequence) }
+        results
+    }
+
+    void clear() {
+        for (int i = 0; i < ring.length(); i++)
+            ring.set(i, null)
+    }
+
+    // Writes each capture as a runner properties file (capture-<sequence>.properties) with its
+    // payload and defaults next to it. Returns the number of captures written.
+    //
+    int dumpTo(File dir) {
+        dir.mkdirs()
+        List<Record> records = snapshot()
+        for (Record record : records)
+            write(dir, record)
+        logger.dumped(dir, records.size())
+        records.size()
+    }
+
+    // Dumps to the configured directory, if any, without failing the caller
+    //
+    void dumpIfConfigured() {
+        if (enabled && dumpDir) {
+            File dir = new File(dumpDir)
+            try {
+                dumpTo(dir)
+            }
+            catch (Exception e) {
+                logger.couldNotDump(dir, e)
+            }
+        }
+    }
+
+    private static void write(File dir, Record record) {
+        String base = String.format("capture-%08d", record.sequence)
+        List<String> lines = []
+
+        lines.add("# Captured ${new Date(record.capturedAtMillis)}${record.failed ? ' (failed)' : ''}".toString())
+        lines.add("in-schema-name=${record.input.name}".toString())
+        lines.add("in-schema-version=${record.input.version}".toString())
+        lines.add("in-schema-type=${record.input.type}".toString())
+        lines.add("out-schema-name=${record.output.name}".toString())
+        lines.add("out-schema-version=${record.output.version}".toString())
+        lines.add("out-schema-type=${record.output.type}".toString())
+
+        if (record.payload != null) {
+            File payload = new File(dir, "${base}-payload.${record.input.type}")
+            payload.setText(record.payload, "UTF-8")
+            lines.add("payload-file=${escape(payload.absolutePath)}".toString())
+        }
+        if (record.defaults != null && !record.defaults.trim().isEmpty()) {
+            File defaults = new File(dir, "${base}-defaults.${record.input.type}")
+            defaults.setText(record.defaults, "UTF-8")
+            lines.add("defaults-file=${escape(defaults.absolutePath)}".toString())
+        }
+
+        lines.add("capture-payload-sha256=${record.payloadHash}".toString())
+        lines.add("capture-payload-chars=${record.payloadChars}".toString())
+        lines.add("capture-total-micros=${(long) (record.totalNanos / 1000L)}".toString())
+        record.phaseNanos.each { String phase, Long nanos ->
+            lines.add("capture-${phase}-micros=${(long) (nanos / 1000L)}".toString())
+        }
+        lines.add("capture-children=${record.children}".toString())
+
+        new File(dir, "${base}.properties").setText(lines.join("\n") + "\n", "UTF-8")
+    }
+
+    // Backslashes (as in Windows paths) are escapes in properties files
+    //
+    private static String escape(String value) {
+        value.replace('\\', '\\\\')
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonBuilder
+import groovy.json.JsonException
+import groovy.json.JsonSlurper
+
+
+// The original (and default) backend
+
+class SlurperJsonBackend implements JsonBackend {
+
+    static final String NAME = "slurper"
+
+    @Override
+    String name() {
+        NAME
+    }
+
+    @Override
+    Object parse(InputStream strm) {
+        try {
+            inflate(new JsonSlurper().parse(strm))
+        }
+        catch (JsonException e) {
+            throw new JsonBackend.ParseFailure(e.message, e)
+        }
+    }
+
+    private Object inflate(Object object) {
+        // The "parsed" object is often a LazyMap which clones as the value NULL
+        // Just accessing any key will instantiate it (determined by looking at
+        // implementation of parsed.buildIfNeeded()
+
+        if (object instanceof Map)
+            object.containsKey("foobar")
+
+        object
+    }
+
+    @Override
+    String serialize(Object source) {
+        new JsonBuilder(source).toPrettyString()
+    }
+}
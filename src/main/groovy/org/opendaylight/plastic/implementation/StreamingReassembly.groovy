@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+
+
+/**
+ * Writes the result of a parent plan to a sink without ever holding all of its children. The
+ * parent is mapped while its children are still claim checks, so its emitted output (the
+ * skeleton) has a quoted claim check like "${items[3]}" wherever a child result goes. The
+ * skeleton is then written out in order, and each claim check is replaced by the emitted result
+ * of its child.
+ *
+ * Children are translated in the order their claim checks appear in the skeleton, with at most
+ * a window of them started ahead of the one being written. A finished child waits (as text)
+ * until all of the children in front of it are written, so the memory used for the children is
+ * bounded by the window rather than by the number of children.
+ */
+@CompileStatic
+class StreamingReassembly {
+
+    static final String WINDOW_PROPERTY = "plastic.streaming.window"
+
+    // Produces the emitted result of one child plan
+    //
+    static interface ChildTranslator {
+        String translate(TranslationPlanLite childPlan)
+    }
+
+    static class Placeholder {
+        final int start
+        final int end
+        final TranslationPlanLite child
+
+        Placeholder(int start, int end, TranslationPlanLite child) {
+            this.start = start
+            this.end = end
+            this.child = child
+        }
+    }
+
+    private static final String OPENING = '"${'
+    private static final String CLOSING = '}"'
+
+    final int window
+
+    StreamingReassembly(AppContext appProps, int threads) {
+        this(Integer.parseInt(appProps.getOrElse(WINDOW_PROPERTY, Integer.toString(2*threads))))
+    }
+
+    StreamingReassembly(int window) {
+        this.window = Math.max(1, window)
+    }
+
+    /**
+     * The claim checks of the given children in the order they appear in the skeleton, or null
+     * if the skeleton can't be streamed because some child appears in it more than once or as a
+     * map key. Any children that do not appear at all were dropped by the parent and are left out.
+     */
+    static List<Placeholder> locate(String skeleton, TranslationPlanLite[] children) {
+        Map<String,TranslationPlanLite> byName = new HashMap<>()
+        for (TranslationPlanLite child : children)
+            byName.put(child.getChildRole().getName(), child)
+
+        List<Placeholder> results = new ArrayList<>()
+        Set<String> seen = new HashSet<>()
+
+        int from = 0
+        while (true) {
+            int start = skeleton.indexOf(OPENING, from)
+            if (start < 0)
+                break
+            int close = skeleton.indexOf(CLOSING, start + OPENING.length())
+            if (close < 0)
+                break
+
+            String name = skeleton.substring(start + OPENING.length(), close)
+            TranslationPlanLite child = byName.get(name)
+            if (child != null) {
+                if (!seen.add(name) || isKey(skeleton, close + CLOSING.length()))
+                    return null
+                results.add(new Placeholder(start, close + CLOSING.length(), child))
+                from = close + CLOSING.length()
+            }
+            else {
+                from = start + 1
+            }
+        }
+
+        results
+    }
+
+    // Claim checks of members of maps are map keys, which can't be replaced by a result
+    //
+    private static boolean isKey(String skeleton, int from) {
+        for (int i = from; i < skeleton.length(); i++) {
+            char c = skeleton.charAt(i)
+            if (!Character.isWhitespace(c))
+                return c == (':' as char)
+        }
+        false
+    }
+
+    void write(String skeleton, List<Placeholder> placeholders, Writer sink, ExecutorService executor, ChildTranslator translator) {
+        ArrayDeque<Future<String>> inFlight = new ArrayDeque<>()
+        int submitted = 0
+        int position = 0
+
+        try {
+            for (int i = 0; i < placeholders.size(); i++) {
+                while (submitted < placeholders.size() && submitted - i < window) {
+                    final TranslationPlanLite child = placeholders.get(submitted).child
+                    inFlight.addLast(executor.submit(new Callable<String>() {
+                        @Override
+                        String call() {
+                            translator.translate(child)
+                        }
+                    }))
+                    submitted++
+                }
+
+                Placeholder placeholder = placeholders.get(i)
+                sink.write(skeleton, position, placeholder.start - position)
+                sink.write(await(inFlight.removeFirst()))
+                position = placeholder.end
+            }
+
+            sink.write(skeleton, position, skeleton.length() - position)
+        }
+        finally {
+            for (Future<String> future : inFlight)
+                future.cancel(true)
+        }
+    }
+
+    private static String await(Future<String> future) {
+        try {
+            future.get()
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause()
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause
+            throw new RuntimeException(cause)
+        }
+    }
+}
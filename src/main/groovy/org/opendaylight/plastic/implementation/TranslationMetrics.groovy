@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.transform.CompileStatic
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+import javax.management.MBeanServer
+import javax.management.ObjectName
+import java.lang.management.ManagementFactory
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.LongAdder
+import java.util.function.IntSupplier
+
+/**
+ * Low overhead instrumentation of the translation pipeline. Latencies are recorded per phase,
+ * per (input, output) schema pair and per morpher hook, along with the fan-out of parent plans.
+ *
+ * When disabled, start() returns 0 without reading the clock and every record method returns
+ * immediately, so the instrumented code paths just pay for a field read.
+ *
+ * Enable it with the application property plastic.metrics.enabled=true to also have it
+ * published as an MXBean (org.opendaylight.plastic:type=TranslationMetrics,name=...)
+ */
+@CompileStatic
+class TranslationMetrics implements TranslationMetricsMXBean {
+
+    static final String ENABLED_PROPERTY = "plastic.metrics.enabled"
+    static final String DOMAIN = "org.opendaylight.plastic"
+
+    static final long MICROS = 1000L
+
+    static Logger logger = LoggerFactory.getLogger(TranslationMetrics)
+
+    private static final AtomicInteger instances = new AtomicInteger(0)
+
+    enum Phase {
+        ADMIT("admit"),
+        PARSE("parse"),
+        CLASSIFY("classify"),
+        LOOKUP("lookup"),
+        CHILDREN("children"),
+        BIND("bind"),
+        MORPH("morph"),
+        INJECT("inject"),
+        EMIT("emit"),
+        TOTAL("total")
+
+        final String label
+
+        Phase(String label) {
+            this.label = label
+        }
+    }
+
+    static class Snapshot {
+        final Map<String,Long> counters
+        final Map<Phase,LatencyHistogram.Snapshot> phases
+        final Map<String,LatencyHistogram.Snapshot> schemaPairs
+        final Map<String,LatencyHistogram.Snapshot> morpherHooks
+        final LatencyHistogram.Snapshot childFanOut
+
+        Snapshot(Map<String,Long> counters,
+                 Map<Phase,LatencyHistogram.Snapshot> phases,
+                 Map<String,LatencyHistogram.Snapshot> schemaPairs,
+                 Map<String,LatencyHistogram.Snapshot> morpherHooks,
+                 LatencyHistogram.Snapshot childFanOut) {
+            this.counters = Collections.unmodifiableMap(counters)
+            this.phases = Collections.unmodifiableMap(phases)
+            this.schemaPairs = Collections.unmodifiableMap(schemaPairs)
+            this.morpherHooks = Collections.unmodifiableMap(morpherHooks)
+            this.childFanOut = childFanOut
+        }
+    }
+
+    private volatile boolean enabled
+    private volatile boolean tracing
+    private final ThreadLocal<long[]> traces = new ThreadLocal<>()
+
+    private final LongAdder translations = new LongAdder()
+    private final LongAdder failures = new LongAdder()
+    private final LongAdder children = new LongAdder()
+    private final LongAdder rejections = new LongAdder()
+
+    private volatile IntSupplier queueDepth = NO_QUEUE
+
+    private static final IntSupplier NO_QUEUE = { 0 } as IntSupplier
+
+    private final Map<Phase,LatencyHistogram> phases = new EnumMap<Phase,LatencyHistogram>(Phase)
+    private final ConcurrentMap<String,LatencyHistogram> schemaPairs = new ConcurrentHashMap<>()
+    private final ConcurrentMap<String,LatencyHistogram> morpherHooks = new ConcurrentHashMap<>()
+    private final LatencyHistogram childFanOut = new LatencyHistogram()
+
+    private ObjectName registeredAs
+
+    TranslationMetrics() {
+        this(false)
+    }
+
+    TranslationMetrics(boolean enabled) {
+        this.enabled = enabled
+        for (Phase phase : Phase.values())
+            phases.put(phase, new LatencyHistogram())
+    }
+
+    TranslationMetrics(AppContext context) {
+        this(Boolean.parseBoolean(context.getOrElse(ENABLED_PROPERTY, "false")))
+    }
+
+    @Override
+    boolean isEnabled() {
+        enabled
+    }
+
+    @Override
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled
+    }
+
+    // Per-translation phase timings for whoever needs them (see SlowTranslationCapture). The
+    // clock is read while tracing even when the metrics themselves are disabled.
+    //
+    void setTracing(boolean tracing) {
+        this.tracing = tracing
+    }
+
+    boolean isTracing() {
+        tracing
+    }
+
+    // Phases recorded on this thread are added to the returned nanos, by phase ordinal, until
+    // endTrace(). The extra last slot counts children. Returns null when not tracing.
+    //
+    long[] beginTrace() {
+        if (!tracing)
+            return null
+        long[] trace = new long[Phase.values().length + 1]
+        traces.set(trace)
+        trace
+    }
+
+    void endTrace() {
+        traces.remove()
+    }
+
+    // Returns a starting point for a later record...() call (or 0 if disabled)
+    //
+    long start() {
+        (enabled || tracing) ? System.nanoTime() : 0L
+    }
+
+    void record(Phase phase, long startNanos) {
+        if (startNanos != 0L) {
+            long elapsed = System.nanoTime() - startNanos
+            if (enabled)
+                phases.get(phase).record(elapsed)
+            if (tracing) {
+                long[] trace = traces.get()
+                if (trace != null)
+                    trace[phase.ordinal()] += elapsed
+            }
+        }
+    }
+
+    void recordTranslation(VersionedSchema input, VersionedSchema output, long startNanos, boolean failed) {
+        if (enabled && startNanos != 0L) {
+            long elapsed = System.nanoTime() - startNanos
+            translations.increment()
+            if (failed)
+                failures.increment()
+            phases.get(Phase.TOTAL).record(elapsed)
+            histogramFor(schemaPairs, pairKey(input, output)).record(elapsed)
+        }
+    }
+
+    void recordHook(Morpher morpher, String hook, long startNanos) {
+        if (enabled && startNanos != 0L)
+            histogramFor(morpherHooks, morpher.name + "." + hook).recordSince(startNanos)
+    }
+
+    void recordFanOut(int numChildren) {
+        if (enabled) {
+            children.add(numChildren)
+            childFanOut.record(numChildren)
+        }
+        if (tracing) {
+            long[] trace = traces.get()
+            if (trace != null)
+                trace[trace.length - 1] += numChildren
+        }
+    }
+
+    void recordRejection() {
+        if (enabled)
+            rejections.increment()
+    }
+
+    // Gauge of how many translations are currently waiting to be admitted
+    //
+    void setQueueDepth(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth
+    }
+
+    private static String pairKey(VersionedSchema input, VersionedSchema output) {
+        input.toString() + " -> " + output.toString()
+    }
+
+    private static LatencyHistogram histogramFor(ConcurrentMap<String,LatencyHistogram> histograms, String key) {
+        LatencyHistogram found = histograms.get(key)
+        if (found == null) {
+            LatencyHistogram created = new LatencyHistogram()
+            found = histograms.putIfAbsent(key, created)
+            if (found == null)
+                found = created
+        }
+        found
+    }
+
+    Snapshot snapshot() {
+        Map<Phase,LatencyHistogram.Snapshot> phaseSnaps = new EnumMap<Phase,LatencyHistogram.Snapshot>(Phase)
+        for (Map.Entry<Phase,LatencyHistogram> entry : phases.entrySet())
+            phaseSnaps.put(entry.key, entry.value.snapshot())
+
+        new Snapshot(counters(), phaseSnaps, snapshots(schemaPairs), snapshots(morpherHooks), childFanOut.snapshot())
+    }
+
+    private static Map<String,LatencyHistogram.Snapshot> snapshots(Map<String,LatencyHistogram> histograms) {
+        Map<String,LatencyHistogram.Snapshot> results = new TreeMap<>()
+        for (Map.Entry<String,LatencyHistogram> entry : histograms.entrySet())
+            results.put(entry.key, entry.value.snapshot())
+        results
+    }
+
+    private Map<String,Long> counters() {
+        Map<String,Long> results = new LinkedHashMap<>()
+        results.put("translations", translations.sum())
+        results.put("failures", failures.sum())
+        results.put("children", children.sum())
+        results.put("rejections", rejections.sum())
+        results.put("queued", (long) queueDepth.getAsInt())
+        results
+    }
+
+    @Override
+    Map<String,Long> getCounters() {
+        counters()
+    }
+
+    @Override
+    Map<String,Long> getPhases() {
+        Map<String,Long> results = new LinkedHashMap<>()
+        for (Map.Entry<Phase,LatencyHistogram> entry : phases.entrySet())
+            flatten(results, entry.key.label, entry.value.snapshot(), MICROS)
+        results
+    }
+
+    @Override
+    Map<String,Long> getSchemaPairs() {
+        flattenAll(schemaPairs)
+    }
+
+    @Override
+    Map<String,Long> getMorpherHooks() {
+        flattenAll(morpherHooks)
+    }
+
+    @Override
+    Map<String,Long> getChildFanOut() {
+        Map<String,Long> results = new LinkedHashMap<>()
+        flatten(results, "children", childFanOut.snapshot(), 1L)
+        results
+    }
+
+    private static Map<String,Long> flattenAll(Map<String,LatencyHistogram> histograms) {
+        Map<String,Long> results = new LinkedHashMap<>()
+        for (Map.Entry<String,LatencyHistogram.Snapshot> entry : snapshots(histograms).entrySet())
+            flatten(results, entry.key, entry.value, MICROS)
+        results
+    }
+
+    private static void flatten(Map<String,Long> results, String prefix, LatencyHistogram.Snapshot snap, long scale) {
+        for (Map.Entry<String,Long> entry : snap.asMap(scale).entrySet())
+            results.put(prefix + "." + entry.key, entry.value)
+    }
+
+    @Override
+    void reset() {
+        translations.reset()
+        failures.reset()
+        children.reset()
+        rejections.reset()
+        for (LatencyHistogram histogram : phases.values())
+            histogram.reset()
+        schemaPairs.clear()
+        morpherHooks.clear()
+        childFanOut.reset()
+    }
+
+    synchronized ObjectName register() {
+        if (registeredAs == null) {
+            try {
+                ObjectName name = new ObjectName("${DOMAIN}:type=TranslationMetrics,name=worker-${instances.incrementAndGet()}".toString())
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer()
+                server.registerMBean(this, name)
+                registeredAs = name
+            }
+            catch (Exception e) {
+                logger.warn("PLASTIC-METRICS-JMX: could not register translation metrics", e)
+            }
+        }
+        registeredAs
+    }
+
+    synchronized void unregister() {
+        if (registeredAs != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredAs)
+            }
+            catch (Exception e) {
+                logger.warn("PLASTIC-METRICS-JMX: could not unregister translation metrics", e)
+            }
+            registeredAs = null
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import com.google.common.cache.CacheStats
+import com.google.common.cache.Weigher
+import com.google.common.hash.HashCode
+import com.google.common.hash.HashFunction
+import com.google.common.hash.Hashing
+import groovy.transform.EqualsAndHashCode
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.TimeUnit
+
+
+/**
+ * Opt-in cache of whole translation results, for callers that send byte-identical payloads
+ * over and over (like periodic polling of unchanged devices).
+ *
+ * Entries are keyed by the input and output schemas plus 128-bit hashes of the payload and
+ * the defaults, are weighed by the size of the result, and expire after a fixed time. The
+ * whole cache is dropped whenever anything under the lib, classifiers, morphers, or schemas
+ * directories changes.
+ *
+ * Translations that are not repeatable must not be cached. Schema names can be excluded with
+ * plastic.result-cache.exclude=name1,name2 and a morpher can exclude itself at run-time (see
+ * BasicMorpher.notCacheable()).
+ */
+class TranslationResultCache implements Pollee {
+
+    static final String ENABLED_PROPERTY = "plastic.result-cache.enabled"
+    static final String MAX_CHARS_PROPERTY = "plastic.result-cache.max-chars"
+    static final String TTL_SECONDS_PROPERTY = "plastic.result-cache.ttl-seconds"
+    static final String EXCLUDE_PROPERTY = "plastic.result-cache.exclude"
+
+    static final String DEFAULT_MAX_CHARS = "32000000"
+    static final String DEFAULT_TTL_SECONDS = "300"
+
+    // Rough per-entry cost of the key and cache bookkeeping, in chars
+    static final int OVERHEAD = 64
+
+    static final Logger logger = LoggerFactory.getLogger(TranslationResultCache)
+
+    private static final HashFunction hasher = Hashing.murmur3_128()
+
+    @EqualsAndHashCode
+    static class Key {
+        final VersionedSchema input
+        final VersionedSchema output
+        final HashCode payloadHash
+        final HashCode defaultsHash
+
+        Key(VersionedSchema input, VersionedSchema output, HashCode payloadHash, HashCode defaultsHash) {
+            this.input = input
+            this.output = output
+            this.payloadHash = payloadHash
+            this.defaultsHash = defaultsHash
+        }
+    }
+
+    private final boolean enabled
+    private final Set<String> excluded
+    private final Cache<Key,String> cache
+    private final List<DirectoryMonitor> monitors = []
+
+    TranslationResultCache(AppContext appProps, FilenamesCaches caches) {
+        this(Boolean.parseBoolean(appProps.getOrElse(ENABLED_PROPERTY, "false")),
+                Long.parseLong(appProps.getOrElse(MAX_CHARS_PROPERTY, DEFAULT_MAX_CHARS)),
+                Long.parseLong(appProps.getOrElse(TTL_SECONDS_PROPERTY, DEFAULT_TTL_SECONDS)),
+                parseExcluded(appProps.getOrElse(EXCLUDE_PROPERTY, "")))
+
+        if (enabled) {
+            ["lib", "classifiers", "morphers", "schemas"].each { String dir ->
+                caches.getRootsFor(dir).each { String root ->
+                    watch(new DirectoryMonitor(root))
+                }
+            }
+        }
+    }
+
+    TranslationResultCache(boolean enabled, long maxChars, long ttlSeconds, Set<String> excluded) {
+        this.enabled = enabled
+        this.excluded = excluded
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxChars)
+                .weigher(new Weigher<Key,String>() {
+                    @Override
+                    int weigh(Key key, String value) {
+                        value.length() + OVERHEAD
+                    }
+                })
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build()
+    }
+
+    private static Set<String> parseExcluded(String names) {
+        names.split(",").collect { it.trim() }.findAll { !it.isEmpty() } as Set<String>
+    }
+
+    void watch(DirectoryMonitor monitor) {
+        monitor.registerListener { DirectoryMonitor.FileStatsDifference diff ->
+            logger.debug("Dropping all cached translation results due to changes in ${diff}")
+            clear()
+        }
+        monitors.add(monitor)
+    }
+
+    boolean isEnabled() {
+        enabled
+    }
+
+    // Returns null if results for this schema pair cannot be cached
+    //
+    Key keyFor(VersionedSchema input, VersionedSchema output, String payload, String defaults) {
+        if (!enabled || isExcluded(input) || isExcluded(output))
+            return null
+
+        new Key(input, output, hash(payload), hash(defaults))
+    }
+
+    private static HashCode hash(String contents) {
+        hasher.hashString(contents, StandardCharsets.UTF_8)
+    }
+
+    private boolean isExcluded(VersionedSchema schema) {
+        excluded.contains(schema.name)
+    }
+
+    String get(Key key) {
+        key == null ? null : cache.getIfPresent(key)
+    }
+
+    // The resolved plan is checked too, because classification can pick an excluded schema
+    //
+    void put(Key key, TranslationPlanLite resolvedPlan, String result) {
+        if (key != null && result != null) {
+            if (!resolvedPlan.schemas().any { VersionedSchema schema -> isExcluded(schema) })
+                cache.put(key, result)
+        }
+    }
+
+    long size() {
+        cache.size()
+    }
+
+    CacheStats stats() {
+        cache.stats()
+    }
+
+    void clear() {
+        cache.invalidateAll()
+    }
+
+    @Override
+    void phase(int i) {
+        monitors.each { DirectoryMonitor monitor ->
+            if (i == 0)
+                monitor.takeSnapShot()
+            else
+                monitor.takeSnapShotAndNotify()
+        }
+    }
+}
@@ -0,0 +1,492 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.TimeUnit
+
+import static com.google.common.base.Preconditions.checkNotNull
+
+
+/**
+ * Stateful translations for payloads that are sent over and over with only small changes, like
+ * device state streamed every interval. A caller opens a session (keyed by something like the
+ * device name) with a full payload, then submits each later payload either as a JSON Patch
+ * against the previous one or as a full payload, which is diffed against the previous one.
+ *
+ * The session keeps the parsed payload and its bound input variables. An update patches the
+ * parsed payload in place and re-binds only the input variables whose paths in the input schema
+ * are at, above or below a changed location. If no input variable was affected, the output is
+ * left alone. Otherwise the output is mapped from the updated bindings and each update returns
+ * both the output document and a JSON Patch from the previous output (for JSON outputs).
+ *
+ * Every update is classified again. A session falls back to full translations of the updated
+ * payload when the input is not JSON, the plan is a parent plan, the classification changed or
+ * one of the morphers says it needs the whole payload (see BasicMorpher.needsWholePayload).
+ *
+ * Sessions live until they are closed, have been idle for a while or are the least recently used
+ * of too many; a session that is gone has to be opened again. Updates to one session are
+ * serialized and sessions are independent of each other. Session translations are admitted and
+ * captured when slow the same way as any other translation (see AdmissionControl and
+ * SlowTranslationCapture).
+ */
+@CompileStatic
+class TranslationSessions {
+
+    static final String MAX_SESSIONS_PROPERTY = "plastic.sessions.max-sessions"
+    static final String IDLE_SECONDS_PROPERTY = "plastic.sessions.idle-seconds"
+
+    static final String DEFAULT_MAX_SESSIONS = "10000"
+    static final String DEFAULT_IDLE_SECONDS = "3600"
+
+    static class NoSuchSession extends PlasticException {
+
+        String key
+
+        NoSuchSession(String key) {
+            super("PLASTIC-NO-SESSION", "There is no open translation session for the key ${key}")
+            this.key = key
+        }
+    }
+
+    static class NotJsonSession extends PlasticException {
+
+        String key
+
+        NotJsonSession(String key, VersionedSchema input) {
+            super("PLASTIC-SESSION-NOT-JSON", "Translation session ${key} cannot be patched because its input is not JSON: ${input}")
+            this.key = key
+        }
+    }
+
+    static class Update {
+
+        // The whole translated output
+        final String document
+
+        // JSON Patch from the previous output to this one, or null if the output is not JSON
+        final String patch
+
+        // False when the output was translated from the whole payload
+        final boolean incremental
+
+        // Input schema paths that were bound (not counted for parent plans and the like)
+        final int reboundPaths
+
+        final boolean changed
+
+        Update(String document, String patch, boolean incremental, int reboundPaths, boolean changed) {
+            this.document = document
+            this.patch = patch
+            this.incremental = incremental
+            this.reboundPaths = reboundPaths
+            this.changed = changed
+        }
+    }
+
+    private static class Session {
+        final String key
+        final VersionedSchema unresolvedInput
+        final VersionedSchema output
+        final String defaults
+
+        // Kept for incremental sessions
+        Schema payload
+        TranslationPlanLite plan
+        Map<String,VariablesFetcher> pathVars
+        Map<String,Object> modelDefaults
+        Map<String,Object> bound
+
+        // Kept for sessions that fall back to full translations
+        String payloadText
+
+        Object outputTree
+        String document
+
+        Session(String key, VersionedSchema unresolvedInput, VersionedSchema output, String defaults) {
+            this.key = key
+            this.unresolvedInput = unresolvedInput
+            this.output = output
+            this.defaults = defaults
+        }
+
+        boolean isIncremental() {
+            payload != null
+        }
+
+        Object payloadTree() {
+            payload != null ? payload.parsed : format.parse(payloadText)
+        }
+    }
+
+    private static final JsonFormat format = new JsonFormat()
+
+    private final CartographerWorker worker
+    private final PlanResolution resolver
+    private final ClassifierResolver classifierLocator
+    private final DefaultsCache defaultsCache
+    private final TranslationMetrics metrics
+    private final Poller poller
+    private final AdmissionControl admission
+    private final SlowTranslationCapture capture
+    private final JsonFinderBinder finderBinder = new JsonFinderBinder()
+
+    private final Cache<String,Session> cache
+    private final Map<String,Session> sessions
+
+    TranslationSessions(AppContext appProps,
+                        CartographerWorker worker,
+                        PlanResolution resolver,
+                        ClassifierResolver classifierLocator,
+                        DefaultsCache defaultsCache,
+                        TranslationMetrics metrics,
+                        AdmissionControl admission,
+                        SlowTranslationCapture capture,
+                        Poller poller) {
+        this.worker = worker
+        this.resolver = resolver
+        this.classifierLocator = classifierLocator
+        this.defaultsCache = defaultsCache
+        this.metrics = metrics
+        this.admission = admission
+        this.capture = capture
+        this.poller = poller
+
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(Long.parseLong(appProps.getOrElse(MAX_SESSIONS_PROPERTY, DEFAULT_MAX_SESSIONS)))
+                .expireAfterAccess(Long.parseLong(appProps.getOrElse(IDLE_SECONDS_PROPERTY, DEFAULT_IDLE_SECONDS)), TimeUnit.SECONDS)
+                .build()
+        this.sessions = cache.asMap()
+    }
+
+    int size() {
+        cache.cleanUp()
+        sessions.size()
+    }
+
+    boolean isOpen(String key) {
+        sessions.containsKey(key)
+    }
+
+    // Starts (or restarts) a session with a full translation of the given payload
+    //
+    Update open(String key, VersionedSchema unresolvedInput, VersionedSchema output, String payload, String defaults) {
+        checkNotNull(key)
+        checkNotNull(unresolvedInput)
+        checkNotNull(output)
+        checkNotNull(payload)
+        checkNotNull(defaults)
+
+        Session session = new Session(key, unresolvedInput, output, defaults)
+        synchronized (session) {
+            Update result = translateFully(session, payload)
+            sessions.put(key, session)
+            result
+        }
+    }
+
+    Update submitPatch(String key, String patch) {
+        checkNotNull(patch)
+        Session session = find(key)
+        synchronized (session) {
+            if (!isJson(session.unresolvedInput))
+                throw new NotJsonSession(key, session.unresolvedInput)
+            update(session, JsonPatch.parse(patch), patch.length())
+        }
+    }
+
+    Update submitPayload(String key, String payload) {
+        checkNotNull(payload)
+        Session session = find(key)
+        synchronized (session) {
+            if (!session.isIncremental())
+                return translateFully(session, payload)
+
+            long started = metrics.start()
+            Object before = session.payloadTree()
+            JsonPatch delta = JsonPatch.diff(before, format.parse(payload))
+            metrics.record(TranslationMetrics.Phase.PARSE, started)
+
+            update(session, delta, payload.length())
+        }
+    }
+
+    void close(String key) {
+        sessions.remove(key)
+    }
+
+    private Session find(String key) {
+        checkNotNull(key)
+        Session session = cache.getIfPresent(key)
+        if (session == null)
+            throw new NoSuchSession(key)
+        session
+    }
+
+    private static boolean isJson(VersionedSchema schema) {
+        JsonFormat.FORMATKEY.equalsIgnoreCase(schema.type)
+    }
+
+    // A patch that cannot be applied leaves the payload in an unknown state, so the session is
+    // closed and has to be opened again with a full payload. Updates are weighed for admission
+    // by the size of what was submitted.
+    //
+    private Update update(Session session, JsonPatch delta, int submittedChars) {
+        if (delta.isEmpty())
+            return unchanged(session)
+
+        Object patched
+        try {
+            patched = delta.applyTo(session.payloadTree())
+        }
+        catch (JsonPatch.PatchFailed e) {
+            sessions.remove(session.key, session)
+            throw e
+        }
+
+        if (!session.isIncremental())
+            return translateFully(session, format.serialize(patched))
+
+        if (!patched.is(session.payload.parsed))
+            session.payload = session.payload.cloneWith(patched)
+
+        List<List<String>> changes = delta.touched()
+        if (changes.isEmpty())
+            return unchanged(session)
+
+        Update result = updateIncrementally(session, changes, submittedChars)
+        result != null ? result : translateFully(session, format.serialize(session.payload.parsed))
+    }
+
+    // The update of an incremental session from its patched payload, or null if it can't be
+    // done incrementally any more
+    //
+    private Update updateIncrementally(Session session, List<List<String>> changes, int submittedChars) {
+        AdmissionControl.Ticket ticket = admission.admit(session.unresolvedInput, session.output, submittedChars)
+        try {
+            return updateAdmitted(session, changes)
+        }
+        finally {
+            ticket.close()
+        }
+    }
+
+    // A slow update is captured with its whole patched payload
+    //
+    private Update updateAdmitted(Session session, List<List<String>> changes) {
+        poller.lock()
+        long[] trace = capture.enabled ? metrics.beginTrace() : null
+        long translationStarted = metrics.start()
+        boolean failed = true
+
+        try {
+            long started = metrics.start()
+            TranslationPlanLite resolvedPlan = new TranslationPlanLite(session.unresolvedInput, session.output)
+                    .resolve(classifierLocator, session.payload)
+            metrics.record(TranslationMetrics.Phase.CLASSIFY, started)
+
+            if (!isSamePlan(resolvedPlan, session.plan)) {
+                failed = false
+                return null
+            }
+
+            started = metrics.start()
+            MapTask task = resolver.lookupMappings(resolvedPlan)
+            task.metrics = metrics
+            metrics.record(TranslationMetrics.Phase.LOOKUP, started)
+
+            if (!task.isIncremental()) {
+                failed = false
+                return null
+            }
+
+            // The input schema can change under a session when it is reloaded, and then
+            // nothing that was bound before can be trusted
+
+            started = metrics.start()
+            Map<String,VariablesFetcher> pathVars = new LinkedHashMap<>()
+            Map<String,Object> modelDefaults = new LinkedHashMap<>()
+            finderBinder.buildPathsToVariables(task.input.parsed, pathVars, modelDefaults)
+            Projection projection = task.projection()
+            if (!projection.isEverything()) {
+                pathVars = JsonFinderBinder.projected(pathVars, projection)
+                modelDefaults = projection.narrowed(modelDefaults)
+            }
+
+            Set<String> affected = pathVars.keySet() == session.pathVars.keySet() ?
+                    finderBinder.pathsAffectedBy(pathVars, changes) : pathVars.keySet()
+
+            if (affected.isEmpty()) {
+                metrics.record(TranslationMetrics.Phase.BIND, started)
+                failed = false
+                return unchanged(session)
+            }
+
+            session.bound = finderBinder.rebind(pathVars, affected, session.bound, session.payload.parsed)
+            session.pathVars = pathVars
+            session.modelDefaults = modelDefaults
+            metrics.record(TranslationMetrics.Phase.BIND, started)
+
+            Update result = mapAndEmit(session, task, true, affected.size())
+            failed = false
+            result
+        }
+        finally {
+            metrics.recordTranslation(session.unresolvedInput, session.output, translationStarted, failed)
+            poller.unlock()
+            if (trace != null) {
+                metrics.endTrace()
+                if (capture.wants(translationStarted, 0))
+                    capture.consider(session.unresolvedInput, session.output, format.serialize(session.payload.parsed),
+                            session.defaults, translationStarted, trace, failed)
+            }
+        }
+    }
+
+    private static boolean isSamePlan(TranslationPlanLite candidate, TranslationPlanLite previous) {
+        !candidate.hasParentRole() &&
+                candidate.schemas() == previous.schemas() &&
+                candidate.morphers() == previous.morphers()
+    }
+
+    private Update unchanged(Session session) {
+        new Update(session.document, session.outputTree == null ? null : "[]", true, 0, false)
+    }
+
+    private Update translateFully(Session session, String payload) {
+        session.payload = null
+        session.payloadText = null
+        session.plan = null
+        session.pathVars = null
+        session.modelDefaults = null
+        session.bound = null
+
+        if (isJson(session.unresolvedInput)) {
+            Update result = translateIncrementally(session, payload)
+            if (result != null)
+                return result
+        }
+
+        session.payloadText = payload
+        String emitted = worker.translateWithDefaults(session.unresolvedInput, session.output, payload, session.defaults)
+        record(session, isJson(session.output) ? format.parse(emitted) : null, emitted, false, 0)
+    }
+
+    // The full translation of a session that can be updated incrementally, or null if it can't
+    //
+    private Update translateIncrementally(Session session, String payload) {
+        AdmissionControl.Ticket ticket = admission.admit(session.unresolvedInput, session.output, payload.length())
+        try {
+            return translateAdmitted(session, payload)
+        }
+        finally {
+            ticket.close()
+        }
+    }
+
+    private Update translateAdmitted(Session session, String payload) {
+        poller.lock()
+        long[] trace = capture.enabled ? metrics.beginTrace() : null
+        long translationStarted = metrics.start()
+        boolean failed = true
+
+        try {
+            long started = metrics.start()
+            Schema parsedPayload = resolver.createSchema(session.unresolvedInput, payload)
+            metrics.record(TranslationMetrics.Phase.PARSE, started)
+
+            started = metrics.start()
+            TranslationPlanLite resolvedPlan = new TranslationPlanLite(session.unresolvedInput, session.output)
+                    .resolve(classifierLocator, parsedPayload)
+            metrics.record(TranslationMetrics.Phase.CLASSIFY, started)
+
+            if (resolvedPlan.hasParentRole()) {
+                failed = false
+                return null
+            }
+
+            started = metrics.start()
+            resolvedPlan.validate()
+            MapTask task = resolver.lookupMappings(resolvedPlan)
+            task.metrics = metrics
+            metrics.record(TranslationMetrics.Phase.LOOKUP, started)
+
+            if (!task.isIncremental() || !(task.input.parsed instanceof Map || task.input.parsed instanceof List)) {
+                failed = false
+                return null
+            }
+
+            started = metrics.start()
+            Map<String,VariablesFetcher> pathVars = new LinkedHashMap<>()
+            Map<String,Object> modelDefaults = new LinkedHashMap<>()
+            finderBinder.buildPathsToVariables(task.input.parsed, pathVars, modelDefaults)
+            Projection projection = task.projection()
+            if (!projection.isEverything()) {
+                pathVars = JsonFinderBinder.projected(pathVars, projection)
+                modelDefaults = projection.narrowed(modelDefaults)
+            }
+            Map<String,Object> bound = finderBinder.fetchVarToValues(pathVars, parsedPayload.parsed)
+            metrics.record(TranslationMetrics.Phase.BIND, started)
+
+            session.payload = parsedPayload
+            session.plan = resolvedPlan
+            session.pathVars = pathVars
+            session.modelDefaults = modelDefaults
+            session.bound = bound
+
+            Update result = mapAndEmit(session, task, false, pathVars.size())
+            failed = false
+            result
+        }
+        finally {
+            metrics.recordTranslation(session.unresolvedInput, session.output, translationStarted, failed)
+            poller.unlock()
+            if (trace != null) {
+                metrics.endTrace()
+                capture.consider(session.unresolvedInput, session.output, payload, session.defaults, translationStarted, trace, failed)
+            }
+        }
+    }
+
+    // Each mapping gets its own copy of the bindings, since mapping and morphers change them.
+    // Morphers handed the parsed payload (tweakInputs, tweakParsed) get a copy of it too, as the
+    // session's payload is what later patches are applied to and full payloads are diffed against.
+    //
+    private Update mapAndEmit(Session session, MapTask task, boolean incremental, int reboundPaths) {
+        Schema parsedDefaults = defaultsCache.lookup(session.unresolvedInput, session.defaults, resolver)
+
+        Bindings bindings = new Bindings(session.bound).copy()
+        bindings.applyDefaults(session.modelDefaults)
+        Schema parsedPayload = task.seesPayload() ? session.payload.clone() : session.payload
+        Schema parsedOutput = task.mapBound(parsedPayload, parsedDefaults, bindings)
+
+        long started = metrics.start()
+        String emitted = parsedOutput.emit()
+        metrics.record(TranslationMetrics.Phase.EMIT, started)
+
+        record(session, isJson(session.output) ? parsedOutput.parsed : null, emitted, incremental, reboundPaths)
+    }
+
+    private static Update record(Session session, Object outputTree, String document, boolean incremental, int reboundPaths) {
+        String patch = null
+        if (outputTree != null) {
+            JsonPatch delta = JsonPatch.diff(session.outputTree, outputTree)
+            patch = delta.emit()
+        }
+
+        boolean changed = session.document != document
+        session.outputTree = outputTree
+        session.document = document
+        new Update(document, patch, incremental, reboundPaths, changed)
+    }
+}
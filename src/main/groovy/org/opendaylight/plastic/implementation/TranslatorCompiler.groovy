@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import groovy.transform.CompileStatic
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.LongAdder
+
+
+/**
+ * Generates a specialized translator for a hot pair of input and output schemas. The generated
+ * class reads each input variable straight from its place in the payload, and writes each output
+ * variable straight into its place in the output, instead of walking the schemas and parsing
+ * variable names on every translation. MapTask still does everything else (defaults, morpher
+ * hooks, validation) at the same points as always.
+ *
+ * Only simple pairs are compiled: JSON schemas whose variables are plain names (no arrays,
+ * indexes, wildcards or embedded text), found under maps only. Anything else stays with the
+ * interpreter. A compiled translator also hands a translation back to the interpreter whenever
+ * the payload or the bound values call for its more general behavior, like a list where a map
+ * was expected or a value that is itself a variable (see bind and inject), so the results are
+ * always the same.
+ *
+ * Each generated class is compiled from Groovy source in its own class loader, once its schema
+ * pair has been looked up more than a threshold number of times.
+ */
+@CompileStatic
+class TranslatorCompiler {
+
+    static final String ENABLED_PROPERTY = "plastic.compiler.enabled"
+    static final String THRESHOLD_PROPERTY = "plastic.compiler.threshold"
+    static final String DEFAULT_THRESHOLD = "1000"
+
+    static final long MAX_ENTRIES = 1000
+
+    static final TranslatorCompiler DISABLED = new TranslatorCompiler(false, Long.MAX_VALUE)
+
+    static Logger logger = LoggerFactory.getLogger(TranslatorCompiler)
+
+    static interface CompiledTranslator {
+
+        // The bound inputs, or null if the payload has a shape only the interpreter handles
+        //
+        Bindings bind(Object payload, Projection projection)
+
+        // False, with nothing changed, if the values need the interpreter
+        //
+        boolean inject(Map values, Object model, Set danglingInputs, Set danglingOutputs)
+    }
+
+    static class NotCompilable extends PlasticException {
+        NotCompilable(String reason) {
+            super("PLASTIC-NOT-COMPILABLE", reason)
+        }
+    }
+
+    private static class Key {
+        final Object input
+        final Object output
+
+        Key(Object input, Object output) {
+            this.input = input
+            this.output = output
+        }
+
+        @Override
+        boolean equals(Object o) {
+            (o instanceof Key) && input.is(((Key) o).input) && output.is(((Key) o).output)
+        }
+
+        @Override
+        int hashCode() {
+            31 * System.identityHashCode(input) + System.identityHashCode(output)
+        }
+    }
+
+    private static class Entry {
+        final LongAdder lookups = new LongAdder()
+        volatile boolean settled
+        volatile CompiledTranslator compiled
+    }
+
+    private static class Place {
+        final List<String> path
+        final String name
+
+        Place(List<String> path, String name) {
+            this.path = path
+            this.name = name
+        }
+    }
+
+    private static final AtomicLong generated = new AtomicLong()
+
+    final boolean enabled
+    final long threshold
+
+    private final Cache<Key,Entry> entries
+    private final AtomicLong compiledCount = new AtomicLong()
+    private final AtomicLong rejectedCount = new AtomicLong()
+
+    TranslatorCompiler(AppContext appProps) {
+        this(Boolean.parseBoolean(appProps.getOrElse(ENABLED_PROPERTY, "false")),
+                Long.parseLong(appProps.getOrElse(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD)))
+    }
+
+    TranslatorCompiler(boolean enabled, long threshold) {
+        this.enabled = enabled
+        this.threshold = threshold
+        this.entries = CacheBuilder.newBuilder().maximumSize(MAX_ENTRIES).build()
+    }
+
+    // Counts a lookup of the given schemas, handing back their compiled translator once there
+    // is one. Schema clones share a translator (see Schema.origin).
+    //
+    CompiledTranslator lookup(Schema input, Schema output) {
+        if (!enabled)
+            return null
+
+        Key key = new Key(input.origin, output.origin)
+        ConcurrentMap<Key,Entry> map = entries.asMap()
+        Entry entry = map.get(key)
+        if (entry == null) {
+            entry = new Entry()
+            Entry prior = map.putIfAbsent(key, entry)
+            if (prior != null)
+                entry = prior
+        }
+
+        if (entry.settled)
+            return entry.compiled
+
+        entry.lookups.increment()
+        if (entry.lookups.sum() >= threshold) {
+            synchronized (entry) {
+                if (!entry.settled) {
+                    entry.compiled = tryCompiling(input, output)
+                    entry.settled = true
+                }
+            }
+        }
+
+        entry.compiled
+    }
+
+    private CompiledTranslator tryCompiling(Schema input, Schema output) {
+        try {
+            CompiledTranslator result = compile(input, output)
+            compiledCount.incrementAndGet()
+            logger.info("Compiled a translator for (in:{}) (out:{})", input.schema, output.schema)
+            result
+        }
+        catch (NotCompilable e) {
+            rejectedCount.incrementAndGet()
+            logger.debug("Not compiling a translator for (in:{}) (out:{}): {}", input.schema, output.schema, e.message)
+            null
+        }
+    }
+
+    long getCompiledCount() {
+        compiledCount.get()
+    }
+
+    long getRejectedCount() {
+        rejectedCount.get()
+    }
+
+    static CompiledTranslator compile(Schema input, Schema output) {
+        if (input.parsedSchema.getClass() != ParsedJson || output.parsedSchema.getClass() != ParsedJson)
+            throw new NotCompilable("only JSON schemas are compiled")
+        if (!(input.parsed instanceof Map) || !(output.parsed instanceof Map))
+            throw new NotCompilable("only schemas that are maps are compiled")
+
+        List<Place> inputs = new ArrayList<>()
+        placesOfInputs((Map) input.parsed, new ArrayList<String>(), inputs, new HashSet<String>())
+
+        List<Place> outputs = new ArrayList<>()
+        Set<String> literals = new LinkedHashSet<>()
+        placesOfOutputs((Map) output.parsed, new ArrayList<String>(), outputs, literals)
+
+        Map<String,VariablesFetcher> paths = new LinkedHashMap<>()
+        Map<String,Object> defaults = new LinkedHashMap<>()
+        new JsonFinderBinder().buildPathsToVariables(input.parsed, paths, defaults)
+
+        String className = "CompiledTranslator" + generated.incrementAndGet()
+        String source = generate(className, inputs, outputs, literals)
+
+        GroovyClassLoader loader = new GroovyClassLoader(TranslatorCompiler.classLoader)
+        Class clazz = loader.parseClass(source, className + ".groovy")
+        (CompiledTranslator) clazz.getConstructor(Map).newInstance(Collections.unmodifiableMap(defaults))
+    }
+
+    private static void placesOfInputs(Map<Object,Object> model, List<String> path, List<Place> results, Set<String> seen) {
+        for (Map.Entry<Object,Object> entry : model.entrySet()) {
+            List<String> here = new ArrayList<>(path)
+            here.add((String) entry.key)
+
+            Object value = entry.value
+            if (value instanceof List)
+                throw new NotCompilable("the input schema has arrays")
+            if (value instanceof Map)
+                placesOfInputs((Map) value, here, results, seen)
+            else if (value instanceof String) {
+                String leaf = (String) value
+                if (leaf.contains('${')) {
+                    String name = plainName(leaf, true)
+                    if (!seen.add(name))
+                        throw new NotCompilable("the input variable ${name} is used more than once")
+                    results.add(new Place(here, name))
+                }
+            }
+        }
+    }
+
+    private static void placesOfOutputs(Map<Object,Object> model, List<String> path, List<Place> results, Set<String> literals) {
+        for (Map.Entry<Object,Object> entry : model.entrySet()) {
+            List<String> here = new ArrayList<>(path)
+            here.add((String) entry.key)
+
+            Object value = entry.value
+            if (value instanceof List)
+                literalsOf((List) value, literals)
+            else if (value instanceof Map)
+                placesOfOutputs((Map) value, here, results, literals)
+            else if (value instanceof String) {
+                String leaf = (String) value
+                if (leaf.contains('${'))
+                    results.add(new Place(here, plainName(leaf, false)))
+                else
+                    literals.add(leaf)
+            }
+        }
+    }
+
+    private static void literalsOf(List model, Set<String> literals) {
+        for (Object value : model) {
+            if (value instanceof List)
+                literalsOf((List) value, literals)
+            else if (value instanceof Map)
+                literalsOf(new ArrayList<Object>((Collection<Object>) ((Map) value).values()), literals)
+            else if (value instanceof String) {
+                if (((String) value).contains('${'))
+                    throw new NotCompilable("the output schema has variables in arrays")
+                literals.add((String) value)
+            }
+        }
+    }
+
+    // The name of a variable that is a whole leaf, like ${abc} (or ${abc=1} for inputs)
+    //
+    private static String plainName(String leaf, boolean defaultable) {
+        if (!leaf.startsWith('${') || !leaf.endsWith('}') || leaf.indexOf('$', 1) >= 0 || WildCardMatcher.usesWildcarding(leaf))
+            throw new NotCompilable("the variable ${leaf} is not a whole leaf")
+
+        String inner = Variables.unadorn(leaf)
+        if (inner.contains('=') && !defaultable)
+            throw new NotCompilable("the output variable ${leaf} has a default")
+
+        String name = inner.split('=', 2)[0]
+        if (name != name.trim() || name.isEmpty() || name.contains('[') || Variables.basenameContainsIllegals(name))
+            throw new NotCompilable("the variable ${leaf} is not a plain name")
+        name
+    }
+
+    private static String generate(String className, List<Place> inputs, List<Place> outputs, Set<String> literals) {
+        StringBuilder sb = new StringBuilder()
+        sb.append("import groovy.transform.CompileStatic\n")
+        sb.append("import org.opendaylight.plastic.implementation.Bindings\n")
+        sb.append("import org.opendaylight.plastic.implementation.Projection\n")
+        sb.append("import org.opendaylight.plastic.implementation.TranslatorCompiler\n\n")
+        sb.append("@CompileStatic\n")
+        sb.append("class ${className} implements TranslatorCompiler.CompiledTranslator {\n\n")
+
+        sb.append("    private final Map<String,Object> defaults\n")
+        sb.append("    private static final String[] literals = [ ")
+        sb.append(literals.collect { String s -> quoted(s) }.join(", "))
+        sb.append(" ] as String[]\n\n")
+
+        sb.append("    ${className}(Map<String,Object> defaults) {\n")
+        sb.append("        this.defaults = defaults\n")
+        sb.append("    }\n\n")
+
+        // Each variable gets its own method, which keeps big schemas under the method size limit
+
+        sb.append("    Bindings bind(Object payload, Projection projection) {\n")
+        sb.append("        Map<String,Object> bound = new LinkedHashMap<String,Object>()\n")
+        for (int i = 0; i < inputs.size(); i++)
+            sb.append("        if (projection.keeps(${quoted(inputs[i].name)}) && !bind${i}(payload, bound)) return null\n")
+        sb.append("        Bindings bindings = new Bindings(bound)\n")
+        sb.append("        bindings.applyDefaults(projection.narrowed(defaults))\n")
+        sb.append("        bindings\n")
+        sb.append("    }\n\n")
+
+        for (int i = 0; i < inputs.size(); i++) {
+            Place place = inputs[i]
+            sb.append("    private static boolean bind${i}(Object payload, Map<String,Object> bound) {\n")
+            sb.append("        Object e = payload\n")
+            for (String term : place.path) {
+                sb.append("        if (e instanceof List) return false\n")
+                sb.append("        e = (e instanceof Map) ? ((Map) e).get(${quoted(term)}) : null\n")
+            }
+            sb.append("        bound.put(${quoted(place.name)}, TranslatorCompiler.scalar(e))\n")
+            sb.append("        true\n")
+            sb.append("    }\n\n")
+        }
+
+        sb.append("    boolean inject(Map values, Object model, Set danglingInputs, Set danglingOutputs) {\n")
+        sb.append("        if (!TranslatorCompiler.injectable(values, literals)) return false\n")
+        for (String name : outputs.collect { Place p -> p.name }.unique())
+            sb.append("        if (!TranslatorCompiler.injectable(values, ${quoted(name)})) return false\n")
+        sb.append("        Set<String> found = new HashSet<String>()\n")
+        for (int i = 0; i < outputs.size(); i++)
+            sb.append("        inject${i}(model, values, found, danglingOutputs)\n")
+        sb.append("        TranslatorCompiler.addDanglingInputs(values, found, danglingInputs)\n")
+        sb.append("        true\n")
+        sb.append("    }\n\n")
+
+        for (int i = 0; i < outputs.size(); i++) {
+            Place place = outputs[i]
+            sb.append("    private static void inject${i}(Object model, Map values, Set<String> found, Set danglingOutputs) {\n")
+            sb.append("        Map parent = (Map) model\n")
+            for (String term : place.path.subList(0, place.path.size() - 1))
+                sb.append("        parent = (Map) parent.get(${quoted(term)})\n")
+            sb.append("        TranslatorCompiler.put(parent, ${quoted(place.path.last())}, ${quoted(place.name)}, values, found, danglingOutputs)\n")
+            sb.append("    }\n\n")
+        }
+
+        sb.append("}\n")
+        sb.toString()
+    }
+
+    private static String quoted(String s) {
+        StringBuilder sb = new StringBuilder("'")
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i)
+            if (c == ('\\' as char) || c == ('\'' as char))
+                sb.append('\\').append(c)
+            else if (c < (' ' as char) || c > ('~' as char))
+                sb.append(String.format("\\u%04x", (int) c))
+            else
+                sb.append(c)
+        }
+        sb.append("'").toString()
+    }
+
+    // Support for the generated translators, which must give the same results as the interpreter
+
+    static Object scalar(Object value) {
+        JsonFinderBinder.Recorder.nullPrimitiveOrCollection(value)
+    }
+
+    // The interpreter replaces literals that are the names of variables, and makes further passes
+    // when injected values are themselves variables or names of variables. Iterators belong to
+    // array variables.
+    //
+    static boolean injectable(Map values, String[] literals) {
+        if (values.containsKey(""))
+            return false
+        for (String literal : literals) {
+            if (values.containsKey(literal))
+                return false
+        }
+        for (Object key : values.keySet()) {
+            if (((String) key).contains('['))
+                return false
+        }
+        true
+    }
+
+    static boolean injectable(Map values, String name) {
+        Object value = values.get(name)
+        if (value instanceof Map || value instanceof List)
+            return false
+        if (value instanceof String || value instanceof GString) {
+            String s = value.toString()
+            return !s.contains('${') && !values.containsKey(s)
+        }
+        true
+    }
+
+    static void put(Map parent, String key, String name, Map values, Set<String> found, Set danglingOutputs) {
+        if (values.containsKey(name)) {
+            Object value = values.get(name)
+            parent.put(key, value == null ? "" : value)
+            found.add(name)
+        }
+        else {
+            parent.put(key, "")
+            danglingOutputs.add(name)
+        }
+    }
+
+    static void addDanglingInputs(Map values, Set<String> found, Set danglingInputs) {
+        for (Object key : values.keySet()) {
+            String name = (String) key
+            if (!Variables.isInternal(name) && !found.contains(name))
+                danglingInputs.add(name)
+        }
+    }
+}
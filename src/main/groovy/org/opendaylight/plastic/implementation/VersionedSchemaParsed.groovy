@@ -11,10 +11,12 @@
 package org.opendaylight.plastic.implementation
 
 import com.google.common.base.Preconditions
+import groovy.transform.CompileStatic
 
 import java.lang.reflect.Array
 
 
+@CompileStatic
 abstract class VersionedSchemaParsed {
 
     static class WantedListButFoundMapException extends PlasticException {
@@ -45,12 +47,17 @@ abstract class VersionedSchemaParsed {
         }
 
         WantedListButFoundScalarException(VersionedSchema schema, String key, String value) {
-            super("PLASTIC-DEFLT-FND-SCALAR", "Default variable wanted a list but found a scalar instead: "
-                    + schema + " with key: " + key + " and value: " + value)
+            super("PLASTIC-DEFLT-FND-SCALAR")
             this.schema = schema
             this.key = key
             this.value = value
         }
+
+        @Override
+        protected String describe() {
+            "Default variable wanted a list but found a scalar instead: " + schema + " with key: " + key +
+                    " and value: " + BoundedRenderer.truncate(value, BoundedRenderer.defaultMaxChars())
+        }
     }
 
     static class MalformedException extends PlasticException {
@@ -72,8 +79,18 @@ abstract class VersionedSchemaParsed {
     }
 
     static class BadDefaultsException extends PlasticException {
+
+        final VersionedSchemaParsed defaults
+
         BadDefaultsException(VersionedSchemaParsed schema) {
-            super("PLASTIC-BAD-DEFAULTS", "Could not convert the following into default values: "+schema.emit())
+            super("PLASTIC-BAD-DEFAULTS")
+            this.defaults = schema
+        }
+
+        @Override
+        protected String describe() {
+            "Could not convert the following into default values: " +
+                    defaults.toShortString(BoundedRenderer.defaultMaxChars())
         }
     }
 
@@ -132,6 +149,16 @@ abstract class VersionedSchemaParsed {
      */
     abstract Bindings bindValues(VersionedSchemaParsed valuesSource)
 
+    /*
+     * Same as above, but only for the variables kept by the given projection. Formats
+     * that can't skip parts of the values source bind everything and drop the rest.
+     */
+    Bindings bindValues(VersionedSchemaParsed valuesSource, Projection projection) {
+        Bindings bindings = bindValues(valuesSource)
+        projection.narrow(bindings.bindings())
+        bindings
+    }
+
     /*
      * Walk the parsed tree and record any found variables (name as key and possibly
      * null default value). Return that map.
@@ -158,29 +185,32 @@ abstract class VersionedSchemaParsed {
 
         Map results = [:]
 
-        Variables vars = new Variables()
-        values.each { k,v ->
+        for (Map.Entry entry : (Set<Map.Entry>) values.entrySet()) {
+            String k = (String) entry.key
+            Object v = entry.value
             if (Variables.isGenericIndexed(k)) {
                 if (v instanceof List) {
-                    List indexedVars = vars.generateManyIndexed(k, v.size())
-                    indexedVars.eachWithIndex { String indexedVar, int i ->
-                        results.putAt(indexedVar, isCollection(v[i]) ? v[i] : ""+v[i])
+                    List list = (List) v
+                    List<String> indexedVars = Variables.generateManyIndexed(k, [(long) list.size()] as long[])
+                    for (int i = 0; i < indexedVars.size(); i++) {
+                        Object element = list.get(i)
+                        results.put(indexedVars.get(i), isCollection(element) ? element : ""+element)
                     }
                     Schemiterator.insertIteratorSpec(results, k, indexedVars)
                 }
                 else if (v instanceof Map)
                     throw new WantedListButFoundMapException(boundSchema, k);
                 else
-                    throw new WantedListButFoundScalarException(boundSchema, k, v);
+                    throw new WantedListButFoundScalarException(boundSchema, k, String.valueOf(v));
             }
             else {
-                results[k] = v
+                results.put(k, v)
             }
         }
         results
     }
 
-    protected boolean isCollection(obj) {
+    protected boolean isCollection(Object obj) {
         return (obj instanceof Map || obj instanceof List || obj instanceof Array)
     }
 
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+
+class WarmUpLogger {
+
+    static final Logger logger = LoggerFactory.getLogger(WarmUp)
+
+    void starting() {
+        logger.info("PLASTIC-WARMUP: starting warm-up before reporting readiness")
+    }
+
+    void couldNotPreload(String what, String file, Exception e) {
+        logger.debug("PLASTIC-WARMUP: could not preload ${what} ${file}", e)
+    }
+
+    void couldNotReadSample(File file, Exception e) {
+        logger.warn("PLASTIC-WARMUP: skipping unreadable sample ${file.absolutePath}: ${e.message}")
+    }
+
+    void sampleFailed(WarmUp.Sample sample, Exception e) {
+        logger.warn("PLASTIC-WARMUP: dropping sample ${sample.source} from warm-up: ${e.message}")
+    }
+
+    void round(int round, long nanos) {
+        logger.debug("PLASTIC-WARMUP: round {} took {} usecs", round, (long) (nanos / 1000))
+    }
+
+    void finished(WarmUp.Result result) {
+        logger.info("PLASTIC-WARMUP: finished in ${result.elapsedMillis} msecs - schemas: ${result.schemas} " +
+                "morphers: ${result.morphers} classifiers: ${result.classifiers} samples: ${result.samples} " +
+                "rounds: ${result.rounds} stable: ${result.stable}")
+    }
+}
+
+/**
+ * Optional start-up phase that pays the first-request costs (schema loading, morpher and
+ * classifier compiles, metaclass creation, cold JIT) before the worker reports readiness.
+ *
+ * Every schema, morpher, and classifier found on the search path is loaded once. Then, if
+ * a samples directory is configured, its runner-style properties files (same keys as used
+ * by PlasticRunner) are translated over and over until a round of them takes about as long
+ * as the previous round, or until the round or time limit is hit.
+ *
+ * Nothing done here is fatal - a failing artifact or sample is logged and skipped.
+ */
+class WarmUp {
+
+    static final String ENABLED_PROPERTY = "plastic.warmup.enabled"
+    static final String SAMPLES_PROPERTY = "plastic.warmup.samples"
+    static final String MAX_ROUNDS_PROPERTY = "plastic.warmup.max-rounds"
+    static final String TOLERANCE_PROPERTY = "plastic.warmup.tolerance-percent"
+    static final String MAX_SECONDS_PROPERTY = "plastic.warmup.max-seconds"
+
+    static final String DEFAULT_SAMPLES = "warmup"
+
+    static class Sample {
+        String source
+        VersionedSchema input
+        VersionedSchema output
+        String payload
+        String defaults
+    }
+
+    static class Result {
+        int schemas
+        int morphers
+        int classifiers
+        int samples
+        int rounds
+        boolean stable
+        long elapsedMillis
+    }
+
+    static boolean isEnabled(AppContext appProps) {
+        Boolean.parseBoolean(appProps.getOrElse(ENABLED_PROPERTY, "false"))
+    }
+
+    private final WarmUpLogger logger = new WarmUpLogger()
+
+    private final FilenamesCaches caches
+    private final SchemaSource schemaSource
+    private final MorpherLoader morpherLoader
+    private final ClassifierLoader classifierLoader
+    private final Cartography cartography
+
+    private final String samplesDir
+    private final int maxRounds
+    private final int tolerancePercent
+    private final long maxNanos
+
+    WarmUp(AppContext appProps, FilenamesCaches caches, SchemaSource schemaSource,
+           MorpherLoader morpherLoader, ClassifierLoader classifierLoader, Cartography cartography) {
+        this.caches = caches
+        this.schemaSource = schemaSource
+        this.morpherLoader = morpherLoader
+        this.classifierLoader = classifierLoader
+        this.cartography = cartography
+
+        this.samplesDir = appProps.getOrElse(SAMPLES_PROPERTY, DEFAULT_SAMPLES)
+        this.maxRounds = Integer.parseInt(appProps.getOrElse(MAX_ROUNDS_PROPERTY, "20"))
+        this.tolerancePercent = Integer.parseInt(appProps.getOrElse(TOLERANCE_PROPERTY, "10"))
+        this.maxNanos = Long.parseLong(appProps.getOrElse(MAX_SECONDS_PROPERTY, "60")) * 1000000000L
+    }
+
+    Result run() {
+        logger.starting()
+
+        long started = System.nanoTime()
+
+        Result result = new Result()
+        result.schemas = preloadSchemas()
+        result.morphers = preloadMorphers()
+        result.classifiers = preloadClassifiers()
+
+        List<Sample> samples = readSamples(locateSamples())
+        result.samples = samples.size()
+
+        exercise(samples, started, result)
+
+        result.elapsedMillis = (long) ((System.nanoTime() - started) / 1000000L)
+        logger.finished(result)
+        result
+    }
+
+    // Schema files are named like "name-version.type"
+    //
+    static VersionedSchema asVersionedSchema(String fileName) {
+        String base = new File(fileName).name
+        int dot = base.lastIndexOf('.')
+        int dash = dot > 0 ? base.lastIndexOf('-', dot) : -1
+        if (dot <= 0 || dash <= 0 || dash + 1 == dot || dot + 1 == base.length())
+            return null
+        new VersionedSchema(base.substring(0, dash), base.substring(dash + 1, dot), base.substring(dot + 1))
+    }
+
+    private int preloadSchemas() {
+        int count = 0
+        filesIn("schemas").each { String file ->
+            VersionedSchema schema = asVersionedSchema(file)
+            if (schema != null) {
+                try {
+                    schemaSource.createSchema(schema)
+                    count++
+                }
+                catch (Exception e) {
+                    logger.couldNotPreload("schema", file, e)
+                }
+            }
+        }
+        count
+    }
+
+    private int preloadMorphers() {
+        int count = 0
+        filesIn("morphers").findAll { it.endsWith(".groovy") }.each { String file ->
+            VersionedSchema schema = asVersionedSchema(file)
+            if (schema != null) {
+                try {
+                    morpherLoader.instantiate(schema, file)
+                    count++
+                }
+                catch (Exception e) {
+                    logger.couldNotPreload("morpher", file, e)
+                }
+            }
+        }
+        count
+    }
+
+    private int preloadClassifiers() {
+        int count = 0
+        filesIn("classifiers").findAll { it.endsWith(".groovy") }.each { String file ->
+            String name = new File(file).name
+            try {
+                classifierLoader.locateClassifier(name.substring(0, name.length() - ".groovy".length()))
+                count++
+            }
+            catch (Exception e) {
+                logger.couldNotPreload("classifier", file, e)
+            }
+        }
+        count
+    }
+
+    private Collection<String> filesIn(String dir) {
+        FilenamesCache cache = caches.get(dir)
+        cache == null ? [] : cache.filePaths()
+    }
+
+    // A relative samples directory is taken to be a sibling of the schemas directory
+    //
+    private File locateSamples() {
+        File dir = new File(samplesDir)
+        if (!dir.isAbsolute()) {
+            String schemasRoot = caches.getRootFor("schemas")
+            if (schemasRoot)
+                dir = new File(new File(schemasRoot).parentFile, samplesDir)
+        }
+        dir
+    }
+
+    List<Sample> readSamples(File dir) {
+        List<Sample> results = []
+        if (dir.isDirectory()) {
+            dir.listFiles().findAll { File f -> f.name.endsWith(".properties") }.sort { it.name }.each { File f ->
+                try {
+                    results.add(readSample(f))
+                }
+                catch (Exception e) {
+                    logger.couldNotReadSample(f, e)
+                }
+            }
+        }
+        results
+    }
+
+    static Sample readSample(File file) {
+        Properties props = new Properties()
+        file.withReader { props.load(it) }
+
+        Sample sample = new Sample()
+        sample.source = file.absolutePath
+        sample.input = new VersionedSchema(required(props, "in-schema-name"), required(props, "in-schema-version"), required(props, "in-schema-type"))
+        sample.output = new VersionedSchema(required(props, "out-schema-name"), required(props, "out-schema-version"), required(props, "out-schema-type"))
+        sample.payload = readRelativeTo(file, required(props, "payload-file"))
+
+        String defaultsFile = props.getProperty("defaults-file", "").trim()
+        sample.defaults = defaultsFile.isEmpty() ? Cartography.EMPTY_DEFAULTS : readRelativeTo(file, defaultsFile)
+        sample
+    }
+
+    private static String required(Properties props, String name) {
+        String value = props.getProperty(name, "").trim()
+        if (value.isEmpty())
+            throw new IllegalArgumentException("missing property ${name}")
+        value
+    }
+
+    private static String readRelativeTo(File propsFile, String fileName) {
+        File f = new File(fileName)
+        if (!f.isAbsolute() && !f.exists())
+            f = new File(propsFile.parentFile, fileName)
+        f.text
+    }
+
+    private void exercise(List<Sample> samples, long started, Result result) {
+        List<Sample> live = new ArrayList<>(samples)
+        long previous = -1
+
+        while (!live.isEmpty() && result.rounds < maxRounds && System.nanoTime() - started < maxNanos) {
+            long roundStarted = System.nanoTime()
+
+            boolean dropped = false
+            Iterator<Sample> it = live.iterator()
+            while (it.hasNext()) {
+                Sample sample = it.next()
+                try {
+                    cartography.translateWithDefaults(sample.input, sample.output, sample.payload, sample.defaults)
+                }
+                catch (Exception e) {
+                    logger.sampleFailed(sample, e)
+                    it.remove()
+                    dropped = true
+                }
+            }
+
+            long elapsed = System.nanoTime() - roundStarted
+            result.rounds++
+            logger.round(result.rounds, elapsed)
+
+            if (previous > 0 && isStable(previous, elapsed)) {
+                result.stable = true
+                break
+            }
+            // A round that lost a sample is not comparable to the next one
+            previous = dropped ? -1 : elapsed
+        }
+    }
+
+    private boolean isStable(long previous, long current) {
+        Math.abs(current - previous) * 100 <= previous * tolerancePercent
+    }
+}
@@ -32,8 +32,19 @@ class WildCardMatcher implements VariablesFetcher {
     }
 
     static class NoMatchFound extends PlasticException {
+
+        final String template
+        final Object candidate
+
         NoMatchFound(String template, Object candidate) {
-            super("PLASTIC-NO-MATCH", "could not use $template to match against $candidate")
+            super("PLASTIC-NO-MATCH")
+            this.template = template
+            this.candidate = candidate
+        }
+
+        @Override
+        protected String describe() {
+            "could not use $template to match against ${BoundedRenderer.snippet(candidate)}"
         }
     }
 
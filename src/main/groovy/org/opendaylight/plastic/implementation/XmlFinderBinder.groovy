@@ -10,20 +10,30 @@
 
 package org.opendaylight.plastic.implementation
 
+import groovy.transform.CompileStatic
 
+@CompileStatic
 class XmlFinderBinder {
 
     Bindings process(Node model, Node payload) {
-        Map varPaths = [:]
-        Map defaults = [:]
+        process(model, payload, Projection.EVERYTHING)
+    }
+
+    // Variables not kept by the projection are neither looked up in the payload nor defaulted
+    //
+    Bindings process(Node model, Node payload, Projection projection) {
+        Map<String,String> varPaths = [:]
+        Map<String,Object> defaults = [:]
         buildVariablesToPaths(model, varPaths, defaults)
-        Map boundVars = fetchVarToValues(varPaths, payload)
+        if (!projection.isEverything())
+            varPaths.keySet().retainAll { String v -> projection.keeps(v) }
+        Map<String,Object> boundVars = fetchVarToValues(varPaths, payload)
 
         // TODO: seems like this rummaging around can be moved into Bindings
         Bindings bindings = new Bindings(boundVars)
-        varPaths.each { k,p ->
-            if (!boundVars.containsKey(k) || boundVars[k] == null) {
-                boundVars[k] = defaults[k]
+        for (String k : varPaths.keySet()) {
+            if (!boundVars.containsKey(k) || boundVars.get(k) == null) {
+                boundVars.put(k, defaults.get(k))
                 bindings.defaultWasUsed(k)
             }
         }
@@ -32,17 +42,16 @@ class XmlFinderBinder {
 
     void buildVariablesToPaths(Node model, Map seenPaths, Map seenVals)
     {
-        NodeList nodes = model.depthFirst()
-        nodes.each { n ->
+        for (Object n : model.depthFirst()) {
             if (n instanceof Node) {
                 Node node = (Node) n
 
                 Variables vars = new Variables(node.text())
                 if (vars.isPresent()) {
-                    def path = formulatePath(node)
-                    vars.toEach { v,val ->
-                        seenPaths[v] = path
-                        seenVals[v] = val
+                    String path = formulatePath(node)
+                    for (String v : vars.names()) {
+                        seenPaths.put(v, path)
+                        seenVals.put(v, vars.getValue(v))
                     }
                 }
             }
@@ -50,43 +59,47 @@ class XmlFinderBinder {
     }
 
     private String formulatePath(Node node) {
-        if (node) {
+        if (node != null) {
             Node parent = node.parent()
-            if (parent && parent != node) {
+            if (parent != null && parent != node) {
                 return formulatePath(parent) + '.' + node.name()
             } else {
-                return node.name()
+                return node.name().toString()
             }
         }
 
         ""
     }
 
-    private Map fetchVarToValues(Map varToPaths, Node searchHere) {
-        Map varToValues = [:]
-        Map pathsToVars = invertMap(varToPaths)
+    private Map<String,Object> fetchVarToValues(Map<String,String> varToPaths, Node searchHere) {
+        Map<String,Object> varToValues = [:]
+        Map<String,List<String>> pathsToVars = invertMap(varToPaths)
 
-        NodeList nodes = searchHere.depthFirst()
-        nodes.each { n ->
+        for (Object n : searchHere.depthFirst()) {
             if (n instanceof Node) {
                 Node node = (Node) n
 
-                def path = formulatePath(node)
-                if (pathsToVars.containsKey(path)) {
-                    def val = node.text()
-                    pathsToVars[path].each { var -> varToValues[var] = val }
+                String path = formulatePath(node)
+                List<String> vars = pathsToVars.get(path)
+                if (vars != null) {
+                    String val = node.text()
+                    for (String var : vars)
+                        varToValues.put(var, val)
                 }
             }
         }
         varToValues
     }
 
-    private Map invertMap(Map inMap) {
-        HashMap result = [:]
-        inMap.each { k,v ->
-            if (!result.containsKey(v))
-                result[v] = []
-            result[v].add(k)
+    private Map<String,List<String>> invertMap(Map<String,String> inMap) {
+        Map<String,List<String>> result = new HashMap<>()
+        for (Map.Entry<String,String> entry : inMap.entrySet()) {
+            List<String> keys = result.get(entry.value)
+            if (keys == null) {
+                keys = []
+                result.put(entry.value, keys)
+            }
+            keys.add(entry.key)
         }
         result
     }
@@ -10,9 +10,12 @@
 
 package org.opendaylight.plastic.implementation
 
+import groovy.transform.CompileDynamic
+import groovy.transform.CompileStatic
 import groovy.xml.XmlUtil
 
 
+@CompileStatic
 class XmlFormat implements Format {
 
     static final String EMPTY_DEFAULTS = "<Map></Map>"
@@ -53,10 +56,10 @@ class XmlFormat implements Format {
         // parent pointers, but we use those to build the path
         // to the element, so clone and set the pointers correctly
 
-        List<Node> srcNodes = source.depthFirst()
+        List<Node> srcNodes = (List<Node>) source.depthFirst()
 
-        Node results = source.clone()
-        List<Node> resultNodes = results.depthFirst()
+        Node results = (Node) source.clone()
+        List<Node> resultNodes = (List<Node>) results.depthFirst()
 
         Map<Node,Node> cousins = new HashMap<>()
 
@@ -65,26 +68,32 @@ class XmlFormat implements Format {
         }
 
         Map<Node,Node> revCousins = new HashMap<>()
-        cousins.each { Node k, Node v ->
-            revCousins.put(v, k)
+        for (Map.Entry<Node,Node> entry : cousins.entrySet()) {
+            revCousins.put(entry.value, entry.key)
         }
 
-        resultNodes.each { Node n ->
+        for (Node n : resultNodes) {
             if(n.parent() == null) {
                 Node myCousin = cousins.get(n)
                 Node myCousinsParent = myCousin.parent()
                 Node myParent = revCousins.get(myCousinsParent)
-                n.setParent(myParent)
+                reparent(n, myParent)
             }
         }
 
         results
     }
 
+    // Node.setParent() is protected, so this one call stays dynamic
+    //
+    @CompileDynamic
+    private static void reparent(Node node, Node parent) {
+        node.setParent(parent)
+    }
+
     @Override
     String serialize(Object source) {
-        mustBeNode(source)
-        XmlUtil.serialize(source)
+        XmlUtil.serialize(mustBeNode(source))
     }
 
     @Override
@@ -10,9 +10,12 @@
 
 package org.opendaylight.plastic.implementation
 
+import groovy.transform.CompileStatic
+
 import java.util.regex.Pattern
 
 
+@CompileStatic
 class XmlValuesInjector {
 
     static class DangingInputsException extends PlasticException {
@@ -37,27 +40,27 @@ class XmlValuesInjector {
 
     Node inject(Map values, Node model) {
 
-        def expectedInputVars = values.keySet() as Set
-        def foundInputVars = [] as Set
-        def danglingOutputVars = [] as Set
+        Set expectedInputVars = values.keySet()
+        Set foundInputVars = new LinkedHashSet()
+        Set danglingOutputVars = new LinkedHashSet()
 
-        NodeList nodes = model.depthFirst()
-        nodes.each { n ->
+        for (Object n : model.depthFirst()) {
             if (n instanceof Node) {
                 Node node = (Node) n
-                String text = node.localText().isEmpty() ? "" : node.localText().get(0)
+                List<String> localText = node.localText()
+                String text = localText.isEmpty() ? "" : localText.get(0)
                 Variables vars = new Variables(text)
                 if (vars.isPresent()) {
-                    def replaced = text
-                    vars.toEach { v,val ->
+                    Object replaced = text
+                    for (String v : vars.names()) {
                         if (values.containsKey(v)) {
-                            Object value = values[v] == null ? "" : values[v] // could be string, boolean, int, ...
+                            Object value = values.get(v) == null ? "" : values.get(v) // could be string, boolean, int, ...
                             foundInputVars.add(v)
-                            String fullVar = Pattern.quote(vars.adorn(v))
+                            String fullVar = Pattern.quote(Variables.adorn(v))
                             if (fullVar == text)
                                 replaced = value // preserves original type
                             else
-                                replaced = replaced.replaceAll(fullVar, value.toString())
+                                replaced = replaced.toString().replaceAll(fullVar, value.toString())
                         }
                         else {
                             danglingOutputVars.add(v)
@@ -65,7 +68,7 @@ class XmlValuesInjector {
                     }
 
                     if (text != replaced) {
-                        node.value().set(0, replaced)
+                        ((List) node.value()).set(0, replaced)
                     }
                 }
             }
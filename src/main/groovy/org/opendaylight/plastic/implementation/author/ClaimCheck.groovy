@@ -11,6 +11,7 @@
 package org.opendaylight.plastic.implementation.author
 
 
+import org.opendaylight.plastic.implementation.ChildSlot
 import org.opendaylight.plastic.implementation.Schema
 
 // Gives classifier writers a way to replace chunks of a json tree
@@ -30,6 +31,7 @@ class ClaimCheck {
     Schema root
     Schema branch
     String name
+    ChildSlot slot // only for list members, so results can be spliced straight back
 
     def getter = { null }
     def setter = { v -> }
@@ -42,6 +44,7 @@ class ClaimCheck {
         setter = { v -> parent[childIndex] = v }
 
         initialize(claimCheckBaseName, root, childIndex.toString(), getter)
+        slot = new ChildSlot(parent, childIndex, variableName)
     }
 
     ClaimCheck(String claimCheckBaseName, Schema root,
@@ -92,6 +95,10 @@ class ClaimCheck {
         branch
     }
 
+    ChildSlot getSlot() {
+        slot
+    }
+
     void swap() {
         setter(variableName)
     }
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation.author
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import groovy.transform.CompileStatic
+
+
+/**
+ * A path into parsed JSON-like payloads (maps and lists) that is parsed once and then evaluated
+ * any number of times. Paths are dotted keys with optional list subscripts, like
+ *
+ *     a.b.c[*].d       every member of list c, then key d of each member
+ *     [*].a            every member of a top-level list, then key a of each member
+ *     a.b[2].c         only the third member of list b
+ *
+ * A key applied to a list is applied to each of its members, so "a.c" reaches the same places
+ * as "a[*].c" when a is a list. Compiled paths are immutable and thread-safe, and compile()
+ * caches them by their text, so classifiers can either call the string-based helpers freely or
+ * hold a compiled path in a static field.
+ *
+ * Example usage
+ *
+ * static final PathExpression INTERFACES = PathExpression.compile("device.interfaces[*].units")
+ * ...
+ * Plans.realizeChildPlans(parsed, INTERFACES, "units", childIn, childOut)
+ */
+@CompileStatic
+class PathExpression {
+
+    static class PathException extends RuntimeException {
+        PathException(String msg) {
+            super(msg)
+        }
+    }
+
+    // Called with each place a path ends at - either a list and an index within it or a map
+    // and a key (which might not be present)
+    //
+    static interface Visitor {
+        void visit(Object container, Object slot)
+    }
+
+    static enum Kind { KEY, INDEX, WILDCARD }
+
+    static class Step {
+        final Kind kind
+        final String key
+        final int index
+
+        Step(Kind kind, String key, int index) {
+            this.kind = kind
+            this.key = key
+            this.index = index
+        }
+
+        @Override
+        String toString() {
+            kind == Kind.KEY ? key : (kind == Kind.INDEX ? "[${index}]".toString() : "[*]")
+        }
+    }
+
+    static final String WILDCARD_KEY = "[]"
+
+    private static final Step WILDCARD = new Step(Kind.WILDCARD, null, -1)
+    private static final int MAX_CACHED = 10000
+    private static final Cache<String,PathExpression> compiled =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHED).<String,PathExpression>build()
+
+    final String text
+    final Step[] steps
+
+    private PathExpression(String text, Step[] steps) {
+        this.text = text
+        this.steps = steps
+    }
+
+    static PathExpression compile(String path) {
+        if (path == null)
+            throw new PathException("Cannot compile a NULL path")
+
+        PathExpression found = compiled.getIfPresent(path)
+        if (found == null) {
+            found = new PathExpression(path, parse(path))
+            compiled.put(path, found)
+        }
+        found
+    }
+
+    // For the component style paths of Surgeon and BetterJson, where each component is a key
+    // and the component "[]" stands for the members of a list
+    //
+    static PathExpression ofKeys(String... components) {
+        Step[] steps = new Step[components.length]
+        for (int i = 0; i < components.length; i++) {
+            String component = components[i]
+            steps[i] = component == WILDCARD_KEY ? WILDCARD : new Step(Kind.KEY, component, -1)
+        }
+        new PathExpression(components.join('.'), steps)
+    }
+
+    private static Step[] parse(String path) {
+        List<Step> results = new ArrayList<>()
+        int len = path.length()
+        int i = 0
+
+        while (i < len) {
+            char c = path.charAt(i)
+            if (c == ('.' as char)) {
+                i++
+            }
+            else if (c == ('[' as char)) {
+                int close = path.indexOf(']', i)
+                if (close < 0)
+                    throw new PathException("Missing closing bracket at position ${i} of path ${path}")
+                results.add(subscript(path, path.substring(i+1, close).trim()))
+                i = close + 1
+            }
+            else {
+                int end = i
+                while (end < len && path.charAt(end) != ('.' as char) && path.charAt(end) != ('[' as char))
+                    end++
+                String key = path.substring(i, end)
+                results.add(key == '*' ? WILDCARD : new Step(Kind.KEY, key, -1))
+                i = end
+            }
+        }
+
+        results.toArray(new Step[results.size()])
+    }
+
+    private static Step subscript(String path, String inside) {
+        if (inside == '*' || inside.isEmpty())
+            return WILDCARD
+        if (!inside.isInteger())
+            throw new PathException("Expected an index or * inside of [${inside}] in path ${path}")
+        new Step(Kind.INDEX, null, Integer.parseInt(inside))
+    }
+
+    int size() {
+        steps.length
+    }
+
+    boolean isEmpty() {
+        steps.length == 0
+    }
+
+    /**
+     * Visits every place this path ends at, in document order. Every step but the last one has
+     * to exist, otherwise a PathException is thrown. The evaluation is iterative, so there is no
+     * recursion or closure call per member of the lists along the way.
+     */
+    void eachEnd(Object root, Visitor visitor) {
+        if (root == null)
+            throw new PathException("Could not use path (${text}) on a NULL root")
+        if (steps.length == 0)
+            return
+
+        Frames pending = new Frames()
+        pending.push(root, 0)
+
+        while (!pending.isEmpty()) {
+            int i = pending.topPosition()
+            Object here = pending.pop()
+
+            while (i < steps.length) {
+                Step step = steps[i]
+                boolean isLast = i == steps.length-1
+
+                if (here == null)
+                    throw new PathException("Could not use path (${text}) on a NULL path segment at \'${step}\'")
+
+                if (step.kind == Kind.KEY) {
+                    if (here instanceof List) {
+                        // same step again for each member
+                        pending.pushMembers((List) here, i)
+                        break
+                    }
+                    if (!(here instanceof Map))
+                        throw new PathException("Path hit a non-collection at the path component \'${step}\' along the path ${text}")
+
+                    Map map = (Map) here
+                    if (isLast) {
+                        visitor.visit(map, step.key)
+                        break
+                    }
+                    if (!map.containsKey(step.key))
+                        throw new PathException("Encountered a missing path component \'${step}\' along the path ${text}")
+                    here = map.get(step.key)
+                }
+                else {
+                    if (!(here instanceof List))
+                        throw new PathException("Encountered an object that is not a list via path component \'${step}\' along the path ${text}")
+
+                    List list = (List) here
+                    if (step.kind == Kind.INDEX) {
+                        if (step.index >= list.size())
+                            throw new PathException("Encountered a list without an element at path component \'${step}\' along the path ${text}")
+                        if (isLast) {
+                            visitor.visit(list, step.index)
+                            break
+                        }
+                        here = list.get(step.index)
+                    }
+                    else if (isLast) {
+                        for (int j = 0; j < list.size(); j++)
+                            visitor.visit(list, j)
+                        break
+                    }
+                    else {
+                        pending.pushMembers(list, i+1)
+                        break
+                    }
+                }
+
+                i++
+            }
+        }
+    }
+
+    /**
+     * Visits every member of every list that this path ends at, which is how Plans.walk()
+     * finds the containers to carve child plans out of. A path can end at a list itself
+     * ("a.b.list") or at its members ("a.b.list[*]"), and ending at anything else is an error.
+     */
+    void eachListMember(Object root, ListVisitor visitor) {
+        eachEnd(root, new Visitor() {
+            @Override
+            void visit(Object container, Object slot) {
+                if (container instanceof List) {
+                    visitor.visit((List) container, (Integer) slot)
+                    return
+                }
+                Object value = ((Map) container).get(slot)
+                if (!(value instanceof List))
+                    throw new PathException("Path ended unexpectedly on a non-list for the path ${text}")
+                List list = (List) value
+                for (int j = 0; j < list.size(); j++)
+                    visitor.visit(list, j)
+            }
+        })
+    }
+
+    static interface ListVisitor {
+        void visit(List list, int index)
+    }
+
+    /**
+     * All of the values this path ends at, in document order. Map keys that are missing at
+     * the very end are skipped rather than reported.
+     */
+    List<Object> select(Object root) {
+        List<Object> results = new ArrayList<>()
+        eachEnd(root, new Visitor() {
+            @Override
+            void visit(Object container, Object slot) {
+                if (container instanceof List)
+                    results.add(((List) container).get((Integer) slot))
+                else if (((Map) container).containsKey(slot))
+                    results.add(((Map) container).get(slot))
+            }
+        })
+        results
+    }
+
+    Object first(Object root) {
+        List<Object> found = select(root)
+        found.isEmpty() ? null : found.get(0)
+    }
+
+    @Override
+    String toString() {
+        text
+    }
+
+    // Pending (node, path position) pairs, kept as parallel arrays so that there is no
+    // allocation per member visited
+    //
+    private static class Frames {
+        private Object[] nodes = new Object[16]
+        private int[] positions = new int[16]
+        private int top = 0
+
+        boolean isEmpty() {
+            top == 0
+        }
+
+        void push(Object node, int position) {
+            if (top == nodes.length) {
+                nodes = Arrays.copyOf(nodes, top*2)
+                positions = Arrays.copyOf(positions, top*2)
+            }
+            nodes[top] = node
+            positions[top] = position
+            top++
+        }
+
+        // Reversed so that the members pop off in their original order
+        //
+        void pushMembers(List list, int position) {
+            for (int j = list.size()-1; j >= 0; j--)
+                push(list.get(j), position)
+        }
+
+        int topPosition() {
+            positions[top-1]
+        }
+
+        Object pop() {
+            top--
+            Object node = nodes[top]
+            nodes[top] = null
+            node
+        }
+    }
+}
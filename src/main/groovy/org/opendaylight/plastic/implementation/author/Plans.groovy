@@ -10,6 +10,7 @@ package org.opendaylight.plastic.implementation.author
 
 
 import org.opendaylight.plastic.implementation.ChildRole
+import org.opendaylight.plastic.implementation.ChildSlot
 import org.opendaylight.plastic.implementation.ParentRole
 import org.opendaylight.plastic.implementation.Schema
 import org.opendaylight.plastic.implementation.TranslationPlanLite
@@ -45,7 +46,14 @@ class Plans {
     static TranslationPlanLite asChildPlan(TranslationPlanLite child,
                                            String name,
                                            Schema branch) {
-        ChildRole childRole = new ChildRole(name, branch);
+        return asChildPlan(child, name, branch, null);
+    }
+
+    static TranslationPlanLite asChildPlan(TranslationPlanLite child,
+                                           String name,
+                                           Schema branch,
+                                           ChildSlot slot) {
+        ChildRole childRole = new ChildRole(name, branch, slot);
         child.setRole(childRole);
         return child;
     }
@@ -57,7 +65,7 @@ class Plans {
                                  int childIndex) {
 
         ClaimCheck checker = new ClaimCheck(childName, root, parent, childIndex)
-        asChildPlan(child, checker.name, checker.branch)
+        asChildPlan(child, checker.name, checker.branch, checker.slot)
         checker.swap()
     }
 
@@ -101,6 +109,19 @@ class Plans {
                                                        String marker,
                                                        VersionedSchema childInput,
                                                        VersionedSchema childOutput) {
+        if (parentPath == null || parentPath.isEmpty())
+            throw new IllegalArgumentException("Cannot create child translation plans for array using an empty parent path (marker name is $marker)")
+
+        realizeChildPlans(root, PathExpression.compile(parentPath), marker, childInput, childOutput)
+    }
+
+    // Same as above but with a path compiled ahead of time, like in a static field of a classifier
+    //
+    static List<TranslationPlanLite> realizeChildPlans(Schema root,
+                                                       PathExpression parentPath,
+                                                       String marker,
+                                                       VersionedSchema childInput,
+                                                       VersionedSchema childOutput) {
         if (marker == null || marker.isEmpty())
             throw new IllegalArgumentException("Cannot create child translation plans for array using an empty marker/placeholder")
         if (parentPath == null || parentPath.isEmpty())
@@ -109,7 +130,7 @@ class Plans {
         List<TranslationPlanLite> results = new ArrayList<>()
 
         int pass = 0
-        walk(root.getParsed(), parentPath) { List parent, int index ->
+        parentPath.eachListMember(root.getParsed()) { List parent, int index ->
             String cmarker = "${marker}[$pass]"
             TranslationPlanLite child = newPlan(childInput, childOutput)
             Plans.realizeChildPlan(child, cmarker, root, parent, index)
@@ -125,6 +146,13 @@ class Plans {
         walker.walk(root, cls)
     }
 
+    static void walk(Object root, PathExpression path, Closure cls) {
+        WalkToList walker = new WalkToList(path)
+        walker.walk(root, cls)
+    }
+
+    // Calls back with each member (as the containing list and an index) of the lists at the end of the path
+    //
     static class WalkToList {
 
         static class WalkerException extends RuntimeException {
@@ -134,82 +162,26 @@ class Plans {
         }
 
         final String originalPath
-        final String[] originalParts
+        final PathExpression expression
 
         WalkToList(String path) {
-            this.originalPath = path
-
-            String tmp = path;
-            if (tmp.startsWith("[*]"))
-                tmp = tmp.replaceFirst("\\[\\*\\]", "*")
-            tmp = tmp.replace("[", ".").replace("].",".")
-            this.originalParts = tmp.split("(\\.)+")
+            this(PathExpression.compile(path))
         }
 
-        void walk(Object starting, Closure cls) {
-            walk(starting, starting, 0, cls)
+        WalkToList(PathExpression expression) {
+            this.originalPath = expression.text
+            this.expression = expression
         }
 
-        Object walk(Object root, Object current, int pathPosition, Closure cls) {
-            if (current == null)
-                throw new WalkerException("Could not use path ($originalPath) on a NULL path segment")
-
-            boolean isLast = pathPosition == originalPath.length()-1
-            boolean isPast = pathPosition >= originalPath.length()
-
-            if (isPast)
-                return current
-            if (!isLast && !(current instanceof List) && !(current instanceof Map))
-                throw new WalkerException("Using a path (${originalPath}) is not supported for the following: ${current}")
-
-            Object here = current
-
-            for (int i = pathPosition; i < originalParts.length; i++) {
-                String pathComponent = originalParts[i]
-                isLast = (i == originalParts.length - 1)
-
-                if (pathComponent == '*') {
-                    if (!(here instanceof List)) {
-                        throw new WalkerException("Encountered a object that is not a list via path component \'${pathComponent}\' along the path ${originalPath} for object ${root}")
-                    }
-                }
-
-                if (here instanceof List) {
-                    List list = (List) here
-                    if (isLast) {
-                        list.eachWithIndex { m,j ->
-                            cls(list, j)
-                        }
-                    } else {
-                        list.each { m ->
-                            here = walk(root, m, i + 1, cls)
-                        }
-                    }
-                    break
-                }
-                else if (here instanceof Map) {
-                    if (isLast) {
-                        Object value = here[pathComponent]
-                        if (value instanceof List) {
-                            List list = (List) value
-                            for (int j = 0; j< list.size(); j++) {
-                                cls(list, j)
-                            }
-                        }
-                        else {
-                            throw new WalkerException("Path ended unexpectedly on a non-list for the path ${originalPath} for object ${root}")
-                        }
-                    }
-                    else {
-                        here = here[pathComponent]
-                    }
-                }
-                else {
-                    throw new WalkerException("Path hit a non-collection at the path component \'${pathComponent}\' along the path ${originalPath} for object ${root}")
+        void walk(Object starting, Closure cls) {
+            try {
+                expression.eachListMember(starting) { List list, int index ->
+                    cls(list, index)
                 }
             }
-
-            here
+            catch (PathExpression.PathException e) {
+                throw new WalkerException("${e.message} for object ${starting}")
+            }
         }
     }
 }
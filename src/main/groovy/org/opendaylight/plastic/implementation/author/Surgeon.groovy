@@ -10,6 +10,11 @@
 
 package org.opendaylight.plastic.implementation.author
 
+import groovy.transform.CompileStatic
+import org.opendaylight.plastic.implementation.author.PathExpression.Kind
+import org.opendaylight.plastic.implementation.author.PathExpression.Step
+
+@CompileStatic
 class Surgeon {
 
     static class SurgeonException extends RuntimeException {
@@ -27,150 +32,173 @@ class Surgeon {
     // The key used for mapify in wrapping an existing scalar is hard-coded to '???'
 
     Map mapify(String... path) {
-        Object result = forceFit(root, [:], path)
+        mapify(PathExpression.ofKeys(path))
+    }
+
+    Map mapify(PathExpression path) {
+        Object result = forceFit(root, new LinkedHashMap(), path, 0)
         (Map) result
     }
 
     List listify(String... path) {
-        Object result = forceFit(root, [], path)
+        listify(PathExpression.ofKeys(path))
+    }
+
+    List listify(PathExpression path) {
+        Object result = forceFit(root, new ArrayList(), path, 0)
         (List) result
     }
 
-    private Object forceFit(Object starting, Object fallback, String... path) {
+    // Path steps are used in place from the given position onwards (rather than copying the rest
+    // of the path) when the same surgery is repeated for each member of a list along the way
+
+    private Object forceFit(Object starting, Object fallback, PathExpression path, int from) {
         if (starting == null)
-            throw new SurgeonException("Could not use path (${joined(path)} on a NULL root")
-        if (path.length == 0)
+            throw new SurgeonException("Could not use path (${path} on a NULL root")
+        if (from >= path.size())
             return starting
         if (!(starting instanceof Map) && !(starting instanceof List))
-            throw new SurgeonException("Using a path (${joined(path)}) is not supported for the following: ${starting}")
-        if (!(fallback instanceof Map) && !(fallback instanceof List))
-            throw new SurgeonException("Using a path (${joined(path)}) does not support wrapping using the following: ${fallback}")
+            throw new SurgeonException("Using a path (${path}) is not supported for the following: ${starting}")
 
+        Step[] steps = path.steps
         Object here = starting
 
-        for (int i = 0; i < path.length; i++) {
-            String component = path[i]
-            boolean isLast = (i == path.length-1)
+        for (int i = from; i < steps.length; i++) {
+            Step step = steps[i]
+            boolean isLast = (i == steps.length-1)
 
-            // path component [] is really a placeholder for a top level list, which has no key, otherwise it is just a noop
+            // a wildcard component is really a placeholder for a list, which has no key, so its
+            // members get the rest of the path
 
-            if (component == '[]') {
-                if (i != 0) {
-                    throw new SurgeonException("Encountered an unexpected implicit array path component '[]' along the path ${joined(path)} for object ${this.root}")
-                }
+            if (step.kind != Kind.KEY) {
                 if (!(here instanceof List)) {
-                    throw new SurgeonException("Encountered a object that is not a list via path component \'${component}\' along the path ${joined(path)} for object ${this.root}")
+                    throw new SurgeonException("Encountered a object that is not a list via path component \'${step}\' along the path ${path} for object ${this.root}")
+                }
+                if (step.kind == Kind.INDEX) {
+                    List list = (List) here
+                    if (step.index >= list.size())
+                        throw new SurgeonException("Encountered a missing path component \'${step}\' along the path ${path} for object ${this.root}")
+                    here = list.get(step.index)
                 }
+                continue
             }
-            else {
-                if (here instanceof Map) {
-                    if (here.containsKey(component)) {
-                        Object found = here[component]
-
-                        if (isLast) {
-                            if (fallback instanceof List) {
-                                if (found instanceof List) {
-                                    here = found // here[component]
-                                }
-                                else {
-                                    List wrapped = [found]
-                                    here[component] = wrapped
-                                    here = wrapped
-                                }
-                            } else if (fallback instanceof Map) {
-                                if (found instanceof Map) {
-                                    here = here[component]
-                                }
-                                else {
-                                    Map wrapped = ['???': found]
-                                    here[component] = wrapped
-                                    here = wrapped
-                                }
-                            }
-                        }
-                        else {
-                            here = here[component]
-                        }
-                    }
-                    else if (isLast) {
-                        here[component] = fallback
-                        here = fallback
+
+            if (here instanceof Map) {
+                Map map = (Map) here
+                if (map.containsKey(step.key)) {
+                    Object found = map.get(step.key)
+
+                    if (isLast) {
+                        here = fitted(map, step.key, found, fallback)
                     }
                     else {
-                        throw new SurgeonException("Could not apply the path component \'${component}\' along the path ${joined(path)} for object ${this.root}")
+                        here = found
                     }
                 }
-                else if (here instanceof List) {
-                    List list = (List) here
-                    list.each { m ->
-                        here = forceFit(m, fallback, path.getAt(i..path.length-1) as String[])
-                    }
-                    break
+                else if (isLast) {
+                    map.put(step.key, fallback)
+                    here = fallback
                 }
                 else {
-                    here = null
+                    throw new SurgeonException("Could not apply the path component \'${step}\' along the path ${path} for object ${this.root}")
                 }
-
-                if (here == null)
-                    throw new SurgeonException("Encountered a missing path component \'${component}\' along the path ${joined(path)} for object ${this.root}")
             }
+            else if (here instanceof List) {
+                List list = (List) here
+                for (int j = 0; j < list.size(); j++) {
+                    here = forceFit(list.get(j), fallback, path, i)
+                }
+                break
+            }
+            else {
+                here = null
+            }
+
+            if (here == null)
+                throw new SurgeonException("Encountered a missing path component \'${step}\' along the path ${path} for object ${this.root}")
         }
 
         here
     }
 
+    private static Object fitted(Map parent, String key, Object found, Object fallback) {
+        if (fallback instanceof List) {
+            if (found instanceof List)
+                return found
+            List wrapped = new ArrayList()
+            wrapped.add(found)
+            parent.put(key, wrapped)
+            return wrapped
+        }
+        else {
+            if (found instanceof Map)
+                return found
+            Map wrapped = new LinkedHashMap()
+            wrapped.put('???', found)
+            parent.put(key, wrapped)
+            return wrapped
+        }
+    }
+
     void placeValue(Object value, String... path) {
-        placeValueHere(root, value, path)
+        placeValue(value, PathExpression.ofKeys(path))
     }
 
-    private void placeValueHere(Object starting, Object value, String... path) {
+    void placeValue(Object value, PathExpression path) {
+        placeValueHere(root, value, path, 0)
+    }
+
+    private void placeValueHere(Object starting, Object value, PathExpression path, int from) {
         if (starting == null)
-            throw new SurgeonException("Could not use path (${joined(path)} on a NULL root")
-        if (path.length == 0)
+            throw new SurgeonException("Could not use path (${path} on a NULL root")
+        if (from >= path.size())
             return
         if (!(starting instanceof Map) && !(starting instanceof List))
-            throw new SurgeonException("Using a path (${joined(path)}) is not supported for the following: ${starting}")
+            throw new SurgeonException("Using a path (${path}) is not supported for the following: ${starting}")
 
+        Step[] steps = path.steps
         Object here = starting
 
-        for (int i = 0; i < path.length; i++) {
-            String component = path[i]
-            boolean isLast = (i == path.length-1)
+        for (int i = from; i < steps.length; i++) {
+            Step step = steps[i]
+            boolean isLast = (i == steps.length-1)
 
-            if (here instanceof Map) {
-                if (here.containsKey(component)) {
-                    if (isLast) {
-                        here[component] = value
-                    }
-                    else {
-                        here = here[component]
-                    }
+            if (here instanceof List) {
+                List list = (List) here
+                if (step.kind == Kind.KEY) {
+                    for (int j = 0; j < list.size(); j++)
+                        placeValueHere(list.get(j), value, path, i)
+                    return
                 }
-                else if (isLast) {
-                    here[component] = value
-                    here = here[component]
+                if (step.kind == Kind.WILDCARD) {
+                    for (int j = 0; j < list.size(); j++)
+                        placeValueHere(list.get(j), value, path, i+1)
+                    return
                 }
-                else {
-                    throw new SurgeonException("Could not apply the path component \'${component}\' along the path ${joined(path)} for object ${starting}")
+                if (step.index >= list.size())
+                    throw new SurgeonException("Encountered a missing path component \'${step}\' along the path ${path} for object ${starting}")
+                if (isLast) {
+                    list.set(step.index, value)
+                    return
                 }
+                here = list.get(step.index)
             }
-            else if (here instanceof List) {
-                List list = (List) here
-                list.each { m ->
-                    here = placeValueHere(m, value, path.getAt(i..path.length-1) as String[])
+            else if (here instanceof Map && step.kind == Kind.KEY) {
+                Map map = (Map) here
+                if (isLast) {
+                    map.put(step.key, value)
+                    return
                 }
-                break
+                if (!map.containsKey(step.key))
+                    throw new SurgeonException("Could not apply the path component \'${step}\' along the path ${path} for object ${starting}")
+                here = map.get(step.key)
             }
             else {
                 here = null
             }
 
             if (here == null)
-                throw new SurgeonException("Encountered a missing path component \'${component}\' along the path ${joined(path)} for object ${starting}")
+                throw new SurgeonException("Encountered a missing path component \'${step}\' along the path ${path} for object ${starting}")
         }
     }
-
-    private static String joined(String... path) {
-        "${path.join('.')}"
-    }
 }
@@ -10,10 +10,15 @@
 
 package org.opendaylight.plastic.implementation.author
 
+import groovy.transform.CompileStatic
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.LongAdder
 
 /*
  * A tally is a set of named counters. The counter names are arbitrary. There is a built-in
@@ -30,10 +35,15 @@ import java.util.concurrent.ConcurrentHashMap
  * names/counts/completions can be aggregated upwards to any point, but this usually
  * is to the topmost level.
  *
- * The heirarchy is expected to be built initially and remain static, hence there is
- * no multithreading safety for this. The actually accounting is multithreaded.
+ * The heirarchy is expected to be built initially and remain static. The accounting is
+ * safe to do from many threads at once (like from morphers running child plans in parallel)
+ * and takes no locks: the counters are striped (LongAdder), so threads counting the same
+ * name do not contend. Only a tally with a log watcher (see writeToLogEvery()) numbers its
+ * completions, which costs one atomic increment per completion.
  *
- * The tally result can be consumed as a map or as a summary string.
+ * The tally result can be consumed as a map, as a snapshot, or as a summary string. These
+ * are not atomic across counters, so a tally that is still being counted can show a count
+ * that is a little ahead of another.
  *
  * Example usage
  *
@@ -50,6 +60,7 @@ import java.util.concurrent.ConcurrentHashMap
  *    ...
  *    myTally.writeToLogEvery(5)
  */
+@CompileStatic
 class Tally {
 
     static Logger logger = LoggerFactory.getLogger(Tally)
@@ -64,15 +75,34 @@ class Tally {
         }
     }
 
-    static class Counter {
-        int value = 0;
-        Counter(int starting) {
-            this.value = starting
+    // Point in time copy of a tally's counts
+    //
+    static class Snapshot {
+        final String name
+        final long completions
+        final Map<String,Long> counts
+
+        Snapshot(String name, long completions, Map<String,Long> counts) {
+            this.name = name
+            this.completions = completions
+            this.counts = Collections.unmodifiableMap(counts)
+        }
+
+        long count(String why) {
+            Long found = counts.get(why)
+            found == null ? 0L : found.longValue()
         }
     }
 
+    // Watchers are told the number of each completion exactly once, possibly from many
+    // threads at once and not necessarily in order
+    //
     static class Watcher {
         void completed(int completions) {}
+
+        boolean isActive() {
+            false
+        }
     }
 
     // Periodically report to log every "modulus" completions
@@ -96,6 +126,10 @@ class Tally {
             if (modulus > 0 && completions % modulus == 0)
                 target.writeToLog()
         }
+
+        boolean isActive() {
+            modulus > 0
+        }
     }
 
     // Periodically report to log every C**2 completions, capped to a limit (modulus after that)
@@ -107,8 +141,8 @@ class Tally {
         final Tally target
         final int limit
 
-        int current
-        PeriodicLogger periodic
+        final AtomicInteger current = new AtomicInteger(1)
+        volatile PeriodicLogger periodic
 
         LogarithmicLogger(Tally target, int limit) {
             if (limit < 0)
@@ -116,37 +150,48 @@ class Tally {
 
             this.target = target
             this.limit = limit
-            this.current = 1
         }
 
+        // Of the threads that see a threshold passed, only the one that moves it logs. The step
+        // that reaches the limit parks the threshold at zero instead, so no other thread can log
+        // while that one hands over to the periodic logger.
+        //
         void completed(int completions) {
             if (limit > 0) {
                 if (periodic)
                     periodic.completed(completions)
                 else {
-                    if (completions >= current) {
-                        current = (2 * current > limit) ? limit : 2 * current
-                        target.writeToLog()
-                        if (current == limit)
-                            this.periodic = newPeriodic(current)
+                    int threshold = current.get()
+                    if (threshold > 0 && completions >= threshold) {
+                        int next = (2 * threshold > limit) ? limit : 2 * threshold
+                        if (current.compareAndSet(threshold, next == limit ? 0 : next)) {
+                            target.writeToLog()
+                            if (next == limit)
+                                this.periodic = newPeriodic(next)
+                        }
                     }
                 }
             }
         }
 
+        boolean isActive() {
+            limit > 0
+        }
+
         PeriodicLogger newPeriodic(int modulus) {
             new PeriodicLogger(target, modulus)
         }
     }
 
     private String name = "Anonymous"
-    private int completions = 0
-    private Map<String,Counter> tallies = new ConcurrentHashMap<>()
+    private final LongAdder completions = new LongAdder()
+    private final Map<String,LongAdder> tallies = new ConcurrentHashMap<>()
 
-    private Tally parent = null
-    private List<Lineage> children = new ArrayList<>()
+    private volatile Tally parent = null
+    private final List<Lineage> children = new CopyOnWriteArrayList<>()
 
-    private Watcher watcher = new Watcher()
+    private volatile Watcher watcher = new Watcher()
+    private final AtomicLong numbered = new AtomicLong()
 
     Tally(String name) {
         this.name = name
@@ -164,10 +209,18 @@ class Tally {
         this.name
     }
 
+    Snapshot snapshot() {
+        Map<String,Long> counts = new TreeMap<>()
+        for (Map.Entry<String,LongAdder> entry : tallies.entrySet())
+            counts.put(entry.key, entry.value.sum())
+        new Snapshot(name, completions.sum(), counts)
+    }
+
     Map<String,Integer> asMap() {
+        Snapshot snap = snapshot()
         Map<String,Integer> result = [:]
-        tallies.each { k,v -> result.put(k, v.value)}
-        result.put('completions', completions)
+        snap.counts.each { String k, Long v -> result.put(k, v.intValue()) }
+        result.put('completions', (int) snap.completions)
         result
     }
 
@@ -175,20 +228,17 @@ class Tally {
         if (name.equals(target))
             return this
 
-        Tally found = null
-
-        children.find { lineage ->
+        for (Lineage lineage : children) {
             Tally candidate = lineage.child.findTally(target)
             if (candidate)
-                found = candidate
-            found
+                return candidate
         }
 
-        found
+        null
     }
 
     void adopt(Tally... childs) {
-        childs.each { child ->
+        childs.each { Tally child ->
             child.parent = this
             children.add(new Lineage(this, child))
         }
@@ -201,7 +251,7 @@ class Tally {
         parentMost
     }
 
-    synchronized Tally sumUpwards() {
+    Tally sumUpwards() {
         Tally parentMost = parentmost()
         Tally result = new Tally(parentMost.name)
         parentMost.sumDownwards(result)
@@ -209,49 +259,51 @@ class Tally {
     }
 
     private void sumDownwards(Tally into) {
-        into.completions += completions
-        tallies.each { key,counter ->
-            into.ensureCounter(key)
-            into.tallies[key] = Integer.valueOf(counter.value)
-        }
-        children.each { lineage ->
-             lineage.child.sumDownwards(into)
-        }
+        into.completions.add(completions.sum())
+        for (Map.Entry<String,LongAdder> entry : tallies.entrySet())
+            into.counterFor(entry.key).add(entry.value.sum())
+        for (Lineage lineage : children)
+            lineage.child.sumDownwards(into)
     }
 
-    private void ensureCounter(String key) {
-        if (!tallies.containsKey(key))
-            tallies[key] = new Counter(0)
+    private LongAdder counterFor(String key) {
+        LongAdder counter = tallies.get(key)
+        if (counter == null) {
+            counter = new LongAdder()
+            LongAdder existing = tallies.putIfAbsent(key, counter)
+            if (existing != null)
+                counter = existing
+        }
+        counter
     }
 
-    synchronized Tally account(String... whys) {
-        whys.each { why ->
-            if (tallies.containsKey(why))
-                tallies[why].value++
-            else
-                tallies[why] = new Counter(1)
-        }
+    Tally account(String... whys) {
+        for (String why : whys)
+            counterFor(why).increment()
         this
     }
 
-    synchronized Tally completed() {
-        completions++
-        watcher.completed(completions)
+    Tally completed() {
+        completions.increment()
+        Watcher current = watcher
+        if (current.isActive())
+            current.completed((int) numbered.incrementAndGet())
         this
     }
 
-    synchronized String toString() {
+    String toString() {
+        Snapshot snap = snapshot()
         StringBuilder buffer = new StringBuilder()
 
         buffer.append("[")
         buffer.append("Completions:")
-        buffer.append(completions)
+        buffer.append(snap.completions)
 
-        tallies.sort().each { k,v ->
+        snap.counts.each { String k, Long v ->
             buffer.append(", ")
             buffer.append(k)
             buffer.append(":")
-            buffer.append(v.value)
+            buffer.append(v)
         }
 
         buffer.append("]")
@@ -264,12 +316,19 @@ class Tally {
     }
 
     Tally writeToLogEvery(int howManyCompletions) {
-        watcher = new PeriodicLogger(this, howManyCompletions)
-        this
+        watch(new PeriodicLogger(this, howManyCompletions))
     }
 
     Tally writeToLogLogarithmicly(int cap) {
-        watcher = new PeriodicLogger(this, cap)
+        watch(new LogarithmicLogger(this, cap))
+    }
+
+    // Completions are numbered from the count so far, so a watcher that replaces another
+    // carries on where it left off
+    //
+    private Tally watch(Watcher replacement) {
+        numbered.set(completions.sum())
+        watcher = replacement
         this
     }
 }
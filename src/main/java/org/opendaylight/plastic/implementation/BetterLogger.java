@@ -13,6 +13,8 @@ package org.opendaylight.plastic.implementation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 
 public class BetterLogger {
 
@@ -46,6 +48,14 @@ public class BetterLogger {
         log.info("Received translate (with defaults) request: input("+input+") output("+output+")");
     }
 
+    public void startedTranslateToMany(VersionedSchema input, List<VersionedSchema> outputs, String payload, String defaults) {
+        log.info("Received translate (to many) request: input("+input+") outputs("+outputs+")");
+    }
+
+    public void startedTranslateToStream(VersionedSchema input, VersionedSchema output, String payload, String defaults) {
+        log.info("Received translate (to stream) request: input("+input+") output("+output+")");
+    }
+
     public void endedTranslate() {
         log.info("Finished mapping");
     }
@@ -10,6 +10,11 @@
 
 package org.opendaylight.plastic.implementation;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
 public interface Cartography {
 
     /**
@@ -41,6 +46,42 @@ public interface Cartography {
      */
     String translateWithDefaults(VersionedSchema input, VersionedSchema output, String payload, String defaults);
 
+    /**
+     * Translate the one payload into each of the given output schemas. Implementations
+     * can share the parsing of the payload and defaults and the binding of the input
+     * variables across the outputs, rather than repeating them for each output.
+     *
+     * @param input (see above)
+     * @param outputs the output schemas to translate into
+     * @param payload (see above)
+     * @param defaults (see above)
+     * @return one result per output schema, in the same order as the outputs
+     */
+    default List<String> translateToMany(VersionedSchema input, List<VersionedSchema> outputs, String payload, String defaults) {
+        List<String> results = new ArrayList<>(outputs.size());
+        for (VersionedSchema output : outputs) {
+            results.add(translateWithDefaults(input, output, payload, defaults));
+        }
+        return results;
+    }
+
+    /**
+     * Similar to translateWithDefaults above but writes the result to the given sink.
+     * Implementations can write the result of a parent plan piece by piece as its children
+     * finish, rather than holding all of the children and the whole result in memory. If
+     * the translation fails, part of the result may already have been written.
+     *
+     * @param input (see above)
+     * @param output (see above)
+     * @param payload (see above)
+     * @param defaults (see above)
+     * @param sink where the result is written to (it is not closed)
+     * @throws IOException if the sink could not be written to
+     */
+    default void translateToStream(VersionedSchema input, VersionedSchema output, String payload, String defaults, Writer sink) throws IOException {
+        sink.write(translateWithDefaults(input, output, payload, defaults));
+    }
+
     /**
      * Close any internal queues in preparation for quitting.
      */
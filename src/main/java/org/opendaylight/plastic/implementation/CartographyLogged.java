@@ -10,6 +10,10 @@
 
 package org.opendaylight.plastic.implementation;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
 public class CartographyLogged implements Cartography {
 
     BetterLogger log;
@@ -48,6 +52,28 @@ public class CartographyLogged implements Cartography {
         }
     }
 
+    @Override
+    public List<String> translateToMany(VersionedSchema input, List<VersionedSchema> outputs, String payload, String defaults) {
+        try {
+            log.startedTranslateToMany(input, outputs, payload, defaults);
+            return inner.translateToMany(input, outputs, payload, defaults);
+        }
+        finally {
+            log.endedTranslate();
+        }
+    }
+
+    @Override
+    public void translateToStream(VersionedSchema input, VersionedSchema output, String payload, String defaults, Writer sink) throws IOException {
+        try {
+            log.startedTranslateToStream(input, output, payload, defaults);
+            inner.translateToStream(input, output, payload, defaults, sink);
+        }
+        finally {
+            log.endedTranslate();
+        }
+    }
+
     @Override
     public void close() {
         inner.close();
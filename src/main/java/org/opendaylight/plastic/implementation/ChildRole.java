@@ -17,10 +17,18 @@ public class ChildRole implements TranslationPlanLite.Role {
 
     private final Schema payload;
     private final String name;
+    private final ChildSlot slot;
 
     public ChildRole(String name, Schema subPayload) {
+        this(name, subPayload, null);
+    }
+
+    // The slot (if any) is where the child's result goes back into the parent payload
+    //
+    public ChildRole(String name, Schema subPayload, ChildSlot slot) {
         this.name = checkNotNull(name);
         this.payload = checkNotNull(subPayload);
+        this.slot = slot;
     }
 
     public String getName() {
@@ -30,4 +38,8 @@ public class ChildRole implements TranslationPlanLite.Role {
     public Schema payload() {
         return payload;
     }
+
+    public ChildSlot slot() {
+        return slot;
+    }
 }
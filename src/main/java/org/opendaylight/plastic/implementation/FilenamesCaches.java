@@ -10,22 +10,75 @@
 
 package org.opendaylight.plastic.implementation;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class FilenamesCaches implements Pollee {
 
     Map<String,FilenamesCache> caches = new HashMap<>();
 
+    // The caches that this scans, which are not the shared ones under an overlay
+    private final List<FilenamesCache> owned = new ArrayList<>();
+
+    LiveArtifactBundle bundle;
+
     public FilenamesCaches(SearchPath path, String... dirs) {
+        this(path, null, dirs);
+    }
+
+    // Directories that the bundle has are served from it, the rest (like lib) are still loose
+    //
+    public FilenamesCaches(SearchPath path, LiveArtifactBundle bundle, String... dirs) {
+        this.bundle = bundle;
         for(String dir : dirs) {
-            caches.put(dir, new FilenamesCache(path.find(dir)));
+            if (bundle != null && bundle.get().areaNames().contains(dir))
+                caches.put(dir, new BundledFilenamesCache(bundle, dir));
+            else
+                caches.put(dir, new FilenamesCache(path.find(dir)));
+        }
+        owned.addAll(caches.values());
+    }
+
+    // A worker's own search path layered over shared caches (see PlasticRuntime). Areas that the
+    // overlay doesn't have are just the shared caches, which are left to their owner to scan.
+    //
+    public FilenamesCaches(FilenamesCaches shared, SearchPath overlay) {
+        this.bundle = null;
+        for (Map.Entry<String,FilenamesCache> entry : shared.caches.entrySet()) {
+            String found = findInOverlay(overlay, entry.getKey());
+            if (found == null) {
+                caches.put(entry.getKey(), entry.getValue());
+            }
+            else {
+                FilenamesCache layered = new OverlayFilenamesCache(found, entry.getValue());
+                caches.put(entry.getKey(), layered);
+                owned.add(layered);
+            }
+        }
+    }
+
+    // Unlike SearchPath.find(), the current directory is not a fallback
+    //
+    private static String findInOverlay(SearchPath overlay, String dir) {
+        for (String candidate : overlay.getCandidateDirs()) {
+            if (".".equals(candidate))
+                continue;
+            File found = new File(candidate, dir);
+            if (found.isDirectory())
+                return found.getAbsolutePath();
         }
+        return null;
     }
 
     @Override
     public void phase(int i) {
-        for(FilenamesCache cache : caches.values()) {
+        if (bundle != null)
+            bundle.refresh();
+        for(FilenamesCache cache : owned) {
             cache.scan();
         }
     }
@@ -37,4 +90,8 @@ public class FilenamesCaches implements Pollee {
     public String getRootFor(String dir) {
         return get(dir) == null ? "" : get(dir).root();
     }
+
+    public List<String> getRootsFor(String dir) {
+        return get(dir) == null ? Collections.<String>emptyList() : get(dir).roots();
+    }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation;
+
+import java.util.Map;
+
+/**
+ * JMX view of the translation metrics. Latencies are reported in microseconds and keyed
+ * as "item.statistic", like "parse.p99" or "[in/1.0/json] -> [out/1.0/json].count"
+ */
+public interface TranslationMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    Map<String,Long> getCounters();
+
+    Map<String,Long> getPhases();
+
+    Map<String,Long> getSchemaPairs();
+
+    Map<String,Long> getMorpherHooks();
+
+    Map<String,Long> getChildFanOut();
+
+    void reset();
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+
+
+class AdmissionControlSpec extends Specification {
+
+    VersionedSchema inSchema = new VersionedSchema("in-schema", "1.0", "json")
+    VersionedSchema outSchema = new VersionedSchema("out-schema", "1.0", "json")
+    VersionedSchema otherSchema = new VersionedSchema("other-schema", "1.0", "json")
+
+    TranslationMetrics metrics = new TranslationMetrics(true)
+
+    AdmissionControl limited(int maxWeight, long timeoutMillis, int maxQueued = 10, int pairLimit = 0) {
+        new AdmissionControl(true, maxWeight, 100, timeoutMillis, maxQueued, pairLimit, metrics)
+    }
+
+    def "admission control is disabled by default and then admits everything"() {
+        given:
+        AdmissionControl instance = new AdmissionControl(new AppContext(), metrics)
+        expect:
+        !instance.enabled
+        (1..1000).collect { instance.admit(inSchema, outSchema, 1000000000) }.size() == 1000
+    }
+
+    def "translations are weighed by payload size but never above the whole budget"() {
+        given:
+        AdmissionControl instance = limited(8, 0)
+        expect:
+        instance.weigh(0) == 1
+        instance.weigh(99) == 1
+        instance.weigh(100) == 2
+        instance.weigh(550) == 6
+        instance.weigh(Integer.MAX_VALUE) == 8
+    }
+
+    def "translations are rejected right away when the budget is used up and there is no timeout"() {
+        given:
+        AdmissionControl instance = limited(4, 0)
+        AdmissionControl.Ticket big = instance.admit(inSchema, outSchema, 350)
+        when:
+        instance.admit(inSchema, outSchema, 0)
+        then:
+        AdmissionControl.AdmissionRejected e = thrown()
+        e.message.startsWith("PLASTIC-ADMISSION-REJECTED")
+        metrics.counters.rejections == 1
+        when:
+        big.close()
+        then:
+        instance.admit(inSchema, outSchema, 0) != null
+    }
+
+    def "a waiting translation gets in when weight is released in time"() {
+        given:
+        AdmissionControl instance = limited(1, 5000)
+        AdmissionControl.Ticket first = instance.admit(inSchema, outSchema, 0)
+        CountDownLatch waiting = new CountDownLatch(1)
+        when:
+        Thread.start {
+            while (instance.queueDepth() == 0)
+                sleep(1)
+            waiting.countDown()
+            first.close()
+        }
+        AdmissionControl.Ticket second = instance.admit(inSchema, outSchema, 0)
+        then:
+        waiting.count == 0
+        second.weight == 1
+        instance.queueDepth() == 0
+        metrics.phases['admit.count'] == 1
+    }
+
+    def "a waiting translation is rejected after its timeout"() {
+        given:
+        AdmissionControl instance = limited(1, 50)
+        instance.admit(inSchema, outSchema, 0)
+        when:
+        instance.admit(inSchema, outSchema, 0)
+        then:
+        thrown(AdmissionControl.AdmissionRejected)
+        instance.queueDepth() == 0
+    }
+
+    def "the number of waiting translations is bounded"() {
+        given:
+        AdmissionControl instance = limited(1, 5000, 1)
+        AdmissionControl.Ticket first = instance.admit(inSchema, outSchema, 0)
+        Thread waiter = Thread.start { instance.admit(inSchema, outSchema, 0).close() }
+        while (instance.queueDepth() == 0)
+            sleep(1)
+        when:
+        instance.admit(inSchema, outSchema, 0)
+        then:
+        AdmissionControl.AdmissionRejected e = thrown()
+        e.reason.contains("waiting")
+        metrics.counters.queued == 1
+        cleanup:
+        first.close()
+        waiter.join()
+    }
+
+    def "a busy schema pair cannot take the whole budget"() {
+        given:
+        AdmissionControl instance = limited(10, 0, 10, 2)
+        2.times { instance.admit(inSchema, outSchema, 0) }
+        when:
+        instance.admit(inSchema, outSchema, 0)
+        then:
+        thrown(AdmissionControl.AdmissionRejected)
+        instance.admit(otherSchema, outSchema, 0) != null
+        instance.availableWeight() == 7
+    }
+
+    def "a rejected translation does not hold on to its schema pair"() {
+        given:
+        AdmissionControl instance = limited(1, 0, 10, 1)
+        AdmissionControl.Ticket hog = instance.admit(otherSchema, outSchema, 0)
+        when:
+        instance.admit(inSchema, outSchema, 0)
+        then:
+        thrown(AdmissionControl.AdmissionRejected)
+        when:
+        hog.close()
+        then:
+        instance.admit(inSchema, outSchema, 0) != null
+    }
+
+    def "a translation to several outputs holds each distinct schema pair"() {
+        given:
+        AdmissionControl instance = limited(10, 0, 10, 1)
+        AdmissionControl.Ticket many = instance.admitMany(inSchema, [ outSchema, otherSchema, outSchema ], 0)
+        when:
+        instance.admit(inSchema, otherSchema, 0)
+        then:
+        thrown(AdmissionControl.AdmissionRejected)
+        instance.availableWeight() == 9
+        when:
+        many.close()
+        then:
+        instance.admit(inSchema, otherSchema, 0) != null
+        instance.admit(inSchema, outSchema, 0) != null
+    }
+
+    def "a worker rejects translations it cannot admit"() {
+        given:
+        AppContext context = new AppContext()
+        context.props.put(AdmissionControl.ENABLED_PROPERTY, "true")
+        context.props.put(AdmissionControl.MAX_WEIGHT_PROPERTY, "1")
+        context.props.put(AdmissionControl.TIMEOUT_MILLIS_PROPERTY, "0")
+        CartographerWorker worker = new CartographerWorker(context, ShortCircuit.useStandardCaches(), new Poller(0), null, null)
+        AdmissionControl.Ticket hog = worker.admission.admit(inSchema, outSchema, 0)
+        when:
+        worker.translate(inSchema, outSchema, '{}')
+        then:
+        thrown(AdmissionControl.AdmissionRejected)
+        cleanup:
+        hog.close()
+        worker.close()
+    }
+}
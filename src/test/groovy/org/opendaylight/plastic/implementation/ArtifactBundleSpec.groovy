@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+
+class ArtifactBundleSpec extends Specification {
+
+    static File writeBundle(File file, Map<String,String> entries) {
+        file.withOutputStream { OutputStream out ->
+            ZipOutputStream zip = new ZipOutputStream(out)
+            entries.each { String name, String content ->
+                zip.putNextEntry(new ZipEntry(name))
+                zip.write(content.getBytes("UTF-8"))
+                zip.closeEntry()
+            }
+            zip.finish()
+        }
+        file
+    }
+
+    File bundleFile = File.createTempFile("plastic-bundle", ".zip")
+
+    def setup() {
+        bundleFile.deleteOnExit()
+    }
+
+    def "entries are indexed by area and base name"() {
+        given:
+        writeBundle(bundleFile, [
+                "schemas/foo-1.0.json": "{}",
+                "schemas/deeper/bar-1.0.json": "[]",
+                "morphers/foo-1.0.groovy": "class Foo {}",
+                "README.txt": "not in any area"
+        ])
+        when:
+        ArtifactBundle instance = new ArtifactBundle(bundleFile)
+        then:
+        instance.areaNames() == ["schemas", "morphers"] as Set
+        instance.files("schemas").keySet() == ["foo-1.0.json", "bar-1.0.json"] as Set
+        instance.files("schemas")["bar-1.0.json"] == bundleFile.absolutePath + "!/schemas/deeper/bar-1.0.json"
+        instance.files("classifiers").isEmpty()
+        cleanup:
+        instance.close()
+    }
+
+    def "entries can be read by their paths"() {
+        given:
+        writeBundle(bundleFile, [ "schemas/foo-1.0.json": "{ \"a\": 1 }" ])
+        ArtifactBundle instance = new ArtifactBundle(bundleFile)
+        and:
+        String path = instance.files("schemas")["foo-1.0.json"]
+        expect:
+        ArtifactBundle.isBundled(path)
+        instance.contains(path)
+        new String(instance.read(path), "UTF-8") == "{ \"a\": 1 }"
+        cleanup:
+        instance.close()
+    }
+
+    def "reading an unknown entry is an error"() {
+        given:
+        writeBundle(bundleFile, [ "schemas/foo-1.0.json": "{}" ])
+        ArtifactBundle instance = new ArtifactBundle(bundleFile)
+        when:
+        instance.read(bundleFile.absolutePath + "!/schemas/nope-1.0.json")
+        then:
+        thrown(ArtifactBundle.MissingEntryException)
+        cleanup:
+        instance.close()
+    }
+
+    def "a file that is not a zip is a bad bundle"() {
+        given:
+        bundleFile.text = "certainly not a zip"
+        when:
+        new ArtifactBundle(bundleFile)
+        then:
+        thrown(ArtifactBundle.BadBundleException)
+    }
+
+    def "a changed bundle file is stale"() {
+        given:
+        writeBundle(bundleFile, [ "schemas/foo-1.0.json": "{}" ])
+        ArtifactBundle instance = new ArtifactBundle(bundleFile)
+        expect:
+        !instance.isStale()
+        when:
+        writeBundle(bundleFile, [ "schemas/foo-1.0.json": "{}", "schemas/bar-1.0.json": "{}" ])
+        then:
+        instance.isStale()
+        cleanup:
+        instance.close()
+    }
+
+    def "plain file paths are not bundled"() {
+        expect:
+        !ArtifactBundle.isBundled("/some/where/schemas/foo-1.0.json")
+        !ArtifactBundle.isBundled(null)
+    }
+}
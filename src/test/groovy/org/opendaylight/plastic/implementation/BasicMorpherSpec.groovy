@@ -15,6 +15,11 @@ import spock.lang.Specification
 
 class BasicMorpherSpec extends Specification {
 
+    static class TweakingMorpher extends BasicMorpher {
+        void tweakValues(Map ins, Map outs) {
+        }
+    }
+
     BasicMorpher instance = new BasicMorpher()
 
     def "basic morpher does not ignore variables by default"() {
@@ -107,4 +112,16 @@ class BasicMorpherSpec extends Specification {
         instance.urlEncode("abc") == "abc"
         instance.urlEncode("a b c") == "a+b+c"
     }
+
+    def "basic morpher results are cacheable unless it says otherwise"() {
+        given:
+        TweakingMorpher tweaker = new TweakingMorpher()
+        Morpher wrapper = new Morpher(new VersionedSchema("abc", "1.0", "json"), tweaker, "fake-file-name")
+        expect:
+        wrapper.isCacheable()
+        when:
+        tweaker.notCacheable()
+        then:
+        !wrapper.isCacheable()
+    }
 }
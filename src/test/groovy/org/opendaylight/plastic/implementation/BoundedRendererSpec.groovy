@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+
+
+class BoundedRendererSpec extends Specification {
+
+    def asJson(String s) {
+        new JsonSlurper().parseText(s)
+    }
+
+    def "small trees are rendered completely"() {
+        given:
+        Object tree = asJson('{ "a": [ 1, "two", null, true ], "b": { "c": "say \\"hi\\"" } }')
+        expect:
+        BoundedRenderer.render(tree, 1000) == '{"a": [1, "two", null, true], "b": {"c": "say \\"hi\\""}}'
+        BoundedRenderer.snippet(tree, 1000) == BoundedRenderer.render(tree, 1000)
+    }
+
+    def "rendering stops at the limit"() {
+        given:
+        Object tree = asJson('{ "a": [ 1, 2, 3 ], "b": "abcdefghijklmnopqrstuvwxyz" }')
+        expect:
+        BoundedRenderer.render(tree, 10) == '{"a": [1, '
+        BoundedRenderer.snippet(tree, 10) == '{"a": [1, ...'
+        BoundedRenderer.render(tree, 0) == ''
+    }
+
+    def "a huge tree costs only as much as the snippet"() {
+        given:
+        List tree = []
+        for (int i = 0; i < 100000; i++)
+            tree.add([ id: i, name: "name-${i}".toString() ])
+        when:
+        String found = BoundedRenderer.render(tree, 64)
+        then:
+        found.length() == 64
+        found.startsWith('[{"id": 0, "name": "name-0"}, ')
+    }
+
+    def "xml nodes are rendered as elements"() {
+        given:
+        Node root = new XmlParser().parseText('<a x="1"><b>one &amp; two</b><c/></a>')
+        expect:
+        BoundedRenderer.render(root, 1000) == '<a x="1"><b>one &amp; two</b><c/></a>'
+        BoundedRenderer.render(root, 8) == '<a x="1"'
+    }
+
+    def "long strings are truncated with their original length"() {
+        expect:
+        BoundedRenderer.truncate("abcdef", 10) == "abcdef"
+        BoundedRenderer.truncate("abcdef", 3) == "abc... (6 chars)"
+        BoundedRenderer.truncate(null, 3) == null
+    }
+
+    def "exception messages are capped and only built when asked for"() {
+        given:
+        List candidate = (1..100000).collect { "value-${it}".toString() }
+        when:
+        WildCardMatcher.NoMatchFound e = new WildCardMatcher.NoMatchFound("a*b", candidate)
+        then:
+        e.candidate.is(candidate)
+        e.message.startsWith("PLASTIC-NO-MATCH: could not use a*b to match against [\"value-1\", ")
+        e.message.length() < BoundedRenderer.defaultMaxChars() + 100
+        e.message.endsWith(BoundedRenderer.ELLIPSIS)
+    }
+
+    def "the trailer of a payload missing its trailer is shown"() {
+        when:
+        Aggregator.MissingTrailer e = new Aggregator.MissingTrailer("END", "payload ... xyz")
+        then:
+        e.message == "PLASTIC-AGG-MISS-TRAIL: The following payload is missing the format trailer - expected: END found: xyz"
+    }
+}
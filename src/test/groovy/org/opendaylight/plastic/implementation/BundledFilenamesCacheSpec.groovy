@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+
+import static org.opendaylight.plastic.implementation.ArtifactBundleSpec.writeBundle
+
+
+class BundledFilenamesCacheSpec extends Specification {
+
+    final String mClass = "MorpherForBundleTesting"
+    final String mCode = "class ${mClass} { void tweakValues(Map i, Map o) {} }"
+
+    File bundleFile = File.createTempFile("plastic-bundle", ".zip")
+
+    def setup() {
+        bundleFile.deleteOnExit()
+        writeBundle(bundleFile, [
+                "schemas/bundled-1.0.json": '{ "abc": "${abc}" }',
+                "schemas/more/bundled-2.0.json": '{ "def": "${def}" }',
+                "morphers/bundled-1.0.groovy": mCode
+        ])
+    }
+
+    def "scanning finds the files of one area"() {
+        given:
+        BundledFilenamesCache instance = new BundledFilenamesCache(new LiveArtifactBundle(bundleFile), "schemas")
+        when:
+        instance.scan()
+        then:
+        instance.fileCount() == 2
+        instance.dirCount() == 0
+        instance.getFile("bundled-2.0.json").endsWith("!/schemas/more/bundled-2.0.json")
+        instance.getFile("bundled-1.0.groovy") == null
+        instance.filePaths().size() == 2
+        instance.root() == bundleFile.absolutePath
+    }
+
+    def "bundled files can be checked and read"() {
+        given:
+        BundledFilenamesCache instance = new BundledFilenamesCache(new LiveArtifactBundle(bundleFile), "schemas")
+        instance.scan()
+        and:
+        String path = instance.getFile("bundled-1.0.json")
+        expect:
+        instance.exists(path)
+        !instance.exists(bundleFile.absolutePath + "!/schemas/missing-1.0.json")
+        new String(instance.read(path), "UTF-8") == '{ "abc": "${abc}" }'
+        instance.absolutePath(path) == path
+    }
+
+    def "paths outside the bundle are still loose files"() {
+        given:
+        BundledFilenamesCache instance = new BundledFilenamesCache(new LiveArtifactBundle(bundleFile), "schemas")
+        File loose = File.createTempFile("plastic-loose", ".json")
+        loose.deleteOnExit()
+        loose.text = "[]"
+        expect:
+        instance.exists(loose.absolutePath)
+        new String(instance.read(loose.absolutePath)) == "[]"
+        !instance.exists("no-such-file-1.0.json")
+    }
+
+    def "schemas are loaded from the bundle"() {
+        given:
+        BundledFilenamesCache cache = new BundledFilenamesCache(new LiveArtifactBundle(bundleFile), "schemas")
+        cache.scan()
+        SchemaLoader loader = new SchemaLoader(cache)
+        when:
+        InputStream strm = loader.locate(new VersionedSchema("bundled", "2.0", "json"))
+        then:
+        strm.text == '{ "def": "${def}" }'
+    }
+
+    def "morphers are compiled from the bundle"() {
+        given:
+        BundledFilenamesCache cache = new BundledFilenamesCache(new LiveArtifactBundle(bundleFile), "morphers")
+        cache.scan()
+        MorpherLoader loader = new MorpherLoader(new AppContext(), cache, new GroovyClassLoader(this.class.classLoader))
+        when:
+        Morpher morpher = loader.locateImplicitly(new VersionedSchema("bundled", "1.0", "json"))
+        then:
+        morpher.wrapped.class.name == mClass
+    }
+
+    def "morphers are recompiled once a changed bundle is swapped in"() {
+        given:
+        LiveArtifactBundle bundle = new LiveArtifactBundle(bundleFile)
+        BundledFilenamesCache cache = new BundledFilenamesCache(bundle, "morphers")
+        cache.scan()
+        GroovyClassParser parser = new GroovyClassParser(new GroovyClassLoader(this.class.classLoader))
+        and:
+        Class first = cache.parseClass(parser, cache.getFile("bundled-1.0.groovy"))
+        and:
+        writeBundle(bundleFile, [ "morphers/bundled-1.0.groovy": "class ${mClass} { int version = 2 }" ])
+        bundle.refresh()
+        cache.scan()
+        when:
+        parser.resync()
+        Class second = cache.parseClass(parser, cache.getFile("bundled-1.0.groovy"))
+        then:
+        !second.is(first)
+        second.newInstance().version == 2
+    }
+
+    def "caches only use the bundle for the areas it has"() {
+        given:
+        LiveArtifactBundle bundle = new LiveArtifactBundle(bundleFile)
+        when:
+        FilenamesCaches caches = new FilenamesCaches(new SearchPath(), bundle, "lib", "morphers", "schemas")
+        caches.phase(0)
+        then:
+        caches.get("schemas") instanceof BundledFilenamesCache
+        caches.get("morphers") instanceof BundledFilenamesCache
+        !(caches.get("lib") instanceof BundledFilenamesCache)
+        caches.get("schemas").fileCount() == 2
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import com.google.common.io.Files
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicInteger
+
+
+class CachingSchemaSourceSpec extends Specification {
+
+    static class CountingLoader extends SchemaLoader {
+
+        AtomicInteger loads = new AtomicInteger()
+
+        CountingLoader(FilenamesCache cache) {
+            super(cache)
+        }
+
+        @Override
+        InputStream locate(VersionedSchema target) {
+            loads.incrementAndGet()
+            Thread.sleep(20)
+            super.locate(target)
+        }
+    }
+
+    File root = Files.createTempDir()
+    FilenamesCache files = new FilenamesCache(root)
+    CountingLoader loader = new CountingLoader(files)
+    CachingSchemaSource instance = new CachingSchemaSource(new AppContext(), loader)
+
+    VersionedSchema a = new VersionedSchema("a", "1.0", "json")
+    VersionedSchema b = new VersionedSchema("b", "1.0", "json")
+
+    File write(String name, String content) {
+        File f = new File(root, name)
+        f.text = content
+        f.deleteOnExit()
+        f
+    }
+
+    def setup() {
+        root.deleteOnExit()
+        write("a-1.0.json", '{ "a": "${x}" }')
+        write("b-1.0.json", '{ "b": "${x}" }')
+        files.scan()
+        instance.phase(0)
+    }
+
+    def poll() {
+        files.scan()
+        instance.phase(1)
+    }
+
+    def "schemas are loaded once and handed out as clones"() {
+        when:
+        Schema first = instance.createSchema(a)
+        Schema second = instance.createSchema(a)
+        then:
+        loader.loads.get() == 1
+        !first.is(second)
+        first.getParsed() == second.getParsed()
+        instance.stats().hitCount() == 1
+        instance.stats().missCount() == 1
+        instance.stats().totalLoadTime() > 0
+    }
+
+    def "concurrent requests for the same schema share one load"() {
+        given:
+        ExecutorService executor = Executors.newFixedThreadPool(8)
+        CountDownLatch go = new CountDownLatch(1)
+        when:
+        List<Future<Schema>> found = (0..<8).collect {
+            executor.submit({ go.await(); instance.createSchema(a) } as java.util.concurrent.Callable<Schema>)
+        }
+        go.countDown()
+        found.each { it.get() }
+        then:
+        loader.loads.get() == 1
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "unchanged files stay cached across polls"() {
+        given:
+        instance.createSchema(a)
+        when:
+        poll()
+        poll()
+        instance.createSchema(a)
+        then:
+        loader.loads.get() == 1
+    }
+
+    def "only schemas whose files changed are loaded again"() {
+        given:
+        instance.createSchema(a)
+        instance.createSchema(b)
+        when:
+        write("a-1.0.json", '{ "a": "${x}", "extra": "${y}" }')
+        poll()
+        Schema found = instance.createSchema(a)
+        instance.createSchema(b)
+        then:
+        loader.loads.get() == 3
+        found.getParsed() == [ a: '${x}', extra: '${y}' ]
+    }
+
+    def "a deleted schema file is no longer served"() {
+        given:
+        instance.createSchema(a)
+        when:
+        new File(root, "a-1.0.json").delete()
+        poll()
+        instance.createSchema(a)
+        then:
+        thrown(SchemaLoader.LocationNotFoundException)
+        instance.size() == 0
+    }
+
+    def "the least recently used schemas are evicted beyond the bound"() {
+        given:
+        CachingSchemaSource bounded = new CachingSchemaSource(loader, 1)
+        when:
+        bounded.createSchema(a)
+        bounded.createSchema(b)
+        bounded.createSchema(a)
+        then:
+        bounded.size() == 1
+        loader.loads.get() == 3
+        bounded.stats().evictionCount() == 2
+    }
+}
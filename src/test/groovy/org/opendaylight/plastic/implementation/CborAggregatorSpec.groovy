@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+
+class CborAggregatorSpec extends Specification {
+
+    CborFormat format = new CborFormat()
+
+    def "aggregation and deaggregation are inverses"() {
+        given:
+        String item1 = format.serialize([ abc: 1 ])
+        String item2 = format.serialize([ def: [ 2, "\u00fc", [ ghi: null ] ] ])
+        String item3 = format.serialize([ ghi: " " ])
+        when:
+        String aggregated = new CborAggregator().add(item1).add(item2).add(item3).emit()
+        then:
+        new CborAggregator().deAggregate(aggregated) == [ item1, item2, item3 ]
+    }
+
+    def "an aggregate is itself a cbor array"() {
+        given:
+        String aggregated = new CborAggregator().add(format.serialize([ abc: 1 ])).add(format.serialize([ def: 2 ])).emit()
+        expect:
+        format.deserialize(aggregated) == [ [ abc: 1 ], [ def: 2 ] ]
+    }
+
+    def "an empty aggregate has no items"() {
+        expect:
+        new CborAggregator().deAggregate(new CborAggregator().emit()) == []
+    }
+
+    def "definite length arrays are not aggregates"() {
+        when:
+        new CborAggregator().deAggregate(format.serialize([ [ abc: 1 ] ]) + CborAggregator.TRAILER)
+        then:
+        thrown(PlasticException)
+    }
+
+    def "truncated aggregates are rejected"() {
+        given:
+        String aggregated = new CborAggregator().add(format.serialize([ abc: 1 ])).emit()
+        when:
+        new CborAggregator().deAggregate(aggregated.substring(0, 3) + CborAggregator.TRAILER)
+        then:
+        thrown(CborAggregator.BadCborAggregate)
+    }
+
+    def "defaults are serialized as cbor"() {
+        expect:
+        format.deserialize(new CborAggregator().serializeDefaults([ abc: "1" ])) == [ abc: "1" ]
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CborCodecSpec extends Specification {
+
+    static byte[] bytes(int... values) {
+        values.collect { (byte) it } as byte[]
+    }
+
+    static String hex(byte[] encoded) {
+        encoded.collect { String.format("%02x", it & 0xFF) }.join()
+    }
+
+    @Unroll
+    def "#value encodes as in the RFC examples"() {
+        expect:
+        hex(CborCodec.encode(value)) == expected
+        where:
+        value                           | expected
+        0                               | "00"
+        23                              | "17"
+        24                              | "1818"
+        1000                            | "1903e8"
+        1000000                         | "1a000f4240"
+        1000000000000L                  | "1b000000e8d4a51000"
+        -1                              | "20"
+        -1000                           | "3903e7"
+        true                            | "f5"
+        false                           | "f4"
+        null                            | "f6"
+        ""                              | "60"
+        "IETF"                          | "6449455446"
+        "\u00fc"                        | "62c3bc"
+        []                              | "80"
+        [1, [2, 3]]                     | "8201820203"
+        [a: 1, b: [2, 3]]               | "a26161016162820203"
+        new BigInteger("18446744073709551616") | "c249010000000000000000"
+        new BigDecimal("273.15")        | "c48221196ab3"
+    }
+
+    @Unroll
+    def "#encoding decodes as in the RFC examples"() {
+        expect:
+        CborCodec.decode(encoding.decodeHex()) == expected
+        where:
+        encoding                   | expected
+        "1bffffffffffffffff"       | new BigInteger("18446744073709551615")
+        "3bffffffffffffffff"       | new BigInteger("-18446744073709551616")
+        "f93c00"                   | 1.0
+        "fb3ff199999999999a"       | 1.1
+        "fa47c35000"               | 100000.0
+        "f7"                       | null
+        "7f657374726561646d696e67ff" | "streaming"
+        "9f018202039f0405ffff"     | [1, [2, 3], [4, 5]]
+        "bf61610161629f0203ffff"   | [a: 1, b: [2, 3]]
+        "d9d9f7a161610a"           | [a: 10]
+        "4401020304"               | "AQIDBA"
+    }
+
+    def "decoded numbers use the same types as parsed JSON"() {
+        when:
+        Map decoded = CborCodec.decode(CborCodec.encode([i: 1, l: 3000000000L, d: new BigDecimal("2.34"), b: new BigInteger("99999999999999999999")]))
+        then:
+        decoded.i instanceof Integer
+        decoded.l instanceof Long
+        decoded.d instanceof BigDecimal
+        decoded.d == new BigDecimal("2.34")
+        decoded.b instanceof BigInteger
+    }
+
+    def "doubles decode as big decimals"() {
+        expect:
+        CborCodec.decode(CborCodec.encode(2.5d)) == new BigDecimal("2.5")
+    }
+
+    def "map keys and order survive a round trip"() {
+        given:
+        Map tree = [ z: [ "${'a'}${'b'}", null, true ], a: [ nested: [ deeper: [ 1, -2, 3.25 ] ] ], m: "\u4e2d" ]
+        when:
+        Map decoded = CborCodec.decode(CborCodec.encode(tree))
+        then:
+        decoded.keySet().toList() == [ "z", "a", "m" ]
+        decoded == [ z: [ "ab", null, true ], a: [ nested: [ deeper: [ 1, -2, 3.25 ] ] ], m: "\u4e2d" ]
+    }
+
+    @Unroll
+    def "malformed data #encoding is rejected"() {
+        when:
+        CborCodec.decode(encoding.decodeHex())
+        then:
+        thrown(CborCodec.MalformedCbor)
+        where:
+        encoding << [ "", "18", "8201", "a1616101ff", "7f6161", "62c3", "1c", "fc", "0000", "9f01" ]
+    }
+
+    def "absurd lengths do not allocate"() {
+        when:
+        CborCodec.decode(bytes(0x5b, 0x7f, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff))
+        then:
+        thrown(CborCodec.MalformedCbor)
+    }
+
+    def "deep nesting is rejected"() {
+        given:
+        byte[] deep = new byte[CborCodec.MAX_DEPTH + 1]
+        Arrays.fill(deep, (byte) 0x81)
+        when:
+        CborCodec.decode(deep)
+        then:
+        thrown(CborCodec.MalformedCbor)
+    }
+}
@@ -0,0 +1,80 @@
+package org.opendaylight.plastic.implementation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// src/test/scripts/cbor-format-benchmark.sh
+// or
+// java -jar target/odl-plastic-*-fat-tests.jar CborFormatBenchmark
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 8)
+public class CborFormatBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Payloads {
+
+        @Param({ "10", "1000" })
+        int devices;
+
+        JsonFormat json = new JsonFormat();
+        CborFormat cbor = new CborFormat();
+
+        String jsonPayload;
+        String cborPayload;
+        Object tree;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            StringBuilder sb = new StringBuilder("{ \"devices\": [");
+            for (int i = 0; i < devices; i++) {
+                if (i > 0)
+                    sb.append(',');
+                sb.append("{ \"name\": \"device-").append(i).append("\",")
+                  .append(" \"address\": \"10.0.").append(i / 256).append('.').append(i % 256).append("\",")
+                  .append(" \"mtu\": 1500, \"load\": 0.").append(i % 100).append(',')
+                  .append(" \"enabled\": ").append(i % 2 == 0).append(',')
+                  .append(" \"vlans\": [ ").append(i).append(", ").append(i + 1).append(" ] }");
+            }
+            jsonPayload = sb.append("] }").toString();
+            tree = json.parse(jsonPayload);
+            cborPayload = cbor.serialize(tree);
+        }
+    }
+
+    @Benchmark
+    public void jsonParse(Payloads payloads, Blackhole blackhole) {
+        blackhole.consume(payloads.json.deserialize(payloads.jsonPayload));
+    }
+
+    @Benchmark
+    public void cborParse(Payloads payloads, Blackhole blackhole) {
+        blackhole.consume(payloads.cbor.deserialize(payloads.cborPayload));
+    }
+
+    @Benchmark
+    public void jsonSerialize(Payloads payloads, Blackhole blackhole) {
+        blackhole.consume(payloads.json.serialize(payloads.tree));
+    }
+
+    @Benchmark
+    public void cborSerialize(Payloads payloads, Blackhole blackhole) {
+        blackhole.consume(payloads.cbor.serialize(payloads.tree));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import org.slf4j.Logger
+import spock.lang.Specification
+
+class CborFormatSpec extends Specification {
+
+    CborFormat instance = new CborFormat()
+    JsonFormat json = new JsonFormat()
+
+    Schema asSchema(String name, String vers, String kind, String content) {
+        new Schema(new VersionedSchema(name, vers, kind), content)
+    }
+
+    String asCbor(String jsonText) {
+        instance.serialize(json.parse(jsonText))
+    }
+
+    def "the format is known"() {
+        expect:
+        new Formats().lookup("cbor") instanceof CborFormat
+        new ParserFactory().createParsed(new VersionedSchemaStream(new VersionedSchema("a", "1.0", "cbor"))) instanceof ParsedCbor
+    }
+
+    def "serialized payloads are one char per byte"() {
+        when:
+        String serialized = instance.serialize([ a: "\u00fc" ])
+        then:
+        serialized.chars.every { it < 256 }
+        CborFormat.asBytes(serialized) == CborCodec.encode([ a: "\u00fc" ])
+        CborFormat.asText(CborCodec.encode([ a: "\u00fc" ])) == serialized
+    }
+
+    def "round trip gives back the same tree as the json path"() {
+        given:
+        String text = '{ "abc": [ { "value": "a" }, { "value": 2 }, { "value": 3.333 }, { "value": null }, { "value": true } ] }'
+        when:
+        Object viaCbor = instance.deserialize(asCbor(text))
+        then:
+        viaCbor == json.parse(text)
+        viaCbor['abc'][1]['value'] instanceof Integer
+        viaCbor['abc'][2]['value'] instanceof BigDecimal
+    }
+
+    def "json text is parsed as json so schemas can be authored as json"() {
+        expect:
+        instance.parse('  { "abc": "${abc}" }') == [ abc: '${abc}' ]
+        instance.parse('[ 1, 2 ]') == [ 1, 2 ]
+    }
+
+    def "empty input parses as empty defaults"() {
+        expect:
+        instance.parse("") == [:]
+        instance.parse(new ByteArrayInputStream(new byte[0])) == [:]
+    }
+
+    def "malformed binary is reported as malformed data"() {
+        when:
+        instance.parse(CborFormat.asText([ (byte) 0xa1, (byte) 0x61 ] as byte[]))
+        then:
+        thrown(VersionedSchemaParsed.MalformedException)
+    }
+
+    def "clone is deep"() {
+        given:
+        Object parsed = instance.deserialize(asCbor('{ "abc": [ { "value": "a" } ] }'))
+        when:
+        Object cloned = instance.clone(parsed)
+        cloned['abc'][0]['value'] = 'b'
+        then:
+        parsed['abc'][0]['value'] == 'a'
+    }
+
+    def "a binary payload is translated with json authored schemas"() {
+        given:
+        Schema schemaIn = asSchema("foo", "1.0", "cbor", '''
+        {
+            "name": "${name}",
+            "addresses": [ "${addr[*]}" ]
+        }
+        ''')
+        Schema schemaOut = asSchema("bar", "1.0", "cbor", '''
+        {
+            "device": { "id": "${name}", "ips": [ "${addr[*]}" ] }
+        }
+        ''')
+        Schema payload = asSchema("foo", "1.0", "cbor", asCbor('{ "name": "r1", "addresses": [ "1.2.3.4", "5.6.7.8" ] }'))
+        Schema defaults = asSchema("foo", "1.0", "cbor", "")
+        and:
+        Morpher morpher = Mock()
+        MapTask instance = new MapTask(new TranslationPlan(schemaIn, schemaOut, [morpher]))
+        MapTask.log = Mock(Logger)
+        when:
+        String emitted = instance.map(payload, defaults).emit()
+        then:
+        this.instance.deserialize(emitted) == [ device: [ id: "r1", ips: [ "1.2.3.4", "5.6.7.8" ] ] ]
+    }
+
+    def "json defaults can be used with binary payloads"() {
+        when:
+        Map defaults = asSchema("foo", "1.0", "cbor", '{ "abc": 1, "def[*]": [ "x", "y" ] }').asDefaults()
+        then:
+        defaults['abc'] == 1
+        defaults['def[0]'] == "x"
+    }
+
+    def "short strings are human readable"() {
+        given:
+        Schema schema = asSchema("foo", "1.0", "cbor", asCbor('{ "abc": 1 }'))
+        expect:
+        schema.parsedSchema.toShortString(100).contains('"abc": 1')
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonSlurper
+import org.opendaylight.plastic.implementation.author.Plans
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicInteger
+
+
+class ChildDeduplicationSpec extends Specification {
+
+    SchemaLoader schemas = new ShortCircuit.TestSchemaLoader()
+            .add("batch-in-schema", '{ "name": "${name}", "container-in": [ "${items[*]}" ] }')
+            .add("batch-out-schema", '{ "device": "${name}", "container-out": [ "${items[*]}" ] }')
+            .add("item-in-schema", '{ "id": "${id}" }')
+            .add("item-out-schema", '{ "item": "${id}" }')
+
+    VersionedSchema input = new VersionedSchema('${batch}', "1.0", "json")
+    VersionedSchema output = new VersionedSchema("batch-out-schema", "1.0", "json")
+
+    CartographerWorker newWorker(boolean dedup) {
+        AppContext context = new AppContext()
+        context.props.put(ChildDeduplication.ENABLED_PROPERTY, Boolean.toString(dedup))
+        new CartographerWorker(context, ShortCircuit.useStandardCaches(), new Poller(),
+                new ShortCircuit.TestPlanResolution(schemas, new ShortCircuit.TestMorpherFactory()),
+                new ShortCircuit.TestClassifierResolver()
+                        .addDeluxe("batch", new StreamingReassemblySpec.BatchClassifier())
+                        .addSimple("item-classifier", new StreamingReassemblySpec.ItemClassifier()))
+    }
+
+    String batchOf(List<String> ids) {
+        '{ "name": "dev1", "container-in": [ ' + ids.collect { '{ "id": "' + it + '" }' }.join(', ') + ' ] }'
+    }
+
+    TranslationPlanLite child(String name, String payload) {
+        TranslationPlanLite plan = Plans.newPlan(Plans.asSchema("in", "1.0", "json"), Plans.asSchema("out", "1.0", "json"))
+        plan.setRole(new ChildRole(name, new Schema(new VersionedSchema("in", "1.0", "json"), payload)))
+        plan
+    }
+
+    ChildDeduplication.ChildTranslator counting(AtomicInteger calls, boolean cacheable) {
+        new ChildDeduplication.ChildTranslator() {
+            @Override
+            ChildDeduplication.Outcome translate(TranslationPlanLite plan) {
+                calls.incrementAndGet()
+                new ChildDeduplication.Outcome(plan.getChildRole().payload().clone(), cacheable)
+            }
+        }
+    }
+
+    def "identical children are translated once and each gets its own copy"() {
+        given:
+        ChildDeduplication dedup = new ChildDeduplication(true)
+        ChildDeduplication.Batch batch = dedup.newBatch()
+        AtomicInteger calls = new AtomicInteger()
+        when:
+        List<ChildDeduplication.Outcome> found = [
+                batch.translate(child("a[0]", '{ "id": 1, "x": [ 1, 2 ] }'), counting(calls, true)),
+                batch.translate(child("a[1]", '{ "x": [ 1, 2 ], "id": 1 }'), counting(calls, true)),
+                batch.translate(child("a[2]", '{ "id": 1, "x": [ 2, 1 ] }'), counting(calls, true)),
+                batch.translate(child("a[3]", '{ "id": 1.0, "x": [ 1, 2 ] }'), counting(calls, true)),
+        ]
+        then:
+        calls.get() == 3
+        dedup.hits == 1
+        dedup.misses == 3
+        dedup.hitRate == 0.25d
+        !found[1].result.is(found[0].result)
+        !found[1].result.parsed.is(found[0].result.parsed)
+        found[1].result.parsed == found[0].result.parsed
+    }
+
+    def "children with different plans are not shared"() {
+        given:
+        ChildDeduplication dedup = new ChildDeduplication(true)
+        ChildDeduplication.Batch batch = dedup.newBatch()
+        AtomicInteger calls = new AtomicInteger()
+        TranslationPlanLite other = child("a[1]", '{ "id": 1 }')
+        other.addMorpher("stamping-morpher")
+        when:
+        batch.translate(child("a[0]", '{ "id": 1 }'), counting(calls, true))
+        batch.translate(other, counting(calls, true))
+        dedup.newBatch().translate(child("a[2]", '{ "id": 1 }'), counting(calls, true))
+        then:
+        calls.get() == 3
+        dedup.hits == 0
+    }
+
+    def "children of plans that cannot be cached are each translated"() {
+        given:
+        ChildDeduplication dedup = new ChildDeduplication(true)
+        ChildDeduplication.Batch batch = dedup.newBatch()
+        AtomicInteger calls = new AtomicInteger()
+        when:
+        3.times { batch.translate(child("a[${it}]".toString(), '{ "id": 1 }'), counting(calls, false)) }
+        then:
+        calls.get() == 3
+        dedup.hits == 0
+    }
+
+    def "a failed child fails its identical children too"() {
+        given:
+        ChildDeduplication.Batch batch = new ChildDeduplication(true).newBatch()
+        ChildDeduplication.ChildTranslator failing = new ChildDeduplication.ChildTranslator() {
+            @Override
+            ChildDeduplication.Outcome translate(TranslationPlanLite plan) {
+                throw new PlasticException("PLASTIC-TEST", "bad child")
+            }
+        }
+        when:
+        batch.translate(child("a[0]", '{ "id": 1 }'), failing)
+        then:
+        thrown(PlasticException)
+        when:
+        batch.translate(child("a[1]", '{ "id": 1 }'), counting(new AtomicInteger(), true))
+        then:
+        PlasticException e = thrown()
+        e.message == "PLASTIC-TEST: bad child"
+    }
+
+    def "a parent with repeated children translates the same with or without deduplication"() {
+        given:
+        List<String> ids = (0..<200).collect { "id-${it % 7}".toString() }
+        CartographerWorker plain = newWorker(false)
+        CartographerWorker deduping = newWorker(true)
+        when:
+        Object expected = new JsonSlurper().parseText(plain.translateWithDefaults(input, output, batchOf(ids), Cartography.EMPTY_DEFAULTS))
+        Object found = new JsonSlurper().parseText(deduping.translateWithDefaults(input, output, batchOf(ids), Cartography.EMPTY_DEFAULTS))
+        then:
+        found == expected
+        found['container-out'].collect { it['item'] } == ids
+        deduping.deduplication.hits == 193
+        deduping.deduplication.misses == 7
+        plain.deduplication.hits == 0
+        plain.deduplication.misses == 0
+        cleanup:
+        plain.close()
+        deduping.close()
+    }
+
+    def "deduplication is off unless configured"() {
+        expect:
+        !new ChildDeduplication(new AppContext()).enabled
+        new ChildDeduplication(new AppContext()).newBatch() == null
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonSlurper
+import org.opendaylight.plastic.implementation.author.ClaimCheck
+import spock.lang.Specification
+
+
+class ChildSlotSpec extends Specification {
+
+    Schema asSchema(String strm) {
+        VersionedSchema verschema = new VersionedSchema("foo", "1.0", "json")
+        new Schema(verschema, strm)
+    }
+
+    Object asJson(String raw) {
+        new JsonSlurper().parseText(raw)
+    }
+
+    def "a slot holds its placeholder until something else replaces it"() {
+        given:
+        List container = [ "a", '${claim[1]}' ]
+        ChildSlot instance = new ChildSlot(container, 1, '${claim[1]}')
+        expect:
+        instance.holding
+        when:
+        container[1] = "b"
+        then:
+        !instance.holding
+        new ChildSlot(container, 5, '${claim[5]}').holding == false
+    }
+
+    def "child results are spliced straight into their slots"() {
+        given:
+        Schema parent = asSchema('{ "abc": { "items": [ { "A": 1 }, { "B": 2 } ] } }')
+        List items = parent.parsed.abc.items
+        ClaimCheck first = new ClaimCheck("claim", parent, items, 0)
+        ClaimCheck second = new ClaimCheck("claim", parent, items, 1)
+        first.swap()
+        second.swap()
+        and:
+        Map<String,Schema> results = [ (first.name): asSchema('{ "X": 1 }'), (second.name): asSchema('[ 2 ]') ]
+        Map<String,ChildSlot> slots = [ (first.name): first.slot, (second.name): second.slot ]
+        when:
+        Map<String,Schema> unspliced = ChildSlot.spliceAll(parent.parsed, results, slots)
+        then:
+        unspliced.isEmpty()
+        parent.parsed == asJson('{ "abc": { "items": [ { "X": 1 }, [ 2 ] ] } }')
+    }
+
+    def "children without slots or with scalar results are left for the injector"() {
+        given:
+        Schema parent = asSchema('{ "items": [ "${claim[0]}", "${claim[1]}" ] }')
+        List items = parent.parsed.items
+        Schema scalar = Mock()
+        scalar.getParsed() >> "just text"
+        Map<String,Schema> results = [ 'claim[0]': asSchema('{ "X": 1 }'), 'claim[1]': scalar ]
+        Map<String,ChildSlot> slots = [ 'claim[1]': new ChildSlot(items, 1, '${claim[1]}') ]
+        when:
+        Map<String,Schema> unspliced = ChildSlot.spliceAll(parent.parsed, results, slots)
+        then:
+        unspliced.keySet() == [ 'claim[0]', 'claim[1]' ] as Set
+        parent.parsed == asJson('{ "items": [ "${claim[0]}", "${claim[1]}" ] }')
+    }
+
+    def "slots that are no longer part of the parent are left for the injector"() {
+        given:
+        Schema parent = asSchema('{ "outer": [ { "inner": [ { "A": 1 } ] } ] }')
+        List outer = parent.parsed.outer
+        List inner = outer[0].inner
+        ClaimCheck nested = new ClaimCheck("inner", parent, inner, 0)
+        nested.swap()
+        ClaimCheck enclosing = new ClaimCheck("outer", parent, outer, 0)
+        enclosing.swap()
+        and:
+        Map<String,Schema> results = [ (nested.name): asSchema('{ "X": 1 }'), (enclosing.name): asSchema('{ "Y": 2 }') ]
+        Map<String,ChildSlot> slots = [ (nested.name): nested.slot, (enclosing.name): enclosing.slot ]
+        when:
+        Map<String,Schema> unspliced = ChildSlot.spliceAll(parent.parsed, results, slots)
+        then:
+        unspliced.keySet() == [ nested.name ] as Set
+        parent.parsed == asJson('{ "outer": [ { "Y": 2 } ] }')
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+
+
+class DefaultsCacheSpec extends Specification {
+
+    static class CountingResolution extends PlanResolution {
+
+        int parses = 0
+
+        CountingResolution() {
+            super(new CachingSchemaSource(new ShortCircuit.TestSchemaLoader()), new ShortCircuit.TestMorpherFactory())
+        }
+
+        @Override
+        Schema createSimilarSchema(VersionedSchema reference, String content) {
+            parses++
+            super.createSimilarSchema(reference, content)
+        }
+    }
+
+    VersionedSchema jsonSchema = new VersionedSchema("in", "1.0", "json")
+    CountingResolution resolution = new CountingResolution()
+    DefaultsCache instance = new DefaultsCache(1000)
+
+    def "the same defaults content is only parsed once"() {
+        when:
+        Schema first = instance.lookup(jsonSchema, '{ "abc": 123 }', resolution)
+        Schema second = instance.lookup(jsonSchema, '{ "abc": 123 }', resolution)
+        then:
+        resolution.parses == 1
+        first.is(second)
+        second.asDefaults() == [ 'abc': 123 ]
+        instance.stats().hitCount() == 1
+    }
+
+    def "cached defaults are the same as freshly expanded defaults"() {
+        given:
+        String defaults = '{ "abc[*]": [ "a", "b", "c" ], "def": "x" }'
+        expect:
+        instance.lookup(jsonSchema, defaults, resolution).asDefaults() == new Schema(jsonSchema, defaults).asDefaults()
+    }
+
+    def "different content or formats are cached separately"() {
+        when:
+        instance.lookup(jsonSchema, '{ "abc": 1 }', resolution)
+        instance.lookup(jsonSchema, '{ "abc": 2 }', resolution)
+        instance.lookup(new VersionedSchema("in", "1.0", ParsedXml.KEY), '<defaults/>', resolution)
+        instance.lookup(new VersionedSchema("in", "1.0", ParsedXml.KEY), '<defaults/>', resolution)
+        then:
+        resolution.parses == 3
+        instance.size() == 3
+    }
+
+    def "entries are keyed by a digest of the content rather than the content itself"() {
+        given:
+        String big = '{ "abc": "' + ('x' * 100000) + '" }'
+        DefaultsCache.Key key = new DefaultsCache.Key("json", big)
+        expect:
+        key == new DefaultsCache.Key("json", new String(big))
+        key != new DefaultsCache.Key("json", big.replace('"abc"', '"abd"'))
+        key != new DefaultsCache.Key("xml", big)
+        key.length == big.length()
+        !key.properties.values().any { it instanceof String && it.length() == big.length() }
+    }
+
+    def "cached defaults are read-only"() {
+        when:
+        instance.lookup(jsonSchema, '{ "abc": 123 }', resolution).asDefaults().put("def", 456)
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "collection values are handed out as copies"() {
+        given:
+        String defaults = '{ "abc[*]": [ { "value": "a" } ], "nonscalar": { "def": [ 1, 2 ] } }'
+        Schema cached = instance.lookup(jsonSchema, defaults, resolution)
+        when:
+        Map first = cached.asDefaults()
+        first['abc[0]'].value = "changed"
+        first['nonscalar'].def.add(3)
+        then:
+        cached.asDefaults()['abc[0]'] == [ "value": "a" ]
+        cached.asDefaults()['nonscalar'] == [ "def": [ 1, 2 ] ]
+    }
+
+    def "bad defaults are not cached and keep their original exception"() {
+        when:
+        instance.lookup(jsonSchema, '{ "abc[*]": "a" }', resolution)
+        then:
+        thrown(VersionedSchemaParsed.WantedListButFoundScalarException)
+        when:
+        instance.lookup(jsonSchema, '{ "abc[*]": "a" }', resolution)
+        then:
+        thrown(VersionedSchemaParsed.WantedListButFoundScalarException)
+        resolution.parses == 2
+        instance.size() == 0
+    }
+
+    def "the cache is bounded by the size of the defaults content"() {
+        when:
+        100.times { instance.lookup(jsonSchema, "{ \"abc\": ${it}, \"padding\": \"${'x' * 50}\" }", resolution) }
+        then:
+        instance.size() < 100
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+import org.slf4j.Logger
+import spock.lang.Specification
+
+class IteratorExpansionSpec extends Specification {
+
+    Schema asSchema(String name, String vers, String kind, String content) {
+        VersionedSchema schema = new VersionedSchema(name, vers, kind)
+        new Schema(schema, content)
+    }
+
+    Object asJson(String raw) {
+        new JsonSlurper().parseText(raw)
+    }
+
+    Schema parsedEmptyDefaults = asSchema("foo", "1.0", "json", "")
+
+    Morpher mockMorpher = Mock()
+
+    def setup() {
+        MapTask.log = Mock(Logger)
+    }
+
+    def cleanup() {
+        IteratorExpansion.parallelThreshold = 0
+    }
+
+    String translate(String inSchema, String outSchema, String payload, int threshold) {
+        IteratorExpansion.parallelThreshold = threshold
+        TranslationPlan plan = new TranslationPlan(asSchema("foo", "1.0", "json", inSchema), asSchema("bar", "1.0", "json", outSchema), [mockMorpher])
+        MapTask instance = new MapTask(plan)
+        instance.map(asSchema("foo", "1.0", "json", payload), parsedEmptyDefaults).emit()
+    }
+
+    String bigPayload(int size) {
+        List aaa = (0..<size).collect { i -> [ id: "id-${i}".toString(), name: "name-${i}".toString(), bbb: (0..<(i % 4)).collect { "b-${i}-${it}".toString() } ] }
+        JsonOutput.toJson([ aaa: aaa ])
+    }
+
+    def "threshold is read from the app properties"() {
+        given:
+        AppContext props = Mock()
+        props.getOrElse(IteratorExpansion.PARALLEL_THRESHOLD_PROPERTY, _) >> "1000"
+        when:
+        IteratorExpansion.configure(props)
+        then:
+        IteratorExpansion.parallelThreshold == 1000
+    }
+
+    def "properties without a threshold leave it alone"() {
+        given:
+        IteratorExpansion.parallelThreshold = 1000
+        when:
+        IteratorExpansion.configure(new AppContext())
+        new CartographerWorker(new AppContext(), ShortCircuit.useStandardCaches(), new Poller(0), null, null).close()
+        then:
+        IteratorExpansion.parallelThreshold == 1000
+    }
+
+    def "large array of objects expands the same in parallel as sequentially"() {
+        given:
+        String schemaIn = '''
+        {
+            "aaa": [ { "id": "${id[*]}", "name": "${name[*]}" } ]
+        }
+        '''
+        String schemaOut = '''
+        {
+            "MY-AAA": [ { "MY-ID": "${id[*]}", "MY-NAME": "${name[*]}", "FIXED": "x" } ]
+        }
+        '''
+        String payload = bigPayload(5000)
+        when:
+        String sequential = translate(schemaIn, schemaOut, payload, 0)
+        String parallel = translate(schemaIn, schemaOut, payload, 1)
+        then:
+        asJson(parallel) == asJson(sequential)
+        asJson(parallel)['MY-AAA'].size() == 5000
+        asJson(parallel)['MY-AAA'][4999] == [ 'MY-ID': 'id-4999', 'MY-NAME': 'name-4999', 'FIXED': 'x' ]
+    }
+
+    def "large array of scalars expands the same in parallel as sequentially"() {
+        given:
+        String schemaIn = '''
+        {
+            "aaa": [ { "id": "${id[*]}" } ]
+        }
+        '''
+        String schemaOut = '''
+        {
+            "MY-IDS": [ "${id[*]}" ]
+        }
+        '''
+        String payload = bigPayload(3000)
+        when:
+        String sequential = translate(schemaIn, schemaOut, payload, 0)
+        String parallel = translate(schemaIn, schemaOut, payload, 1)
+        then:
+        asJson(parallel) == asJson(sequential)
+        asJson(parallel)['MY-IDS'] == (0..<3000).collect { "id-${it}".toString() }
+    }
+
+    def "nested arrays with non-rectangular shape expand the same in parallel as sequentially"() {
+        given:
+        String schemaIn = '''
+        {
+            "aaa": [ { "id": "${id[*]}", "bbb": [ "${bbb[^][*]}" ] } ]
+        }
+        '''
+        String schemaOut = '''
+        {
+            "MY-AAA": [ { "MY-ID": "${id[*]}", "MY-BBB": [ "${bbb[^][*]}" ] } ]
+        }
+        '''
+        String payload = bigPayload(1000)
+        when:
+        String sequential = translate(schemaIn, schemaOut, payload, 0)
+        String parallel = translate(schemaIn, schemaOut, payload, 1)
+        then:
+        asJson(parallel) == asJson(sequential)
+        asJson(parallel)['MY-AAA'][3] == [ 'MY-ID': 'id-3', 'MY-BBB': [ 'b-3-0', 'b-3-1', 'b-3-2' ] ]
+        asJson(parallel)['MY-AAA'][4] == [ 'MY-ID': 'id-4', 'MY-BBB': [] ]
+    }
+
+    def "flattened non-rectangular arrays abandon the same members in parallel as sequentially"() {
+        given:
+        String schemaIn = '''
+        {
+            "aaa": [ { "id": "${id[*]}", "bbb": [ "${bbb[*][*]}" ] } ]
+        }
+        '''
+        String schemaOut = '''
+        {
+            "MY-BBBS": [ "${bbb[*][*]}" ],
+            "MY-OBJS": [ { "B": "${bbb[*][*]}" } ]
+        }
+        '''
+        String payload = bigPayload(400)
+        when:
+        String sequential = translate(schemaIn, schemaOut, payload, 0)
+        String parallel = translate(schemaIn, schemaOut, payload, 1)
+        then:
+        asJson(parallel) == asJson(sequential)
+        asJson(parallel)['MY-BBBS'].size() == 600
+        asJson(parallel)['MY-OBJS'].size() == 600
+    }
+
+    def "arrays below the threshold are expanded sequentially with the same results"() {
+        given:
+        String schemaIn = '''
+        {
+            "aaa": [ { "id": "${id[*]}" } ]
+        }
+        '''
+        String schemaOut = '''
+        [ { "MY-ID": "${id[*]}" } ]
+        '''
+        String payload = bigPayload(10)
+        when:
+        String below = translate(schemaIn, schemaOut, payload, 1000)
+        String off = translate(schemaIn, schemaOut, payload, 0)
+        then:
+        asJson(below) == asJson(off)
+        asJson(below).size() == 10
+    }
+}
@@ -0,0 +1,97 @@
+package org.opendaylight.plastic.implementation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+// src/test/scripts/json-backend-benchmark.sh
+// or
+// java -jar target/odl-plastic-*-fat-tests.jar JsonBackendBenchmark
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 8)
+public class JsonBackendBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Corpus {
+
+        @Param({ "slurper", "gson" })
+        String backendName;
+
+        // Payloads from the test resources plus a generated large one
+        @Param({
+                "/cartrunnerroot/cartroot-in-1.0-payload.json",
+                "/plans/payloads/array-plan-payload.json",
+                "/app-props/app-props-payload.json",
+                "generated"
+        })
+        String payloadName;
+
+        JsonBackend backend;
+        byte[] payload;
+        Object tree;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            backend = JsonBackends.lookup(backendName);
+            payload = "generated".equals(payloadName) ? generated(2000) : resource(payloadName);
+            tree = backend.parse(new ByteArrayInputStream(payload));
+        }
+
+        private static byte[] resource(String name) throws IOException {
+            try (InputStream strm = JsonBackendBenchmark.class.getResourceAsStream(name)) {
+                if (strm == null)
+                    throw new IOException("Missing benchmark payload " + name);
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = strm.read(buffer)) > 0)
+                    baos.write(buffer, 0, n);
+                return baos.toByteArray();
+            }
+        }
+
+        private static byte[] generated(int devices) {
+            StringBuilder sb = new StringBuilder("{ \"devices\": [");
+            for (int i = 0; i < devices; i++) {
+                if (i > 0)
+                    sb.append(',');
+                sb.append("{ \"name\": \"device-").append(i).append("\",")
+                  .append(" \"address\": \"10.0.").append(i / 256).append('.').append(i % 256).append("\",")
+                  .append(" \"mtu\": 1500, \"load\": 0.").append(i % 100).append(',')
+                  .append(" \"enabled\": ").append(i % 2 == 0).append(',')
+                  .append(" \"vlans\": [ ").append(i).append(", ").append(i + 1).append(" ] }");
+            }
+            return sb.append("] }").toString().getBytes();
+        }
+    }
+
+    @Benchmark
+    public void parse(Corpus corpus, Blackhole blackhole) {
+        blackhole.consume(corpus.backend.parse(new ByteArrayInputStream(corpus.payload)));
+    }
+
+    @Benchmark
+    public void serialize(Corpus corpus, Blackhole blackhole) {
+        blackhole.consume(corpus.backend.serialize(corpus.tree));
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class JsonBackendsSpec extends Specification {
+
+    static List<String> corpus = [
+            '{}',
+            '[]',
+            '{ "a": 1, "b": [ 1, 2, 3 ], "c": { "d": null } }',
+            '{ "z": 1, "y": 2, "x": 3, "w": 4, "v": 5 }',
+            '[ { "a": [ { "b": [ { "c": [ ] } ] } ] } ]',
+            '{ "s": "plain", "e": "", "esc": "tab\\tquote\\"slash\\\\nl\\n", "u": "\\u00e9\\u4e2d" }',
+            '{ "t": true, "f": false, "n": null }',
+            '{ "i": 0, "neg": -17, "maxi": 2147483647, "mini": -2147483648 }',
+            '{ "l": 2147483648, "maxl": 9223372036854775807, "minl": -9223372036854775808 }',
+            '{ "d": 2.34, "nd": -0.5, "e1": 1e3, "e2": 1.5E-7, "big": 12345678901234567890.123 }',
+            '[ "${abc}", "${def[*]}", "${ghi}" ]',
+    ]
+
+    static List<JsonBackend> backends = [ new SlurperJsonBackend(), new GsonJsonBackend() ]
+
+    // Groovy equality treats 1 and 1L as equal, so the number types are compared explicitly.
+    // JsonSlurper keeps members in document order on Java 8, but Groovy 2.4 misreads later Java
+    // version strings and sorts them there, so member order is only compared when asked for.
+    //
+    static boolean sameTree(Object a, Object b, boolean ordered = false) {
+        if (a instanceof Map && b instanceof Map) {
+            Map ma = (Map) a
+            Map mb = (Map) b
+            boolean sameKeys = ordered ? ma.keySet().toList() == mb.keySet().toList() : ma.keySet() == mb.keySet()
+            return sameKeys && ma.keySet().every { sameTree(ma[it], mb[it], ordered) }
+        }
+        if (a instanceof List && b instanceof List) {
+            List la = (List) a
+            List lb = (List) b
+            return la.size() == lb.size() && (0..<la.size()).every { sameTree(la[it], lb[it], ordered) }
+        }
+        if (a == null || b == null)
+            return a == null && b == null
+        a.getClass() == b.getClass() && a == b
+    }
+
+    @Unroll
+    def "backends produce the same tree for #json"() {
+        when:
+        Object expected = new SlurperJsonBackend().parse(asStream(json))
+        Object actual = new GsonJsonBackend().parse(asStream(json))
+        then:
+        sameTree(expected, actual)
+        where:
+        json << corpus
+    }
+
+    def "backends produce the same tree for the test resources"() {
+        given:
+        List<File> files = []
+        new File("src/test/resources").eachFileRecurse { File f -> if (f.name.endsWith(".json")) files.add(f) }
+        expect:
+        !files.isEmpty()
+        files.every { File f ->
+            sameTree(new SlurperJsonBackend().parse(new FileInputStream(f)), new GsonJsonBackend().parse(new FileInputStream(f)))
+        }
+    }
+
+    @Unroll
+    def "#backend.name() backend round trips its own output"() {
+        expect:
+        corpus.every { String json ->
+            Object parsed = backend.parse(asStream(json))
+            sameTree(parsed, backend.parse(asStream(backend.serialize(parsed))), backend instanceof GsonJsonBackend)
+        }
+        where:
+        backend << backends
+    }
+
+    def "backends serialize to the same tree"() {
+        given:
+        JsonBackend slurper = new SlurperJsonBackend()
+        expect:
+        corpus.every { String json ->
+            Object parsed = slurper.parse(asStream(json))
+            sameTree(parsed, slurper.parse(asStream(new GsonJsonBackend().serialize(parsed))))
+        }
+    }
+
+    def "gson backend serializes values that morphers typically add"() {
+        given:
+        String name = "abc"
+        Map tree = [ g: "${name}-def", n: null, l: [ 1L, 2.5 ] ]
+        when:
+        Map parsed = new GsonJsonBackend().parse(asStream(new GsonJsonBackend().serialize(tree)))
+        then:
+        parsed == [ g: "abc-def", l: [ 1, 2.5 ], n: null ]
+    }
+
+    @Unroll
+    def "#backend.name() backend rejects #json"() {
+        when:
+        backend.parse(asStream(json))
+        then:
+        thrown(JsonBackend.ParseFailure)
+        where:
+        [backend, json] << [backends, [ '{ "a": ', '{ "a" 1 }', '[ 1, 2', '{ "a": tru }' ]].combinations()
+    }
+
+    def "gson backend accepts what the slurper lets through"() {
+        given:
+        String json = '{ "a": [ "${a}" ], }'
+        expect:
+        sameTree(new SlurperJsonBackend().parse(asStream(json)), new GsonJsonBackend().parse(asStream(json)))
+    }
+
+    def "gson backend keeps members in document order"() {
+        when:
+        Map parsed = new GsonJsonBackend().parse(asStream('{ "z": 1, "y": { "b": 2, "a": 3 }, "x": 4 }'))
+        then:
+        parsed.keySet().toList() == [ "z", "y", "x" ]
+        parsed.y.keySet().toList() == [ "b", "a" ]
+    }
+
+    def "gson backend keeps numbers beyond a long"() {
+        when:
+        Map parsed = new GsonJsonBackend().parse(asStream('{ "n": 99999999999999999999999 }'))
+        then:
+        parsed.n instanceof BigInteger
+        parsed.n == new BigInteger("99999999999999999999999")
+    }
+
+    @Unroll
+    def "json format with the #backend.name() backend still tells xml apart from malformed json"() {
+        given:
+        JsonFormat format = new JsonFormat(backend)
+        when:
+        format.parse('<?xml version="1.0"?><a>1</a>')
+        then:
+        thrown(JsonFormat.JSONParseException)
+        when:
+        format.parse('{ "a": ')
+        then:
+        thrown(VersionedSchemaParsed.MalformedException)
+        where:
+        backend << backends
+    }
+
+    def "backends can be looked up by name"() {
+        expect:
+        JsonBackends.lookup("slurper") instanceof SlurperJsonBackend
+        JsonBackends.lookup("gson") instanceof GsonJsonBackend
+    }
+
+    def "an unknown backend is reported"() {
+        when:
+        JsonBackends.lookup("klaxon")
+        then:
+        thrown(JsonBackends.UnknownBackend)
+    }
+
+    private static InputStream asStream(String s) {
+        new ByteArrayInputStream(s.getBytes("UTF-8"))
+    }
+}
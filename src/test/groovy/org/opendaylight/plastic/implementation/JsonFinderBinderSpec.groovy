@@ -733,4 +733,44 @@ class JsonFinderBinderSpec extends Specification {
         found["VALUE[1]"] == Long.MAX_VALUE
         found["VALUE[2]"] == 0.000000000000000000001
     }
+
+    def "only model paths related to a changed location are affected"() {
+        given:
+        def model = slurper.parseText('{ "a": { "b": "${B}" }, "list": [ { "x": "${X[*]}" } ], "c.d": "${CD}" }')
+        Map<String,VariablesFetcher> pathVars = [:]
+        instance.buildPathsToVariables(model, pathVars, [:])
+
+        expect:
+        instance.pathsAffectedBy(pathVars, changes) == expected as Set
+
+        where:
+        changes                         | expected
+        [ [ "a", "b" ] ]                | [ "a.b" ]
+        [ [ "a" ] ]                     | [ "a.b" ]
+        [ [ "a", "b", "deeper" ] ]      | [ "a.b" ]
+        [ [ "list", "3", "x" ] ]        | [ "list.[].x" ]
+        [ [ "list", "-" ] ]             | [ "list.[].x" ]
+        [ [ "list", "y" ] ]             | []
+        [ [ "c.d" ] ]                   | [ "c\\.d" ]
+        [ [] ]                          | [ "a.b", "list.[].x", "c\\.d" ]
+        [ [ "elsewhere" ] ]             | []
+    }
+
+    def "binding the affected paths again matches binding everything"() {
+        given:
+        def model = slurper.parseText('{ "a": "${A}", "list": [ { "x": "${X[*]}" } ], "other": [ "${X[*]}" ] }')
+        def before = slurper.parseText('{ "a": 1, "list": [ { "x": 1 }, { "x": 2 } ], "other": [ 7 ] }')
+        def after = slurper.parseText('{ "a": 1, "list": [ { "x": 1 }, { "x": 2 }, { "x": 3 } ], "other": [ 7 ] }')
+        Map<String,VariablesFetcher> pathVars = [:]
+        instance.buildPathsToVariables(model, pathVars, [:])
+        Map<String,Object> previous = instance.fetchVarToValues(pathVars, before)
+
+        when:
+        Map<String,Object> found = instance.rebind(pathVars, [ "list.[].x" ] as Set, previous, after)
+
+        then: "the other path shares X so it is bound again too"
+        found == instance.fetchVarToValues(pathVars, after)
+        found["_[X[*]]"] == "[3]"
+        found["A"] == 1
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+
+
+class JsonPatchSpec extends Specification {
+
+    def asJson(String s) {
+        new JsonSlurper().parseText(s)
+    }
+
+    def "the operations of a patch are applied in order"() {
+        given:
+        Object tree = asJson('{ "a": 1, "b": [ 1, 2, 3 ], "c": { "d": "x" } }')
+        JsonPatch patch = JsonPatch.parse('''[
+            { "op": "replace", "path": "/a", "value": 10 },
+            { "op": "add", "path": "/b/1", "value": 99 },
+            { "op": "add", "path": "/b/-", "value": 4 },
+            { "op": "remove", "path": "/b/0" },
+            { "op": "move", "from": "/c/d", "path": "/e" },
+            { "op": "copy", "from": "/b", "path": "/c/f" },
+            { "op": "test", "path": "/e", "value": "x" }
+        ]''')
+        when:
+        Object result = patch.applyTo(tree)
+        then:
+        result.is(tree)
+        result == asJson('{ "a": 10, "b": [ 99, 2, 3, 4 ], "c": { "f": [ 99, 2, 3, 4 ] }, "e": "x" }')
+        !result['c']['f'].is(result['b'])
+    }
+
+    def "replacing the whole document gives a new root"() {
+        expect:
+        JsonPatch.parse('[ { "op": "replace", "path": "", "value": [ 1 ] } ]').applyTo(asJson('{ "a": 1 }')) == [ 1 ]
+    }
+
+    def "pointer tokens are unescaped"() {
+        expect:
+        JsonPatch.tokens("/a~1b/c~0d/") == [ "a/b", "c~d", "" ]
+        JsonPatch.pointer([ "a/b", "c~d" ]) == "/a~1b/c~0d"
+        JsonPatch.tokens("") == []
+    }
+
+    def "operations that cannot be applied are reported"() {
+        when:
+        JsonPatch.parse(patch).applyTo(asJson('{ "a": [ 1, 2 ], "b": { "c": 1 } }'))
+        then:
+        thrown(JsonPatch.PatchFailed)
+        where:
+        patch << [
+            '[ { "op": "remove", "path": "/x" } ]',
+            '[ { "op": "replace", "path": "/a/2", "value": 0 } ]',
+            '[ { "op": "add", "path": "/a/3", "value": 0 } ]',
+            '[ { "op": "add", "path": "/x/y", "value": 0 } ]',
+            '[ { "op": "test", "path": "/b/c", "value": 2 } ]',
+            '[ { "op": "move", "from": "/b", "path": "/b/d" } ]',
+        ]
+    }
+
+    def "malformed patches are rejected"() {
+        when:
+        JsonPatch.parse(patch)
+        then:
+        thrown(JsonPatch.BadPatch)
+        where:
+        patch << [
+            '{ "op": "remove", "path": "/x" }',
+            '[ { "op": "frobnicate", "path": "/x" } ]',
+            '[ { "op": "add", "path": "/x" } ]',
+            '[ { "op": "remove", "path": "x" } ]',
+            '[ { "op": "move", "path": "/x" } ]',
+        ]
+    }
+
+    def "numbers are compared by value"() {
+        expect:
+        JsonPatch.same(1, 1.0G)
+        JsonPatch.same([ a: [ 1L, "x" ] ], [ a: [ 1, "x" ] ])
+        !JsonPatch.same([ a: 1 ], [ a: 1, b: null ])
+    }
+
+    def "a diff turns one tree into the other"() {
+        given:
+        Object before = asJson(left)
+        Object after = asJson(right)
+        when:
+        JsonPatch patch = JsonPatch.diff(before, after)
+        then:
+        patch.asParsed() == asJson(expected)
+        JsonPatch.parse(patch.emit()).applyTo(asJson(left)) == after
+        where:
+        left                                | right                                 | expected
+        '{ "a": 1, "b": 2 }'                | '{ "a": 1, "b": 2 }'                  | '[]'
+        '{ "a": 1, "b": 2 }'                | '{ "a": 3, "c": 4 }'                  | '[ { "op": "remove", "path": "/b" }, { "op": "replace", "path": "/a", "value": 3 }, { "op": "add", "path": "/c", "value": 4 } ]'
+        '{ "a": [ 1, 2, 3 ] }'              | '{ "a": [ 1, 5 ] }'                   | '[ { "op": "replace", "path": "/a/1", "value": 5 }, { "op": "remove", "path": "/a/2" } ]'
+        '{ "a": [ 1 ] }'                    | '{ "a": [ 1, { "b": 2 }, 3 ] }'       | '[ { "op": "add", "path": "/a/1", "value": { "b": 2 } }, { "op": "add", "path": "/a/2", "value": 3 } ]'
+        '{ "a/b": { "c": 1 } }'             | '{ "a/b": { "c": [] } }'              | '[ { "op": "replace", "path": "/a~1b/c", "value": [] } ]'
+        '[ 1 ]'                             | '{ "a": 1 }'                          | '[ { "op": "add", "path": "", "value": { "a": 1 } } ]'
+    }
+
+    def "the locations written to are the paths and the sources of moves"() {
+        given:
+        JsonPatch patch = JsonPatch.parse('''[
+            { "op": "test", "path": "/a", "value": 1 },
+            { "op": "move", "from": "/b/0", "path": "/c" },
+            { "op": "remove", "path": "/d~1e" }
+        ]''')
+        expect:
+        patch.touched() == [ [ "c" ], [ "b", "0" ], [ "d/e" ] ]
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+
+
+class LatencyHistogramSpec extends Specification {
+
+    def "an empty histogram reports zeroes"() {
+        given:
+        LatencyHistogram instance = new LatencyHistogram()
+        when:
+        LatencyHistogram.Snapshot snap = instance.snapshot()
+        then:
+        snap.count == 0
+        snap.mean == 0
+        snap.p99 == 0
+    }
+
+    def "bucket bounds always contain the recorded value"() {
+        expect:
+        LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(value)) >= value
+        and:
+        LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(value)) <= (long) (value * 1.25 + 1)
+        where:
+        value << [0L, 1L, 3L, 4L, 5L, 7L, 8L, 1000L, 123456789L, Long.MAX_VALUE >> 1]
+    }
+
+    def "percentiles are within the bucket resolution"() {
+        given:
+        LatencyHistogram instance = new LatencyHistogram()
+        when:
+        (1..1000).each { instance.record(it) }
+        LatencyHistogram.Snapshot snap = instance.snapshot()
+        then:
+        snap.count == 1000
+        snap.max == 1000
+        snap.sum == 500500
+        snap.p50 >= 500 && snap.p50 <= 625
+        snap.p99 >= 990 && snap.p99 <= 1000
+    }
+
+    def "a histogram can be reset"() {
+        given:
+        LatencyHistogram instance = new LatencyHistogram()
+        100.times { instance.record(42) }
+        when:
+        instance.reset()
+        then:
+        instance.count() == 0
+        instance.snapshot().max == 0
+    }
+
+    def "a histogram can be recorded concurrently"() {
+        given:
+        LatencyHistogram instance = new LatencyHistogram()
+        when:
+        List<Thread> threads = (1..8).collect {
+            Thread.start { 10000.times { instance.record(it) } }
+        }
+        threads.each { it.join() }
+        then:
+        instance.count() == 80000
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+
+import static org.opendaylight.plastic.implementation.ArtifactBundleSpec.writeBundle
+
+
+class LiveArtifactBundleSpec extends Specification {
+
+    File bundleFile = File.createTempFile("plastic-bundle", ".zip")
+
+    def setup() {
+        bundleFile.deleteOnExit()
+    }
+
+    // Rewritten bundles get a distinctly later modification time, as with a deployment
+    //
+    void rewrite(Closure writing) {
+        long before = bundleFile.lastModified()
+        writing()
+        bundleFile.setLastModified(before + 2000)
+    }
+
+    def "an unchanged bundle is not swapped"() {
+        given:
+        writeBundle(bundleFile, [ "schemas/foo-1.0.json": "{}" ])
+        LiveArtifactBundle instance = new LiveArtifactBundle(bundleFile)
+        ArtifactBundle original = instance.get()
+        expect:
+        !instance.refresh()
+        instance.get().is(original)
+    }
+
+    def "a changed bundle is swapped in as a whole"() {
+        given:
+        writeBundle(bundleFile, [ "schemas/foo-1.0.json": "{}" ])
+        LiveArtifactBundle instance = new LiveArtifactBundle(bundleFile)
+        and:
+        rewrite { writeBundle(bundleFile, [ "schemas/bar-1.0.json": "[]", "morphers/bar-1.0.groovy": "class Bar {}" ]) }
+        when:
+        boolean swapped = instance.refresh()
+        then:
+        swapped
+        instance.get().files("schemas").keySet() == ["bar-1.0.json"] as Set
+        instance.get().areaNames() == ["schemas", "morphers"] as Set
+    }
+
+    def "an unusable replacement leaves the current bundle in place"() {
+        given:
+        writeBundle(bundleFile, [ "schemas/foo-1.0.json": "{}" ])
+        LiveArtifactBundle instance = new LiveArtifactBundle(bundleFile)
+        and:
+        rewrite { bundleFile.text = "half written" }
+        when:
+        boolean swapped = instance.refresh()
+        then:
+        !swapped
+        instance.get().files("schemas").keySet() == ["foo-1.0.json"] as Set
+    }
+
+    def "a replacement written within the same clock tick is checked against its contents"() {
+        given:
+        writeBundle(bundleFile, [ "schemas/foo-1.0.json": "{}" ])
+        LiveArtifactBundle instance = new LiveArtifactBundle(bundleFile)
+        long opened = bundleFile.lastModified()
+        and:
+        bundleFile.text = "half written"
+        bundleFile.setLastModified(opened)
+        when:
+        boolean swapped = instance.refresh()
+        then:
+        !swapped
+        instance.get().files("schemas").keySet() == ["foo-1.0.json"] as Set
+    }
+
+    def "no bundle is configured by default"() {
+        expect:
+        LiveArtifactBundle.configured(new AppContext(), new SearchPath()) == null
+    }
+
+    def "a configured bundle is opened"() {
+        given:
+        writeBundle(bundleFile, [ "schemas/foo-1.0.json": "{}" ])
+        AppContext props = Mock()
+        props.getOrElse(LiveArtifactBundle.BUNDLE_PROPERTY, _) >> bundleFile.absolutePath
+        when:
+        LiveArtifactBundle instance = LiveArtifactBundle.configured(props, new SearchPath())
+        then:
+        instance.file == bundleFile.absoluteFile
+        instance.get().files("schemas").size() == 1
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicLong
+
+
+class LoadRunnerSpec extends Specification {
+
+    // Fails any payload that says so, otherwise echoes it
+
+    static class CountingCartography implements Cartography {
+
+        AtomicLong calls = new AtomicLong()
+
+        @Override
+        String translate(VersionedSchema input, VersionedSchema output, String payload) {
+            translateWithDefaults(input, output, payload, EMPTY_DEFAULTS)
+        }
+
+        @Override
+        String translateWithDefaults(VersionedSchema input, VersionedSchema output, String payload, String defaults) {
+            calls.incrementAndGet()
+            if (payload == "plastic-fail")
+                throw new PlasticException("PLASTIC-TEST-FAIL", "failed on purpose")
+            if (payload == "other-fail")
+                throw new IllegalStateException("failed on purpose")
+            payload
+        }
+
+        @Override
+        void close() {
+        }
+    }
+
+    File casesDir = File.createTempDir()
+
+    def cleanup() {
+        casesDir.deleteDir()
+    }
+
+    WarmUp.Sample aCase(String payload) {
+        WarmUp.Sample sample = new WarmUp.Sample()
+        sample.source = payload
+        sample.input = new VersionedSchema("in", "1.0", "json")
+        sample.output = new VersionedSchema("out", "1.0", "json")
+        sample.payload = payload
+        sample.defaults = Cartography.EMPTY_DEFAULTS
+        sample
+    }
+
+    LoadRunner.Options options(double rate) {
+        LoadRunner.Options options = new LoadRunner.Options()
+        options.concurrency = 2
+        options.rate = rate
+        options.warmUpSeconds = 0
+        options.durationSeconds = 1
+        options
+    }
+
+    def "cases are read from runner properties files"() {
+        given:
+        new File(casesDir, "a-payload.json").text = '{ "a": 1 }'
+        new File(casesDir, "a.properties").text = '''
+            in-schema-name = in
+            in-schema-version = 1.0
+            in-schema-type = json
+            out-schema-name = out
+            out-schema-version = 1.0
+            out-schema-type = json
+            payload-file = a-payload.json
+            defaults-file =
+        '''
+        new File(casesDir, "b.properties").text = "in-schema-name = incomplete"
+        new File(casesDir, "ignored.txt").text = "not a case"
+        when:
+        List<WarmUp.Sample> cases = LoadRunner.readCases(casesDir)
+        then:
+        cases.size() == 1
+        cases[0].input == new VersionedSchema("in", "1.0", "json")
+        cases[0].payload == '{ "a": 1 }'
+    }
+
+    def "errors are keyed by their plastic code"() {
+        expect:
+        LoadRunner.errorKey(new PlasticException("PLASTIC-SOME-CODE", "oops")) == "PLASTIC-SOME-CODE"
+        LoadRunner.errorKey(new RuntimeException(new PlasticException("PLASTIC-WRAPPED", "oops"))) == "PLASTIC-WRAPPED"
+        LoadRunner.errorKey(new IllegalStateException("oops")) == "IllegalStateException"
+    }
+
+    def "options are read from the app properties"() {
+        given:
+        AppContext props = Mock()
+        props.getOrElse(LoadRunner.CONCURRENCY_PROPERTY, _) >> "3"
+        props.getOrElse(LoadRunner.RATE_PROPERTY, _) >> "250"
+        props.getOrElse(LoadRunner.WARMUP_SECONDS_PROPERTY, _) >> "5"
+        props.getOrElse(LoadRunner.DURATION_SECONDS_PROPERTY, _) >> "60"
+        when:
+        LoadRunner.Options options = LoadRunner.Options.from(props)
+        then:
+        options.concurrency == 3
+        options.rate == 250.0d
+        options.warmUpSeconds == 5
+        options.durationSeconds == 60
+    }
+
+    def "there must be something to replay"() {
+        when:
+        new LoadRunner(new CountingCartography(), [], options(0))
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "unlimited load reports throughput, latencies and errors by code"() {
+        given:
+        CountingCartography cartography = new CountingCartography()
+        List<WarmUp.Sample> cases = [ aCase("ok"), aCase("plastic-fail"), aCase("other-fail"), aCase("ok") ]
+        when:
+        LoadRunner.Report report = new LoadRunner(cartography, cases, options(0)).run()
+        then:
+        report.succeeded > 0
+        report.succeeded + report.failed == cartography.calls.get()
+        report.errors.keySet() == ["PLASTIC-TEST-FAIL", "IllegalStateException"] as Set
+        report.errors.values().sum() == report.failed
+        report.latency.count == cartography.calls.get()
+        report.throughput > 0
+        report.seconds >= 1.0d
+    }
+
+    def "a target rate limits the translations done"() {
+        given:
+        CountingCartography cartography = new CountingCartography()
+        when:
+        LoadRunner.Report report = new LoadRunner(cartography, [ aCase("ok") ], options(50)).run()
+        then:
+        report.succeeded >= 45
+        report.succeeded <= 50
+        report.targetRate == 50.0d
+    }
+
+    def "the report is machine readable"() {
+        given:
+        LoadRunner.Report report = new LoadRunner(new CountingCartography(), [ aCase("ok") ], options(20)).run()
+        when:
+        Map parsed = (Map) new JsonSlurper().parseText(report.asJson())
+        then:
+        parsed.keySet().containsAll(["throughput", "latency-micros", "allocated-bytes", "allocation-bytes-per-sec", "errors"])
+        parsed["latency-micros"].keySet().containsAll(["p50", "p99", "p999"])
+        parsed["succeeded"] == report.succeeded
+    }
+}
@@ -0,0 +1,89 @@
+package org.opendaylight.plastic.implementation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// src/test/scripts/map-task-benchmark.sh
+// or
+// java -jar target/odl-plastic-*-fat-tests.jar MapTaskBenchmark
+//
+// Covers the per-translation pipeline after classification: parse the payload, bind,
+// run a morpher, inject into a copy of the output schema, and emit.
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 8)
+public class MapTaskBenchmark {
+
+    public static class Tweaker {
+        public void tweakValues(Map inputs, Map outputs) {
+        }
+    }
+
+    public static class Pipeline {
+
+        final VersionedSchema input;
+        final Schema model;
+        final Schema output;
+        final Schema defaults;
+        final Morpher morpher;
+        final String payload;
+
+        Pipeline(String type, String model, String output, String payload) {
+            this.input = new VersionedSchema("in", "1.0", type);
+            this.model = new Schema(input, model);
+            this.output = new Schema(new VersionedSchema("out", "1.0", type), output);
+            this.defaults = new Schema(new VersionedSchema("defaults", "1.0", type), "");
+            this.morpher = new Morpher(input, new Tweaker(), "tweaker.groovy");
+            this.payload = payload;
+        }
+
+        String translate() {
+            TranslationPlan<Schema,Morpher> plan =
+                    new TranslationPlan<>(model, output.clone(), Collections.singletonList(morpher));
+            MapTask task = new MapTask(plan);
+            return task.map(new Schema(input, payload), defaults).emit();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pipelines {
+
+        Pipeline json = new Pipeline("json",
+                "{ \"name\": \"${name}\", \"mtu\": \"${mtu}\", \"speed\": \"${speed}\", " +
+                        "\"addresses\": [ \"${ADD[*]}\" ] }",
+                "{ \"interface\": { \"id\": \"${name}\", \"mtu\": \"${mtu}\", \"bandwidth\": \"${speed}\", " +
+                        "\"ipv4\": [ \"${ADD[*]}\" ] } }",
+                "{ \"name\": \"eth0\", \"mtu\": 1500, \"speed\": \"10G\", " +
+                        "\"addresses\": [ \"1.2.3.4\", \"5.6.7.8\", \"9.10.11.12\" ] }");
+
+        Pipeline xml = new Pipeline("xml",
+                "<device><name>${name}</name><mtu>${mtu}</mtu><speed>${speed}</speed><address>${address}</address></device>",
+                "<interface><id>${name}</id><mtu>${mtu}</mtu><bandwidth>${speed}</bandwidth><ipv4>${address}</ipv4></interface>",
+                "<device><name>eth0</name><mtu>1500</mtu><speed>10G</speed><address>1.2.3.4</address></device>");
+    }
+
+    @Benchmark
+    public void json(Pipelines pipelines, Blackhole blackhole) {
+        blackhole.consume(pipelines.json.translate());
+    }
+
+    @Benchmark
+    public void xml(Pipelines pipelines, Blackhole blackhole) {
+        blackhole.consume(pipelines.xml.translate());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import com.google.common.io.Files
+import spock.lang.Specification
+
+
+class OverlayFilenamesCacheSpec extends Specification {
+
+    File sharedDir = Files.createTempDir()
+    File overlayDir = Files.createTempDir()
+
+    FilenamesCache shared = new FilenamesCache(sharedDir)
+    OverlayFilenamesCache instance = new OverlayFilenamesCache(overlayDir.absolutePath, shared)
+
+    File write(File dir, String name, String content) {
+        File f = new File(dir, name)
+        f.text = content
+        f
+    }
+
+    def setup() {
+        write(sharedDir, "a.json", "shared a")
+        write(sharedDir, "b.json", "shared b")
+        write(overlayDir, "b.json", "overlay b")
+        write(overlayDir, "c.json", "overlay c")
+        shared.scan()
+        instance.scan()
+    }
+
+    def cleanup() {
+        sharedDir.deleteDir()
+        overlayDir.deleteDir()
+    }
+
+    def "overlay files shadow shared files with the same name"() {
+        expect:
+        new String(instance.read(instance.getFile("a.json"))) == "shared a"
+        new String(instance.read(instance.getFile("b.json"))) == "overlay b"
+        new String(instance.read(instance.getFile("c.json"))) == "overlay c"
+        instance.getFile("d.json") == null
+    }
+
+    def "the files are the union with shadowed ones left out"() {
+        expect:
+        instance.filePaths().collect { new File(it).name }.sort() == [ "a.json", "b.json", "c.json" ]
+        instance.filePaths().find { it.endsWith("b.json") }.startsWith(overlayDir.absolutePath)
+        instance.fileCount() == 3
+    }
+
+    def "both the overlay and the shared directory are watched"() {
+        expect:
+        instance.root() == overlayDir.absolutePath
+        instance.roots() == [ overlayDir.absolutePath, sharedDir.absolutePath ]
+    }
+
+    def "scanning only rescans the overlay"() {
+        given:
+        write(sharedDir, "d.json", "shared d")
+        write(overlayDir, "e.json", "overlay e")
+        when:
+        instance.scan()
+        then:
+        instance.getFile("d.json") == null
+        instance.getFile("e.json") != null
+    }
+}
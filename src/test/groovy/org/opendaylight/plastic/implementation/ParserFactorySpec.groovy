@@ -36,7 +36,7 @@ class ParserFactorySpec extends Specification {
         given:
         def found = instance.allSupportedTypes() as Set
         expect:
-        found == ["json", "xml", "cjson"] as Set
+        found == ["json", "xml", "cjson", "cbor"] as Set
     }
 
     def "a parsed schema for supported input and output can be created"() {
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+
+import java.nio.file.Path
+
+
+class PlasticRuntimeSpec extends Specification {
+
+    static final String MORPHER = '''
+        import org.opendaylight.plastic.implementation.BasicMorpher
+
+        class RuntimeSpecMorpher extends BasicMorpher {
+            void tweakValues(Map ins, Map outs) {
+                outs['status'] = properties['morpher-status'] ?: 'none'
+            }
+        }
+    '''
+
+    VersionedSchema input = new VersionedSchema("rt-in", "1.0", "json")
+    VersionedSchema output = new VersionedSchema("rt-out", "1.0", "json")
+
+    Path sharedRoot = ShortCircuit.createTempDirs("plastic-runtime-${UUID.randomUUID()}", "lib", "classifiers", "morphers", "schemas")
+    Path overlayRoot = ShortCircuit.createTempDirs("plastic-overlay-${UUID.randomUUID()}", "schemas")
+
+    PlasticRuntime runtime
+    List<CartographerWorker> workers = []
+
+    def setup() {
+        write(sharedRoot, "schemas/rt-in-1.0.json", '{ "name": "${name}" }')
+        write(sharedRoot, "schemas/rt-out-1.0.json", '{ "id": "${name}", "status": "${status}" }')
+        write(sharedRoot, "morphers/rt-in-1.0.groovy", MORPHER)
+        runtime = new PlasticRuntime(new SearchPath(sharedRoot), 0)
+    }
+
+    def cleanup() {
+        workers.each { it.close() }
+        runtime.close()
+        sharedRoot.toFile().deleteDir()
+        overlayRoot.toFile().deleteDir()
+    }
+
+    static void write(Path root, String name, String content) {
+        new File(root.toFile(), name).text = content
+    }
+
+    CartographerWorker worker() {
+        CartographerWorker found = runtime.newWorker()
+        workers.add(found)
+        found
+    }
+
+    CartographerWorker worker(Path overlay) {
+        CartographerWorker found = runtime.newWorker(new SearchPath(overlay))
+        workers.add(found)
+        found
+    }
+
+    Object translate(CartographerWorker worker) {
+        new JsonSlurper().parseText(worker.translate(input, output, '{ "name": "eth0" }'))
+    }
+
+    def "workers on a runtime share its compiled classes, schemas, and threads"() {
+        given:
+        CartographerWorker first = worker()
+        CartographerWorker second = worker()
+        when:
+        Object one = translate(first)
+        Object two = translate(second)
+        then:
+        one == [ id: "eth0", status: "none" ]
+        two == one
+        runtime.shared.morpherLoader.gparser.seenClasses.size() == 1
+        runtime.shared.schemaSource.size() == 2
+        runtime.shared.schemaSource.stats().loadCount() == 2
+        first.runtime.is(second.runtime)
+    }
+
+    def "an overlay shadows shared files of the same name and adds its own properties"() {
+        given:
+        write(overlayRoot, "schemas/rt-out-1.0.json", '{ "overlaid": "${name}", "status": "${status}" }')
+        write(overlayRoot, "plastic.properties", 'morpher-status = overlaid')
+        CartographerWorker plain = worker()
+        CartographerWorker overlaid = worker(overlayRoot)
+        expect:
+        translate(overlaid) == [ overlaid: "eth0", status: "overlaid" ]
+        translate(plain) == [ id: "eth0", status: "none" ]
+        runtime.shared.morpherLoader.gparser.seenClasses.size() == 1
+    }
+
+    def "an overlay without a directory uses the shared one"() {
+        given:
+        CartographerWorker overlaid = worker(overlayRoot)
+        expect:
+        translate(overlaid) == [ id: "eth0", status: "none" ]
+    }
+
+    def "closing a worker leaves the runtime and the other workers running"() {
+        given:
+        write(overlayRoot, "schemas/rt-out-1.0.json", '{ "overlaid": "${name}" }')
+        CartographerWorker first = worker(overlayRoot)
+        CartographerWorker second = worker()
+        when:
+        first.close()
+        then:
+        translate(second) == [ id: "eth0", status: "none" ]
+        !runtime.executor.isShutdown()
+    }
+
+    def "a worker made the usual way has a runtime of its own"() {
+        given:
+        CartographerWorker instance = new CartographerWorker(new SearchPath(sharedRoot), 0)
+        when:
+        instance.close()
+        then:
+        instance.runtime.executor.isShutdown()
+        !runtime.executor.isShutdown()
+    }
+}
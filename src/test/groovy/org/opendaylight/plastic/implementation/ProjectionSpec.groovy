@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+
+
+class ProjectionSpec extends Specification {
+
+    static class ReadingMorpher extends BasicMorpher {
+        ReadingMorpher() {
+            readsInputs("speed")
+        }
+
+        void tweakValues(Map inputs, Map outputs) {
+            outputs['label'] = "${inputs['name']}@${inputs['speed']}".toString()
+        }
+    }
+
+    static class UndeclaredMorpher extends BasicMorpher {
+        void tweakValues(Map inputs, Map outputs) {
+        }
+    }
+
+    static class TreeMorpher {
+        void tweakParsed(Object inTree, Object outTree) {
+        }
+    }
+
+    static class WideClassifier extends SimpleClassifier {
+        @Override
+        String classify(Object parsedPayload) {
+            "wide-in"
+        }
+    }
+
+    VersionedSchema wideIn = new VersionedSchema("wide-in", "1.0", "json")
+    VersionedSchema narrowOut = new VersionedSchema("narrow-out", "1.0", "json")
+
+    Schema wide = new Schema(wideIn, '''{
+        "name": "${name}",
+        "mtu": "${mtu}",
+        "speed": "${speed}",
+        "addresses": [ "${ADDR[*]}" ],
+        "counters": { "rx": "${rx}", "tx": "${tx}" }
+    }''')
+
+    Schema narrow = new Schema(narrowOut, '{ "id": "${name}", "ips": [ "${ADDR[*]}" ] }')
+
+    SchemaLoader schemas = new ShortCircuit.TestSchemaLoader()
+            .add("wide-in", wide.emit())
+            .add("narrow-out", narrow.emit())
+            .add("labeled-out", '{ "id": "${name}", "label": "${label}" }')
+
+    ShortCircuit.TestMorpherFactory morphers = new ShortCircuit.TestMorpherFactory()
+            .add("labeled-out", morpher(new ReadingMorpher()))
+
+    CartographerWorker worker = new CartographerWorker(ShortCircuit.useStandardCaches(), new Poller(),
+            new ShortCircuit.TestPlanResolution(schemas, morphers),
+            new ShortCircuit.TestClassifierResolver().addSimple("wide", new WideClassifier()))
+
+    VersionedSchema unresolved = new VersionedSchema('${wide}', "1.0", "json")
+
+    Morpher morpher(Object wrapped) {
+        new Morpher(narrowOut, wrapped, "some-morpher.groovy")
+    }
+
+    Object asJson(String raw) {
+        new JsonSlurper().parseText(raw)
+    }
+
+    def cleanup() {
+        worker.close()
+    }
+
+    def "only the inputs used by the output are kept"() {
+        when:
+        Projection found = Projection.of(wide, narrow, [])
+        then:
+        !found.isEverything()
+        found.pruned == [ "mtu", "speed", "rx", "tx" ] as Set
+        found.keeps("name")
+        found.keeps("ADDR[3]")
+        found.keeps("_[ADDR[*]]")
+        found.keeps("_hidden")
+        !found.keeps("mtu")
+    }
+
+    def "morphers can add the inputs they read"() {
+        expect:
+        !Projection.of(wide, narrow, [ morpher(new ReadingMorpher()) ]).pruned.contains("speed")
+        Projection.of(wide, narrow, [ morpher(new TreeMorpher()) ]).pruned.contains("speed")
+    }
+
+    def "morphers that may read any input keep everything"() {
+        expect:
+        Projection.of(wide, narrow, [ morpher(new UndeclaredMorpher()) ]).isEverything()
+    }
+
+    def "projections are kept for clones of the same schemas"() {
+        given:
+        Projection.Memo memo = new Projection.Memo()
+        List<Morpher> none = []
+        when:
+        Projection first = memo.lookup(wide, narrow, none)
+        then:
+        memo.lookup(wide.clone(), narrow.clone(), none).is(first)
+        !memo.lookup(new Schema(wideIn, wide.emit()), narrow, none).is(first)
+        memo.size() == 2
+    }
+
+    def "binding skips the payload paths that are not kept"() {
+        given:
+        Schema payload = new Schema(wideIn, '{ "name": "eth0", "mtu": 1500, "addresses": [ "10.0.0.1" ], "counters": { "rx": 1, "tx": 2 } }')
+        Projection projection = Projection.of(wide, narrow, [])
+        when:
+        Map bound = wide.bindValues(payload, projection).bindings()
+        then:
+        bound.keySet().every { projection.keeps(it) }
+        bound['name'] == "eth0"
+        bound['ADDR[0]'] == "10.0.0.1"
+        !bound.containsKey('mtu')
+        !bound.containsKey('rx')
+    }
+
+    def "inputs that are not used may be missing from the payload"() {
+        when:
+        String found = worker.translateWithDefaults(unresolved, narrowOut, '{ "name": "eth0", "addresses": [ "10.0.0.1", "10.0.0.2" ] }', Cartography.EMPTY_DEFAULTS)
+        then:
+        asJson(found) == [ id: "eth0", ips: [ "10.0.0.1", "10.0.0.2" ] ]
+    }
+
+    def "inputs read by a morpher are still bound and validated"() {
+        given:
+        VersionedSchema labeled = new VersionedSchema("labeled-out", "1.0", "json")
+        when:
+        String found = worker.translateWithDefaults(unresolved, labeled, '{ "name": "eth0", "speed": "10G" }', Cartography.EMPTY_DEFAULTS)
+        then:
+        asJson(found) == [ id: "eth0", label: "eth0@10G" ]
+        when:
+        worker.translateWithDefaults(unresolved, labeled, '{ "name": "eth0" }', Cartography.EMPTY_DEFAULTS)
+        then:
+        MapTask.MissingInputsException e = thrown()
+        e.missings == [ "speed" ] as Set
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+
+
+class RunnerProtocolSpec extends Specification {
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+    DataOutputStream out = new DataOutputStream(bytes)
+
+    DataInputStream written() {
+        out.flush()
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+    }
+
+    def "translate requests survive a round trip"() {
+        given:
+        RunnerProtocol.writeTranslate(out, 42, new VersionedSchema("in", "1.0", "json"),
+                new VersionedSchema("out", "2.0", "xml"), '{ "a": "\u00fc" }', null)
+        when:
+        RunnerProtocol.Request found = RunnerProtocol.readRequest(written())
+        then:
+        found.id == 42
+        found.op == RunnerProtocol.TRANSLATE
+        [found.inName, found.inVersion, found.inType] == ["in", "1.0", "json"]
+        [found.outName, found.outVersion, found.outType] == ["out", "2.0", "xml"]
+        found.payload == '{ "a": "\u00fc" }'
+        found.defaults == null
+    }
+
+    def "pipelined requests are read back in order"() {
+        given:
+        RunnerProtocol.writeTranslate(out, 1, new VersionedSchema("in", "1.0", "json"),
+                new VersionedSchema("out", "1.0", "json"), "{}", "{ \"d\": 1 }")
+        RunnerProtocol.writeStats(out, 2)
+        DataInputStream inp = written()
+        when:
+        RunnerProtocol.Request first = RunnerProtocol.readRequest(inp)
+        RunnerProtocol.Request second = RunnerProtocol.readRequest(inp)
+        RunnerProtocol.Request third = RunnerProtocol.readRequest(inp)
+        then:
+        first.id == 1
+        first.defaults == '{ "d": 1 }'
+        second.id == 2
+        second.op == RunnerProtocol.STATS
+        third == null
+    }
+
+    def "responses survive a round trip"() {
+        given:
+        RunnerProtocol.writeResponse(out, 7, RunnerProtocol.FAILED, "no such schema")
+        when:
+        RunnerProtocol.Response found = RunnerProtocol.readResponse(written())
+        then:
+        found.id == 7
+        !found.isOk()
+        found.body == "no such schema"
+    }
+
+    def "unknown operations are bad frames"() {
+        given:
+        out.writeInt(1)
+        out.writeByte(0x5A)
+        when:
+        RunnerProtocol.readRequest(written())
+        then:
+        thrown(RunnerProtocol.BadFrameException)
+    }
+
+    def "negative string lengths are bad frames"() {
+        given:
+        out.writeInt(-5)
+        when:
+        RunnerProtocol.readString(written())
+        then:
+        thrown(RunnerProtocol.BadFrameException)
+    }
+
+    def "a frame cut short is an error"() {
+        given:
+        out.writeInt(1)
+        out.writeByte(RunnerProtocol.TRANSLATE)
+        out.writeInt(10)
+        when:
+        RunnerProtocol.readRequest(written())
+        then:
+        thrown(EOFException)
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+
+
+class RunnerServerSpec extends Specification {
+
+    // Echoes the payload back, with the defaults (if any) appended
+
+    static class EchoService implements CartographyService {
+
+        CountDownLatch gate = new CountDownLatch(0)
+
+        @Override
+        String translate(String inSchemaName, String inVersion, String inType,
+                         String outSchemaName, String outVersion, String outType, String payload) {
+            translate(inSchemaName, inVersion, inType, outSchemaName, outVersion, outType, payload, "")
+        }
+
+        @Override
+        String translate(String inSchemaName, String inVersion, String inType,
+                         String outSchemaName, String outVersion, String outType, String payload, String defaults) {
+            if (payload == "fail")
+                throw new IllegalStateException("failed on purpose")
+            if (payload == "slow")
+                gate.await(10, TimeUnit.SECONDS)
+            "${outSchemaName}:${payload}${defaults}".toString()
+        }
+
+        @Override
+        void close() {
+        }
+    }
+
+    EchoService service = new EchoService()
+    RunnerServer server = new RunnerServer(service, 0, 4).start()
+    RunnerClient client = new RunnerClient(server.port)
+
+    VersionedSchema input = new VersionedSchema("in", "1.0", "json")
+    VersionedSchema output = new VersionedSchema("out", "1.0", "json")
+
+    def cleanup() {
+        client.close()
+        server.close()
+    }
+
+    def "a translation is served"() {
+        expect:
+        client.translate("in", "1.0", "json", "out", "1.0", "json", "abc") == "out:abc"
+        client.translate("in", "1.0", "json", "out", "1.0", "json", "abc", "-d") == "out:abc-d"
+    }
+
+    def "pipelined translations are matched to their own results"() {
+        when:
+        List<Future<String>> futures = (0..<200).collect { int i -> client.submit(input, output, "p${i}".toString(), null) }
+        then:
+        futures.withIndex().every { Future<String> f, int i -> RunnerClient.await(f) == "out:p${i}" }
+    }
+
+    def "a slow translation does not hold up later ones on the same connection"() {
+        given:
+        service.gate = new CountDownLatch(1)
+        when:
+        Future<String> slow = client.submit(input, output, "slow", null)
+        String fast = RunnerClient.await(client.submit(input, output, "fast", null))
+        then:
+        fast == "out:fast"
+        !slow.isDone()
+        when:
+        service.gate.countDown()
+        then:
+        RunnerClient.await(slow) == "out:slow"
+    }
+
+    def "a failed translation is reported to its caller only"() {
+        when:
+        client.translate("in", "1.0", "json", "out", "1.0", "json", "fail")
+        then:
+        RunnerClient.RemoteTranslationException e = thrown()
+        e.message.contains("failed on purpose")
+        and:
+        client.translate("in", "1.0", "json", "out", "1.0", "json", "ok") == "out:ok"
+    }
+
+    def "several clients can share the server"() {
+        given:
+        RunnerClient other = new RunnerClient(server.port)
+        expect:
+        other.translate("in", "1.0", "json", "out", "1.0", "json", "x") == "out:x"
+        client.translate("in", "1.0", "json", "out", "1.0", "json", "y") == "out:y"
+        cleanup:
+        other.close()
+    }
+
+    def "stats are published to clients"() {
+        given:
+        (0..<10).each { client.translate("in", "1.0", "json", "out", "1.0", "json", "p") }
+        Future<String> failing = client.submit(input, output, "fail", null)
+        when:
+        failing.get(10, TimeUnit.SECONDS)
+        then:
+        thrown(Exception)
+        when:
+        Map stats = client.stats()
+        then:
+        stats["translated"] == 10
+        stats["failed"] == 1
+        stats["connections"] == 1
+        stats["latency-micros"]["count"] == 11
+    }
+
+    def "pending translations fail once the server goes away"() {
+        given:
+        service.gate = new CountDownLatch(1)
+        Future<String> slow = client.submit(input, output, "slow", null)
+        when:
+        server.close()
+        service.gate.countDown()
+        RunnerClient.await(slow)
+        then:
+        thrown(PlasticException)
+    }
+}
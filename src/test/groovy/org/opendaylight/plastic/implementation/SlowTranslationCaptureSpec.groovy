@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+
+
+class SlowTranslationCaptureSpec extends Specification {
+
+    static class FixedClassifier extends SimpleClassifier {
+        @Override
+        String classify(Object parsedPayload) {
+            "dev-in"
+        }
+    }
+
+    VersionedSchema input = new VersionedSchema("dev-in", "1.0", "json")
+    VersionedSchema output = new VersionedSchema("dev-out", "1.0", "json")
+
+    File dumpDir = File.createTempDir()
+
+    def cleanup() {
+        dumpDir.deleteDir()
+    }
+
+    SlowTranslationCapture capture(long latencyMillis, int payloadChars, int capacity, SlowTranslationCapture.Payloads payloads) {
+        new SlowTranslationCapture(true, latencyMillis, payloadChars, capacity, payloads, "")
+    }
+
+    long[] trace() {
+        new long[TranslationMetrics.Phase.values().length + 1]
+    }
+
+    CartographerWorker worker(Map<String,String> props) {
+        AppContext context = new AppContext()
+        props.each { k, v -> context.props.put(k, v) }
+        SchemaLoader schemas = new ShortCircuit.TestSchemaLoader()
+                .add("dev-in", '{ "name": "${name}", "mtu": "${mtu}" }')
+                .add("dev-out", '{ "id": "${name}", "size": "${mtu}" }')
+        new CartographerWorker(context, ShortCircuit.useStandardCaches(), new Poller(0),
+                new ShortCircuit.TestPlanResolution(schemas, new ShortCircuit.TestMorpherFactory()),
+                new ShortCircuit.TestClassifierResolver().addSimple("dev", new FixedClassifier()))
+    }
+
+    def "only slow translations or big payloads are captured"() {
+        given:
+        SlowTranslationCapture instance = capture(60000, 10, 4, SlowTranslationCapture.Payloads.FULL)
+        when:
+        instance.consider(input, output, '{}', "", System.nanoTime(), trace(), false)
+        instance.consider(input, output, '{ "name": "eth0" }', "", System.nanoTime(), trace(), false)
+        instance.consider(input, output, '{}', "", System.nanoTime() - 61000000000L, trace(), true)
+        then:
+        instance.snapshot().collect { it.payload } == [ '{ "name": "eth0" }', '{}' ]
+        instance.snapshot()[1].failed
+    }
+
+    def "the oldest captures are overwritten"() {
+        given:
+        SlowTranslationCapture instance = capture(0, 0, 2, SlowTranslationCapture.Payloads.FULL)
+        when:
+        ["a", "b", "c"].each { instance.consider(input, output, it, "", System.nanoTime(), trace(), false) }
+        then:
+        instance.snapshot().collect { it.payload } == [ "b", "c" ]
+        instance.snapshot().collect { it.sequence } == [ 1L, 2L ]
+    }
+
+    def "payloads can be redacted keeping their shape and size"() {
+        expect:
+        SlowTranslationCapture.redact("json", '{ "a": "secret", "b": [ 12, "xy" ], "c": true }') == '{"a":"xxxxxx","b":[12,"xx"],"c":true}'
+        SlowTranslationCapture.redact("xml", '<a k="v1"><b>some text</b> <c/></a>') == '<a k="xx"><b>xxxx xxxx</b> <c/></a>'
+        SlowTranslationCapture.redact("yaml", 'a: b') == null
+    }
+
+    def "redaction does not depend on the case of the format"() {
+        expect:
+        SlowTranslationCapture.redact("JSON", '{ "a": "secret" }') == '{"a":"xxxxxx"}'
+        SlowTranslationCapture.redact("Xml", '<a>secret</a>') == '<a>xxxxxx</a>'
+    }
+
+    def "defaults are treated like payloads"() {
+        given:
+        SlowTranslationCapture redacting = capture(0, 0, 2, SlowTranslationCapture.Payloads.REDACTED)
+        SlowTranslationCapture hashing = capture(0, 0, 2, SlowTranslationCapture.Payloads.HASHED)
+        String defaults = '{ "password": "hunter2" }'
+        when:
+        redacting.consider(input, output, '{ "a": 1 }', defaults, System.nanoTime(), trace(), false)
+        redacting.consider(input, output, '{ "a": 1 }', "", System.nanoTime(), trace(), false)
+        hashing.consider(input, output, '{ "a": 1 }', defaults, System.nanoTime(), trace(), false)
+        hashing.dumpTo(dumpDir)
+        then:
+        redacting.snapshot().collect { it.defaults } == [ '{"password":"xxxxxxx"}', "" ]
+        hashing.snapshot()[0].defaults == null
+        dumpDir.list().findAll { it.contains("defaults") }.isEmpty()
+    }
+
+    def "hashed payloads are not kept and are not replayable"() {
+        given:
+        SlowTranslationCapture instance = capture(0, 0, 2, SlowTranslationCapture.Payloads.HASHED)
+        instance.consider(input, output, '{ "a": 1 }', "", System.nanoTime(), trace(), false)
+        when:
+        instance.dumpTo(dumpDir)
+        Properties props = new Properties()
+        new File(dumpDir, "capture-00000000.properties").withReader { props.load(it) }
+        then:
+        instance.snapshot()[0].payload == null
+        instance.snapshot()[0].payloadHash.length() == 64
+        !props.containsKey("payload-file")
+        props.getProperty("capture-payload-chars") == "10"
+        LoadRunner.readCases(dumpDir).isEmpty()
+    }
+
+    def "a worker captures its slow translations with their phase timings"() {
+        given:
+        CartographerWorker instance = worker([(SlowTranslationCapture.ENABLED_PROPERTY): "true",
+                                              (SlowTranslationCapture.LATENCY_MILLIS_PROPERTY): "0"])
+        String payload = '{ "name": "eth0", "mtu": 1500 }'
+        when:
+        instance.translate(new VersionedSchema('${dev}', "1.0", "json"), output, payload)
+        List<SlowTranslationCapture.Record> found = instance.capture.snapshot()
+        then:
+        found.size() == 1
+        found[0].input.name == '${dev}'
+        found[0].payload == payload
+        found[0].phaseNanos.keySet().containsAll([ "parse", "classify", "lookup" ])
+        found[0].totalNanos >= found[0].phaseNanos.values().sum()
+        cleanup:
+        instance.close()
+    }
+
+    def "disabled workers capture nothing and do not read the clock"() {
+        given:
+        CartographerWorker instance = worker([:])
+        when:
+        instance.translate(new VersionedSchema('${dev}', "1.0", "json"), output, '{ "name": "eth0", "mtu": 1500 }')
+        then:
+        instance.capture.snapshot().isEmpty()
+        instance.metrics.start() == 0L
+        cleanup:
+        instance.close()
+    }
+
+    def "a dump on close can be replayed to the same result"() {
+        given:
+        CartographerWorker instance = worker([(SlowTranslationCapture.ENABLED_PROPERTY): "true",
+                                              (SlowTranslationCapture.LATENCY_MILLIS_PROPERTY): "0",
+                                              (SlowTranslationCapture.DUMP_DIR_PROPERTY): dumpDir.absolutePath])
+        VersionedSchema unresolved = new VersionedSchema('${dev}', "1.0", "json")
+        String payload = '{ "name": "eth0", "mtu": 1500 }'
+        String defaults = '{ "mtu": 9000 }'
+        String expected = instance.translateWithDefaults(unresolved, output, payload, defaults)
+        when:
+        instance.close()
+        List<WarmUp.Sample> cases = LoadRunner.readCases(dumpDir)
+        CartographerWorker replayer = worker([:])
+        then:
+        cases.size() == 1
+        cases[0].input == unresolved
+        cases[0].output == output
+        cases[0].payload == payload
+        cases[0].defaults == defaults
+        new JsonSlurper().parseText(replayer.translateWithDefaults(cases[0].input, cases[0].output, cases[0].payload, cases[0].defaults)) ==
+                new JsonSlurper().parseText(expected)
+        cleanup:
+        replayer.close()
+    }
+}
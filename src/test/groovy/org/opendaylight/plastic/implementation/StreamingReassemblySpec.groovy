@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonSlurper
+import org.opendaylight.plastic.implementation.author.BetterJson
+import org.opendaylight.plastic.implementation.author.Plans
+import spock.lang.Specification
+
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+
+class StreamingReassemblySpec extends Specification {
+
+    // Output "batch-out-schema" gets a parent plan with a child per item, anything else is flat
+    //
+    static class BatchClassifier extends PlanningClassifier {
+        @Override
+        TranslationPlanLite classify(Schema payload, TranslationPlanLite plan) {
+            if (plan.lastSchema().name != "batch-out-schema") {
+                plan.resolveUsing("flat-in-schema")
+                return plan
+            }
+
+            List container = new BetterJson(payload.getParsed()).asList('container-in')
+            TranslationPlanLite parent = Plans.newParent(
+                    Plans.asSchema("batch-in-schema", "1.0", "json"),
+                    plan.lastSchema())
+
+            for (int i = 0; i< container.size(); i++) {
+                TranslationPlanLite child = Plans.newPlan(
+                        Plans.asSchema('${item-classifier}', "1.0", "json"),
+                        Plans.asSchema("item-out-schema", "1.0", "json"))
+                Plans.realizeChildPlan(child, "items", payload, container, i)
+                parent.addChild(child)
+            }
+
+            parent
+        }
+    }
+
+    static class ItemClassifier extends SimpleClassifier {
+        @Override
+        String classify(Object parsedPayload) {
+            "item-in-schema"
+        }
+    }
+
+    SchemaLoader schemas = new ShortCircuit.TestSchemaLoader()
+            .add("flat-in-schema", '{ "name": "${name}" }')
+            .add("flat-out-schema", '{ "id": "${name}" }')
+            .add("batch-in-schema", '{ "name": "${name}", "container-in": [ "${items[*]}" ] }')
+            .add("batch-out-schema", '{ "device": "${name}", "container-out": [ "${items[*]}" ] }')
+            .add("item-in-schema", '{ "id": "${id}" }')
+            .add("item-out-schema", '{ "item": "${id}", "label": "say \\"${id}\\"" }')
+
+    CartographerWorker worker = new CartographerWorker(ShortCircuit.useStandardCaches(), new Poller(),
+            new ShortCircuit.TestPlanResolution(schemas, new ShortCircuit.TestMorpherFactory()),
+            new ShortCircuit.TestClassifierResolver()
+                    .addDeluxe("batch", new BatchClassifier())
+                    .addSimple("item-classifier", new ItemClassifier()))
+
+    VersionedSchema input = new VersionedSchema('${batch}', "1.0", "json")
+
+    ExecutorService executor = Executors.newFixedThreadPool(4)
+
+    Object asJson(String raw) {
+        new JsonSlurper().parseText(raw)
+    }
+
+    String batchOf(int n) {
+        '{ "name": "dev1", "container-in": [ ' + (0..<n).collect { '{ "id": "id-' + it + '" }' }.join(', ') + ' ] }'
+    }
+
+    TranslationPlanLite child(String name) {
+        TranslationPlanLite plan = Plans.newPlan(Plans.asSchema("in", "1.0", "json"), Plans.asSchema("out", "1.0", "json"))
+        plan.setRole(new ChildRole(name, new Schema(new VersionedSchema("in", "1.0", "json"), "{}")))
+        plan
+    }
+
+    def cleanup() {
+        worker.close()
+        executor.shutdownNow()
+    }
+
+    def "claim checks are found in the order they appear"() {
+        given:
+        TranslationPlanLite[] children = [ child("a[0]"), child("a[1]"), child("a[2]") ] as TranslationPlanLite[]
+        String skeleton = '{ "x": [ "${a[1]}", "${a[0]}" ], "y": "${other}" }'
+        when:
+        List<StreamingReassembly.Placeholder> found = StreamingReassembly.locate(skeleton, children)
+        then:
+        found.collect { it.child.getChildRole().getName() } == [ "a[1]", "a[0]" ]
+        found.collect { skeleton.substring(it.start, it.end) } == [ '"${a[1]}"', '"${a[0]}"' ]
+    }
+
+    def "claim checks that appear twice or as keys cannot be streamed"() {
+        given:
+        TranslationPlanLite[] children = [ child("a[0]") ] as TranslationPlanLite[]
+        expect:
+        StreamingReassembly.locate(skeleton, children) == null
+        where:
+        skeleton << [ '[ "${a[0]}", "${a[0]}" ]', '{ "${a[0]}" : {} }' ]
+    }
+
+    def "children are written in place and in order with a bounded number in flight"() {
+        given:
+        int n = 50
+        int window = 3
+        TranslationPlanLite[] children = (0..<n).collect { child("c[${it}]".toString()) } as TranslationPlanLite[]
+        String skeleton = '[' + (0..<n).collect { '"${c[' + it + ']}"' }.join(',') + ']'
+        AtomicInteger started = new AtomicInteger()
+        AtomicInteger written = new AtomicInteger()
+        AtomicInteger maxAhead = new AtomicInteger()
+
+        StringWriter sink = new StringWriter() {
+            @Override
+            void write(String s) {
+                if (s.startsWith('{'))
+                    written.incrementAndGet()
+                super.write(s)
+            }
+        }
+        StreamingReassembly.ChildTranslator translator = new StreamingReassembly.ChildTranslator() {
+            @Override
+            String translate(TranslationPlanLite plan) {
+                int ahead = started.incrementAndGet() - written.get()
+                maxAhead.accumulateAndGet(ahead, { a, b -> Math.max(a, b) })
+                Thread.sleep((long) (Math.random() * 3))
+                '{"n":"' + plan.getChildRole().getName() + '"}'
+            }
+        }
+        when:
+        new StreamingReassembly(window).write(skeleton, StreamingReassembly.locate(skeleton, children), sink, executor, translator)
+        then:
+        asJson(sink.toString()) == (0..<n).collect { [ n: "c[${it}]".toString() ] }
+        maxAhead.get() <= window
+    }
+
+    def "a failing child fails the whole translation"() {
+        given:
+        TranslationPlanLite[] children = [ child("c[0]"), child("c[1]") ] as TranslationPlanLite[]
+        String skeleton = '[ "${c[0]}", "${c[1]}" ]'
+        StreamingReassembly.ChildTranslator translator = new StreamingReassembly.ChildTranslator() {
+            @Override
+            String translate(TranslationPlanLite plan) {
+                if (plan.getChildRole().getName() == "c[1]")
+                    throw new PlasticException("PLASTIC-TEST", "bad child")
+                "{}"
+            }
+        }
+        when:
+        new StreamingReassembly(1).write(skeleton, StreamingReassembly.locate(skeleton, children), new StringWriter(), executor, translator)
+        then:
+        PlasticException e = thrown()
+        e.message == "PLASTIC-TEST: bad child"
+    }
+
+    def "a streamed parent matches its usual translation"() {
+        given:
+        String payload = batchOf(n)
+        VersionedSchema output = new VersionedSchema("batch-out-schema", "1.0", "json")
+        String expected = worker.translateWithDefaults(input, output, payload, Cartography.EMPTY_DEFAULTS)
+        StringWriter sink = new StringWriter()
+        when:
+        worker.translateToStream(input, output, payload, Cartography.EMPTY_DEFAULTS, sink)
+        then:
+        asJson(sink.toString()) == asJson(expected)
+        asJson(sink.toString())['container-out'].size() == n
+        where:
+        n << [ 0, 1, 300 ]
+    }
+
+    def "outputs without children are written whole"() {
+        given:
+        StringWriter sink = new StringWriter()
+        when:
+        worker.translateToStream(input, new VersionedSchema("flat-out-schema", "1.0", "json"), '{ "name": "eth0" }', Cartography.EMPTY_DEFAULTS, sink)
+        then:
+        asJson(sink.toString()) == [ id: "eth0" ]
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonSlurper
+import org.opendaylight.plastic.implementation.author.BetterJson
+import org.opendaylight.plastic.implementation.author.Plans
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicInteger
+
+
+class TranslateToManySpec extends Specification {
+
+    // Output "batch-out-schema" gets a parent plan with a child per item, anything else is flat
+    //
+    static class MixedClassifier extends PlanningClassifier {
+
+        AtomicInteger calls = new AtomicInteger()
+
+        @Override
+        TranslationPlanLite classify(Schema payload, TranslationPlanLite plan) {
+            calls.incrementAndGet()
+
+            if (plan.lastSchema().name != "batch-out-schema") {
+                plan.resolveUsing("flat-in-schema")
+                return plan
+            }
+
+            List container = new BetterJson(payload.getParsed()).asList('container-in')
+            TranslationPlanLite parent = Plans.newParent(
+                    Plans.asSchema("batch-in-schema", "1.0", "json"),
+                    plan.lastSchema())
+
+            for (int i = 0; i< container.size(); i++) {
+                TranslationPlanLite child = Plans.newPlan(
+                        Plans.asSchema('${item-classifier}', "1.0", "json"),
+                        Plans.asSchema("item-out-schema", "1.0", "json"))
+                Plans.realizeChildPlan(child, "items", payload, container, i)
+                parent.addChild(child)
+            }
+
+            parent
+        }
+    }
+
+    static class ItemClassifier extends SimpleClassifier {
+        @Override
+        String classify(Object parsedPayload) {
+            "item-in-schema"
+        }
+    }
+
+    static class Renamer {
+        void tweakValues(Map inputs, Map outputs) {
+            inputs['name'] = 'renamed'
+            outputs['name'] = 'renamed'
+        }
+    }
+
+    static class Trimmer {
+        void tweakParsed(Object inTree, Object outTree) {
+            ((Map) inTree).remove('mtu')
+        }
+    }
+
+    static class Peeker {
+        void tweakParsed(Object inTree, Object outTree) {
+            Thread.sleep(20)
+            ((Map) outTree)['seen'] = ((Map) inTree)['mtu']
+        }
+    }
+
+    String payload = '''
+    {
+        "name": "eth0",
+        "mtu": 1500,
+        "container-in": [ { "id": "a" }, { "id": "b" } ]
+    }
+    '''
+
+    SchemaLoader schemas = new ShortCircuit.TestSchemaLoader()
+            .add("flat-in-schema", '{ "name": "${name}", "mtu": "${mtu}" }')
+            .add("out-a", '{ "interface": "${name}", "size": "${mtu}" }')
+            .add("out-b", '{ "id": "${name}" }')
+            .add("out-renamed", '{ "id": "${name}" }')
+            .add("out-trimmed", '{ "id": "${name}" }')
+            .add("out-peek", '{ "id": "${name}" }')
+            .add("batch-in-schema", '{ "container-in": [ "${items[*]}" ] }')
+            .add("batch-out-schema", '{ "container-out": [ "${items[*]}" ] }')
+            .add("item-in-schema", '{ "id": "${id}" }')
+            .add("item-out-schema", '{ "item": "${id}" }')
+
+    ShortCircuit.TestMorpherFactory morphers = new ShortCircuit.TestMorpherFactory()
+            .add("out-renamed", new Morpher(new VersionedSchema("out-renamed", "1.0", "json"), new Renamer(), "renamer.groovy"))
+            .add("out-trimmed", new Morpher(new VersionedSchema("out-trimmed", "1.0", "json"), new Trimmer(), "trimmer.groovy"))
+            .add("out-peek", new Morpher(new VersionedSchema("out-peek", "1.0", "json"), new Peeker(), "peeker.groovy"))
+
+    MixedClassifier classifier = new MixedClassifier()
+
+    CartographerWorker worker = new CartographerWorker(ShortCircuit.useStandardCaches(), new Poller(),
+            new ShortCircuit.TestPlanResolution(schemas, morphers),
+            new ShortCircuit.TestClassifierResolver()
+                    .addDeluxe("mixed", classifier)
+                    .addSimple("item-classifier", new ItemClassifier()))
+
+    VersionedSchema input = new VersionedSchema('${mixed}', "1.0", "json")
+
+    VersionedSchema output(String name) {
+        new VersionedSchema(name, "1.0", "json")
+    }
+
+    Object asJson(String raw) {
+        new JsonSlurper().parseText(raw)
+    }
+
+    def cleanup() {
+        worker.close()
+    }
+
+    def "one payload is translated to each of the outputs in order"() {
+        when:
+        List<String> results = worker.translateToMany(input, [ output("out-a"), output("out-b") ], payload, Cartography.EMPTY_DEFAULTS)
+        then:
+        results.size() == 2
+        asJson(results[0]) == asJson('{ "interface": "eth0", "size": 1500 }')
+        asJson(results[1]) == asJson('{ "id": "eth0" }')
+    }
+
+    def "no outputs give no results"() {
+        expect:
+        worker.translateToMany(input, [], payload, Cartography.EMPTY_DEFAULTS).isEmpty()
+    }
+
+    def "morphers of one output do not see the changes made by morphers of another"() {
+        when:
+        List<String> results = worker.translateToMany(input,
+                [ output("out-renamed"), output("out-b"), output("out-renamed"), output("out-a") ],
+                payload, Cartography.EMPTY_DEFAULTS)
+        then:
+        asJson(results[0]) == asJson('{ "id": "renamed" }')
+        asJson(results[1]) == asJson('{ "id": "eth0" }')
+        asJson(results[2]) == asJson('{ "id": "renamed" }')
+        asJson(results[3]) == asJson('{ "interface": "eth0", "size": 1500 }')
+    }
+
+    def "morphers of one output do not see the changes made to the payload by morphers of another"() {
+        given:
+        List<VersionedSchema> outputs = [ output("out-trimmed"), output("out-peek"), output("out-trimmed"), output("out-peek") ]
+        List expected = outputs.collect { asJson(worker.translate(input, it, payload)) }
+        when:
+        List<String> results = worker.translateToMany(input, outputs, payload, Cartography.EMPTY_DEFAULTS)
+        then:
+        results.collect { asJson(it) } == expected
+        expected[1] == asJson('{ "id": "eth0", "seen": 1500 }')
+    }
+
+    def "parent plans get a payload of their own and match individual translations"() {
+        given:
+        List<VersionedSchema> outputs = [ output("out-a"), output("batch-out-schema"), output("out-b") ]
+        List expected = outputs.collect { asJson(worker.translate(input, it, payload)) }
+        classifier.calls.set(0)
+        when:
+        List<String> results = worker.translateToMany(input, outputs, payload, Cartography.EMPTY_DEFAULTS)
+        then:
+        results.collect { asJson(it) } == expected
+        expected[1] == asJson('{ "container-out": [ { "item": "a" }, { "item": "b" } ] }')
+        and: "out-a was classified against the payload that the parent carved up, so it was classified again"
+        classifier.calls.get() == 4
+    }
+
+    def "the default implementation translates each output separately"() {
+        given:
+        Cartography simple = new Cartography() {
+            String translate(VersionedSchema i, VersionedSchema o, String p) { o.name }
+            String translateWithDefaults(VersionedSchema i, VersionedSchema o, String p, String d) { o.name + d }
+            void close() {}
+        }
+        expect:
+        simple.translateToMany(input, [ output("x"), output("y") ], payload, "!") == [ "x!", "y!" ]
+    }
+}
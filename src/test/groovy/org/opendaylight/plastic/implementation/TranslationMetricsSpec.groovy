@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+
+import javax.management.ObjectName
+import java.lang.management.ManagementFactory
+
+
+class TranslationMetricsSpec extends Specification {
+
+    static class Tweaker {
+        void tweakValues(Map inputs, Map outputs) {
+        }
+    }
+
+    static class FixedClassifier extends SimpleClassifier {
+        @Override
+        String classify(Object parsedPayload) {
+            "in-schema"
+        }
+    }
+
+    VersionedSchema inSchema = new VersionedSchema("in-schema", "1.0", "json")
+    VersionedSchema outSchema = new VersionedSchema("out-schema", "1.0", "json")
+
+    def "disabled metrics do not record anything"() {
+        given:
+        TranslationMetrics instance = new TranslationMetrics()
+        when:
+        long started = instance.start()
+        instance.record(TranslationMetrics.Phase.PARSE, started)
+        instance.recordTranslation(inSchema, outSchema, started, false)
+        instance.recordFanOut(10)
+        then:
+        started == 0
+        instance.counters == [ translations: 0L, failures: 0L, children: 0L, rejections: 0L, queued: 0L ]
+        instance.phases['parse.count'] == 0
+        instance.schemaPairs.isEmpty()
+    }
+
+    def "enabled metrics record phases, pairs, and counters"() {
+        given:
+        TranslationMetrics instance = new TranslationMetrics(true)
+        when:
+        2.times {
+            long started = instance.start()
+            instance.record(TranslationMetrics.Phase.PARSE, started)
+            instance.recordTranslation(inSchema, outSchema, started, it == 1)
+        }
+        instance.recordFanOut(3)
+        then:
+        instance.counters == [ translations: 2L, failures: 1L, children: 3L, rejections: 0L, queued: 0L ]
+        instance.phases['parse.count'] == 2
+        instance.phases['total.count'] == 2
+        instance.schemaPairs["${inSchema} -> ${outSchema}.count".toString()] == 2
+        instance.childFanOut['children.max'] == 3
+    }
+
+    def "morpher hooks are keyed by morpher name"() {
+        given:
+        TranslationMetrics instance = new TranslationMetrics(true)
+        Morpher morpher = new Morpher(inSchema, new Tweaker(), "/some/where/my-morpher.groovy")
+        when:
+        instance.recordHook(morpher, "tweakValues", instance.start())
+        then:
+        instance.morpherHooks['my-morpher.tweakValues.count'] == 1
+    }
+
+    def "metrics can be reset"() {
+        given:
+        TranslationMetrics instance = new TranslationMetrics(true)
+        instance.recordTranslation(inSchema, outSchema, instance.start(), false)
+        when:
+        instance.reset()
+        then:
+        instance.counters.translations == 0
+        instance.schemaPairs.isEmpty()
+    }
+
+    def "metrics can be enabled through the application properties"() {
+        given:
+        AppContext context = new AppContext()
+        context.props.put(TranslationMetrics.ENABLED_PROPERTY, "true")
+        expect:
+        new TranslationMetrics(context).isEnabled()
+        !new TranslationMetrics(new AppContext()).isEnabled()
+    }
+
+    def "metrics can be published and withdrawn as an mxbean"() {
+        given:
+        TranslationMetrics instance = new TranslationMetrics(true)
+        when:
+        ObjectName name = instance.register()
+        then:
+        ManagementFactory.getPlatformMBeanServer().isRegistered(name)
+        ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Enabled") == true
+        when:
+        instance.unregister()
+        then:
+        !ManagementFactory.getPlatformMBeanServer().isRegistered(name)
+    }
+
+    def "a worker records the phases of its translations"() {
+        given:
+        SchemaLoader streams = new ShortCircuit.TestSchemaLoader()
+                .add("in-schema", '{ "a": "${abc}" }')
+                .add("out-schema", '{ "b": "${abc}" }')
+        PlanResolution resolution = new ShortCircuit.TestPlanResolution(streams, new ShortCircuit.TestMorpherFactory())
+        CartographerWorker worker = new CartographerWorker(ShortCircuit.useStandardCaches(), new Poller(), resolution, new ShortCircuit.TestClassifierResolver().addSimple("fixed-classifier", new FixedClassifier()))
+        worker.metrics.enabled = true
+        VersionedSchema classified = new VersionedSchema('${fixed-classifier}', "1.0", "json")
+        when:
+        worker.translate(classified, outSchema, '{ "a": 1 }')
+        then:
+        worker.metrics.counters.translations == 1
+        ['parse', 'classify', 'lookup', 'bind', 'morph', 'inject', 'emit', 'total'].every {
+            worker.metrics.phases["${it}.count".toString()] == 1
+        }
+        worker.metrics.phases['children.count'] == 0
+        cleanup:
+        worker.close()
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+
+class TranslationResultCacheSpec extends Specification {
+
+    static class FixedClassifier extends SimpleClassifier {
+        @Override
+        String classify(Object parsedPayload) {
+            "in-schema"
+        }
+    }
+
+    static class ForgetfulMorpher extends BasicMorpher {
+        ForgetfulMorpher() {
+            notCacheable()
+        }
+
+        void tweakValues(Map ins, Map outs) {
+        }
+    }
+
+    VersionedSchema inSchema = new VersionedSchema("in-schema", "1.0", "json")
+    VersionedSchema outSchema = new VersionedSchema("out-schema", "1.0", "json")
+    TranslationPlanLite plan = new TranslationPlanLite(inSchema, outSchema)
+
+    TranslationResultCache enabled(Set<String> excluded = [] as Set) {
+        new TranslationResultCache(true, 10000, 60, excluded)
+    }
+
+    def "a disabled cache never produces keys"() {
+        given:
+        TranslationResultCache instance = new TranslationResultCache(new AppContext(), ShortCircuit.useStandardCaches())
+        expect:
+        !instance.isEnabled()
+        instance.keyFor(inSchema, outSchema, "{}", "") == null
+        instance.get(null) == null
+    }
+
+    def "identical requests share a result"() {
+        given:
+        TranslationResultCache instance = enabled()
+        when:
+        instance.put(instance.keyFor(inSchema, outSchema, '{ "a": 1 }', ""), plan, "result")
+        then:
+        instance.get(instance.keyFor(inSchema, outSchema, '{ "a": 1 }', "")) == "result"
+        instance.get(instance.keyFor(inSchema, outSchema, '{ "a": 2 }', "")) == null
+        instance.get(instance.keyFor(inSchema, outSchema, '{ "a": 1 }', '{ "x": 1 }')) == null
+        instance.get(instance.keyFor(inSchema, inSchema, '{ "a": 1 }', "")) == null
+    }
+
+    def "excluded schemas are never cached"() {
+        given:
+        TranslationResultCache instance = enabled(["out-schema", "resolved-schema"] as Set)
+        TranslationPlanLite resolved = new TranslationPlanLite(new VersionedSchema("resolved-schema", "1.0", "json"), inSchema)
+        when:
+        TranslationResultCache.Key key = instance.keyFor(inSchema, inSchema, "{}", "")
+        instance.put(key, resolved, "result")
+        then:
+        instance.keyFor(inSchema, outSchema, "{}", "") == null
+        instance.get(key) == null
+    }
+
+    def "the cache is bounded by the size of the results"() {
+        given:
+        TranslationResultCache instance = enabled()
+        when:
+        100.times { instance.put(instance.keyFor(inSchema, outSchema, "${it}", ""), plan, "x" * 500) }
+        then:
+        instance.size() < 100
+    }
+
+    def "any file change drops every cached result"() {
+        given:
+        File dir = Files.createTempDirectory("result-cache").toFile()
+        dir.deleteOnExit()
+        TranslationResultCache instance = enabled()
+        instance.watch(new DirectoryMonitor(dir.absolutePath))
+        instance.phase(0)
+        instance.put(instance.keyFor(inSchema, outSchema, "{}", ""), plan, "result")
+        when:
+        instance.phase(1)
+        then:
+        instance.size() == 1
+        when:
+        File changed = new File(dir, "new-schema-1.0.json")
+        changed.text = "{}"
+        changed.deleteOnExit()
+        instance.phase(2)
+        then:
+        instance.size() == 0
+    }
+
+    CartographerWorker worker(Morpher morpher) {
+        AppContext context = new AppContext()
+        context.props.put(TranslationResultCache.ENABLED_PROPERTY, "true")
+        SchemaLoader streams = new ShortCircuit.TestSchemaLoader()
+                .add("in-schema", '{ "a": "${abc}" }')
+                .add("out-schema", '{ "b": "${abc}" }')
+        ShortCircuit.TestMorpherFactory morphers = new ShortCircuit.TestMorpherFactory()
+        if (morpher != null)
+            morphers.add("in-schema", morpher)
+        PlanResolution resolution = new ShortCircuit.TestPlanResolution(streams, morphers)
+        ShortCircuit.TestClassifierResolver classifiers = new ShortCircuit.TestClassifierResolver()
+                .addSimple("fixed-classifier", new FixedClassifier())
+        new CartographerWorker(context, ShortCircuit.useStandardCaches(), new Poller(0), resolution, classifiers)
+    }
+
+    VersionedSchema classified = new VersionedSchema('${fixed-classifier}', "1.0", "json")
+
+    def "a worker answers repeated requests from its result cache"() {
+        given:
+        CartographerWorker instance = worker(null)
+        when:
+        String first = instance.translate(classified, outSchema, '{ "a": 1 }')
+        String second = instance.translate(classified, outSchema, '{ "a": 1 }')
+        then:
+        first == second
+        instance.resultCache.stats().hitCount() == 1
+        cleanup:
+        instance.close()
+    }
+
+    def "a worker does not cache results of non-repeatable morphers"() {
+        given:
+        CartographerWorker instance = worker(new Morpher(inSchema, new ForgetfulMorpher(), "forgetful.groovy"))
+        when:
+        2.times { instance.translate(classified, outSchema, '{ "a": 1 }') }
+        then:
+        instance.resultCache.size() == 0
+        instance.resultCache.stats().hitCount() == 0
+        cleanup:
+        instance.close()
+    }
+}
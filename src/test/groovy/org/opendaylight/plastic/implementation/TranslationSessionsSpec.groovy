@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+import org.opendaylight.plastic.implementation.author.BetterJson
+import org.opendaylight.plastic.implementation.author.Plans
+import spock.lang.Specification
+
+
+class TranslationSessionsSpec extends Specification {
+
+    // Output "batch-out" gets a parent plan with a child per item, anything else is flat
+    //
+    static class DeviceClassifier extends PlanningClassifier {
+        @Override
+        TranslationPlanLite classify(Schema payload, TranslationPlanLite plan) {
+            if (plan.lastSchema().name != "batch-out") {
+                plan.resolveUsing("device-in")
+                return plan
+            }
+
+            List container = new BetterJson(payload.getParsed()).asList('container-in')
+            TranslationPlanLite parent = Plans.newParent(
+                    Plans.asSchema("batch-in", "1.0", "json"),
+                    plan.lastSchema())
+
+            for (int i = 0; i< container.size(); i++) {
+                TranslationPlanLite child = Plans.newPlan(
+                        Plans.asSchema('${item-classifier}', "1.0", "json"),
+                        Plans.asSchema("item-out", "1.0", "json"))
+                Plans.realizeChildPlan(child, "items", payload, container, i)
+                parent.addChild(child)
+            }
+
+            parent
+        }
+    }
+
+    static class ItemClassifier extends SimpleClassifier {
+        @Override
+        String classify(Object parsedPayload) {
+            "item-in"
+        }
+    }
+
+    static class WholePayloadMorpher extends BasicMorpher {
+        WholePayloadMorpher() {
+            needsWholePayload()
+        }
+
+        void tweakValues(Map inputs, Map outputs) {
+        }
+    }
+
+    static class Scrubber {
+        void tweakParsed(Object inTree, Object outTree) {
+            ((Map) inTree).remove('counters')
+        }
+    }
+
+    String payload = '''
+    {
+        "name": "eth0",
+        "mtu": 1500,
+        "addresses": [ "10.0.0.1", "10.0.0.2" ],
+        "counters": { "rx": 100, "tx": 200 },
+        "uptime": 12345
+    }
+    '''
+
+    SchemaLoader schemas = new ShortCircuit.TestSchemaLoader()
+            .add("device-in", '''{
+                "name": "${name}",
+                "mtu": "${mtu}",
+                "addresses": [ "${ADDR[*]}" ],
+                "counters": { "rx": "${rx}", "tx": "${tx}" }
+             }''')
+            .add("device-out", '''{
+                "interface": "${name}",
+                "size": "${mtu}",
+                "ips": [ "${ADDR[*]}" ],
+                "stats": { "received": "${rx}", "sent": "${tx}" }
+             }''')
+            .add("whole-out", '{ "interface": "${name}", "size": "${mtu}", "ips": [ "${ADDR[*]}" ], "rx": "${rx}", "tx": "${tx}" }')
+            .add("scrub-out", '{ "interface": "${name}", "size": "${mtu}" }')
+            .add("narrow-out", '{ "interface": "${name}", "size": "${mtu}" }')
+            .add("batch-in", '{ "container-in": [ "${items[*]}" ] }')
+            .add("batch-out", '{ "container-out": [ "${items[*]}" ] }')
+            .add("item-in", '{ "id": "${id}" }')
+            .add("item-out", '{ "item": "${id}" }')
+
+    ShortCircuit.TestMorpherFactory morphers = new ShortCircuit.TestMorpherFactory()
+            .add("whole-out", new Morpher(new VersionedSchema("whole-out", "1.0", "json"), new WholePayloadMorpher(), "whole.groovy"))
+            .add("scrub-out", new Morpher(new VersionedSchema("scrub-out", "1.0", "json"), new Scrubber(), "scrubber.groovy"))
+
+    CartographerWorker worker = newWorker(new AppContext())
+
+    CartographerWorker newWorker(AppContext context) {
+        new CartographerWorker(context, ShortCircuit.useStandardCaches(), new Poller(),
+                new ShortCircuit.TestPlanResolution(schemas, morphers),
+                new ShortCircuit.TestClassifierResolver()
+                        .addDeluxe("device", new DeviceClassifier())
+                        .addSimple("item-classifier", new ItemClassifier()))
+    }
+
+    AppContext configured(Map<String,String> props) {
+        AppContext context = new AppContext()
+        context.props.putAll(props)
+        context
+    }
+
+    TranslationSessions instance = worker.sessions
+
+    VersionedSchema input = new VersionedSchema('${device}', "1.0", "json")
+    VersionedSchema output = new VersionedSchema("device-out", "1.0", "json")
+
+    Object asJson(String raw) {
+        new JsonSlurper().parseText(raw)
+    }
+
+    Object fullyTranslated(String payload) {
+        asJson(worker.translateWithDefaults(input, output, payload, Cartography.EMPTY_DEFAULTS))
+    }
+
+    String patched(String original, String patch) {
+        JsonOutput.toJson(JsonPatch.parse(patch).applyTo(asJson(original)))
+    }
+
+    def cleanup() {
+        worker.close()
+    }
+
+    def "opening a session translates the whole payload"() {
+        when:
+        TranslationSessions.Update found = instance.open("dev1", input, output, payload, Cartography.EMPTY_DEFAULTS)
+        then:
+        asJson(found.document) == fullyTranslated(payload)
+        !found.incremental
+        found.changed
+        asJson(found.patch) == [ [ op: "add", path: "", value: asJson(found.document) ] ]
+        instance.isOpen("dev1")
+        instance.size() == 1
+    }
+
+    def "a changed input variable is bound again and only its output changes"() {
+        given:
+        instance.open("dev1", input, output, payload, Cartography.EMPTY_DEFAULTS)
+        String patch = '[ { "op": "replace", "path": "/counters/rx", "value": 101 } ]'
+        when:
+        TranslationSessions.Update found = instance.submitPatch("dev1", patch)
+        then:
+        found.incremental
+        found.changed
+        found.reboundPaths == 1
+        asJson(found.patch) == [ [ op: "replace", path: "/stats/received", value: 101 ] ]
+        asJson(found.document) == fullyTranslated(patched(payload, patch))
+    }
+
+    def "a change outside of the input schema leaves the output alone"() {
+        given:
+        TranslationSessions.Update opened = instance.open("dev1", input, output, payload, Cartography.EMPTY_DEFAULTS)
+        when:
+        TranslationSessions.Update found = instance.submitPatch("dev1", '[ { "op": "replace", "path": "/uptime", "value": 99999 } ]')
+        then:
+        found.incremental
+        !found.changed
+        found.reboundPaths == 0
+        found.patch == "[]"
+        found.document == opened.document
+    }
+
+    def "a series of updates matches translating each payload from scratch"() {
+        given:
+        instance.open("dev1", input, output, payload, Cartography.EMPTY_DEFAULTS)
+        Object current = asJson(payload)
+        Object previousOutput = fullyTranslated(payload)
+        List<String> patches = [
+            '[ { "op": "add", "path": "/addresses/-", "value": "10.0.0.3" } ]',
+            '[ { "op": "remove", "path": "/addresses/0" } ]',
+            '[ { "op": "replace", "path": "/addresses/0", "value": "10.9.9.9" }, { "op": "replace", "path": "/name", "value": "eth1" } ]',
+            '[ { "op": "replace", "path": "/counters", "value": { "rx": 1, "tx": 2 } } ]',
+            '[ { "op": "test", "path": "/mtu", "value": 1500 }, { "op": "copy", "from": "/counters/tx", "path": "/counters/rx" } ]',
+        ]
+        expect:
+        patches.every { String patch ->
+            current = JsonPatch.parse(patch).applyTo(current)
+            TranslationSessions.Update found = instance.submitPatch("dev1", patch)
+            Object expected = fullyTranslated(JsonOutput.toJson(current))
+            boolean patchedOutputMatches = JsonPatch.parse(found.patch).applyTo(previousOutput) == expected
+            previousOutput = expected
+            found.incremental && asJson(found.document) == expected && patchedOutputMatches
+        }
+    }
+
+    def "full payloads are diffed against the previous one"() {
+        given:
+        instance.open("dev1", input, output, payload, Cartography.EMPTY_DEFAULTS)
+        String next = payload.replace('"10.0.0.2"', '"10.0.0.2", "10.0.0.7"').replace('12345', '12399')
+        when:
+        TranslationSessions.Update found = instance.submitPayload("dev1", next)
+        then:
+        found.incremental
+        found.reboundPaths == 1
+        asJson(found.patch) == [ [ op: "add", path: "/ips/2", value: "10.0.0.7" ] ]
+        asJson(found.document) == fullyTranslated(next)
+    }
+
+    def "morphers that need the whole payload get full translations"() {
+        given:
+        VersionedSchema whole = new VersionedSchema("whole-out", "1.0", "json")
+        instance.open("dev1", input, whole, payload, Cartography.EMPTY_DEFAULTS)
+        when:
+        TranslationSessions.Update found = instance.submitPatch("dev1", '[ { "op": "replace", "path": "/mtu", "value": 9000 } ]')
+        then:
+        !found.incremental
+        asJson(found.patch) == [ [ op: "replace", path: "/size", value: 9000 ] ]
+        asJson(found.document)['size'] == 9000
+    }
+
+    def "morphers that change the payload do not change the session's copy of it"() {
+        given:
+        VersionedSchema scrubbed = new VersionedSchema("scrub-out", "1.0", "json")
+        instance.open("dev1", input, scrubbed, payload, Cartography.EMPTY_DEFAULTS)
+        when:
+        TranslationSessions.Update first = instance.submitPatch("dev1", '[ { "op": "replace", "path": "/counters/rx", "value": 101 } ]')
+        TranslationSessions.Update second = instance.submitPatch("dev1", '[ { "op": "replace", "path": "/mtu", "value": 9000 } ]')
+        then:
+        first.incremental
+        !first.changed
+        second.incremental
+        asJson(second.patch) == [ [ op: "replace", path: "/size", value: 9000 ] ]
+        instance.isOpen("dev1")
+    }
+
+    def "only the input variables the output uses are bound again"() {
+        given:
+        VersionedSchema narrow = new VersionedSchema("narrow-out", "1.0", "json")
+        instance.open("dev1", input, narrow, payload, Cartography.EMPTY_DEFAULTS)
+        when:
+        TranslationSessions.Update first = instance.submitPatch("dev1", '[ { "op": "replace", "path": "/mtu", "value": 9000 } ]')
+        TranslationSessions.Update second = instance.submitPatch("dev1", '[ { "op": "replace", "path": "/counters/rx", "value": 101 } ]')
+        then:
+        first.incremental
+        first.reboundPaths == 1
+        asJson(first.patch) == [ [ op: "replace", path: "/size", value: 9000 ] ]
+        second.incremental
+        second.reboundPaths == 0
+        !second.changed
+    }
+
+    def "session updates are admitted like any other translation"() {
+        given:
+        CartographerWorker limited = newWorker(configured([
+                (AdmissionControl.ENABLED_PROPERTY): "true",
+                (AdmissionControl.MAX_WEIGHT_PROPERTY): "1",
+                (AdmissionControl.TIMEOUT_MILLIS_PROPERTY): "0" ]))
+        limited.sessions.open("dev1", input, output, payload, Cartography.EMPTY_DEFAULTS)
+        AdmissionControl.Ticket hog = limited.admission.admit(input, output, 0)
+        when:
+        limited.sessions.submitPatch("dev1", '[ { "op": "replace", "path": "/mtu", "value": 9000 } ]')
+        then:
+        thrown(AdmissionControl.AdmissionRejected)
+        limited.sessions.isOpen("dev1")
+        cleanup:
+        hog.close()
+        limited.close()
+    }
+
+    def "slow session translations are captured"() {
+        given:
+        CartographerWorker capturing = newWorker(configured([
+                (SlowTranslationCapture.ENABLED_PROPERTY): "true",
+                (SlowTranslationCapture.LATENCY_MILLIS_PROPERTY): "0" ]))
+        when:
+        capturing.sessions.open("dev1", input, output, payload, Cartography.EMPTY_DEFAULTS)
+        capturing.sessions.submitPatch("dev1", '[ { "op": "replace", "path": "/mtu", "value": 9000 } ]')
+        then:
+        List<SlowTranslationCapture.Record> found = capturing.capture.snapshot()
+        found.size() == 2
+        asJson(found[0].payload) == asJson(payload)
+        asJson(found[1].payload)['mtu'] == 9000
+        cleanup:
+        capturing.close()
+    }
+
+    def "the least recently used sessions are dropped beyond the limit"() {
+        given:
+        CartographerWorker bounded = newWorker(configured([ (TranslationSessions.MAX_SESSIONS_PROPERTY): "2" ]))
+        when:
+        [ "dev1", "dev2", "dev3" ].each { bounded.sessions.open(it, input, output, payload, Cartography.EMPTY_DEFAULTS) }
+        then:
+        bounded.sessions.size() == 2
+        !bounded.sessions.isOpen("dev1")
+        bounded.sessions.isOpen("dev3")
+        when:
+        bounded.sessions.submitPatch("dev1", '[]')
+        then:
+        thrown(TranslationSessions.NoSuchSession)
+        cleanup:
+        bounded.close()
+    }
+
+    def "parent plans get full translations"() {
+        given:
+        VersionedSchema batch = new VersionedSchema("batch-out", "1.0", "json")
+        instance.open("dev1", input, batch, '{ "container-in": [ { "id": "a" } ] }', Cartography.EMPTY_DEFAULTS)
+        when:
+        TranslationSessions.Update found = instance.submitPatch("dev1", '[ { "op": "add", "path": "/container-in/-", "value": { "id": "b" } } ]')
+        then:
+        !found.incremental
+        asJson(found.document) == asJson('{ "container-out": [ { "item": "a" }, { "item": "b" } ] }')
+        asJson(found.patch) == [ [ op: "add", path: "/container-out/1", value: [ item: "b" ] ] ]
+    }
+
+    def "a patch that cannot be applied closes the session"() {
+        given:
+        instance.open("dev1", input, output, payload, Cartography.EMPTY_DEFAULTS)
+        when:
+        instance.submitPatch("dev1", '[ { "op": "remove", "path": "/no/such/place" } ]')
+        then:
+        thrown(JsonPatch.PatchFailed)
+        !instance.isOpen("dev1")
+    }
+
+    def "updating a session that is not open is an error"() {
+        given:
+        instance.open("dev1", input, output, payload, Cartography.EMPTY_DEFAULTS)
+        instance.close("dev1")
+        when:
+        instance.submitPayload("dev1", payload)
+        then:
+        thrown(TranslationSessions.NoSuchSession)
+        instance.size() == 0
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+import spock.lang.Unroll
+
+
+class TranslatorCompilerSpec extends Specification {
+
+    static class DoublingMorpher extends BasicMorpher {
+        DoublingMorpher() {
+            optionalInputs("tx")
+        }
+
+        void tweakValues(Map inputs, Map outputs) {
+            if (inputs['mtu'] != null)
+                outputs['mtu'] = (inputs['mtu'] as long) * 2
+        }
+    }
+
+    static class FixedClassifier extends SimpleClassifier {
+        @Override
+        String classify(Object parsedPayload) {
+            "dev-in"
+        }
+    }
+
+    static final String DEVICE_IN = '''{
+        "name": "${name}",
+        "mtu": "${mtu=1500}",
+        "nested": { "rx": "${rx}", "tx": "${tx}" },
+        "static": "abc",
+        "n": 5
+    }'''
+
+    static final String DEVICE_OUT = '''{
+        "interface": "${name}",
+        "size": "${mtu}",
+        "stats": { "received": "${rx}", "sent": "${tx}" },
+        "kind": "ethernet",
+        "tags": [ "a", { "b": "c" } ],
+        "again": "${name}"
+    }'''
+
+    static final List<String> PAYLOADS = [
+        '{ "name": "eth0", "mtu": 9000, "nested": { "rx": 1, "tx": 2.5 } }',
+        '{ "name": "eth0", "nested": { "rx": 1, "tx": true } }',
+        '{ "name": "eth0", "nested": { "rx": 1 } }',
+        '{ "name": "eth0", "nested": [ { "rx": 1, "tx": 2 } ] }',
+        '{ "name": "eth0", "mtu": 1, "nested": "flat" }',
+        '{ "name": { "first": "a" }, "nested": { "rx": 1, "tx": 2 } }',
+        '{ "name": "mtu", "nested": { "rx": 1, "tx": 2 } }',
+        '{ "name": "${tx}", "nested": { "rx": 1, "tx": 2 } }',
+        '{ "name": "ethernet", "nested": { "rx": 1, "tx": 2 } }',
+        '{ "name": null, "nested": { "rx": 1, "tx": 2 } }',
+        '{ "name": "", "nested": { "rx": 0, "tx": false }, "extra": 1 }',
+        '[ { "name": "eth0" } ]',
+    ]
+
+    VersionedSchema inSchema = new VersionedSchema("dev-in", "1.0", "json")
+    VersionedSchema outSchema = new VersionedSchema("dev-out", "1.0", "json")
+
+    Schema asSchema(VersionedSchema schema, String content) {
+        new Schema(schema, content)
+    }
+
+    // The emitted output or the error of a translation, with or without a compiled translator
+    //
+    String outcome(Schema input, Schema output, String payload, String defaults, boolean compiling, List<Morpher> morphers) {
+        MapTask task = new MapTask(new TranslationPlan<Schema,Morpher>(input.clone(), output.clone(), morphers))
+        if (compiling)
+            task.compiled = TranslatorCompiler.compile(input, output)
+        try {
+            task.map(asSchema(input.schema, payload), asSchema(input.schema, defaults)).emit()
+        }
+        catch (PlasticException e) {
+            e.class.simpleName + ": " + e.message
+        }
+    }
+
+    @Unroll
+    def "compiled and interpreted translations agree for #payload"() {
+        given:
+        Schema input = asSchema(inSchema, DEVICE_IN)
+        Schema output = asSchema(outSchema, DEVICE_OUT)
+        expect:
+        outcome(input, output, payload, defaults, true, []) == outcome(input, output, payload, defaults, false, [])
+        where:
+        [ payload, defaults ] << [ PAYLOADS, [ "", '{ "tx": "7" }' ] ].combinations()
+    }
+
+    @Unroll
+    def "compiled and interpreted translations agree for output #out"() {
+        given:
+        Schema input = asSchema(inSchema, DEVICE_IN)
+        Schema output = asSchema(outSchema, out)
+        expect:
+        PAYLOADS.every { String payload ->
+            outcome(input, output, payload, "", true, []) == outcome(input, output, payload, "", false, [])
+        }
+        where:
+        out << [
+            '{ "x": "${nope}", "y": "${name}" }',
+            '{ "y": "${name}" }',
+            '{ "a": "name", "b": "${mtu}" }',
+            '{ "a": { "b": { "c": "${rx}" } }, "d": [ "rx", 1, null ] }',
+            '{}',
+        ]
+    }
+
+    def "morpher hooks see the same values"() {
+        given:
+        Schema input = asSchema(inSchema, DEVICE_IN)
+        Schema output = asSchema(outSchema, DEVICE_OUT)
+        List<Morpher> morphers = [ new Morpher(outSchema, new DoublingMorpher(), "doubling.groovy") ]
+        expect:
+        PAYLOADS.every { String payload ->
+            outcome(input, output, payload, "", true, morphers) == outcome(input, output, payload, "", false, morphers)
+        }
+        new JsonSlurper().parseText(outcome(input, output, PAYLOADS[0], "", true, morphers))['size'] == 18000
+    }
+
+    def "only payloads of an unexpected shape are left to the interpreter"() {
+        given:
+        TranslatorCompiler.CompiledTranslator instance = TranslatorCompiler.compile(asSchema(inSchema, DEVICE_IN), asSchema(outSchema, DEVICE_OUT))
+        expect:
+        instance.bind(asSchema(inSchema, PAYLOADS[0]).parsed, Projection.EVERYTHING).bindings() == [ name: "eth0", mtu: 9000, rx: 1, tx: 2.5 ]
+        instance.bind(asSchema(inSchema, PAYLOADS[3]).parsed, Projection.EVERYTHING) == null
+        instance.bind(asSchema(inSchema, PAYLOADS[11]).parsed, Projection.EVERYTHING) == null
+        instance.inject([ name: "eth0", mtu: 1, rx: 2, tx: 3 ], asSchema(outSchema, DEVICE_OUT).parsed, new HashSet(), new HashSet())
+    }
+
+    def "values that need more than one pass are left to the interpreter"() {
+        given:
+        TranslatorCompiler.CompiledTranslator instance = TranslatorCompiler.compile(asSchema(inSchema, DEVICE_IN), asSchema(outSchema, DEVICE_OUT))
+        Object model = asSchema(outSchema, DEVICE_OUT).parsed
+        Object original = asSchema(outSchema, DEVICE_OUT).parsed
+        expect:
+        !instance.inject(values, model, new HashSet(), new HashSet())
+        model == original
+        where:
+        values << [
+            [ name: '${rx}', rx: 1 ],
+            [ name: "rx", rx: 1 ],
+            [ name: [ 1, 2 ] ],
+            [ name: "eth0", ethernet: "x" ],
+            [ name: "eth0", "_[ADDR[*]]": "0,1" ],
+        ]
+    }
+
+    def "schemas that are not simple are not compiled"() {
+        when:
+        TranslatorCompiler.compile(asSchema(new VersionedSchema("in", "1.0", type), input), asSchema(new VersionedSchema("out", "1.0", type), output))
+        then:
+        thrown(TranslatorCompiler.NotCompilable)
+        where:
+        type   | input                                  | output
+        "json" | '{ "a": [ "${ADDR[*]}" ] }'            | '{ "b": "${x}" }'
+        "json" | '{ "a": "${x}" }'                      | '{ "b": [ "${x}" ] }'
+        "json" | '{ "a": "${x}" }'                      | '{ "b": "say ${x}" }'
+        "json" | '{ "a": "${x[0]}" }'                   | '{ "b": "${x}" }'
+        "json" | '{ "a": "${x}", "b": "${x}" }'         | '{ "b": "${x}" }'
+        "json" | '{ "a": "${x}" }'                      | '{ "b": "${x=1}" }'
+        "json" | '[ "${x}" ]'                           | '{ "b": "${x}" }'
+        "xml"  | '<a>${x}</a>'                          | '<b>${x}</b>'
+    }
+
+    def "hot schema pairs get compiled after the threshold"() {
+        given:
+        AppContext context = new AppContext()
+        context.props.put(TranslatorCompiler.ENABLED_PROPERTY, "true")
+        context.props.put(TranslatorCompiler.THRESHOLD_PROPERTY, "3")
+        SchemaLoader schemas = new ShortCircuit.TestSchemaLoader()
+                .add("dev-in", DEVICE_IN)
+                .add("dev-out", DEVICE_OUT)
+        CartographerWorker worker = new CartographerWorker(context, ShortCircuit.useStandardCaches(), new Poller(0),
+                new ShortCircuit.TestPlanResolution(schemas, new ShortCircuit.TestMorpherFactory()),
+                new ShortCircuit.TestClassifierResolver().addSimple("dev", new FixedClassifier()))
+        VersionedSchema unresolved = new VersionedSchema('${dev}', "1.0", "json")
+        TranslatorCompiler compiler = worker.resolver.compiler
+        when:
+        List<String> results = (0..<6).collect { int i ->
+            worker.translateWithDefaults(unresolved, outSchema, '{ "name": "eth' + i + '", "nested": { "rx": 1, "tx": 2 } }', Cartography.EMPTY_DEFAULTS)
+        }
+        then:
+        compiler.compiledCount == 1
+        results.collect { new JsonSlurper().parseText(it)['interface'] } == (0..<6).collect { "eth${it}".toString() }
+        cleanup:
+        worker.close()
+    }
+
+    def "the compiler is off unless configured"() {
+        expect:
+        !new TranslatorCompiler(new AppContext()).enabled
+        TranslatorCompiler.DISABLED.lookup(asSchema(inSchema, DEVICE_IN), asSchema(outSchema, DEVICE_OUT)) == null
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation
+
+import spock.lang.Specification
+
+
+class WarmUpSpec extends Specification {
+
+    String root = "warmup-root-${UUID.randomUUID()}"
+    SearchPath path = ShortCircuit.standardSearchPath(root)
+
+    File write(String dir, String name, String contents) {
+        File parent = new File(path.find("schemas")).parentFile
+        File d = new File(parent, dir)
+        d.mkdirs()
+        d.deleteOnExit()
+        File f = new File(d, name)
+        f.text = contents
+        f.deleteOnExit()
+        f
+    }
+
+    AppContext enabled(Map<String,String> extras = [:]) {
+        AppContext context = new AppContext()
+        context.props.put(WarmUp.ENABLED_PROPERTY, "true")
+        extras.each { k, v -> context.props.put(k, v) }
+        context
+    }
+
+    FilenamesCaches caches() {
+        new FilenamesCaches(path, "lib", "classifiers", "morphers", "schemas")
+    }
+
+    def setup() {
+        write("schemas", "warm-in-1.0.json", '{ "a": "${abc}" }')
+        write("schemas", "warm-out-1.0.json", '{ "b": "${abc}" }')
+        write("morphers", "warm-out-1.0.groovy", '''
+            class WarmOutMorpher {
+                void tweakValues(Map ins, Map outs) {
+                }
+            }
+        ''')
+        write("classifiers", "warm-classifier.groovy", '''
+            import org.opendaylight.plastic.implementation.SimpleClassifier
+            class WarmClassifier extends SimpleClassifier {
+                String classify(Object parsed) {
+                    "warm-in"
+                }
+            }
+        ''')
+    }
+
+    def "schema file names can be turned into versioned schemas"() {
+        expect:
+        WarmUp.asVersionedSchema(name) == expected
+        where:
+        name                          | expected
+        "/a/b/my-in-1.0.json"         | new VersionedSchema("my-in", "1.0", "json")
+        "plain-2.1.xml"               | new VersionedSchema("plain", "2.1", "xml")
+        "noversion.json"              | null
+        "trailing-1.0."               | null
+    }
+
+    def "warm-up is disabled by default"() {
+        expect:
+        !WarmUp.isEnabled(new AppContext())
+        WarmUp.isEnabled(enabled())
+    }
+
+    def "warm-up preloads every schema, morpher, and classifier"() {
+        when:
+        CartographerWorker worker = new CartographerWorker(enabled(), caches(), new Poller(0), null, null)
+        WarmUp.Result result = worker.lastWarmUp
+        then:
+        result.schemas == 2
+        result.morphers == 1
+        result.classifiers == 1
+        result.samples == 0
+        result.rounds == 0
+        cleanup:
+        worker.close()
+    }
+
+    def "warm-up replays samples until timings stabilize or the round limit is hit"() {
+        given:
+        write("warmup", "payload.json", '{ "a": 1 }')
+        write("warmup", "case1.properties", """
+            in-schema-name=\${warm-classifier}
+            in-schema-version=1.0
+            in-schema-type=json
+            out-schema-name=warm-out
+            out-schema-version=1.0
+            out-schema-type=json
+            payload-file=payload.json
+        """)
+        when:
+        CartographerWorker worker = new CartographerWorker(enabled([(WarmUp.MAX_ROUNDS_PROPERTY): "5"]), caches(), new Poller(0), null, null)
+        then:
+        worker.lastWarmUp.samples == 1
+        worker.lastWarmUp.rounds >= 1 && worker.lastWarmUp.rounds <= 5
+        worker.metrics.counters.translations == 0
+        cleanup:
+        worker.close()
+    }
+
+    def "failing samples are dropped instead of failing start-up"() {
+        given:
+        write("warmup", "payload.json", '{ "a": 1 }')
+        write("warmup", "broken.properties", """
+            in-schema-name=no-such-schema
+            in-schema-version=1.0
+            in-schema-type=json
+            out-schema-name=warm-out
+            out-schema-version=1.0
+            out-schema-type=json
+            payload-file=payload.json
+        """)
+        write("warmup", "incomplete.properties", "in-schema-name=warm-in")
+        when:
+        CartographerWorker worker = new CartographerWorker(enabled(), caches(), new Poller(0), null, null)
+        then:
+        worker.lastWarmUp.samples == 1
+        worker.lastWarmUp.rounds == 1
+        !worker.lastWarmUp.stable
+        cleanup:
+        worker.close()
+    }
+}
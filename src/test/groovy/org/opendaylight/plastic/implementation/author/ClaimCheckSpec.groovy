@@ -139,4 +139,27 @@ class ClaimCheckSpec extends Specification {
         then:
         jsonPayload.parsed == jsonExpected
     }
+
+    def "a claimcheck in a list records the slot its result goes back into"() {
+        given:
+        Schema jsonPayload = asSchema('{ "items": [ "A", { "B": 2 } ] }')
+        List items = jsonPayload.parsed.items
+        when:
+        ClaimCheck instance = new ClaimCheck("CLAIMCHECK", jsonPayload, items, 1)
+        instance.swap()
+        then:
+        instance.slot.container.is(items)
+        instance.slot.index == 1
+        instance.slot.placeholder == '${CLAIMCHECK[1]}'
+        instance.slot.holding
+    }
+
+    def "a claimcheck in a map has no slot"() {
+        given:
+        Schema jsonPayload = asSchema('{ "items": { "key1": { "A": 1 } } }')
+        when:
+        ClaimCheck instance = new ClaimCheck("CLAIMCHECK", jsonPayload, jsonPayload.parsed.items, "key1")
+        then:
+        instance.slot == null
+    }
 }
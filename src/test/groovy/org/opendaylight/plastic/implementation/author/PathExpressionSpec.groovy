@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020 Lumina Networks, Inc. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ */
+
+package org.opendaylight.plastic.implementation.author
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+
+
+class PathExpressionSpec extends Specification {
+
+    def asJson(String s) {
+        new JsonSlurper().parseText(s)
+    }
+
+    def "paths are parsed into keys, indices and wildcards"() {
+        when:
+        PathExpression instance = PathExpression.compile(path)
+        then:
+        instance.steps.collect { it.toString() } == expected
+        where:
+        path                | expected
+        "a.b.c"             | [ 'a', 'b', 'c' ]
+        "[*].a"             | [ '[*]', 'a' ]
+        "a.b[*].c"          | [ 'a', 'b', '[*]', 'c' ]
+        "a.b[2].c"          | [ 'a', 'b', '[2]', 'c' ]
+        "a[*][1]"           | [ 'a', '[*]', '[1]' ]
+        "a..b.*"            | [ 'a', 'b', '[*]' ]
+    }
+
+    def "bad subscripts are reported when compiling"() {
+        when:
+        PathExpression.compile(path)
+        then:
+        thrown(PathExpression.PathException)
+        where:
+        path << [ "a[x].b", "a[1" ]
+    }
+
+    def "compiled paths are shared by their text"() {
+        expect:
+        PathExpression.compile("a.b[*].c").is(PathExpression.compile("a.b[*].c"))
+    }
+
+    def "surgeon style components treat [] as the members of a list"() {
+        when:
+        PathExpression instance = PathExpression.ofKeys('[]', 'a', 'b')
+        then:
+        instance.steps.collect { it.toString() } == [ '[*]', 'a', 'b' ]
+    }
+
+    def "values are selected in document order through lists"() {
+        given:
+        Object root = asJson('{ "a": [ { "b": 1 }, { "b": 2 }, { "c": 3 }, { "b": 4 } ] }')
+        expect:
+        PathExpression.compile("a[*].b").select(root) == [ 1, 2, 4 ]
+        PathExpression.compile("a.b").select(root) == [ 1, 2, 4 ]
+        PathExpression.compile("a[3].b").first(root) == 4
+        PathExpression.compile("a[2].b").first(root) == null
+    }
+
+    def "list members are visited for paths ending at a list or at its members"() {
+        given:
+        Object root = asJson('{ "a": [ { "b": [ 1, 2 ] }, { "b": [ 3 ] } ] }')
+        List found = []
+        when:
+        PathExpression.compile(path).eachListMember(root) { List l, int i -> found.add(l[i]) }
+        then:
+        found == expected
+        where:
+        path            | expected
+        "a[*].b"        | [ 1, 2, 3 ]
+        "a[*].b[*]"     | [ 1, 2, 3 ]
+        "a[1].b"        | [ 3 ]
+        "a[0].b[1]"     | [ 2 ]
+    }
+
+    def "a path through a missing or scalar component is an error"() {
+        given:
+        Object root = asJson('{ "a": { "b": 1 }, "c": [ 1 ] }')
+        when:
+        PathExpression.compile(path).eachListMember(root) { List l, int i -> }
+        then:
+        thrown(PathExpression.PathException)
+        where:
+        path << [ "x.y", "a.b.c", "a.b", "a[*]", "c[4]", "c[*].d" ]
+    }
+}
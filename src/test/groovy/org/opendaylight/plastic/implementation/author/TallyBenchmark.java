@@ -0,0 +1,95 @@
+package org.opendaylight.plastic.implementation.author;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// src/test/scripts/tally-benchmark.sh
+// or
+// java -jar target/odl-plastic-*-fat-tests.jar TallyBenchmark
+//
+// Many threads counting into one shared tally, the way morphers running child plans do. The
+// "locked" variants count the way a tally made safe by synchronizing would, for comparison.
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 8)
+@Threads(8)
+public class TallyBenchmark {
+
+    public static class LockedTally {
+
+        private final Map<String,int[]> tallies = new HashMap<>();
+        private int completions = 0;
+
+        public synchronized void account(String why) {
+            int[] counter = tallies.get(why);
+            if (counter == null)
+                tallies.put(why, new int[] { 1 });
+            else
+                counter[0]++;
+        }
+
+        public synchronized void completed() {
+            completions++;
+        }
+
+        public synchronized int completions() {
+            return completions;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+
+        Tally plain = new Tally("plain");
+        Tally logged = new Tally("logged").writeToLogEvery(Integer.MAX_VALUE);
+        LockedTally locked = new LockedTally();
+
+        public Shared() {
+            plain.account("missing-name", "bad-mtu");
+        }
+    }
+
+    @Benchmark
+    public void account(Shared shared) {
+        shared.plain.account("missing-name");
+    }
+
+    @Benchmark
+    public void accountAndComplete(Shared shared) {
+        shared.plain.account("missing-name");
+        shared.plain.completed();
+    }
+
+    @Benchmark
+    public void completeWithWatcher(Shared shared) {
+        shared.logged.completed();
+    }
+
+    @Benchmark
+    public void lockedAccountAndComplete(Shared shared) {
+        shared.locked.account("missing-name");
+        shared.locked.completed();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void snapshot(Shared shared, Blackhole blackhole) {
+        blackhole.consume(shared.plain.snapshot());
+    }
+}
@@ -20,6 +20,12 @@ package org.opendaylight.plastic.implementation.author
 
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicInteger
+
 class TallySpec extends Specification {
 
     def "a tally can count completions"() {
@@ -117,4 +123,156 @@ class TallySpec extends Specification {
         then:
         8 * mockTally.writeToLog()
     }
+
+    def "a capped logarithmic log of one writes on every completion"() {
+        given:
+        Tally mockTally = Mock()
+        Tally.LogarithmicLogger instance = new Tally.LogarithmicLogger(mockTally, 1)
+        when:
+        5.times { i -> instance.completed(i+1) }
+        then:
+        5 * mockTally.writeToLog()
+    }
+
+    def "only one thread logs the step that reaches the cap"() {
+        given:
+        int threads = 8
+        AtomicInteger writes = new AtomicInteger()
+        AtomicInteger handovers = new AtomicInteger()
+        Tally counting = new Tally("unit-test") {
+            @Override
+            Tally writeToLog() {
+                writes.incrementAndGet()
+                this
+            }
+        }
+        Tally.LogarithmicLogger instance = new Tally.LogarithmicLogger(counting, 3) { // 1, 2, 3, 6, 9, ...
+            @Override
+            Tally.PeriodicLogger newPeriodic(int modulus) {
+                handovers.incrementAndGet()
+                Thread.sleep(100)
+                super.newPeriodic(modulus)
+            }
+        }
+        instance.completed(1)
+        ExecutorService executor = Executors.newFixedThreadPool(threads)
+        CountDownLatch go = new CountDownLatch(1)
+        when:
+        List<Future> done = (0..<threads).collect {
+            executor.submit {
+                go.await()
+                100.times { instance.completed(4) }
+            }
+        }
+        go.countDown()
+        done.each { it.get() }
+        then:
+        writes.get() == 2
+        handovers.get() == 1
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "a snapshot holds the counts at the time it was taken"() {
+        given:
+        Tally instance = new Tally("unit-test")
+        instance.account("red", "red", "green").completed()
+        when:
+        Tally.Snapshot found = instance.snapshot()
+        instance.account("red").completed()
+        then:
+        found.name == "unit-test"
+        found.completions == 1
+        found.counts == [ green: 1L, red: 2L ]
+        found.count("blue") == 0
+        instance.snapshot().count("red") == 3
+    }
+
+    def "children are added into the sum rather than replacing each other"() {
+        given:
+        Tally left = new Tally("left").account("shared", "shared")
+        Tally right = new Tally("right").account("shared")
+        new Tally("parent").adopt(left, right)
+        expect:
+        left.sumUpwards().asMap() == [ shared: 3, completions: 0 ]
+    }
+
+    def "no counts are lost when many threads share a tally"() {
+        given:
+        int threads = 16
+        int rounds = 20000
+        Tally child = new Tally("child")
+        Tally parent = new Tally("parent")
+        parent.adopt(child)
+        ExecutorService executor = Executors.newFixedThreadPool(threads)
+        CountDownLatch go = new CountDownLatch(1)
+        when:
+        List<Future> done = (0..<threads).collect { int t ->
+            executor.submit {
+                go.await()
+                rounds.times { int i ->
+                    Tally target = (i % 2 == 0) ? parent : child
+                    target.account("all", "thread-${t % 4}".toString())
+                    target.completed()
+                }
+            }
+        }
+        go.countDown()
+        done.each { it.get() }
+        Map<String,Integer> sum = child.sumUpwards().asMap()
+        then:
+        sum['completions'] == threads * rounds
+        sum['all'] == threads * rounds
+        (0..<4).every { sum["thread-${it}".toString()] == 4 * rounds }
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "a watcher sees every completion number exactly once across threads"() {
+        given:
+        int threads = 8
+        int rounds = 5000
+        AtomicInteger writes = new AtomicInteger()
+        Tally instance = new Tally("unit-test") {
+            @Override
+            Tally writeToLog() {
+                writes.incrementAndGet()
+                this
+            }
+        }
+        instance.writeToLogEvery(100)
+        ExecutorService executor = Executors.newFixedThreadPool(threads)
+        CountDownLatch go = new CountDownLatch(1)
+        when:
+        List<Future> done = (0..<threads).collect {
+            executor.submit {
+                go.await()
+                rounds.times { instance.completed() }
+            }
+        }
+        go.countDown()
+        done.each { it.get() }
+        then:
+        writes.get() == threads * rounds / 100
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "logging can start after counting has"() {
+        given:
+        AtomicInteger writes = new AtomicInteger()
+        Tally instance = new Tally("unit-test") {
+            @Override
+            Tally writeToLog() {
+                writes.incrementAndGet()
+                this
+            }
+        }
+        7.times { instance.completed() }
+        when:
+        instance.writeToLogEvery(10)
+        13.times { instance.completed() }
+        then:
+        writes.get() == 2
+    }
 }
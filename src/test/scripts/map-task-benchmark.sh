@@ -0,0 +1,12 @@
+#!/usr/bin/env bash
+
+// Run this from project root directory
+
+echo "This should be run on an idle machine to prevent clean results!"
+echo ""
+
+java -jar target/odl-plastic-*-fat-tests.jar MapTaskBenchmark
+
+# Update the message below if there is a new performance line
+#
+echo "No previous recorded run performance yet"